@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb;
+
+/**
+ * A point in time view of the document cache of a collection that is not held in memory
+ * in its entirety, see {@link CollectionMemoryBudget}.
+ *
+ * @version 1.0 19-Oct-2026
+ */
+public class CollectionCacheStats {
+  private final long hitCount;
+  private final long missCount;
+  private final long evictionCount;
+  private final long emergencyEvictionCount;
+  private final long cachedDocuments;
+  private final long cachedBytes;
+
+  public CollectionCacheStats(long hitCount, long missCount, long evictionCount, long emergencyEvictionCount,
+      long cachedDocuments, long cachedBytes) {
+    this.hitCount = hitCount;
+    this.missCount = missCount;
+    this.evictionCount = evictionCount;
+    this.emergencyEvictionCount = emergencyEvictionCount;
+    this.cachedDocuments = cachedDocuments;
+    this.cachedBytes = cachedBytes;
+  }
+
+  /**
+   * @return number of lookups by Id that were answered from memory
+   */
+  public long getHitCount() {
+    return hitCount;
+  }
+
+  /**
+   * @return number of lookups by Id that had to read the document from the .json file
+   */
+  public long getMissCount() {
+    return missCount;
+  }
+
+  /**
+   * @return number of documents dropped from memory to stay within the budget
+   */
+  public long getEvictionCount() {
+    return evictionCount;
+  }
+
+  /**
+   * @return number of times all cached documents were dropped because the JVM ran low on memory
+   */
+  public long getEmergencyEvictionCount() {
+    return emergencyEvictionCount;
+  }
+
+  public long getCachedDocuments() {
+    return cachedDocuments;
+  }
+
+  /**
+   * @return size of the cached documents, measured as the length of their JSON representation
+   */
+  public long getCachedBytes() {
+    return cachedBytes;
+  }
+
+  @Override
+  public String toString() {
+    return "CollectionCacheStats [hitCount=" + hitCount + ", missCount=" + missCount + ", evictionCount=" + evictionCount
+        + ", emergencyEvictionCount=" + emergencyEvictionCount + ", cachedDocuments=" + cachedDocuments
+        + ", cachedBytes=" + cachedBytes + "]";
+  }
+}
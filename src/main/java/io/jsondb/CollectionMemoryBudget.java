@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb;
+
+/**
+ * The amount of heap a collection may use for documents, either as a number of documents or as a
+ * number of bytes. A collection that has a budget keeps only the position of its documents in memory
+ * and caches as many of them as the budget allows, the least recently used ones are evicted first
+ * and read back from the .json file when they are needed again.
+ *
+ * The size of a document is measured as the length of its JSON representation, the actual heap
+ * used by a deserialized document is usually a small multiple of that.
+ *
+ * @version 1.0 19-Oct-2026
+ */
+public class CollectionMemoryBudget {
+  private final long maxDocuments;
+  private final long maxBytes;
+
+  private CollectionMemoryBudget(long maxDocuments, long maxBytes) {
+    this.maxDocuments = maxDocuments;
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * @param maxDocuments maximum number of documents kept in memory, 0 keeps none
+   * @return a budget limiting the number of cached documents
+   */
+  public static CollectionMemoryBudget ofDocuments(long maxDocuments) {
+    if (maxDocuments < 0) {
+      throw new InvalidJsonDbApiUsageException("Memory budget cannot be negative");
+    }
+    return new CollectionMemoryBudget(maxDocuments, -1);
+  }
+
+  /**
+   * @param maxBytes maximum size in bytes of the documents kept in memory, 0 keeps none
+   * @return a budget limiting the size of cached documents
+   */
+  public static CollectionMemoryBudget ofBytes(long maxBytes) {
+    if (maxBytes < 0) {
+      throw new InvalidJsonDbApiUsageException("Memory budget cannot be negative");
+    }
+    return new CollectionMemoryBudget(-1, maxBytes);
+  }
+
+  public boolean isByteBudget() {
+    return maxBytes >= 0;
+  }
+
+  public long getMaxDocuments() {
+    return maxDocuments;
+  }
+
+  public long getMaxBytes() {
+    return maxBytes;
+  }
+}
@@ -20,11 +20,16 @@
  */
 package io.jsondb;
 
+import java.io.File;
 import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -33,15 +38,25 @@ import java.util.TreeMap;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.reflections.Reflections;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import io.jsondb.DocumentRegistry.RegisteredDocument;
+import io.jsondb.DocumentRegistry.RegisteredField;
 import io.jsondb.annotation.Document;
 import io.jsondb.annotation.Id;
+import io.jsondb.annotation.Indexed;
 import io.jsondb.annotation.Secret;
+import io.jsondb.index.CollectionIndexes;
+import io.jsondb.index.IndexDefinition;
+import io.jsondb.index.IndexType;
 
 /**
  * @version 1.0 25-Sep-2016
  */
 public class CollectionMetaData {
+  private static Logger logger = LoggerFactory.getLogger(CollectionMetaData.class);
+
   private String collectionName;
   private String schemaVersion;
   private String actualSchemaVersion;
@@ -51,17 +66,46 @@ public class CollectionMetaData {
   private String idAnnotatedFieldName;
   private Method idAnnotatedFieldGetterMethod;
   private Method idAnnotatedFieldSetterMethod;
+  private MethodHandle idAnnotatedFieldGetterHandle;
 
   private final ReentrantReadWriteLock collectionLock;
 
   private List<String> secretAnnotatedFieldNames = new ArrayList<String>();
   private Map<String, Method> getterMethodMap = new TreeMap<String, Method>();
   private Map<String, Method> setterMethodMap = new TreeMap<String, Method>();
+  private Map<String, IndexDefinition> indexedFields = new LinkedHashMap<String, IndexDefinition>();
+  private final CollectionIndexes indexes;
 
   private boolean hasSecret;
   private boolean readonly;
 
+  private boolean lazy;
+  private boolean offsetIndexed;
+  private volatile boolean pinned;
+  private volatile boolean unloaded;
+  private volatile long lastAccessTime;
+
+  private Map<Long, Object> lineFingerprints;
+
+  private volatile long collectionFileLength = -1;
+  private volatile long collectionFileLastModified = -1;
+
   public CollectionMetaData(String collectionName, Class<?> clazz, String schemaVersion, Comparator<String> schemaComparator) {
+    this(collectionName, clazz, schemaVersion, schemaComparator, null);
+  }
+
+  /**
+   * Creates the metadata of a collection from the fields recorded in a compile time registry,
+   * only the declared methods of the classes that declare the fields are looked at.
+   *
+   * @param collectionName name of the collection
+   * @param clazz the class annotated with @Document
+   * @param schemaVersion schema version of the class
+   * @param schemaComparator comparator for schema versions
+   * @param registered the class as recorded in the registry, or null to reflect over the class
+   */
+  protected CollectionMetaData(String collectionName, Class<?> clazz, String schemaVersion, Comparator<String> schemaComparator,
+      RegisteredDocument registered) {
     super();
     this.collectionName = collectionName;
     this.schemaVersion = schemaVersion;
@@ -71,10 +115,32 @@ public class CollectionMetaData {
     this.collectionLock = new ReentrantReadWriteLock();
 
     //Populate the class metadata
-    setupClassMetadata(clazz);
+    if (null == registered) {
+      setupClassMetadata(clazz);
+    } else {
+      setupClassMetadata(clazz, registered);
+    }
 
     this.idAnnotatedFieldGetterMethod = getterMethodMap.get(idAnnotatedFieldName);
     this.idAnnotatedFieldSetterMethod = setterMethodMap.get(idAnnotatedFieldName);
+    this.idAnnotatedFieldGetterHandle = unreflectIdGetter(idAnnotatedFieldGetterMethod);
+
+    this.indexes = new CollectionIndexes(this);
+    for (IndexDefinition definition : indexedFields.values()) {
+      indexes.define(definition);
+    }
+  }
+
+  private static MethodHandle unreflectIdGetter(Method getterMethod) {
+    if (null == getterMethod) {
+      return null;
+    }
+    try {
+      return MethodHandles.lookup().unreflect(getterMethod).asType(MethodType.methodType(Object.class, Object.class));
+    } catch (IllegalAccessException e) {
+      //Not accessible, getId() falls back to Util.getIdForEntity() which reports the problem.
+      return null;
+    }
   }
 
   private void setupClassMetadata(final Class<?> clazz) {
@@ -94,6 +160,10 @@ public class CollectionMetaData {
           this.secretAnnotatedFieldNames.add(fieldName);
           this.hasSecret = true;
         }
+        if (a.annotationType().equals(Indexed.class)) {
+          Indexed indexed = (Indexed) a;
+          this.indexedFields.put(fieldName, indexDefinition(fieldName, indexed.type(), indexed.unique()));
+        }
       }
 
       String getterMethodName = formGetterMethodName(f);
@@ -110,6 +180,78 @@ public class CollectionMetaData {
     if (clazz.getSuperclass() != Object.class) setupClassMetadata(clazz.getSuperclass());
   }
 
+  private void setupClassMetadata(final Class<?> clazz, RegisteredDocument registered) {
+    Map<Class<?>, Map<String, Method>> declaredMethods = new HashMap<Class<?>, Map<String, Method>>();
+    for (RegisteredField f : registered.getFields()) {
+      String fieldName = f.getName();
+      if (f.isId()) {
+        this.idAnnotatedFieldName = fieldName;
+      }
+      if (f.isSecret()) {
+        this.secretAnnotatedFieldNames.add(fieldName);
+        this.hasSecret = true;
+      }
+      if (f.isIndexed()) {
+        IndexType type = (null == f.getIndexType()) ? IndexType.HASH : IndexType.valueOf(f.getIndexType());
+        this.indexedFields.put(fieldName, indexDefinition(fieldName, type, f.isUniqueIndex()));
+      }
+
+      Class<?> declaringClass = findDeclaringClass(clazz, f.getDeclaringClass());
+      Map<String, Method> methods = declaredMethods.get(declaringClass);
+      if (null == methods) {
+        methods = new HashMap<String, Method>();
+        //Like setupClassMetadata(Class) the last method with a matching name wins
+        for (Method m : declaringClass.getDeclaredMethods()) {
+          methods.put(m.getName(), m);
+        }
+        declaredMethods.put(declaringClass, methods);
+      }
+      Method getterMethod = (null == f.getGetter()) ? null : methods.get(f.getGetter());
+      if (null != getterMethod) {
+        this.getterMethodMap.put(fieldName, getterMethod);
+      }
+      Method setterMethod = (null == f.getSetter()) ? null : methods.get(f.getSetter());
+      if (null != setterMethod) {
+        this.setterMethodMap.put(fieldName, setterMethod);
+      }
+    }
+  }
+
+  private static IndexDefinition indexDefinition(String fieldName, IndexType type, boolean unique) {
+    IndexDefinition definition;
+    switch (type) {
+      case SORTED:
+        definition = IndexDefinition.sorted(fieldName);
+        break;
+      case FULL_TEXT:
+        definition = IndexDefinition.fullText(fieldName);
+        break;
+      case BITMAP:
+        definition = IndexDefinition.bitmap(fieldName);
+        break;
+      case MULTIKEY:
+        definition = IndexDefinition.multikey(fieldName);
+        break;
+      case SPATIAL:
+        throw new InvalidJsonDbApiUsageException("Field '" + fieldName + "' cannot be annotated with a spatial index,"
+            + " a spatial index spans a latitude and a longitude field and is created with IndexDefinition.spatial()");
+      case HASH:
+      default:
+        definition = IndexDefinition.hash(fieldName);
+    }
+    return unique ? definition.unique() : definition;
+  }
+
+  private static Class<?> findDeclaringClass(Class<?> clazz, String declaringClassName) {
+    for (Class<?> c = clazz; null != c && c != Object.class; c = c.getSuperclass()) {
+      if (c.getName().equals(declaringClassName)) {
+        return c;
+      }
+    }
+    throw new JsonDBException("Registry of @Document classes is out of date, " + declaringClassName
+        + " is not a super class of " + clazz.getName() + ", recompile the class");
+  }
+
   protected ReentrantReadWriteLock getCollectionLock() {
     return collectionLock;
   }
@@ -153,6 +295,24 @@ public class CollectionMetaData {
     return idAnnotatedFieldSetterMethod;
   }
 
+  /**
+   * Extracts the value of the @Id annotated field using a method handle resolved once for this
+   * collection, avoiding the reflective invocation done by {@link Util#getIdForEntity(Object, Method)}.
+   *
+   * @param document the POJO we want the Id of
+   * @return the Id of the document or null if it has none
+   */
+  public Object getId(Object document) {
+    if (null == idAnnotatedFieldGetterHandle) {
+      return Util.getIdForEntity(document, idAnnotatedFieldGetterMethod);
+    }
+    try {
+      return (Object) idAnnotatedFieldGetterHandle.invokeExact(document);
+    } catch (Throwable t) {
+      throw new InvalidJsonDbApiUsageException("Failed to invoke getter method for a idAnnotated field, the method threw a exception", t);
+    }
+  }
+
   public List<String> getSecretAnnotatedFieldNames() {
     return secretAnnotatedFieldNames;
   }
@@ -177,6 +337,88 @@ public class CollectionMetaData {
     return readonly;
   }
 
+  public boolean isLazy() {
+    return lazy;
+  }
+
+  protected void setLazy(boolean lazy) {
+    this.lazy = lazy;
+  }
+
+  public boolean isOffsetIndexed() {
+    return offsetIndexed;
+  }
+
+  protected void setOffsetIndexed(boolean offsetIndexed) {
+    this.offsetIndexed = offsetIndexed;
+  }
+
+  /**
+   * @return the secondary indexes of the collection, guarded by the collection lock
+   */
+  public CollectionIndexes getIndexes() {
+    return indexes;
+  }
+
+  public boolean isPinned() {
+    return pinned;
+  }
+
+  protected void setPinned(boolean pinned) {
+    this.pinned = pinned;
+  }
+
+  /**
+   * @return true if this is a lazy collection whose file exists but whose documents are not in memory
+   */
+  public boolean isUnloaded() {
+    return unloaded;
+  }
+
+  protected void setUnloaded(boolean unloaded) {
+    this.unloaded = unloaded;
+  }
+
+  public long getLastAccessTime() {
+    return lastAccessTime;
+  }
+
+  protected void touch() {
+    this.lastAccessTime = System.currentTimeMillis();
+  }
+
+  /**
+   * @return the document read from each line of the collection file keyed by the fingerprint of
+   *         the line, or null if the collection was not read with incremental reloads enabled
+   */
+  protected Map<Long, Object> getLineFingerprints() {
+    return lineFingerprints;
+  }
+
+  protected void setLineFingerprints(Map<Long, Object> lineFingerprints) {
+    this.lineFingerprints = lineFingerprints;
+  }
+
+  /**
+   * Remembers the size and modification time of the collection file as it was when
+   * it was last read into or written from memory by this instance.
+   *
+   * @param collectionFile the .json file backing this collection
+   */
+  public void recordCollectionFileState(File collectionFile) {
+    this.collectionFileLength = collectionFile.length();
+    this.collectionFileLastModified = collectionFile.lastModified();
+  }
+
+  /**
+   * @param collectionFile the .json file backing this collection
+   * @return true if the file has not been changed by anyone else since it was last read or written,
+   *              i.e. the documents in memory are exactly what the file holds
+   */
+  public boolean isCollectionFileStateCurrent(File collectionFile) {
+    return collectionFile.length() == collectionFileLength && collectionFile.lastModified() == collectionFileLastModified;
+  }
+
   private String formGetterMethodName(Field field) {
     String fieldName = field.getName();
     if (field.getType().equals(boolean.class)) {
@@ -205,23 +447,74 @@ public class CollectionMetaData {
   }*/
 
   /**
-   * A utility builder method to scan through the specified package and find all classes/POJOs
-   * that are annotated with the @Document annotation.
+   * A utility builder method to find all classes/POJOs that are annotated with the @Document annotation.
+   *
+   * If classes were registered using {@link JsonDBConfig#registerEntityClasses(Class...)} exactly those
+   * are used. Otherwise the classes of the baseScanPackage found in the registries written at compile time
+   * by {@link io.jsondb.annotation.processing.DocumentRegistryProcessor} are used, and only if there are
+   * none the baseScanPackage is scanned. As the package is then not scanned at all, classes compiled
+   * without the processor are missed, a warning is logged to point that out.
    *
    * @param dbConfig the object that holds all the baseScanPackage and other settings.
    * @return A Map of collection classes/POJOs
    */
   public static Map<String, CollectionMetaData> builder(JsonDBConfig dbConfig) {
     Map<String, CollectionMetaData> collectionMetaData = new LinkedHashMap<String, CollectionMetaData>();
+    if (!dbConfig.getEntityClasses().isEmpty()) {
+      for (Class<?> c : dbConfig.getEntityClasses()) {
+        addCollectionMetaData(collectionMetaData, dbConfig, c, null);
+      }
+      return collectionMetaData;
+    }
+
+    ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+    if (null == classLoader) {
+      classLoader = CollectionMetaData.class.getClassLoader();
+    }
+    String basePackage = (null == dbConfig.getBaseScanPackage()) ? "" : dbConfig.getBaseScanPackage();
+    for (RegisteredDocument registered : DocumentRegistry.load(classLoader)) {
+      if (isInPackage(registered.getClassName(), basePackage)) {
+        Class<?> c;
+        try {
+          c = Class.forName(registered.getClassName(), false, classLoader);
+        } catch (ClassNotFoundException e) {
+          throw new JsonDBException("Registry of @Document classes lists " + registered.getClassName() + " which cannot be loaded", e);
+        }
+        addCollectionMetaData(collectionMetaData, dbConfig, c, registered);
+      }
+    }
+    if (!collectionMetaData.isEmpty()) {
+      logger.warn("Using the compile time registry for the {} @Document classes of package '{}' instead of scanning it, "
+          + "classes compiled without the DocumentRegistryProcessor are not found unless registered with "
+          + "JsonDBConfig.registerEntityClasses()", collectionMetaData.size(), basePackage);
+      return collectionMetaData;
+    }
+
     Reflections reflections = new Reflections(dbConfig.getBaseScanPackage());
     Set<Class<?>> docClasses = reflections.getTypesAnnotatedWith(Document.class);
     for (Class<?> c : docClasses) {
-      Document d = c.getAnnotation(Document.class);
-      String collectionName = d.collection();
-      String version = d.schemaVersion();
-      CollectionMetaData cmd = new CollectionMetaData(collectionName, c, version, dbConfig.getSchemaComparator());
-      collectionMetaData.put(collectionName, cmd);
+      addCollectionMetaData(collectionMetaData, dbConfig, c, null);
     }
     return collectionMetaData;
   }
+
+  /**
+   * Matches class names the way Reflections matches them against the baseScanPackage, a class is in
+   * the package if it is in it or in one of its sub packages and every class is in the package "".
+   */
+  private static boolean isInPackage(String className, String packageName) {
+    return packageName.isEmpty() || className.startsWith(packageName + ".");
+  }
+
+  private static void addCollectionMetaData(Map<String, CollectionMetaData> collectionMetaData, JsonDBConfig dbConfig,
+      Class<?> c, RegisteredDocument registered) {
+    Document d = c.getAnnotation(Document.class);
+    String collectionName = d.collection();
+    String version = d.schemaVersion();
+    CollectionMetaData cmd = new CollectionMetaData(collectionName, c, version, dbConfig.getSchemaComparator(), registered);
+    //A in-memory database has nowhere to read documents back from, so it keeps all of them at all times
+    cmd.setLazy(!dbConfig.isInMemory() && (d.lazy() || dbConfig.isLazyLoading()));
+    cmd.setOffsetIndexed(!dbConfig.isInMemory() && (d.offsetIndexed() || null != dbConfig.getMemoryBudget(collectionName)));
+    collectionMetaData.put(collectionName, cmd);
+  }
 }
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The bounds of the cache of query results of a collection. A collection that has one caches the
+ * results of the finds by a JXPath query passed as a String, keyed by the query, the comparator and
+ * the slice, and drops all of them whenever a document of the collection is inserted, saved, upserted,
+ * modified or removed, or the collection is reloaded. The results are held serialized, with the values
+ * of @Secret fields encrypted, and every find answered from the cache returns fresh copies.
+ *
+ * Comparators are told apart by identity, a comparator created for every find never finds a cached result.
+ *
+ * @version 1.0 19-Oct-2026
+ */
+public class CollectionResultCache {
+  private final long maxResults;
+  private final long timeToLiveMillis;
+
+  private CollectionResultCache(long maxResults, long timeToLiveMillis) {
+    this.maxResults = maxResults;
+    this.timeToLiveMillis = timeToLiveMillis;
+  }
+
+  /**
+   * @param maxResults maximum number of query results cached, the least recently used ones are evicted first
+   * @param timeToLive how long a result is cached at most, 0 for as long as the collection does not change
+   * @param unit unit of the time to live
+   * @return the bounds of a result cache
+   */
+  public static CollectionResultCache of(long maxResults, long timeToLive, TimeUnit unit) {
+    if (maxResults < 1) {
+      throw new InvalidJsonDbApiUsageException("Result cache must hold at least one result");
+    }
+    if (timeToLive < 0) {
+      throw new InvalidJsonDbApiUsageException("Time to live of cached results cannot be negative");
+    }
+    return new CollectionResultCache(maxResults, unit.toMillis(timeToLive));
+  }
+
+  public long getMaxResults() {
+    return maxResults;
+  }
+
+  /**
+   * @return how long in milliseconds a result is cached at most, 0 if it has no time to live
+   */
+  public long getTimeToLiveMillis() {
+    return timeToLiveMillis;
+  }
+}
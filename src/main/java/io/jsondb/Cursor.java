@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.jsondb.crypto.CryptoUtil;
+import io.jsondb.crypto.ICipher;
+
+/**
+ * The documents found by a query, copied and decrypted one at a time as they are read.
+ *
+ * A cursor is a snapshot: the query runs under the read lock of the collection when the cursor is
+ * opened, and the cursor keeps the documents found then, exactly as they were, without holding the
+ * lock. Documents inserted, modified or removed afterwards do not change what it returns, as the
+ * collection replaces its documents rather than change them. A cursor is not safe to read from many
+ * threads at once. Closing it, or reading it to the end, drops the documents it still holds.
+ *
+ * <pre>
+ * try (Cursor&lt;Instance&gt; cursor = jsonDBTemplate.cursor("/.[hostname='x']", Instance.class)) {
+ *   while (cursor.hasNext()) {
+ *     export(cursor.next());
+ *   }
+ * }
+ * </pre>
+ *
+ * @version 1.0 19-Oct-2026
+ */
+public class Cursor<T> implements Iterator<T>, AutoCloseable {
+  private Logger logger = LoggerFactory.getLogger(Cursor.class);
+
+  private List<T> documents;
+  private final CollectionMetaData cmd;
+  private final ICipher cipher;
+  private int position;
+
+  /**
+   * @param documents the documents found, as held by the collection, the cursor owns the list
+   * @param cmd metadata of the collection
+   * @param cipher the cipher to decrypt the @Secret fields with, null if they are not encrypted
+   */
+  Cursor(List<T> documents, CollectionMetaData cmd, ICipher cipher) {
+    this.documents = documents;
+    this.cmd = cmd;
+    this.cipher = cipher;
+  }
+
+  /**
+   * @return the number of documents found by the query, read or not
+   */
+  public int getCount() {
+    return (null == documents) ? position : documents.size();
+  }
+
+  /* (non-Javadoc)
+   * @see java.util.Iterator#hasNext()
+   */
+  @Override
+  public boolean hasNext() {
+    return null != documents && position < documents.size();
+  }
+
+  /* (non-Javadoc)
+   * @see java.util.Iterator#next()
+   */
+  @SuppressWarnings("unchecked")
+  @Override
+  public T next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    //The cursor does not need the document once it is copied
+    T document = documents.set(position++, null);
+    if (position == documents.size()) {
+      close();
+    }
+    Object obj = Util.deepCopy(document);
+    if (null != cipher && null != obj) {
+      try {
+        CryptoUtil.decryptFields(obj, cmd, cipher);
+      } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
+        logger.error("Error when decrypting value for a @Secret annotated field for entity: " + cmd.getCollectionName(), e);
+        throw new JsonDBException("Error when decrypting value for a @Secret annotated field for entity: "
+            + cmd.getCollectionName(), e);
+      }
+    }
+    return (T) obj;
+  }
+
+  /**
+   * @return a sequential stream of the documents not read yet, which closes the cursor when it is closed
+   */
+  public Stream<T> stream() {
+    int remaining = hasNext() ? documents.size() - position : 0;
+    Spliterator<T> spliterator = Spliterators.spliterator(this, remaining, Spliterator.ORDERED | Spliterator.NONNULL);
+    return StreamSupport.stream(spliterator, false).onClose(new Runnable() {
+      @Override
+      public void run() {
+        close();
+      }
+    });
+  }
+
+  /**
+   * Drops the documents not read yet
+   */
+  @Override
+  public void close() {
+    if (null != documents) {
+      position = documents.size();
+      documents = null;
+    }
+  }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.type.CollectionType;
+
+/**
+ * Reads the registry of @Document classes written at compile time by
+ * {@link io.jsondb.annotation.processing.DocumentRegistryProcessor}. Every jar or class folder
+ * may hold one, the registries of all of them are merged.
+ *
+ * @version 1.0 19-Oct-2026
+ */
+public class DocumentRegistry {
+  private static Logger logger = LoggerFactory.getLogger(DocumentRegistry.class);
+
+  /**
+   * Location of the registry within a jar or class folder
+   */
+  public static final String REGISTRY_RESOURCE = "META-INF/jsondb/documents.json";
+
+  private DocumentRegistry() {
+  }
+
+  /**
+   * Reads all registries visible to the given class loader.
+   *
+   * @param classLoader the class loader to look for registries with
+   * @return the registered documents in the order they were found, each class only once
+   */
+  public static Collection<RegisteredDocument> load(ClassLoader classLoader) {
+    Map<String, RegisteredDocument> documents = new LinkedHashMap<String, RegisteredDocument>();
+    ObjectMapper mapper = new ObjectMapper();
+    CollectionType listType = mapper.getTypeFactory().constructCollectionType(List.class, RegisteredDocument.class);
+    try {
+      Enumeration<URL> registries = classLoader.getResources(REGISTRY_RESOURCE);
+      while (registries.hasMoreElements()) {
+        URL registry = registries.nextElement();
+        InputStream is = registry.openStream();
+        try {
+          List<RegisteredDocument> registered = mapper.readValue(is, listType);
+          for (RegisteredDocument document : registered) {
+            if (!documents.containsKey(document.getClassName())) {
+              documents.put(document.getClassName(), document);
+            }
+          }
+        } finally {
+          is.close();
+        }
+      }
+    } catch (IOException e) {
+      logger.error("Failed to read the registry of @Document classes", e);
+      throw new JsonDBException("Failed to read the registry of @Document classes", e);
+    }
+    return documents.values();
+  }
+
+  /**
+   * A class annotated with @Document and the fields of it and its super classes
+   */
+  public static class RegisteredDocument {
+    private String className;
+    private List<RegisteredField> fields = new ArrayList<RegisteredField>();
+
+    public String getClassName() {
+      return className;
+    }
+    public void setClassName(String className) {
+      this.className = className;
+    }
+    /**
+     * @return the fields in the order {@link CollectionMetaData} would have found them
+     */
+    public List<RegisteredField> getFields() {
+      return fields;
+    }
+    public void setFields(List<RegisteredField> fields) {
+      this.fields = fields;
+    }
+  }
+
+  /**
+   * A field of a registered class together with the names of its getter and setter methods,
+   * which are null if the declaring class has no such method.
+   */
+  public static class RegisteredField {
+    private String declaringClass;
+    private String name;
+    private String getter;
+    private String setter;
+    private boolean id;
+    private boolean secret;
+    private boolean indexed;
+    private boolean uniqueIndex;
+    private String indexType;
+
+    public String getDeclaringClass() {
+      return declaringClass;
+    }
+    public void setDeclaringClass(String declaringClass) {
+      this.declaringClass = declaringClass;
+    }
+    public String getName() {
+      return name;
+    }
+    public void setName(String name) {
+      this.name = name;
+    }
+    public String getGetter() {
+      return getter;
+    }
+    public void setGetter(String getter) {
+      this.getter = getter;
+    }
+    public String getSetter() {
+      return setter;
+    }
+    public void setSetter(String setter) {
+      this.setter = setter;
+    }
+    public boolean isId() {
+      return id;
+    }
+    public void setId(boolean id) {
+      this.id = id;
+    }
+    public boolean isSecret() {
+      return secret;
+    }
+    public void setSecret(boolean secret) {
+      this.secret = secret;
+    }
+    public boolean isIndexed() {
+      return indexed;
+    }
+    public void setIndexed(boolean indexed) {
+      this.indexed = indexed;
+    }
+    public boolean isUniqueIndex() {
+      return uniqueIndex;
+    }
+    public void setUniqueIndex(boolean uniqueIndex) {
+      this.uniqueIndex = uniqueIndex;
+    }
+    public String getIndexType() {
+      return indexType;
+    }
+    public void setIndexType(String indexType) {
+      this.indexType = indexType;
+    }
+  }
+}
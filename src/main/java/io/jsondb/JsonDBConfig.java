@@ -23,14 +23,23 @@ package io.jsondb;
 import java.io.File;
 import java.nio.charset.Charset;
 import java.nio.file.Path;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
+import io.jsondb.annotation.Document;
 import io.jsondb.crypto.ICipher;
 
 /**
@@ -47,18 +56,32 @@ public class JsonDBConfig {
   private String baseScanPackage;
   private ICipher cipher;
   private boolean compatibilityMode;
+  private boolean lazyLoading;
+  private long collectionIdleTimeout;
+  private boolean snapshotsEnabled;
+  private long snapshotInterval;
+  private int documentCacheSize = 1000;
+  private int preparedQueryCacheSize = 256;
+  private int parallelQueryThreshold;
+  private ForkJoinPool queryPool;
+  private Map<String, CollectionMemoryBudget> memoryBudgets = new ConcurrentHashMap<String, CollectionMemoryBudget>();
+  private Map<String, CollectionResultCache> resultCaches = new ConcurrentHashMap<String, CollectionResultCache>();
+  private double lowMemoryThreshold;
+  private boolean incrementalReload;
+  private boolean inMemory;
+  private Set<Class<?>> entityClasses = new LinkedHashSet<Class<?>>();
 
   //References
   private ObjectMapper objectMapper;
   private Comparator<String> schemaComparator;
+  private Map<Class<?>, ObjectReader> objectReaders = new ConcurrentHashMap<Class<?>, ObjectReader>();
+  private volatile ObjectMapper snapshotMapper;
 
   public JsonDBConfig(String dbFilesLocationString, String baseScanPackage,
       ICipher cipher, boolean compatibilityMode, Comparator<String> schemaComparator) {
 
     this.charset = Charset.forName("UTF-8");
-    this.dbFilesLocationString = dbFilesLocationString;
-    this.dbFilesLocation = new File(dbFilesLocationString);
-    this.dbFilesPath = dbFilesLocation.toPath();
+    setDbFilesLocationString(dbFilesLocationString);
     this.baseScanPackage = baseScanPackage;
     this.cipher = cipher;
 
@@ -88,10 +111,18 @@ public class JsonDBConfig {
   public String getDbFilesLocationString() {
     return dbFilesLocationString;
   }
+  /**
+   * @param dbFilesLocationString the directory holding the collection files, may only be null for a in-memory database
+   */
   public void setDbFilesLocationString(String dbFilesLocationString) {
     this.dbFilesLocationString = dbFilesLocationString;
-    this.dbFilesLocation = new File(dbFilesLocationString);
-    this.dbFilesPath = dbFilesLocation.toPath();
+    if (null == dbFilesLocationString) {
+      this.dbFilesLocation = null;
+      this.dbFilesPath = null;
+    } else {
+      this.dbFilesLocation = new File(dbFilesLocationString);
+      this.dbFilesPath = dbFilesLocation.toPath();
+    }
   }
   public File getDbFilesLocation() {
     return dbFilesLocation;
@@ -122,14 +153,303 @@ public class JsonDBConfig {
     } else {
       objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, true);
     }
+    objectReaders.clear();
+    snapshotMapper = null;
   }
   public ObjectMapper getObjectMapper() {
     return objectMapper;
   }
   public void setObjectMapper(ObjectMapper objectMapper) {
     this.objectMapper = objectMapper;
+    objectReaders.clear();
+    snapshotMapper = null;
+  }
+  /**
+   * Returns a ObjectMapper that writes and reads the binary Smile format, it is a copy of
+   * the current ObjectMapper so snapshots see the same modules and features as the .json files.
+   *
+   * @return a Smile backed copy of the current ObjectMapper
+   */
+  public ObjectMapper getSnapshotMapper() {
+    ObjectMapper mapper = snapshotMapper;
+    if (null == mapper) {
+      mapper = objectMapper.copyWith(new SmileFactory());
+      snapshotMapper = mapper;
+    }
+    return mapper;
+  }
+  /**
+   * Returns a ObjectReader bound to the given type. Readers are created once per type and
+   * reused, so the deserializer lookup is not repeated for every document that is read.
+   * The cache is discarded whenever the ObjectMapper or the compatibility mode changes.
+   *
+   * @param type the class the reader should produce
+   * @return a reader for the type, created from the current ObjectMapper
+   */
+  public ObjectReader getObjectReader(Class<?> type) {
+    ObjectReader reader = objectReaders.get(type);
+    if (null == reader) {
+      reader = objectMapper.readerFor(type);
+      objectReaders.put(type, reader);
+    }
+    return reader;
   }
   public Comparator<String> getSchemaComparator() {
     return schemaComparator;
   }
+
+  /**
+   * @return true if all collections are loaded lazily, irrespective of {@link io.jsondb.annotation.Document#lazy()}
+   */
+  public boolean isLazyLoading() {
+    return lazyLoading;
+  }
+  /**
+   * Makes every collection lazily loaded, collections can still opt in individually
+   * using {@link io.jsondb.annotation.Document#lazy()} when this is false.
+   *
+   * @param lazyLoading true to load all collections on first access
+   */
+  public void setLazyLoading(boolean lazyLoading) {
+    this.lazyLoading = lazyLoading;
+  }
+  /**
+   * @return time in milliseconds after which a idle lazy collection is unloaded, 0 means never
+   */
+  public long getCollectionIdleTimeout() {
+    return collectionIdleTimeout;
+  }
+  /**
+   * Sets the time in milliseconds a lazily loaded collection may remain untouched before
+   * it is released from memory. It will be transparently loaded again on next access.
+   *
+   * @param collectionIdleTimeout idle time in milliseconds, 0 disables unloading
+   */
+  public void setCollectionIdleTimeout(long collectionIdleTimeout) {
+    this.collectionIdleTimeout = collectionIdleTimeout;
+  }
+  /**
+   * @return true if collections are checkpointed into binary snapshots and loaded from them on startup
+   */
+  public boolean isSnapshotsEnabled() {
+    return snapshotsEnabled;
+  }
+  /**
+   * Enables binary snapshot checkpoints. A snapshot is written for every loaded collection
+   * at shutdown, on {@link io.jsondb.JsonDBOperations#checkpoint()} and optionally on a schedule.
+   * On startup a snapshot is used instead of the .json file only if the file has not changed since.
+   *
+   * @param snapshotsEnabled true to write and use snapshots
+   */
+  public void setSnapshotsEnabled(boolean snapshotsEnabled) {
+    this.snapshotsEnabled = snapshotsEnabled;
+  }
+  /**
+   * @return time in milliseconds between scheduled checkpoints, 0 means only at shutdown or on demand
+   */
+  public long getSnapshotInterval() {
+    return snapshotInterval;
+  }
+  /**
+   * Sets the time in milliseconds between two scheduled checkpoints, only used when
+   * snapshots are enabled.
+   *
+   * @param snapshotInterval interval in milliseconds, 0 disables scheduled checkpoints
+   */
+  public void setSnapshotInterval(long snapshotInterval) {
+    this.snapshotInterval = snapshotInterval;
+  }
+  /**
+   * @return maximum number of documents kept in memory for every offset indexed collection
+   */
+  public int getDocumentCacheSize() {
+    return documentCacheSize;
+  }
+  /**
+   * Sets how many documents looked up by Id are kept in memory for each collection annotated with
+   * {@link io.jsondb.annotation.Document#offsetIndexed()} that has no memory budget of its own,
+   * the least recently used ones are dropped first. Must be set before the template is created.
+   *
+   * @param documentCacheSize number of documents, 0 disables the cache
+   */
+  public void setDocumentCacheSize(int documentCacheSize) {
+    this.documentCacheSize = documentCacheSize;
+  }
+  /**
+   * @return maximum number of compiled JXPath queries kept for the queries passed as Strings
+   */
+  public int getPreparedQueryCacheSize() {
+    return preparedQueryCacheSize;
+  }
+  /**
+   * Sets how many of the JXPath queries passed as Strings to the find and modify methods are kept
+   * compiled, the least recently used ones are dropped first. Must be set before the template is created.
+   *
+   * @param preparedQueryCacheSize number of queries, 0 compiles every query anew
+   */
+  public void setPreparedQueryCacheSize(int preparedQueryCacheSize) {
+    this.preparedQueryCacheSize = preparedQueryCacheSize;
+  }
+  /**
+   * @return the number of documents from which the work of a query is done in parallel, 0 if it never is
+   */
+  public int getParallelQueryThreshold() {
+    return parallelQueryThreshold;
+  }
+  /**
+   * Sets the number of documents from which find, findAll and the findAll...AndModify/Remove methods
+   * split their work across the threads of the {@link #getQueryPool()}: a query that reads that many
+   * documents is evaluated on partitions of them, and the found documents are copied and decrypted
+   * in partitions, which are merged back in the order of the documents. Collections annotated with
+   * {@link io.jsondb.annotation.Document#offsetIndexed()} or with a memory budget are still read on
+   * the calling thread. A custom {@link io.jsondb.crypto.ICipher} must be safe to use from many threads.
+   *
+   * @param parallelQueryThreshold number of documents, 0 runs every query on the calling thread
+   */
+  public void setParallelQueryThreshold(int parallelQueryThreshold) {
+    this.parallelQueryThreshold = parallelQueryThreshold;
+  }
+  /**
+   * @return the pool parallel queries run on, the common pool unless another was set
+   */
+  public ForkJoinPool getQueryPool() {
+    return (null == queryPool) ? ForkJoinPool.commonPool() : queryPool;
+  }
+  /**
+   * Sets the pool parallel queries run on, see {@link #setParallelQueryThreshold(int)}
+   *
+   * @param queryPool the pool, null for the common pool
+   */
+  public void setQueryPool(ForkJoinPool queryPool) {
+    this.queryPool = queryPool;
+  }
+  /**
+   * @param collectionName name of the collection
+   * @return the memory budget of the collection or null if it has none
+   */
+  public CollectionMemoryBudget getMemoryBudget(String collectionName) {
+    return memoryBudgets.get(collectionName);
+  }
+  /**
+   * Limits the memory used by the documents of a collection. A collection with a budget keeps
+   * only the position of its documents in memory, exactly like a collection annotated with
+   * {@link io.jsondb.annotation.Document#offsetIndexed()}, and caches as many documents as the
+   * budget allows. Its secondary indexes are still kept in memory, they hold the indexed values and
+   * the Ids of the documents but not the documents. Must be set before the template is created.
+   *
+   * @param collectionName name of the collection
+   * @param budget the budget, or null to hold the collection in memory in its entirety
+   */
+  public void setMemoryBudget(String collectionName, CollectionMemoryBudget budget) {
+    if (null == budget) {
+      memoryBudgets.remove(collectionName);
+    } else {
+      memoryBudgets.put(collectionName, budget);
+    }
+  }
+  /**
+   * @param collectionName name of the collection
+   * @return the bounds of the result cache of the collection or null if it has none
+   */
+  public CollectionResultCache getResultCache(String collectionName) {
+    return resultCaches.get(collectionName);
+  }
+  /**
+   * Caches the results of the finds by a JXPath query of a collection, see {@link CollectionResultCache}.
+   * Must be set before the template is created.
+   *
+   * @param collectionName name of the collection
+   * @param resultCache the bounds of the cache, or null to evaluate every find
+   */
+  public void setResultCache(String collectionName, CollectionResultCache resultCache) {
+    if (null == resultCache) {
+      resultCaches.remove(collectionName);
+    } else {
+      resultCaches.put(collectionName, resultCache);
+    }
+  }
+  /**
+   * @return fraction of the heap above which cached documents are dropped, 0 means never
+   */
+  public double getLowMemoryThreshold() {
+    return lowMemoryThreshold;
+  }
+  /**
+   * Sets the fraction of the maximum size of the heap memory pools beyond which the JVM is
+   * considered low on memory. When that happens all documents cached by collections with a
+   * memory budget are dropped at once. The threshold is set on the heap memory pools unless
+   * something else has already set one, in which case that one is honored. The thresholds are
+   * shared by all databases of the JVM, the first one sets them and they are reset once the last
+   * one is shut down.
+   *
+   * @param lowMemoryThreshold a value between 0 and 1, 0 disables the emergency eviction
+   */
+  public void setLowMemoryThreshold(double lowMemoryThreshold) {
+    if (lowMemoryThreshold < 0 || lowMemoryThreshold > 1) {
+      throw new InvalidJsonDbApiUsageException("Low memory threshold must be between 0 and 1");
+    }
+    this.lowMemoryThreshold = lowMemoryThreshold;
+  }
+  /**
+   * @return true if reloads only parse the lines of a collection file that changed
+   */
+  public boolean isIncrementalReload() {
+    return incrementalReload;
+  }
+  /**
+   * Enables incremental reloads. A fingerprint of every line is kept when a collection is read,
+   * on a later reload only lines with a unknown fingerprint are parsed, all other documents are
+   * taken over from memory. Listeners are told exactly which documents were added, removed or
+   * changed, see {@link io.jsondb.events.CollectionFileChangeListener#collectionReloaded}.
+   *
+   * Costs a few dozen bytes of memory per document, only applies to UTF-8 encoded collections
+   * that are held in memory in their entirety.
+   *
+   * @param incrementalReload true to reload incrementally
+   */
+  public void setIncrementalReload(boolean incrementalReload) {
+    this.incrementalReload = incrementalReload;
+  }
+  /**
+   * @return true if the database lives in memory only
+   */
+  public boolean isInMemory() {
+    return inMemory;
+  }
+  /**
+   * Keeps the database in memory only, the template then does no file I/O of its own: it creates
+   * no files, no lock directory and starts no threads. Every collection is held in memory in its
+   * entirety, lazy loading, memory budgets, snapshots and file change listeners do not apply.
+   *
+   * If a dbFiles location is given its collections are read once when the template is created and
+   * again on {@link io.jsondb.JsonDBOperations#reLoadDB()}, but they are never written to. The database
+   * can be written to and read from disk on demand using {@link io.jsondb.JsonDBOperations#backup(String)}
+   * and {@link io.jsondb.JsonDBOperations#restore(String, boolean)}. Must be set before the template is created.
+   *
+   * @param inMemory true to keep the database in memory only
+   */
+  public void setInMemory(boolean inMemory) {
+    this.inMemory = inMemory;
+  }
+  /**
+   * @return the classes registered using {@link #registerEntityClasses(Class...)}
+   */
+  public Set<Class<?>> getEntityClasses() {
+    return Collections.unmodifiableSet(entityClasses);
+  }
+  /**
+   * Registers classes annotated with @Document explicitly. When any class has been registered
+   * exactly the registered classes become collections, neither the registry written at compile time
+   * nor the baseScanPackage are looked at. Must be called before the template is created.
+   *
+   * @param entityClasses the classes annotated with @Document
+   */
+  public void registerEntityClasses(Class<?>... entityClasses) {
+    for (Class<?> entityClass : entityClasses) {
+      if (null == entityClass.getAnnotation(Document.class)) {
+        throw new InvalidJsonDbApiUsageException("Entity '" + entityClass.getSimpleName() + "' is not annotated with annotation @Document");
+      }
+    }
+    Collections.addAll(this.entityClasses, entityClasses);
+  }
 }
@@ -23,10 +23,20 @@ package io.jsondb;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import io.jsondb.crypto.ICipher;
 import io.jsondb.events.CollectionFileChangeListener;
+import io.jsondb.index.IndexDefinition;
+import io.jsondb.query.Aggregation;
+import io.jsondb.query.GeoQuery;
+import io.jsondb.query.Criteria;
+import io.jsondb.query.PreparedQuery;
+import io.jsondb.query.Projection;
+import io.jsondb.query.TextSearch;
 import io.jsondb.query.Update;
 import io.jsondb.query.ddl.CollectionSchemaUpdate;
 
@@ -51,6 +61,140 @@ public interface JsonDBOperations {
    */
   void reloadCollection(String collectionName);
 
+  /**
+   * Pins a collection in memory. A pinned collection is loaded right away, even if it is
+   * declared lazy, and is never released by the idle collection unloader.
+   *
+   * @param entityClass class that determines the collection to pin
+   * @param <T> Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *            and member of the baseScanPackage
+   */
+  <T> void pinCollection(Class<T> entityClass);
+
+  /**
+   * Pins a collection in memory. A pinned collection is loaded right away, even if it is
+   * declared lazy, and is never released by the idle collection unloader.
+   *
+   * @param collectionName name of the collection to pin
+   */
+  void pinCollection(String collectionName);
+
+  /**
+   * Removes the pin placed by {@link #pinCollection(Class)}, a lazy collection becomes
+   * eligible for unloading again once it has been idle for the configured timeout.
+   *
+   * @param entityClass class that determines the collection to unpin
+   * @param <T> Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *            and member of the baseScanPackage
+   */
+  <T> void unpinCollection(Class<T> entityClass);
+
+  /**
+   * Removes the pin placed by {@link #pinCollection(String)}, a lazy collection becomes
+   * eligible for unloading again once it has been idle for the configured timeout.
+   *
+   * @param collectionName name of the collection to unpin
+   */
+  void unpinCollection(String collectionName);
+
+  /**
+   * Returns the hit, miss and eviction counts of the document cache of a collection that has a
+   * memory budget or is annotated with {@link io.jsondb.annotation.Document#offsetIndexed()}.
+   *
+   * @param entityClass class of the collection
+   * @param <T> Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *            and member of the baseScanPackage
+   * @return the cache statistics or null if the collection is held in memory in its entirety or is not loaded
+   */
+  <T> CollectionCacheStats getCacheStats(Class<T> entityClass);
+
+  /**
+   * Returns the hit, miss and eviction counts of the document cache of a collection that has a
+   * memory budget or is annotated with {@link io.jsondb.annotation.Document#offsetIndexed()}.
+   *
+   * @param collectionName name of the collection
+   * @return the cache statistics or null if the collection is held in memory in its entirety or is not loaded
+   */
+  CollectionCacheStats getCacheStats(String collectionName);
+
+  /**
+   * Returns the hit, miss, eviction and invalidation counts of the result cache of a collection,
+   * see {@link JsonDBConfig#setResultCache(String, CollectionResultCache)}.
+   *
+   * @param entityClass class of the collection
+   * @param <T> Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *            and member of the baseScanPackage
+   * @return the cache statistics or null if the collection has no result cache
+   */
+  <T> QueryCacheStats getQueryCacheStats(Class<T> entityClass);
+
+  /**
+   * Returns the hit, miss, eviction and invalidation counts of the result cache of a collection,
+   * see {@link JsonDBConfig#setResultCache(String, CollectionResultCache)}.
+   *
+   * @param collectionName name of the collection
+   * @return the cache statistics or null if the collection has no result cache
+   */
+  QueryCacheStats getQueryCacheStats(String collectionName);
+
+  /**
+   * Creates a secondary index of a collection. Queries that test a indexed field for equality,
+   * like <code>/.[email='x']</code>, are answered from the index instead of scanning every document.
+   * Indexes created this way last until the JsonDBTemplate is discarded, indexes that should always
+   * exist are better declared with {@link io.jsondb.annotation.Indexed}.
+   *
+   * @param definition definition of the index, see {@link io.jsondb.index.IndexDefinition#hash(String)}
+   * @param entityClass class of the collection
+   * @param <T> Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *            and member of the baseScanPackage
+   */
+  <T> void createIndex(IndexDefinition definition, Class<T> entityClass);
+
+  /**
+   * Creates a secondary index of a collection. Queries that test a indexed field for equality,
+   * like <code>/.[email='x']</code>, are answered from the index instead of scanning every document.
+   * Indexes created this way last until the JsonDBTemplate is discarded, indexes that should always
+   * exist are better declared with {@link io.jsondb.annotation.Indexed}.
+   *
+   * @param definition definition of the index, see {@link io.jsondb.index.IndexDefinition#hash(String)}
+   * @param collectionName name of the collection
+   */
+  void createIndex(IndexDefinition definition, String collectionName);
+
+  /**
+   * Drops a secondary index of a collection, including those declared with {@link io.jsondb.annotation.Indexed}
+   *
+   * @param indexName name of the index
+   * @param entityClass class of the collection
+   * @param <T> Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *            and member of the baseScanPackage
+   * @return true if the collection had such a index
+   */
+  <T> boolean dropIndex(String indexName, Class<T> entityClass);
+
+  /**
+   * Drops a secondary index of a collection, including those declared with {@link io.jsondb.annotation.Indexed}
+   *
+   * @param indexName name of the index
+   * @param collectionName name of the collection
+   * @return true if the collection had such a index
+   */
+  boolean dropIndex(String indexName, String collectionName);
+
+  /**
+   * @param entityClass class of the collection
+   * @param <T> Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *            and member of the baseScanPackage
+   * @return the definitions of the secondary indexes of the collection
+   */
+  <T> List<IndexDefinition> getIndexes(Class<T> entityClass);
+
+  /**
+   * @param collectionName name of the collection
+   * @return the definitions of the secondary indexes of the collection
+   */
+  List<IndexDefinition> getIndexes(String collectionName);
+
   /**
    * adds a CollectionFileChangeListener to db.
    *
@@ -207,7 +351,8 @@ public interface JsonDBOperations {
    *
    * @param jxQuery a XPATH query expression
    * @param entityClass the parameterized type of the returned list.
-   * @param comparator Comparator to use for sorting the objects
+   * @param comparator Comparator to use for sorting the objects, a {@link io.jsondb.query.Sort} on the fields
+   *                   of a sorted index reads them from the index in order instead
    * @param <T> Type annotated with {@link io.jsondb.annotation.Document} annotation
    *            and member of the baseScanPackage
    * @return the list of found objects
@@ -223,7 +368,8 @@ public interface JsonDBOperations {
    *
    * @param jxQuery a XPATH query expression
    * @param collectionName name of the collection to retrieve the objects from
-   * @param comparator Comparator to use for sorting the objects
+   * @param comparator Comparator to use for sorting the objects, a {@link io.jsondb.query.Sort} on the fields
+   *                   of a sorted index reads them from the index in order instead
    * @param <T> Type annotated with {@link io.jsondb.annotation.Document} annotation
    *            and member of the baseScanPackage
    * @return the list of found objects
@@ -239,7 +385,8 @@ public interface JsonDBOperations {
    *
    * @param jxQuery a XPATH query expression
    * @param entityClass the parameterized type of the returned list.
-   * @param comparator Comparator to use for sorting the objects
+   * @param comparator Comparator to use for sorting the objects, a {@link io.jsondb.query.Sort} on the fields
+   *                   of a sorted index reads them from the index in order instead
    *                   Note: If sorting along with slicing is used then sorting over fields with the 'secret' anotation
    *                   will actually sort the raw encrypted field value, which will be undesirable and probably useless,
    *                   this limitation is for efficiency reasons, when slicing is enabled we defer the deep copy and
@@ -290,7 +437,8 @@ public interface JsonDBOperations {
    *
    * @param jxQuery a XPATH query expression
    * @param collectionName name of the collection to retrieve the objects from
-   * @param comparator Comparator to use for sorting the objects
+   * @param comparator Comparator to use for sorting the objects, a {@link io.jsondb.query.Sort} on the fields
+   *                   of a sorted index reads them from the index in order instead
    *                   Note: If sorting along with slicing is used then sorting over fields with the 'secret' anotation
    *                   will actually sort the raw encrypted field value, which will be undesirable and probably useless,
    *                   this limitation is for efficiency reasons, when slicing is enabled we defer the deep copy and
@@ -332,6 +480,287 @@ public interface JsonDBOperations {
    */
   <T> List<T> find(String jxQuery, String collectionName, Comparator<? super T> comparator, String slice);
 
+  /**
+   * Finds the documents of the collection for the entity type a query finds, returned as new entities with
+   * only the projected fields set. Only those fields are copied, and a @Secret field is decrypted only if
+   * it is projected. The entity type needs a constructor without arguments.
+   *
+   * @param jxQuery JXPath query string
+   * @param entityClass Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *                    and member of the baseScanPackage
+   * @param projection the fields to return
+   * @param <T> Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *            and member of the baseScanPackage
+   * @return the partially populated entities, in collection order
+   */
+  <T> List<T> findProjected(String jxQuery, Class<T> entityClass, Projection projection);
+
+  /**
+   * Finds the documents of the collection a query finds, returned as new entities with only the projected
+   * fields set, see {@link #findProjected(String, Class, Projection)}.
+   *
+   * @param jxQuery JXPath query string
+   * @param collectionName name of the collection
+   * @param projection the fields to return
+   * @param <T> Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *            and member of the baseScanPackage
+   * @return the partially populated entities, in collection order
+   */
+  <T> List<T> findProjected(String jxQuery, String collectionName, Projection projection);
+
+  /**
+   * Executes a find exactly as {@link #find(String, Class, Comparator, String)} does, bypassing the result
+   * cache of the collection, and reports how it was executed instead of the documents found: the access
+   * path, the number of candidates, matches and returned documents, and the time spent waiting for the
+   * lock, planning, evaluating, sorting, copying and decrypting.
+   *
+   * @param jxQuery JXPath query string
+   * @param entityClass Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *                    and member of the baseScanPackage
+   * @param comparator comparator to sort the documents by, may be null
+   * @param slice the slice of the documents to return, may be null
+   * @param <T> Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *            and member of the baseScanPackage
+   * @return the plan and execution statistics of the find
+   */
+  <T> QueryExplanation explain(String jxQuery, Class<T> entityClass, Comparator<? super T> comparator, String slice);
+
+  /**
+   * Executes a find and reports how it was executed, see {@link #explain(String, Class, Comparator, String)}.
+   *
+   * @param jxQuery JXPath query string
+   * @param collectionName name of the collection
+   * @param comparator comparator to sort the documents by, may be null
+   * @param slice the slice of the documents to return, may be null
+   * @param <T> Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *            and member of the baseScanPackage
+   * @return the plan and execution statistics of the find
+   */
+  <T> QueryExplanation explain(String jxQuery, String collectionName, Comparator<? super T> comparator, String slice);
+
+  /**
+   * Finds the documents of the collection for the entity type a query finds, returned as rows of the
+   * projected fields. Only those fields are copied, and a @Secret field is decrypted only if it is projected.
+   *
+   * @param jxQuery JXPath query string
+   * @param entityClass Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *                    and member of the baseScanPackage
+   * @param projection the fields to return
+   * @param <T> Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *            and member of the baseScanPackage
+   * @return a map of the projected field names to the values for every document, in collection order
+   */
+  <T> List<Map<String, Object>> findRows(String jxQuery, Class<T> entityClass, Projection projection);
+
+  /**
+   * Finds the documents of the collection a query finds, returned as rows of the projected fields,
+   * see {@link #findRows(String, Class, Projection)}.
+   *
+   * @param jxQuery JXPath query string
+   * @param collectionName name of the collection
+   * @param projection the fields to return
+   * @return a map of the projected field names to the values for every document, in collection order
+   */
+  List<Map<String, Object>> findRows(String jxQuery, String collectionName, Projection projection);
+
+  /**
+   * Runs a prepared query against the collection for the entity type, with the values bound to its variables.
+   * The query is compiled only once, when it is prepared, however many times it is run.
+   *
+   * @param query the prepared JXPath query
+   * @param entityClass Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *                    and member of the baseScanPackage
+   * @param <T> Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *            and member of the baseScanPackage
+   * @return the list of found objects
+   */
+  <T> List<T> find(PreparedQuery query, Class<T> entityClass);
+
+  /**
+   * Runs a prepared query against the collection, with the values bound to its variables.
+   *
+   * @param query the prepared JXPath query
+   * @param collectionName name of the collection
+   * @param <T> Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *            and member of the baseScanPackage
+   * @return the list of found objects
+   */
+  <T> List<T> find(PreparedQuery query, String collectionName);
+
+  /**
+   * Runs a prepared query against the collection for the entity type, sorts the found objects and
+   * returns a slice of them, see {@link #find(String, String, Comparator, String)}.
+   *
+   * @param query the prepared JXPath query
+   * @param entityClass Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *                    and member of the baseScanPackage
+   * @param comparator the comparator to sort the found objects with, may be null
+   * @param slice the slice of the sorted objects to return, may be null for all
+   * @param <T> Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *            and member of the baseScanPackage
+   * @return the list of found objects
+   */
+  <T> List<T> find(PreparedQuery query, Class<T> entityClass, Comparator<? super T> comparator, String slice);
+
+  /**
+   * Runs a prepared query against the collection, sorts the found objects and returns a slice of
+   * them, see {@link #find(String, String, Comparator, String)}.
+   *
+   * @param query the prepared JXPath query
+   * @param collectionName name of the collection
+   * @param comparator the comparator to sort the found objects with, may be null
+   * @param slice the slice of the sorted objects to return, may be null for all
+   * @param <T> Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *            and member of the baseScanPackage
+   * @return the list of found objects
+   */
+  <T> List<T> find(PreparedQuery query, String collectionName, Comparator<? super T> comparator, String slice);
+
+  /**
+   * Finds the documents of the collection for the entity type a criteria holds for. The criteria is
+   * evaluated on the documents directly, through the getters of the fields it names, and uses the
+   * indexes of the collection where they can answer it.
+   *
+   * @param criteria the criteria the documents must meet
+   * @param entityClass Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *                    and member of the baseScanPackage
+   * @param <T> Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *            and member of the baseScanPackage
+   * @return the list of found objects
+   */
+  <T> List<T> find(Criteria criteria, Class<T> entityClass);
+
+  /**
+   * Finds the documents of the collection a criteria holds for.
+   *
+   * @param criteria the criteria the documents must meet
+   * @param collectionName name of the collection
+   * @param <T> Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *            and member of the baseScanPackage
+   * @return the list of found objects
+   */
+  <T> List<T> find(Criteria criteria, String collectionName);
+
+  /**
+   * Finds the documents of the collection for the entity type a criteria holds for, sorts them and
+   * returns a slice of them, see {@link #find(String, String, Comparator, String)}.
+   *
+   * @param criteria the criteria the documents must meet
+   * @param entityClass Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *                    and member of the baseScanPackage
+   * @param comparator the comparator to sort the found objects with, may be null
+   * @param slice the slice of the sorted objects to return, may be null for all
+   * @param <T> Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *            and member of the baseScanPackage
+   * @return the list of found objects
+   */
+  <T> List<T> find(Criteria criteria, Class<T> entityClass, Comparator<? super T> comparator, String slice);
+
+  /**
+   * Finds the documents of the collection a criteria holds for, sorts them and returns a slice of
+   * them, see {@link #find(String, String, Comparator, String)}.
+   *
+   * @param criteria the criteria the documents must meet
+   * @param collectionName name of the collection
+   * @param comparator the comparator to sort the found objects with, may be null
+   * @param slice the slice of the sorted objects to return, may be null for all
+   * @param <T> Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *            and member of the baseScanPackage
+   * @return the list of found objects
+   */
+  <T> List<T> find(Criteria criteria, String collectionName, Comparator<? super T> comparator, String slice);
+
+  /**
+   * Runs a query against the collection for the entity type and returns a cursor over the found
+   * documents, which copies and decrypts them one at a time as they are read rather than all at once.
+   * The cursor is a snapshot of the documents found when it is opened and does not hold the lock of
+   * the collection, see {@link Cursor}.
+   *
+   * @param jxQuery JXPath query string, '.' for all documents
+   * @param entityClass Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *                    and member of the baseScanPackage
+   * @param <T> Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *            and member of the baseScanPackage
+   * @return a cursor over the found documents
+   */
+  <T> Cursor<T> cursor(String jxQuery, Class<T> entityClass);
+
+  /**
+   * Runs a query against the collection and returns a cursor over the found documents, see
+   * {@link #cursor(String, Class)}.
+   *
+   * @param jxQuery JXPath query string, '.' for all documents
+   * @param collectionName name of the collection
+   * @param <T> Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *            and member of the baseScanPackage
+   * @return a cursor over the found documents
+   */
+  <T> Cursor<T> cursor(String jxQuery, String collectionName);
+
+  /**
+   * Runs a query against the collection and returns a cursor over the found documents in the order
+   * of the comparator, see {@link #cursor(String, Class)}. The comparator is given the documents as
+   * the collection holds them, with their @Secret fields encrypted.
+   *
+   * @param jxQuery JXPath query string, '.' for all documents
+   * @param collectionName name of the collection
+   * @param comparator the comparator to sort the found documents with, may be null
+   * @param <T> Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *            and member of the baseScanPackage
+   * @return a cursor over the found documents
+   */
+  <T> Cursor<T> cursor(String jxQuery, String collectionName, Comparator<? super T> comparator);
+
+  /**
+   * Runs a query against the collection for the entity type and returns a stream of the found
+   * documents, copied and decrypted as the stream reads them, see {@link #cursor(String, Class)}.
+   *
+   * @param jxQuery JXPath query string, '.' for all documents
+   * @param entityClass Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *                    and member of the baseScanPackage
+   * @param <T> Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *            and member of the baseScanPackage
+   * @return a sequential stream of the found documents
+   */
+  <T> Stream<T> stream(String jxQuery, Class<T> entityClass);
+
+  /**
+   * Runs a query against the collection and returns a stream of the found documents, see
+   * {@link #stream(String, Class)}.
+   *
+   * @param jxQuery JXPath query string, '.' for all documents
+   * @param collectionName name of the collection
+   * @param <T> Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *            and member of the baseScanPackage
+   * @return a sequential stream of the found documents
+   */
+  <T> Stream<T> stream(String jxQuery, String collectionName);
+
+  /**
+   * Runs a query against the collection for the entity type and passes the found documents to the
+   * action one at a time, each copied and decrypted just before, see {@link #cursor(String, Class)}.
+   *
+   * @param jxQuery JXPath query string, '.' for all documents
+   * @param entityClass Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *                    and member of the baseScanPackage
+   * @param action the action to perform on every found document
+   * @param <T> Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *            and member of the baseScanPackage
+   */
+  <T> void forEach(String jxQuery, Class<T> entityClass, Consumer<? super T> action);
+
+  /**
+   * Runs a query against the collection and passes the found documents to the action one at a time,
+   * see {@link #forEach(String, Class, Consumer)}.
+   *
+   * @param jxQuery JXPath query string, '.' for all documents
+   * @param collectionName name of the collection
+   * @param action the action to perform on every found document
+   * @param <T> Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *            and member of the baseScanPackage
+   */
+  <T> void forEach(String jxQuery, String collectionName, Consumer<? super T> action);
+
   /**
    * Query for a list of objects of type T from the specified collection.
    *
@@ -356,7 +785,8 @@ public interface JsonDBOperations {
    * Query for a list of objects of type T from the specified collection.
    *
    * @param entityClass the parameterized type of the returned list.
-   * @param comparator Comparator to use for sorting the objects
+   * @param comparator Comparator to use for sorting the objects, a {@link io.jsondb.query.Sort} on the fields
+   *                   of a sorted index reads them from the index in order instead
    * @param <T> Type annotated with {@link io.jsondb.annotation.Document} annotation
    *            and member of the baseScanPackage
    * @return the found collection
@@ -367,7 +797,8 @@ public interface JsonDBOperations {
    * Query for a list of objects of type T from the specified collection.
    *
    * @param collectionName name of the collection to retrieve the objects from
-   * @param comparator Comparator to use for sorting the objects
+   * @param comparator Comparator to use for sorting the objects, a {@link io.jsondb.query.Sort} on the fields
+   *                   of a sorted index reads them from the index in order instead
    * @param <T> Type annotated with {@link io.jsondb.annotation.Document} annotation
    *            and member of the baseScanPackage
    * @return the found collection
@@ -378,7 +809,8 @@ public interface JsonDBOperations {
    * Query for a list of objects of type T from the specified collection.
    *
    * @param entityClass the parameterized type of the returned list.
-   * @param comparator Comparator to use for sorting the objects
+   * @param comparator Comparator to use for sorting the objects, a {@link io.jsondb.query.Sort} on the fields
+   *                   of a sorted index reads them from the index in order instead
    *                   Note: If sorting along with slicing is used then sorting over fields with the 'secret' anotation
    *                   will actually sort the raw encrypted field value, which will be undesirable and probably useless,
    *                   this limitation is for efficiency reasons, when slicing is enabled we defer the deep copy and
@@ -423,7 +855,8 @@ public interface JsonDBOperations {
    * Query for a list of objects of type T from the specified collection.
    *
    * @param collectionName name of the collection to retrieve the objects from
-   * @param comparator Comparator to use for sorting the objects
+   * @param comparator Comparator to use for sorting the objects, a {@link io.jsondb.query.Sort} on the fields
+   *                   of a sorted index reads them from the index in order instead
    *                   Note: If sorting along with slicing is used then sorting over fields with the 'secret' anotation
    *                   will actually sort the raw encrypted field value, which will be undesirable and probably useless,
    *                   this limitation is for efficiency reasons, when slicing is enabled we defer the deep copy and
@@ -464,6 +897,58 @@ public interface JsonDBOperations {
    */
   <T> List<T> findAll(String collectionName, Comparator<? super T> comparator, String slice);
 
+  /**
+   * Searches the words of text fields with a full text index of the collection, created with
+   * {@link IndexDefinition#fullText(String...)} or {@link io.jsondb.annotation.Indexed}. Unlike a JXPath
+   * contains() query, which scans every document, only the documents holding the searched words are read.
+   *
+   * @param search the words to search for, optionally with a JXPath query the documents must match as well
+   * @param entityClass Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *                    and member of the baseScanPackage
+   * @param <T> Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *            and member of the baseScanPackage
+   * @return the matching documents, in collection order or most relevant first if the search is ranked
+   */
+  <T> List<T> search(TextSearch search, Class<T> entityClass);
+
+  /**
+   * Searches the words of text fields with a full text index of the collection, created with
+   * {@link IndexDefinition#fullText(String...)} or {@link io.jsondb.annotation.Indexed}.
+   *
+   * @param search the words to search for, optionally with a JXPath query the documents must match as well
+   * @param collectionName name of the collection
+   * @param <T> Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *            and member of the baseScanPackage
+   * @return the matching documents, in collection order or most relevant first if the search is ranked
+   */
+  <T> List<T> search(TextSearch search, String collectionName);
+
+  /**
+   * Finds the documents whose point lies within a box or a distance of a center, with a spatial index of the
+   * collection created with {@link IndexDefinition#spatial(String, String)}. Only the documents filed under the
+   * grid cells the area overlaps are read.
+   *
+   * @param query the area to search
+   * @param entityClass Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *                    and member of the baseScanPackage
+   * @param <T> Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *            and member of the baseScanPackage
+   * @return the matching documents, in collection order for a box and nearest first for a distance
+   */
+  <T> List<T> search(GeoQuery query, Class<T> entityClass);
+
+  /**
+   * Finds the documents whose point lies within a box or a distance of a center, with a spatial index of the
+   * collection created with {@link IndexDefinition#spatial(String, String)}.
+   *
+   * @param query the area to search
+   * @param collectionName name of the collection
+   * @param <T> Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *            and member of the baseScanPackage
+   * @return the matching documents, in collection order for a box and nearest first for a distance
+   */
+  <T> List<T> search(GeoQuery query, String collectionName);
+
   /**
    * Returns a document with the given id mapped onto the given class. The collection the query is ran against will be
    * derived from the given target class as well.
@@ -486,9 +971,180 @@ public interface JsonDBOperations {
    */
   <T> T findById(Object id, String collectionName);
 
+  /**
+   * Returns the document with the given id as a new entity with only the projected fields set,
+   * see {@link #findProjected(String, Class, Projection)}.
+   *
+   * @param id the id of the document to return
+   * @param entityClass Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *                    and member of the baseScanPackage
+   * @param projection the fields to return
+   * @param <T> Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *            and member of the baseScanPackage
+   * @return the partially populated entity, null if there is no document with the id
+   */
+  <T> T findById(Object id, Class<T> entityClass, Projection projection);
+
+  /**
+   * Returns the document with the given id from the given collection as a new entity with only the
+   * projected fields set, see {@link #findProjected(String, Class, Projection)}.
+   *
+   * @param id the id of the document to return
+   * @param collectionName the collection to query for the document
+   * @param projection the fields to return
+   * @param <T> Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *            and member of the baseScanPackage
+   * @return the partially populated entity, null if there is no document with the id
+   */
+  <T> T findById(Object id, String collectionName, Projection projection);
+
   <T> T findOne(String jxQuery, Class<T> entityClass);
   <T> T findOne(String jxQuery, String collectionName);
 
+  /**
+   * Runs a prepared query against the collection for the entity type and returns the first document it finds
+   *
+   * @param query the prepared JXPath query
+   * @param entityClass Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *                    and member of the baseScanPackage
+   * @param <T> Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *            and member of the baseScanPackage
+   * @return the first document found, null if none
+   */
+  <T> T findOne(PreparedQuery query, Class<T> entityClass);
+
+  /**
+   * Runs a prepared query against the collection and returns the first document it finds
+   *
+   * @param query the prepared JXPath query
+   * @param collectionName name of the collection
+   * @param <T> Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *            and member of the baseScanPackage
+   * @return the first document found, null if none
+   */
+  <T> T findOne(PreparedQuery query, String collectionName);
+
+  /**
+   * Finds the first document of the collection for the entity type a criteria holds for
+   *
+   * @param criteria the criteria the document must meet
+   * @param entityClass Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *                    and member of the baseScanPackage
+   * @param <T> Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *            and member of the baseScanPackage
+   * @return the first document found, null if none
+   */
+  <T> T findOne(Criteria criteria, Class<T> entityClass);
+
+  /**
+   * Finds the first document of the collection a criteria holds for
+   *
+   * @param criteria the criteria the document must meet
+   * @param collectionName name of the collection
+   * @param <T> Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *            and member of the baseScanPackage
+   * @return the first document found, null if none
+   */
+  <T> T findOne(Criteria criteria, String collectionName);
+
+  /**
+   * Counts the documents of the collection for the entity type a query finds. The query is
+   * evaluated against the documents as the collection holds them, which are never copied, and
+   * answered from the indexes alone when they can answer it.
+   *
+   * @param jxQuery JXPath query string
+   * @param entityClass Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *                    and member of the baseScanPackage
+   * @param <T> Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *            and member of the baseScanPackage
+   * @return the number of documents found
+   */
+  <T> int count(String jxQuery, Class<T> entityClass);
+
+  /**
+   * Counts the documents of the collection a query finds, see {@link #count(String, Class)}.
+   *
+   * @param jxQuery JXPath query string
+   * @param collectionName name of the collection
+   * @return the number of documents found
+   */
+  int count(String jxQuery, String collectionName);
+
+  /**
+   * Tells if a query finds any document of the collection for the entity type. The query is
+   * evaluated against the documents as the collection holds them, until it finds one.
+   *
+   * @param jxQuery JXPath query string
+   * @param entityClass Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *                    and member of the baseScanPackage
+   * @param <T> Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *            and member of the baseScanPackage
+   * @return true if the query finds a document
+   */
+  <T> boolean exists(String jxQuery, Class<T> entityClass);
+
+  /**
+   * Tells if a query finds any document of the collection, see {@link #exists(String, Class)}.
+   *
+   * @param jxQuery JXPath query string
+   * @param collectionName name of the collection
+   * @return true if the query finds a document
+   */
+  boolean exists(String jxQuery, String collectionName);
+
+  /**
+   * Finds the distinct values of a field among the documents of the collection for the entity type
+   * a query finds, without copying the documents. The field may be a path of fields separated by
+   * '/', and the elements of the collections and arrays along it are values of their own, like
+   * every tag for <code>tags</code>. A @Secret field has no distinct values to find.
+   *
+   * @param fieldName the field or path of fields
+   * @param jxQuery JXPath query string, '.' for all documents
+   * @param entityClass Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *                    and member of the baseScanPackage
+   * @param <T> Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *            and member of the baseScanPackage
+   * @return the distinct non null values, in the order they are first found
+   */
+  <T> List<Object> distinct(String fieldName, String jxQuery, Class<T> entityClass);
+
+  /**
+   * Finds the distinct values of a field among the documents of the collection a query finds, see
+   * {@link #distinct(String, String, Class)}.
+   *
+   * @param fieldName the field or path of fields
+   * @param jxQuery JXPath query string, '.' for all documents
+   * @param collectionName name of the collection
+   * @return the distinct non null values, in the order they are first found
+   */
+  List<Object> distinct(String fieldName, String jxQuery, String collectionName);
+
+  /**
+   * Aggregates the documents of the collection for the entity type into rows of grouped values,
+   * read under the read lock of the collection without copying the documents. The documents are
+   * matched with the help of the indexes, and the groups of a large collection are accumulated in
+   * parallel on the query pool. A @Secret field cannot be grouped by or accumulated.
+   *
+   * @param aggregation the stages of the aggregation
+   * @param entityClass Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *                    and member of the baseScanPackage
+   * @param <T> Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *            and member of the baseScanPackage
+   * @return the rows, a map each of the names of the values to the values, in the order of the groups
+   *         first seen unless sorted
+   */
+  <T> List<Map<String, Object>> aggregate(Aggregation aggregation, Class<T> entityClass);
+
+  /**
+   * Aggregates the documents of the collection into rows of grouped values, see {@link #aggregate(Aggregation, Class)}.
+   *
+   * @param aggregation the stages of the aggregation
+   * @param collectionName name of the collection
+   * @return the rows, a map each of the names of the values to the values, in the order of the groups
+   *         first seen unless sorted
+   */
+  List<Map<String, Object>> aggregate(Aggregation aggregation, String collectionName);
+
   /**
    * Insert the object into correct collection. The collection type of the object is automatically determined.
    *
@@ -754,12 +1410,34 @@ public interface JsonDBOperations {
    */
   <T> void changeEncryption(ICipher newCipher);
 
+  /**
+   * Writes a binary snapshot of every loaded collection whose .json file changed since its last
+   * snapshot. On the next startup such collections are loaded from the snapshot instead of being
+   * parsed from the .json file, provided the file has not been modified in the meantime.
+   * A checkpoint is also taken automatically at shutdown and, if configured, at regular intervals.
+   *
+   * Requires snapshots to be enabled using {@link JsonDBConfig#setSnapshotsEnabled(boolean)}
+   */
+  void checkpoint();
+
+  /**
+   * Stops the background work of the database and releases what it holds in the JVM: the file
+   * change watcher, the idle collection unloader, the periodic checkpoints and the low memory
+   * monitor, see {@link JsonDBConfig#setLowMemoryThreshold(double)}. Takes a checkpoint if
+   * snapshots are enabled. This is otherwise done at JVM shutdown, a database that is discarded
+   * earlier should be shut down so that nothing of it lingers. Calling it again does nothing.
+   */
+  void shutdown();
+
   /**
    * This method backs up JSONDB collections to specified backup path as a zip archive.
    * The backup contains all {@code *.json} collection files from the database directory.
    * If {@code backupPath} is a directory, {@code jsondb-backup.zip} is created inside it.
    * If the path has no {@code .zip} extension, {@code .zip} is appended automatically.
    *
+   * For a in-memory database, see {@link JsonDBConfig#setInMemory(boolean)}, the backup holds the
+   * collections as they are in memory, this is how such a database is written to disk.
+   *
    * @param backupPath location at which to backup the database contents
    */
   void backup(String backupPath);
@@ -770,6 +1448,8 @@ public interface JsonDBOperations {
    * and if it is set to false it will replace existing collections with collections being
    * restored
    *
+   * A in-memory database reads the collections into memory only, nothing is written to its dbFiles location.
+   *
    * @param restorePath path to the backup zip file, or a directory containing {@code jsondb-backup.zip}
    * @param merge whether to merge data from restore location
    */
@@ -20,14 +20,17 @@
  */
 package io.jsondb;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -39,8 +42,15 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.LinkedHashSet;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import org.apache.commons.beanutils.BeanUtils;
 import org.apache.commons.jxpath.JXPathContext;
@@ -49,15 +59,44 @@ import org.slf4j.LoggerFactory;
 
 import com.fasterxml.jackson.core.JsonParseException;
 import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.google.common.base.Function;
+import com.google.common.base.Predicate;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Collections2;
+import com.google.common.collect.Iterators;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import io.jsondb.crypto.CryptoUtil;
 import io.jsondb.crypto.ICipher;
+import io.jsondb.events.CollectionChanges;
 import io.jsondb.events.CollectionFileChangeListener;
 import io.jsondb.events.EventListenerList;
+import io.jsondb.index.AccessPath;
+import io.jsondb.index.CollectionIndexes;
+import io.jsondb.index.CompiledAggregation;
+import io.jsondb.index.CompiledCriteria;
+import io.jsondb.index.DocumentPath;
+import io.jsondb.index.IndexDefinition;
+import io.jsondb.index.IndexLookup;
+import io.jsondb.io.CollectionSnapshot;
+import io.jsondb.io.CollectionWriter;
+import io.jsondb.io.InMemoryCollectionWriter;
 import io.jsondb.io.JsonDbArchive;
 import io.jsondb.io.JsonFileLockException;
 import io.jsondb.io.JsonReader;
 import io.jsondb.io.JsonWriter;
+import io.jsondb.io.LinePositions;
+import io.jsondb.query.Aggregation;
+import io.jsondb.query.GeoQuery;
+import io.jsondb.query.Criteria;
+import io.jsondb.query.PreparedQuery;
+import io.jsondb.query.Projection;
+import io.jsondb.query.TextSearch;
 import io.jsondb.query.Update;
 import io.jsondb.query.ddl.AddOperation;
 import io.jsondb.query.ddl.CollectionSchemaUpdate;
@@ -69,16 +108,23 @@ import io.jsondb.query.ddl.RenameOperation;
  */
 public class JsonDBTemplate implements JsonDBOperations {
   private Logger logger = LoggerFactory.getLogger(JsonDBTemplate.class);
+  private static final HashFunction LINE_FINGERPRINT = Hashing.farmHashFingerprint64();
 
   private JsonDBConfig dbConfig = null;
   private final boolean encrypted;
   private File lockFilesLocation;
   private EventListenerList eventListenerList;
+  private ScheduledExecutorService collectionUnloaderExecutor;
+  private ScheduledExecutorService checkpointExecutor;
+  private Runnable lowMemoryEvictor;
+  private Thread shutdownHook;
 
   private Map<String, CollectionMetaData> cmdMap;
   private AtomicReference<Map<String, File>> fileObjectsRef = new AtomicReference<Map<String, File>>(new ConcurrentHashMap<String, File>());
   private AtomicReference<Map<String, Map<Object, ?>>> collectionsRef = new AtomicReference<Map<String, Map<Object, ?>>>(new ConcurrentHashMap<String, Map<Object, ?>>());
   private AtomicReference<Map<String, JXPathContext>> contextsRef = new AtomicReference<Map<String, JXPathContext>>(new ConcurrentHashMap<String, JXPathContext>());
+  private final Cache<String, PreparedQuery> preparedQueries;
+  private final Map<String, QueryResultCache> resultCaches = new ConcurrentHashMap<String, QueryResultCache>();
 
   public JsonDBTemplate(String dbFilesLocationString, String baseScanPackage) {
     this(dbFilesLocationString, baseScanPackage, null, false, null);
@@ -93,19 +139,34 @@ public class JsonDBTemplate implements JsonDBOperations {
   }
 
   public JsonDBTemplate(String dbFilesLocationString, String baseScanPackage, ICipher cipher, boolean compatibilityMode, Comparator<String> schemaComparator) {
-    dbConfig = new JsonDBConfig(dbFilesLocationString, baseScanPackage, cipher, compatibilityMode, schemaComparator);
-    if (null == cipher) {
+    this(new JsonDBConfig(dbFilesLocationString, baseScanPackage, cipher, compatibilityMode, schemaComparator));
+  }
+
+  /**
+   * Creates a template using a fully prepared configuration, this is the only way to
+   * enable settings such as lazy loading that have no dedicated constructor argument.
+   *
+   * @param dbConfig the settings to use for this database
+   */
+  public JsonDBTemplate(JsonDBConfig dbConfig) {
+    this.dbConfig = dbConfig;
+    if (null == dbConfig.getCipher()) {
       logger.info("Encryption is not enabled for JSON DB");
       this.encrypted = false;
     } else {
       logger.info("Encryption is enabled for JSON DB");
       this.encrypted = true;
     }
+    this.preparedQueries = CacheBuilder.newBuilder().maximumSize(dbConfig.getPreparedQueryCacheSize()).build();
     initialize();
     eventListenerList = new EventListenerList(dbConfig, cmdMap);
   }
 
   private void initialize(){
+    if (dbConfig.isInMemory()) {
+      initializeInMemory();
+      return;
+    }
     this.lockFilesLocation = new File(dbConfig.getDbFilesLocation(), "lock");
     if(!lockFilesLocation.exists()) {
       lockFilesLocation.mkdirs();
@@ -124,16 +185,419 @@ public class JsonDBTemplate implements JsonDBOperations {
     cmdMap = CollectionMetaData.builder(dbConfig);
 
     loadDB();
+    startCollectionUnloader();
+    startCheckpointer();
+    startLowMemoryMonitor();
 
     // Auto-cleanup at shutdown
-    Runtime.getRuntime().addShutdownHook(new Thread() {
+    shutdownHook = new Thread() {
+      @Override
+      public void run() {
+        stop();
+      }
+    };
+    Runtime.getRuntime().addShutdownHook(shutdownHook);
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.JsonDBOperations#shutdown()
+   */
+  @Override
+  public synchronized void shutdown() {
+    if (null == shutdownHook) {
+      return;
+    }
+    try {
+      Runtime.getRuntime().removeShutdownHook(shutdownHook);
+    } catch (IllegalStateException e) {
+      //The JVM is shutting down already, the hook does the same
+      return;
+    }
+    stop();
+  }
+
+  private synchronized void stop() {
+    if (null == shutdownHook) {
+      return;
+    }
+    shutdownHook = null;
+    eventListenerList.shutdown();
+    if (null != collectionUnloaderExecutor) {
+      collectionUnloaderExecutor.shutdownNow();
+    }
+    if (null != checkpointExecutor) {
+      checkpointExecutor.shutdownNow();
+    }
+    stopLowMemoryMonitor();
+    if (dbConfig.isSnapshotsEnabled()) {
+      checkpoint();
+    }
+  }
+
+  /**
+   * A in-memory database creates no files or directories and starts no threads, there is
+   * nothing to clean up at shutdown either. The collections of the dbFiles location, if
+   * one was given, are read once to start off with.
+   */
+  private void initializeInMemory() {
+    cmdMap = CollectionMetaData.builder(dbConfig);
+    if (null != dbConfig.getDbFilesLocation() && dbConfig.getDbFilesLocation().isDirectory()) {
+      loadDB();
+    }
+  }
+
+  /**
+   * @return the writer that persists changes to the collection, for a in-memory database one that does no I/O
+   */
+  private CollectionWriter getCollectionWriter(CollectionMetaData cmd, String collectionName) throws IOException {
+    if (dbConfig.isInMemory()) {
+      return new InMemoryCollectionWriter(cmd);
+    }
+    return new JsonWriter(dbConfig, cmd, collectionName, fileObjectsRef.get().get(collectionName));
+  }
+
+  private void startCheckpointer() {
+    long interval = dbConfig.getSnapshotInterval();
+    if (!dbConfig.isSnapshotsEnabled() || interval < 1) {
+      return;
+    }
+    checkpointExecutor = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder().setNameFormat("jsondb-checkpoint-thread-%d").setDaemon(true).build());
+    checkpointExecutor.scheduleWithFixedDelay(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          checkpoint();
+        } catch (RuntimeException e) {
+          logger.error("Scheduled checkpoint failed", e);
+        }
+      }
+    }, interval, interval, TimeUnit.MILLISECONDS);
+  }
+
+  private void startCollectionUnloader() {
+    long idleTimeout = dbConfig.getCollectionIdleTimeout();
+    if (idleTimeout < 1) {
+      return;
+    }
+    boolean hasLazyCollection = false;
+    for (CollectionMetaData cmd : cmdMap.values()) {
+      hasLazyCollection |= cmd.isLazy();
+    }
+    if (!hasLazyCollection) {
+      return;
+    }
+    collectionUnloaderExecutor = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder().setNameFormat("jsondb-collection-unloader-thread-%d").setDaemon(true).build());
+    long period = Math.max(idleTimeout / 2, 1);
+    collectionUnloaderExecutor.scheduleWithFixedDelay(new Runnable() {
+      @Override
+      public void run() {
+        unloadIdleCollections();
+      }
+    }, period, period, TimeUnit.MILLISECONDS);
+  }
+
+  private void startLowMemoryMonitor() {
+    double threshold = dbConfig.getLowMemoryThreshold();
+    if (threshold <= 0) {
+      return;
+    }
+    boolean hasBoundedCollection = false;
+    for (CollectionMetaData cmd : cmdMap.values()) {
+      hasBoundedCollection |= cmd.isOffsetIndexed();
+    }
+    if (!hasBoundedCollection) {
+      return;
+    }
+    lowMemoryEvictor = new Runnable() {
+      @Override
+      public void run() {
+        evictCachedDocuments();
+      }
+    };
+    LowMemoryMonitor.register(lowMemoryEvictor, threshold);
+  }
+
+  private void stopLowMemoryMonitor() {
+    if (null == lowMemoryEvictor) {
+      return;
+    }
+    LowMemoryMonitor.unregister(lowMemoryEvictor);
+    lowMemoryEvictor = null;
+  }
+
+  /**
+   * Drops the cached documents of every collection that is not held in memory in its entirety,
+   * they are read back from the .json files when needed. The collection locks are not needed
+   * as the caches are safe for concurrent use.
+   */
+  private void evictCachedDocuments() {
+    for (Map<Object, ?> collection : collectionsRef.get().values()) {
+      if (collection instanceof OffsetIndexedCollection) {
+        ((OffsetIndexedCollection<?>) collection).evictCachedDocuments();
+      }
+    }
+    logger.warn("JVM is low on memory, dropped all cached documents");
+  }
+
+  /**
+   * Releases the documents of lazy collections that have not been accessed for longer than
+   * the configured idle timeout. Collections that are busy or pinned are left alone.
+   */
+  private void unloadIdleCollections() {
+    long idleTimeout = dbConfig.getCollectionIdleTimeout();
+    for (CollectionMetaData cmd : cmdMap.values()) {
+      if (!cmd.isLazy() || cmd.isPinned() || cmd.isUnloaded()) {
+        continue;
+      }
+      if (!cmd.getCollectionLock().writeLock().tryLock()) {
+        continue;
+      }
+      try {
+        String collectionName = cmd.getCollectionName();
+        boolean idle = (System.currentTimeMillis() - cmd.getLastAccessTime()) >= idleTimeout;
+        if (idle && !cmd.isPinned() && collectionsRef.get().containsKey(collectionName)
+            && fileObjectsRef.get().containsKey(collectionName)) {
+          contextsRef.get().remove(collectionName);
+          collectionsRef.get().remove(collectionName);
+          cmd.getIndexes().clear();
+          cmd.setLineFingerprints(null);
+          cmd.setUnloaded(true);
+          logger.debug("Unloaded idle collection {}", collectionName);
+        }
+      } finally {
+        cmd.getCollectionLock().writeLock().unlock();
+      }
+    }
+  }
+
+  /**
+   * Records a access to the collection and loads it if it is a lazy collection that is
+   * currently not in memory. Must be invoked before the collection lock is acquired.
+   *
+   * @param collectionName name of the collection about to be accessed
+   */
+  private void ensureCollectionLoaded(String collectionName) {
+    CollectionMetaData cmd = cmdMap.get(collectionName);
+    if (null == cmd || !cmd.isLazy()) {
+      return;
+    }
+    cmd.touch();
+    //Taking the read lock here guarantees we observe a unload that raced with the touch above
+    boolean unloaded;
+    cmd.getCollectionLock().readLock().lock();
+    try {
+      unloaded = cmd.isUnloaded();
+    } finally {
+      cmd.getCollectionLock().readLock().unlock();
+    }
+    if (unloaded) {
+      cmd.getCollectionLock().writeLock().lock();
+      try {
+        if (cmd.isUnloaded()) {
+          reloadCollection(collectionName);
+        }
+      } finally {
+        cmd.getCollectionLock().writeLock().unlock();
+      }
+    }
+  }
+
+  /**
+   * Acquires the read lock of a collection and returns its documents. A lazy collection may be
+   * unloaded again between {@link #ensureCollectionLoaded(String)} and acquiring the lock, it is
+   * then loaded once more, so the documents must only be looked up holding the lock.
+   *
+   * @param cmd meta data of the collection
+   * @return the documents of the collection
+   * @throws InvalidJsonDbApiUsageException if the collection has not been created, the lock is not held then
+   */
+  @SuppressWarnings("unchecked")
+  private <T> Map<Object, T> lockForRead(CollectionMetaData cmd) {
+    cmd.getCollectionLock().readLock().lock();
+    while (cmd.isUnloaded()) {
+      cmd.getCollectionLock().readLock().unlock();
+      ensureCollectionLoaded(cmd.getCollectionName());
+      cmd.getCollectionLock().readLock().lock();
+    }
+    Map<Object, T> collection = (Map<Object, T>) collectionsRef.get().get(cmd.getCollectionName());
+    if (null == collection) {
+      cmd.getCollectionLock().readLock().unlock();
+      throw new InvalidJsonDbApiUsageException("Collection by name '" + cmd.getCollectionName() + "' not found. Create collection first.");
+    }
+    return collection;
+  }
+
+  /**
+   * Acquires the write lock of a collection, loading it once more if it is a lazy collection
+   * that was unloaded after {@link #ensureCollectionLoaded(String)}. The documents of the
+   * collection must only be looked up holding the lock.
+   *
+   * @param cmd meta data of the collection
+   */
+  private void lockForWrite(CollectionMetaData cmd) {
+    cmd.getCollectionLock().writeLock().lock();
+    if (cmd.isUnloaded()) {
+      reloadCollection(cmd.getCollectionName());
+    }
+  }
+
+  /**
+   * Evaluates a query against a collection. The query planner of the collection looks up the documents
+   * by their id or in the secondary indexes if the query selects them that way, and JXPath evaluates
+   * what is left of the query against those documents only, or scans all documents otherwise. The query
+   * is compiled once and kept in a bounded cache of the queries passed as Strings.
+   * Must be invoked holding the collection lock.
+   *
+   * @param jxQuery the JXPath query
+   * @param collectionName name of the collection
+   * @param cmd metadata of the collection
+   * @param collection the documents of the collection
+   * @param parallel true if all matching documents are needed, which JXPath may then find in parallel
+   * @return the matching documents in collection order, as held by the collection
+   */
+  private <T> Iterator<T> iterate(String jxQuery, String collectionName, CollectionMetaData cmd, Map<Object, T> collection,
+      boolean parallel) {
+    PreparedQuery query = prepare(jxQuery);
+    return iterate(cmd.getIndexes().plan(query, collection, null, -1), query, collectionName, collection, parallel);
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> Iterator<T> iterate(IndexLookup lookup, PreparedQuery query, String collectionName, Map<Object, T> collection,
+      boolean parallel) {
+    if (null == lookup) {
+      if (parallel && isParallel(collection)) {
+        return filter(new ArrayList<T>(collection.values()), query).iterator();
+      }
+      JXPathContext context = contextsRef.get().get(collectionName);
+      return (Iterator<T>) query.iterate(context);
+    }
+    List<T> documents = documentsOf(lookup.getIds(), collection);
+    if (!lookup.hasResidual() || documents.isEmpty()) {
+      return documents.iterator();
+    }
+    if (parallel && isParallel(documents.size())) {
+      return filter(documents, query).iterator();
+    }
+    return (Iterator<T>) query.iterate(JXPathContext.newContext(documents));
+  }
+
+  private <T> Iterator<T> iterate(IndexLookup lookup, final CompiledCriteria criteria, Map<Object, T> collection,
+      boolean parallel) {
+    Collection<T> candidates;
+    if (null == lookup) {
+      candidates = (parallel && isParallel(collection)) ? new ArrayList<T>(collection.values()) : collection.values();
+    } else {
+      candidates = documentsOf(lookup.getIds(), collection);
+      if (!lookup.hasResidual()) {
+        return candidates.iterator();
+      }
+    }
+    if (!parallel || !isParallel(candidates.size()) || !(candidates instanceof List)) {
+      //Evaluated as the documents are read, so that reading stops when enough are found
+      return Iterators.filter(candidates.iterator(), new Predicate<T>() {
+        @Override
+        public boolean apply(T document) {
+          return criteria.matches(document);
+        }
+      });
+    }
+    return PartitionedTask.invoke(dbConfig.getQueryPool(), (List<T>) candidates, new PartitionedTask.Work<T, T>() {
+      @Override
+      public List<T> apply(List<T> partition) {
+        List<T> matches = new ArrayList<T>();
+        for (T document : partition) {
+          if (criteria.matches(document)) {
+            matches.add(document);
+          }
+        }
+        return matches;
+      }
+    }).iterator();
+  }
+
+  /**
+   * @return true if the work of a query over that many documents is split across the threads of the query pool
+   */
+  private boolean isParallel(int documents) {
+    int threshold = dbConfig.getParallelQueryThreshold();
+    return threshold > 0 && documents >= threshold;
+  }
+
+  /**
+   * @return true if a query reading all documents of the collection is evaluated in parallel, which takes
+   *         a copy of the documents held, so never for a collection that reads its documents from its file
+   */
+  private boolean isParallel(Map<Object, ?> collection) {
+    return !(collection instanceof OffsetIndexedCollection) && isParallel(collection.size());
+  }
+
+  /**
+   * Sorts documents, in parallel on the query pool if there are enough of them. Both sorts are stable.
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private <T> void sort(List<T> documents, final Comparator<? super T> comparator) {
+    if (!isParallel(documents.size())) {
+      documents.sort(comparator);
+      return;
+    }
+    final Object[] sorted = documents.toArray();
+    //Forked from a thread of the query pool the sort runs on that pool rather than the common pool
+    dbConfig.getQueryPool().invoke(ForkJoinTask.adapt(new Runnable() {
       @Override
       public void run() {
-        eventListenerList.shutdown();
+        Arrays.parallelSort(sorted, (Comparator) comparator);
+      }
+    }));
+    for (int i = 0; i < sorted.length; i++) {
+      documents.set(i, (T) sorted[i]);
+    }
+  }
+
+  /**
+   * Evaluates a query against partitions of the documents in parallel
+   *
+   * @return the matching documents, in the order of the given ones
+   */
+  private <T> List<T> filter(List<T> documents, final PreparedQuery query) {
+    return PartitionedTask.invoke(dbConfig.getQueryPool(), documents, new PartitionedTask.Work<T, T>() {
+      @SuppressWarnings("unchecked")
+      @Override
+      public List<T> apply(List<T> partition) {
+        List<T> matches = new ArrayList<T>();
+        Iterator<T> resultItr = (Iterator<T>) query.iterate(JXPathContext.newContext(partition));
+        while (resultItr.hasNext()) {
+          matches.add(resultItr.next());
+        }
+        return matches;
       }
     });
   }
 
+  /**
+   * @return the compiled query, from the cache of the queries passed as Strings
+   */
+  private PreparedQuery prepare(String jxQuery) {
+    if (null == jxQuery) {
+      throw new InvalidJsonDbApiUsageException("Query cannot be null");
+    }
+    PreparedQuery query = preparedQueries.getIfPresent(jxQuery);
+    if (null == query) {
+      query = PreparedQuery.prepare(jxQuery);
+      preparedQueries.put(jxQuery, query);
+    }
+    return query;
+  }
+
+  private static <T> List<T> documentsOf(List<Object> ids, Map<Object, T> collection) {
+    List<T> documents = new ArrayList<T>(ids.size());
+    for (Object id : ids) {
+      documents.add(collection.get(id));
+    }
+    return documents;
+  }
+
   /* (non-Javadoc)
    * @see io.jsondb.JsonDBOperations#reLoadDB()
    */
@@ -143,15 +607,30 @@ public class JsonDBTemplate implements JsonDBOperations {
   }
 
   private synchronized void loadDB() {
+    if (null == dbConfig.getDbFilesLocation()) {
+      //A in-memory database without a dbFiles location, there is nothing to read
+      return;
+    }
     for(String collectionName : cmdMap.keySet()) {
+      CollectionMetaData cmd = cmdMap.get(collectionName);
       File collectionFile = new File(dbConfig.getDbFilesLocation(), collectionName + ".json");
       if(collectionFile.exists()) {
-        reloadCollection(collectionName);
-      } else if (collectionsRef.get().containsKey(collectionName)){
-        //this probably is a reload attempt after a collection .json was deleted.
-        //that is the reason even though the file does not exist a entry into collectionsRef still exists.
-        contextsRef.get().remove(collectionName);
-        collectionsRef.get().remove(collectionName);
+        if (cmd.isLazy() && !cmd.isPinned() && !collectionsRef.get().containsKey(collectionName)) {
+          //Lazy collections are only registered here, the documents are read on first access
+          fileObjectsRef.get().put(collectionName, collectionFile);
+          cmd.setUnloaded(true);
+        } else {
+          reloadCollection(collectionName);
+        }
+      } else {
+        cmd.setUnloaded(false);
+        if (collectionsRef.get().containsKey(collectionName)){
+          //this probably is a reload attempt after a collection .json was deleted.
+          //that is the reason even though the file does not exist a entry into collectionsRef still exists.
+          contextsRef.get().remove(collectionName);
+          collectionsRef.get().remove(collectionName);
+          cmd.getIndexes().clear();
+        }
       }
     }
   }
@@ -161,6 +640,7 @@ public class JsonDBTemplate implements JsonDBOperations {
    */
   public void reloadCollection(String collectionName) {
     CollectionMetaData cmd = cmdMap.get(collectionName);
+    CollectionChanges changes = null;
     cmd.getCollectionLock().writeLock().lock();
     try {
       File collectionFile = fileObjectsRef.get().get(collectionName);
@@ -175,55 +655,205 @@ public class JsonDBTemplate implements JsonDBOperations {
         newFileObjectmap.put(collectionName, collectionFile);
         fileObjectsRef.set(newFileObjectmap);
       }
-      Map<Object, ?> collection = loadCollection(collectionFile, collectionName, cmd);
+      Map<Object, ?> collection = null;
+      @SuppressWarnings("unchecked")
+      Map<Object, Object> current = (Map<Object, Object>) collectionsRef.get().get(collectionName);
+      if (dbConfig.isIncrementalReload() && isByteLevelLoadSupported() && !cmd.isOffsetIndexed()
+          && null != current && null != cmd.getLineFingerprints()) {
+        Set<Object> addedIds = new LinkedHashSet<Object>();
+        Set<Object> changedIds = new LinkedHashSet<Object>();
+        collection = loadCollectionIncrementally(collectionFile, collectionName, cmd, current, addedIds, changedIds);
+        if (null != collection) {
+          Set<Object> removedIds = new LinkedHashSet<Object>();
+          for (Object id : current.keySet()) {
+            if (!collection.containsKey(id)) {
+              removedIds.add(id);
+            }
+          }
+          changes = new CollectionChanges(addedIds, removedIds, changedIds);
+          logger.debug("Incrementally reloaded collection {} {}", collectionName, changes);
+        }
+      }
+      if (null == collection) {
+        collection = loadCollection(collectionFile, collectionName, cmd);
+      }
+      cmd.setUnloaded(false);
+      cmd.touch();
       if (null != collection) {
         JXPathContext newContext = JXPathContext.newContext(collection.values());
         contextsRef.get().put(collectionName, newContext);
         collectionsRef.get().put(collectionName, collection);
+        cmd.getIndexes().rebuild(collection);
       } else {
         //Since this is a reload attempt its possible the .json files have disappeared in the interim a very rare thing
         contextsRef.get().remove(collectionName);
         collectionsRef.get().remove(collectionName);
+        cmd.getIndexes().clear();
+        cmd.setLineFingerprints(null);
       }
     } finally {
       cmd.getCollectionLock().writeLock().unlock();
     }
+    if (null != changes && null != eventListenerList) {
+      eventListenerList.fireCollectionReloaded(collectionName, changes);
+    }
+  }
+
+  /**
+   * Reads the collection file again but parses only the lines whose fingerprint is unknown, the
+   * documents of all other lines are taken over from the current collection. A parsed document
+   * that serializes to exactly its line is also taken over, this is the case for documents this
+   * instance wrote itself since the fingerprints were taken.
+   *
+   * @return the new collection in file order, or null if the file could not be read in which case
+   *         a full reload should be done, it will report what went wrong
+   */
+  private <T> Map<Object, T> loadCollectionIncrementally(File collectionFile, String collectionName, CollectionMetaData cmd,
+      Map<Object, T> current, Set<Object> addedIds, Set<Object> changedIds) {
+    @SuppressWarnings("unchecked")
+    Class<T> entity = cmd.getClazz();
+    ObjectReader documentReader = dbConfig.getObjectReader(entity);
+    Map<Long, Object> fingerprints = cmd.getLineFingerprints();
+    Map<Long, Object> newFingerprints = new HashMap<Long, Object>();
+    Map<Object, T> collection = new LinkedHashMap<Object, T>();
+
+    JsonReader jr = null;
+    int lineNo = 1;
+    try {
+      cmd.recordCollectionFileState(collectionFile);
+      jr = new JsonReader(dbConfig, collectionFile, !dbConfig.isInMemory());
+      byte[] line = null;
+      while ((line = jr.readLineBytes()) != null) {
+        int length = jr.getLineLength();
+        if (lineNo++ == 1) {
+          SchemaVersion v = dbConfig.getObjectReader(SchemaVersion.class).readValue(line, 0, length);
+          cmd.setActualSchemaVersion(v.getSchemaVersion());
+          continue;
+        }
+        long fingerprint = LINE_FINGERPRINT.hashBytes(line, 0, length).asLong();
+        @SuppressWarnings("unchecked")
+        T row = (T) fingerprints.get(fingerprint);
+        Object id = null;
+        if (null != row) {
+          id = cmd.getId(row);
+          //The stored documents are replaced on every write, so only the very same instance is unchanged
+          if (current.get(id) != row) {
+            row = null;
+          }
+        }
+        if (null == row) {
+          row = documentReader.readValue(line, 0, length);
+          id = cmd.getId(row);
+          T existing = current.get(id);
+          if (null == existing) {
+            addedIds.add(id);
+          } else if (isSerializedForm(existing, line, length)) {
+            row = existing;
+          } else {
+            changedIds.add(id);
+          }
+        }
+        collection.put(id, row);
+        newFingerprints.put(fingerprint, row);
+      }
+    } catch (IOException | RuntimeException e) {
+      logger.debug("Incremental reload of collection {} failed at line {}, doing a full reload", collectionName, lineNo, e);
+      return null;
+    } finally {
+      if (null != jr) {
+        jr.close();
+      }
+    }
+    cmd.setLineFingerprints(newFingerprints);
+    return collection;
+  }
+
+  private boolean isSerializedForm(Object document, byte[] line, int length) throws IOException {
+    byte[] serialized = dbConfig.getObjectMapper().writeValueAsBytes(document);
+    return Arrays.equals(serialized, 0, serialized.length, line, 0, length);
+  }
+
+  /**
+   * Lines can be handed to Jackson as raw bytes only when the files are UTF-8 encoded,
+   * for any other charset we have to decode them into Strings first.
+   */
+  private boolean isByteLevelLoadSupported() {
+    return StandardCharsets.UTF_8.equals(dbConfig.getCharset());
   }
 
   private <T> Map<Object, T> loadCollection(File collectionFile, String collectionName, CollectionMetaData cmd) {
     @SuppressWarnings("unchecked")
     Class<T> entity = cmd.getClazz();
-    Method getterMethodForId = cmd.getIdAnnotatedFieldGetterMethod();
+    ObjectReader versionReader = dbConfig.getObjectReader(SchemaVersion.class);
+    ObjectReader documentReader = dbConfig.getObjectReader(entity);
+
+    if (dbConfig.isSnapshotsEnabled() && !dbConfig.isInMemory() && !cmd.isOffsetIndexed()) {
+      Map<Object, T> collection = new CollectionSnapshot(dbConfig, cmd, collectionFile).read();
+      if (null != collection) {
+        logger.debug("Loaded collection {} from snapshot", collectionName);
+        cmd.setLineFingerprints(null);
+        return collection;
+      }
+    }
 
     JsonReader jr = null;
     Map<Object, T> collection = new LinkedHashMap<Object, T>();
+    Map<Long, Object> fingerprints = null;
+    if (dbConfig.isIncrementalReload() && isByteLevelLoadSupported() && !cmd.isOffsetIndexed()) {
+      fingerprints = new HashMap<Long, Object>();
+    }
 
-    String line = null;
     int lineNo = 1;
     try {
-      jr = new JsonReader(dbConfig, collectionFile);
-
-      while ((line = jr.readLine()) != null) {
-        if (lineNo == 1) {
-          SchemaVersion v = dbConfig.getObjectMapper().readValue(line, SchemaVersion.class);
-          cmd.setActualSchemaVersion(v.getSchemaVersion());
-        } else {
-          T row = dbConfig.getObjectMapper().readValue(line, entity);
-          Object id = Util.getIdForEntity(row, getterMethodForId);
-          collection.put(id, row);
+      cmd.recordCollectionFileState(collectionFile);
+      if (cmd.isOffsetIndexed()) {
+        return OffsetIndexedCollection.load(dbConfig, cmd, collectionFile);
+      }
+      jr = new JsonReader(dbConfig, collectionFile, !dbConfig.isInMemory());
+
+      if (isByteLevelLoadSupported()) {
+        byte[] line = null;
+        while ((line = jr.readLineBytes()) != null) {
+          if (lineNo == 1) {
+            SchemaVersion v = versionReader.readValue(line, 0, jr.getLineLength());
+            cmd.setActualSchemaVersion(v.getSchemaVersion());
+          } else {
+            T row = documentReader.readValue(line, 0, jr.getLineLength());
+            collection.put(cmd.getId(row), row);
+            if (null != fingerprints) {
+              fingerprints.put(LINE_FINGERPRINT.hashBytes(line, 0, jr.getLineLength()).asLong(), row);
+            }
+          }
+          lineNo++;
+        }
+      } else {
+        String line = null;
+        while ((line = jr.readLine()) != null) {
+          if (lineNo == 1) {
+            SchemaVersion v = versionReader.readValue(line);
+            cmd.setActualSchemaVersion(v.getSchemaVersion());
+          } else {
+            T row = documentReader.readValue(line);
+            collection.put(cmd.getId(row), row);
+          }
+          lineNo++;
         }
-        lineNo++;
       }
     } catch (JsonParseException je) {
-      logger.error("Failed Json Parsing for file {} line {}", collectionFile.getName(), lineNo, je);
+      if (isMalformedEncoding(je)) {
+        logger.error("Unsupported Character Encoding in file {} line {} expected Encoding {}",
+            collectionFile.getName(), lineNo, dbConfig.getCharset().displayName(), je);
+      } else {
+        logger.error("Failed Json Parsing for file {} line {}", collectionFile.getName(), lineNo, je);
+      }
       return null;
     } catch (JsonMappingException jm) {
       logger.error("Failed Mapping Parsed Json to Entity {} for file {} line {}",
           entity.getSimpleName(), collectionFile.getName(), lineNo, jm);
       return null;
     } catch (CharacterCodingException ce) {
-      logger.error("Unsupported Character Encoding in file {} expected Encoding {}",
-          collectionFile.getName(), dbConfig.getCharset().displayName(), ce);
+      logger.error("Unsupported Character Encoding in file {} line {} expected Encoding {}",
+          collectionFile.getName(), lineNo, dbConfig.getCharset().displayName(), ce);
       return null;
     } catch (JsonFileLockException jfe) {
       logger.error("Failed to acquire lock for collection file {}", collectionFile.getName(), jfe);
@@ -242,65 +872,278 @@ public class JsonDBTemplate implements JsonDBOperations {
         jr.close();
       }
     }
+    cmd.setLineFingerprints(fingerprints);
     return collection;
   }
 
-  /* (non-Javadoc)
-   * @see org.jsondb.JsonDBOperations#addCollectionFileChangeListener(org.jsondb.CollectionFileChangeListener)
+  /**
+   * When lines are parsed straight from bytes Jackson is the one validating the UTF-8 encoding,
+   * it reports invalid byte sequences as parse errors rather than CharacterCodingExceptions.
    */
-  @Override
-  public void addCollectionFileChangeListener(CollectionFileChangeListener listener) {
-    eventListenerList.addCollectionFileChangeListener(listener);
+  private static boolean isMalformedEncoding(JsonParseException je) {
+    String message = je.getOriginalMessage();
+    return null != message && message.startsWith("Invalid UTF-8");
   }
 
   /* (non-Javadoc)
-   * @see org.jsondb.JsonDBOperations#removeCollectionFileChangeListener(org.jsondb.CollectionFileChangeListener)
+   * @see io.jsondb.JsonDBOperations#pinCollection(java.lang.Class)
    */
   @Override
-  public void removeCollectionFileChangeListener(CollectionFileChangeListener listener) {
-    eventListenerList.removeCollectionFileChangeListener(listener);
+  public <T> void pinCollection(Class<T> entityClass) {
+    pinCollection(Util.determineCollectionName(entityClass));
   }
 
   /* (non-Javadoc)
-   * @see io.jsondb.JsonDBOperations#hasCollectionFileChangeListener()
+   * @see io.jsondb.JsonDBOperations#pinCollection(java.lang.String)
    */
   @Override
-  public boolean hasCollectionFileChangeListener() {
-    return eventListenerList.hasCollectionFileChangeListener();
+  public void pinCollection(String collectionName) {
+    CollectionMetaData cmd = cmdMap.get(collectionName);
+    if (null == cmd) {
+      throw new InvalidJsonDbApiUsageException(
+          "No class found with @Document Annotation and attribute collectionName as: " + collectionName);
+    }
+    cmd.setPinned(true);
+    ensureCollectionLoaded(collectionName);
   }
 
   /* (non-Javadoc)
-   * @see io.jsondb.JsonDBOperations#createCollection(java.lang.Class)
+   * @see io.jsondb.JsonDBOperations#getCacheStats(java.lang.Class)
    */
   @Override
-  public <T> void createCollection(Class<T> entityClass) {
-    createCollection(Util.determineCollectionName(entityClass));
+  public <T> CollectionCacheStats getCacheStats(Class<T> entityClass) {
+    return getCacheStats(Util.determineCollectionName(entityClass));
   }
 
   /* (non-Javadoc)
-   * @see io.jsondb.JsonDBOperations#createCollection(java.lang.String)
+   * @see io.jsondb.JsonDBOperations#getCacheStats(java.lang.String)
    */
   @Override
-  public <T> void createCollection(String collectionName) {
+  public CollectionCacheStats getCacheStats(String collectionName) {
     CollectionMetaData cmd = cmdMap.get(collectionName);
     if (null == cmd) {
       throw new InvalidJsonDbApiUsageException(
           "No class found with @Document Annotation and attribute collectionName as: " + collectionName);
     }
-    @SuppressWarnings("unchecked")
-    Map<Object, T> collection = (Map<Object, T>) collectionsRef.get().get(collectionName);
-    if (null != collection) {
-      throw new InvalidJsonDbApiUsageException("Collection by name '" + collectionName + "' already exists.");
+    Map<Object, ?> collection = collectionsRef.get().get(collectionName);
+    if (collection instanceof OffsetIndexedCollection) {
+      return ((OffsetIndexedCollection<?>) collection).getCacheStats();
     }
+    return null;
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.JsonDBOperations#getQueryCacheStats(java.lang.Class)
+   */
+  @Override
+  public <T> QueryCacheStats getQueryCacheStats(Class<T> entityClass) {
+    return getQueryCacheStats(Util.determineCollectionName(entityClass));
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.JsonDBOperations#getQueryCacheStats(java.lang.String)
+   */
+  @Override
+  public QueryCacheStats getQueryCacheStats(String collectionName) {
+    CollectionMetaData cmd = cmdMap.get(collectionName);
+    if (null == cmd) {
+      throw new InvalidJsonDbApiUsageException(
+          "No class found with @Document Annotation and attribute collectionName as: " + collectionName);
+    }
+    QueryResultCache resultCache = resultCacheOf(collectionName);
+    return (null == resultCache) ? null : resultCache.getStats(cmd);
+  }
+
+  /**
+   * @return the result cache of a collection, null if it has none
+   */
+  private QueryResultCache resultCacheOf(String collectionName) {
+    CollectionResultCache bounds = dbConfig.getResultCache(collectionName);
+    if (null == bounds) {
+      return null;
+    }
+    QueryResultCache resultCache = resultCaches.get(collectionName);
+    if (null == resultCache) {
+      resultCache = new QueryResultCache(bounds, dbConfig.getObjectMapper(), encrypted ? dbConfig.getCipher() : null);
+      QueryResultCache raced = resultCaches.putIfAbsent(collectionName, resultCache);
+      if (null != raced) {
+        resultCache = raced;
+      }
+    }
+    return resultCache;
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.JsonDBOperations#unpinCollection(java.lang.Class)
+   */
+  @Override
+  public <T> void unpinCollection(Class<T> entityClass) {
+    unpinCollection(Util.determineCollectionName(entityClass));
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.JsonDBOperations#unpinCollection(java.lang.String)
+   */
+  @Override
+  public void unpinCollection(String collectionName) {
+    CollectionMetaData cmd = cmdMap.get(collectionName);
+    if (null == cmd) {
+      throw new InvalidJsonDbApiUsageException(
+          "No class found with @Document Annotation and attribute collectionName as: " + collectionName);
+    }
+    cmd.touch();
+    cmd.setPinned(false);
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.JsonDBOperations#createIndex(io.jsondb.index.IndexDefinition, java.lang.Class)
+   */
+  @Override
+  public <T> void createIndex(IndexDefinition definition, Class<T> entityClass) {
+    createIndex(definition, Util.determineCollectionName(entityClass));
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.JsonDBOperations#createIndex(io.jsondb.index.IndexDefinition, java.lang.String)
+   */
+  @Override
+  public void createIndex(IndexDefinition definition, String collectionName) {
+    if (null == definition) {
+      throw new InvalidJsonDbApiUsageException("Index definition cannot be null");
+    }
+    ensureCollectionLoaded(collectionName);
+    CollectionMetaData cmd = cmdMap.get(collectionName);
+    if (null == cmd) {
+      throw new InvalidJsonDbApiUsageException(
+          "No class found with @Document Annotation and attribute collectionName as: " + collectionName);
+    }
+    lockForWrite(cmd);
+    try {
+      cmd.getIndexes().create(definition, collectionsRef.get().get(collectionName));
+    } finally {
+      cmd.getCollectionLock().writeLock().unlock();
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.JsonDBOperations#dropIndex(java.lang.String, java.lang.Class)
+   */
+  @Override
+  public <T> boolean dropIndex(String indexName, Class<T> entityClass) {
+    return dropIndex(indexName, Util.determineCollectionName(entityClass));
+  }
 
+  /* (non-Javadoc)
+   * @see io.jsondb.JsonDBOperations#dropIndex(java.lang.String, java.lang.String)
+   */
+  @Override
+  public boolean dropIndex(String indexName, String collectionName) {
+    CollectionMetaData cmd = cmdMap.get(collectionName);
+    if (null == cmd) {
+      throw new InvalidJsonDbApiUsageException(
+          "No class found with @Document Annotation and attribute collectionName as: " + collectionName);
+    }
     cmd.getCollectionLock().writeLock().lock();
+    try {
+      return cmd.getIndexes().drop(indexName);
+    } finally {
+      cmd.getCollectionLock().writeLock().unlock();
+    }
+  }
 
-    // Some other thread might have created same collection when this thread reached this point
-    if(collectionsRef.get().get(collectionName) != null) {
-      return;
+  /* (non-Javadoc)
+   * @see io.jsondb.JsonDBOperations#getIndexes(java.lang.Class)
+   */
+  @Override
+  public <T> List<IndexDefinition> getIndexes(Class<T> entityClass) {
+    return getIndexes(Util.determineCollectionName(entityClass));
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.JsonDBOperations#getIndexes(java.lang.String)
+   */
+  @Override
+  public List<IndexDefinition> getIndexes(String collectionName) {
+    CollectionMetaData cmd = cmdMap.get(collectionName);
+    if (null == cmd) {
+      throw new InvalidJsonDbApiUsageException(
+          "No class found with @Document Annotation and attribute collectionName as: " + collectionName);
+    }
+    cmd.getCollectionLock().readLock().lock();
+    try {
+      return cmd.getIndexes().getDefinitions();
+    } finally {
+      cmd.getCollectionLock().readLock().unlock();
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see org.jsondb.JsonDBOperations#addCollectionFileChangeListener(org.jsondb.CollectionFileChangeListener)
+   */
+  @Override
+  public void addCollectionFileChangeListener(CollectionFileChangeListener listener) {
+    if (dbConfig.isInMemory()) {
+      throw new InvalidJsonDbApiUsageException("A in-memory database has no collection files to watch");
+    }
+    eventListenerList.addCollectionFileChangeListener(listener);
+  }
+
+  /* (non-Javadoc)
+   * @see org.jsondb.JsonDBOperations#removeCollectionFileChangeListener(org.jsondb.CollectionFileChangeListener)
+   */
+  @Override
+  public void removeCollectionFileChangeListener(CollectionFileChangeListener listener) {
+    eventListenerList.removeCollectionFileChangeListener(listener);
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.JsonDBOperations#hasCollectionFileChangeListener()
+   */
+  @Override
+  public boolean hasCollectionFileChangeListener() {
+    return eventListenerList.hasCollectionFileChangeListener();
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.JsonDBOperations#createCollection(java.lang.Class)
+   */
+  @Override
+  public <T> void createCollection(Class<T> entityClass) {
+    createCollection(Util.determineCollectionName(entityClass));
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.JsonDBOperations#createCollection(java.lang.String)
+   */
+  @Override
+  public <T> void createCollection(String collectionName) {
+    ensureCollectionLoaded(collectionName);
+    CollectionMetaData cmd = cmdMap.get(collectionName);
+    if (null == cmd) {
+      throw new InvalidJsonDbApiUsageException(
+          "No class found with @Document Annotation and attribute collectionName as: " + collectionName);
+    }
+    @SuppressWarnings("unchecked")
+    Map<Object, T> collection = (Map<Object, T>) collectionsRef.get().get(collectionName);
+    if (null != collection) {
+      throw new InvalidJsonDbApiUsageException("Collection by name '" + collectionName + "' already exists.");
     }
 
+    lockForWrite(cmd);
     try {
+      // Some other thread might have created same collection when this thread reached this point
+      if(collectionsRef.get().get(collectionName) != null) {
+        return;
+      }
+
+      if (dbConfig.isInMemory()) {
+        collection = new LinkedHashMap<Object, T>();
+        collectionsRef.get().put(collectionName, collection);
+        contextsRef.get().put(collectionName, JXPathContext.newContext(collection.values()));
+        cmd.getIndexes().rebuild(collection);
+        cmd.setActualSchemaVersion(cmd.getSchemaVersion());
+        return;
+      }
       String collectionFileName = collectionName + ".json";
       File fileObject = new File(dbConfig.getDbFilesLocation(), collectionFileName);
       try {
@@ -311,11 +1154,22 @@ public class JsonDBTemplate implements JsonDBOperations {
       }
 
       if (Util.stampVersion(dbConfig, fileObject, cmd.getSchemaVersion())) {
-        collection = new LinkedHashMap<Object, T>();
+        if (cmd.isOffsetIndexed()) {
+          try {
+            collection = OffsetIndexedCollection.load(dbConfig, cmd, fileObject);
+          } catch (IOException e) {
+            logger.error("IO Exception indexing the collection file {}", collectionFileName, e);
+            throw new JsonDBException("Failed to index collection file for collection: " + collectionName, e);
+          }
+        } else {
+          collection = new LinkedHashMap<Object, T>();
+        }
         collectionsRef.get().put(collectionName, collection);
         contextsRef.get().put(collectionName, JXPathContext.newContext(collection.values())) ;
+        cmd.getIndexes().rebuild(collection);
         fileObjectsRef.get().put(collectionName, fileObject);
         cmd.setActualSchemaVersion(cmd.getSchemaVersion());
+        cmd.recordCollectionFileState(fileObject);
       } else {
         fileObject.delete();
         throw new JsonDBException("Failed to stamp version for collection: " + collectionName);
@@ -338,12 +1192,25 @@ public class JsonDBTemplate implements JsonDBOperations {
    */
   @Override
   public void dropCollection(String collectionName) {
+    ensureCollectionLoaded(collectionName);
     CollectionMetaData cmd = cmdMap.get(collectionName);
-    if((null == cmd) || (!collectionsRef.get().containsKey(collectionName))) {
+    if (null == cmd) {
       throw new InvalidJsonDbApiUsageException("Collection by name '" + collectionName + "' not found. Create collection first.");
     }
-    cmd.getCollectionLock().writeLock().lock();
+    lockForWrite(cmd);
     try {
+      if (!collectionsRef.get().containsKey(collectionName)) {
+        throw new InvalidJsonDbApiUsageException("Collection by name '" + collectionName + "' not found. Create collection first.");
+      }
+      if (dbConfig.isInMemory()) {
+        //The file this collection may have been read from is left alone
+        fileObjectsRef.get().remove(collectionName);
+        collectionsRef.get().remove(collectionName);
+        contextsRef.get().remove(collectionName);
+        cmd.getIndexes().clear();
+        cmd.setLineFingerprints(null);
+        return;
+      }
       File toDelete = fileObjectsRef.get().get(collectionName);
       try {
         Files.deleteIfExists(toDelete.toPath());
@@ -353,9 +1220,12 @@ public class JsonDBTemplate implements JsonDBOperations {
       }
       //cmdMap.remove(collectionName); //Do not remove it from the CollectionMetaData Map.
       //Someone might want to re insert a new collection of this type.
+      new CollectionSnapshot(dbConfig, cmd, toDelete).delete();
       fileObjectsRef.get().remove(collectionName);
       collectionsRef.get().remove(collectionName);
       contextsRef.get().remove(collectionName);
+      cmd.getIndexes().clear();
+      cmd.setLineFingerprints(null);
     } finally {
       cmd.getCollectionLock().writeLock().unlock();
     }
@@ -372,12 +1242,14 @@ public class JsonDBTemplate implements JsonDBOperations {
   /* (non-Javadoc)
    * @see org.jsondb.JsonDBOperations#updateCollectionSchema(org.jsondb.query.CollectionSchemaUpdate, java.lang.String)
    */
+  @SuppressWarnings("unchecked")
   @Override
   public <T> void updateCollectionSchema(CollectionSchemaUpdate update, String collectionName) {
+    ensureCollectionLoaded(collectionName);
     CollectionMetaData cmd = cmdMap.get(collectionName);
-    @SuppressWarnings("unchecked")
     Map<Object, T> collection = (Map<Object, T>) collectionsRef.get().get(collectionName);
-    if((null == cmd) || (null == collection)) {
+    //A lazy collection that is not in memory is loaded again once the lock is held
+    if((null == cmd) || (null == collection && !cmd.isUnloaded())) {
       throw new InvalidJsonDbApiUsageException("Collection by name '" + collectionName + "' not found. Create collection first.");
     }
     boolean reloadCollectionAsSomethingChanged = false;
@@ -386,7 +1258,8 @@ public class JsonDBTemplate implements JsonDBOperations {
       Map<String, RenameOperation> renOps = update.getRenameOperations();
       if (renOps.size() > 0) {
         reloadCollectionAsSomethingChanged = true;
-        cmd.getCollectionLock().writeLock().lock();
+        lockForWrite(cmd);
+        collection = (Map<Object, T>) collectionsRef.get().get(collectionName);
         
         for(Entry<String, RenameOperation> updateEntry: renOps.entrySet()) {
           String oldKey = updateEntry.getKey();
@@ -394,9 +1267,9 @@ public class JsonDBTemplate implements JsonDBOperations {
           RenameOperation op = updateEntry.getValue();
           String newKey = op.getNewName();
 
-          JsonWriter jw;
+          CollectionWriter jw;
           try {
-            jw = new JsonWriter(dbConfig, cmd, collectionName, fileObjectsRef.get().get(collectionName));
+            jw = getCollectionWriter(cmd, collectionName);
           } catch (IOException ioe) {
             logger.error("Failed to obtain writer for " + collectionName, ioe);
             throw new JsonDBException("Failed to save " + collectionName, ioe);
@@ -409,8 +1282,10 @@ public class JsonDBTemplate implements JsonDBOperations {
       Map<String, AddOperation> addOps = update.getAddOperations();
       if (addOps.size() > 0) {
         reloadCollectionAsSomethingChanged = true;
-        cmd.getCollectionLock().writeLock().lock();
+        lockForWrite(cmd);
+        collection = (Map<Object, T>) collectionsRef.get().get(collectionName);
         
+        final Map<Method, Object> defaultValues = new LinkedHashMap<Method, Object>();
         for(Entry<String, AddOperation> updateEntry: addOps.entrySet()) {
           AddOperation op = updateEntry.getValue();
           
@@ -422,20 +1297,39 @@ public class JsonDBTemplate implements JsonDBOperations {
           }
           
           String fieldName = updateEntry.getKey();
-          Method setterMethod = cmd.getSetterMethodForFieldName(fieldName);
-          for(T object : collection.values()) {
-            Util.setFieldValueForEntity(object, value, setterMethod);
+          defaultValues.put(cmd.getSetterMethodForFieldName(fieldName), value);
+        }
+        //The defaults go into copies, the documents held by the collection are only ever replaced as open cursors still read them
+        Function<T, T> withDefaults = new Function<T, T>() {
+          @SuppressWarnings("unchecked")
+          @Override
+          public T apply(T object) {
+            T updated = (T) Util.deepCopy(object);
+            for (Entry<Method, Object> defaultValue : defaultValues.entrySet()) {
+              Util.setFieldValueForEntity(updated, defaultValue.getValue(), defaultValue.getKey());
+            }
+            return updated;
+          }
+        };
+        if (dbConfig.isInMemory()) {
+          //Nothing is written out and read back, so the documents in memory are replaced directly
+          for (Entry<Object, T> entry : collection.entrySet()) {
+            entry.setValue(withDefaults.apply(entry.getValue()));
           }
         }
+        //The defaults are applied while the documents are written out, a offset indexed collection
+        //hands out freshly parsed documents so changes made to them beforehand would be lost
+        Collection<T> updatedDocuments = dbConfig.isInMemory() ? collection.values()
+            : Collections2.transform(collection.values(), withDefaults);
         
-        JsonWriter jw;
+        CollectionWriter jw;
         try {
-          jw = new JsonWriter(dbConfig, cmd, collectionName, fileObjectsRef.get().get(collectionName));
+          jw = getCollectionWriter(cmd, collectionName);
         } catch (IOException ioe) {
           logger.error("Failed to obtain writer for " + collectionName, ioe);
           throw new JsonDBException("Failed to save " + collectionName, ioe);
         }
-        jw.reWriteJsonFile(collection.values(), true);
+        jw.reWriteJsonFile(updatedDocuments, true);
         cmd.getCollectionLock().writeLock().unlock();
       }
       
@@ -445,11 +1339,12 @@ public class JsonDBTemplate implements JsonDBOperations {
         //This would not have been necessary if there was even 1 ADD operation
         
         reloadCollectionAsSomethingChanged = true;
-        cmd.getCollectionLock().writeLock().lock();
+        lockForWrite(cmd);
+        collection = (Map<Object, T>) collectionsRef.get().get(collectionName);
         
-        JsonWriter jw;
+        CollectionWriter jw;
         try {
-          jw = new JsonWriter(dbConfig, cmd, collectionName, fileObjectsRef.get().get(collectionName));
+          jw = getCollectionWriter(cmd, collectionName);
         } catch (IOException ioe) {
           logger.error("Failed to obtain writer for " + collectionName, ioe);
           throw new JsonDBException("Failed to save " + collectionName, ioe);
@@ -458,7 +1353,18 @@ public class JsonDBTemplate implements JsonDBOperations {
         cmd.getCollectionLock().writeLock().unlock();
       }
       if (reloadCollectionAsSomethingChanged) {
-        reloadCollection(collectionName);
+        if (dbConfig.isInMemory()) {
+          //The documents in memory already are instances of the current class, renamed and deleted fields are gone
+          cmd.getCollectionLock().writeLock().lock();
+          try {
+            cmd.getIndexes().rebuild(collectionsRef.get().get(collectionName));
+          } finally {
+            cmd.getCollectionLock().writeLock().unlock();
+          }
+          cmd.setActualSchemaVersion(cmd.getSchemaVersion());
+        } else {
+          reloadCollection(collectionName);
+        }
       }
     }
   }
@@ -468,7 +1374,13 @@ public class JsonDBTemplate implements JsonDBOperations {
    */
   @Override
   public Set<String> getCollectionNames() {
-    return collectionsRef.get().keySet();
+    Set<String> collectionNames = new LinkedHashSet<String>(collectionsRef.get().keySet());
+    for (CollectionMetaData cmd : cmdMap.values()) {
+      if (cmd.isUnloaded()) {
+        collectionNames.add(cmd.getCollectionName());
+      }
+    }
+    return collectionNames;
   }
 
   /* (non-Javadoc)
@@ -486,13 +1398,13 @@ public class JsonDBTemplate implements JsonDBOperations {
   @Override
   public <T> List<T> getCollection(Class<T> entityClass) {
     String collectionName = Util.determineCollectionName(entityClass);
-    Map<Object, T> collection = (Map<Object, T>) collectionsRef.get().get(collectionName);
-    if (null == collection) {
+    ensureCollectionLoaded(collectionName);
+    CollectionMetaData cmd = cmdMap.get(collectionName);
+    if ((null == cmd) || (!cmd.isUnloaded() && !collectionsRef.get().containsKey(collectionName))) {
       createCollection(collectionName);
-      collection = (Map<Object, T>) collectionsRef.get().get(collectionName);
     }
 
-    CollectionMetaData cmd = cmdMap.get(collectionName);
+    Map<Object, T> collection = lockForRead(cmd);
     List<T> newCollection = new ArrayList<T>();
     try {
       for (T document : collection.values()) {
@@ -505,6 +1417,8 @@ public class JsonDBTemplate implements JsonDBOperations {
     } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
       logger.error("Error when decrypting value for a @Secret annotated field for entity: " + collectionName, e);
       throw new JsonDBException("Error when decrypting value for a @Secret annotated field for entity: " + collectionName, e);
+    } finally {
+      cmd.getCollectionLock().readLock().unlock();
     }
     return newCollection;
   }
@@ -528,7 +1442,7 @@ public class JsonDBTemplate implements JsonDBOperations {
     }
     collectionMeta.getCollectionLock().readLock().lock();
     try {
-      return collectionsRef.get().containsKey(collectionName);
+      return collectionMeta.isUnloaded() || collectionsRef.get().containsKey(collectionName);
     } finally {
       collectionMeta.getCollectionLock().readLock().unlock();
     }
@@ -547,6 +1461,7 @@ public class JsonDBTemplate implements JsonDBOperations {
    */
   @Override
   public <T> boolean isCollectionReadonly(String collectionName) {
+    ensureCollectionLoaded(collectionName);
     CollectionMetaData cmd = cmdMap.get(collectionName);
     return cmd.isReadOnly();
   }
@@ -596,225 +1511,1010 @@ public class JsonDBTemplate implements JsonDBOperations {
    */
   @Override
   public <T> List<T> find(String jxQuery, String collectionName, Comparator<? super T> comparator, String slice) {
-    CollectionMetaData cmd = cmdMap.get(collectionName);
-    Map<Object, T> collection = (Map<Object, T>) collectionsRef.get().get(collectionName);
-    if((null == cmd) || (null == collection)) {
-      throw new InvalidJsonDbApiUsageException("Collection by name '" + collectionName + "' not found. Create collection first.");
+    QueryResultCache resultCache = resultCacheOf(collectionName);
+    if (null == resultCache) {
+      return find(prepare(jxQuery), collectionName, comparator, slice);
     }
-    cmd.getCollectionLock().readLock().lock();
-    boolean isSliceable = Util.isSliceable(slice);
+    CollectionMetaData cmd = loadedCollectionMetaData(collectionName);
     try {
-      JXPathContext context = contextsRef.get().get(collectionName);
-      Iterator<T> resultItr = context.iterate(jxQuery);
-      List<T> newCollection = new ArrayList<T>();
+      List<T> result = resultCache.get(cmd, jxQuery, comparator, slice);
+      if (null != result) {
+        return result;
+      }
+      long generation;
+      lockForRead(cmd);
+      try {
+        //Read in the same hold of the lock as the result, so that a result of a collection that changed meanwhile is not cached
+        generation = cmd.getIndexes().getGeneration();
+        result = find(prepare(jxQuery), collectionName, comparator, slice);
+      } finally {
+        cmd.getCollectionLock().readLock().unlock();
+      }
+      resultCache.put(cmd, generation, jxQuery, comparator, slice, result);
+      return result;
+    } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
+      logger.error("Error when decrypting value for a @Secret annotated field for entity: " + collectionName, e);
+      throw new JsonDBException("Error when decrypting value for a @Secret annotated field for entity: " + collectionName, e);
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.JsonDBOperations#findProjected(java.lang.String, java.lang.Class, io.jsondb.query.Projection)
+   */
+  @Override
+  public <T> List<T> findProjected(String jxQuery, Class<T> entityClass, Projection projection) {
+    return findProjected(jxQuery, Util.determineCollectionName(entityClass), projection);
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.JsonDBOperations#findProjected(java.lang.String, java.lang.String, io.jsondb.query.Projection)
+   */
+  @SuppressWarnings("unchecked")
+  @Override
+  public <T> List<T> findProjected(String jxQuery, String collectionName, Projection projection) {
+    return (List<T>) project(jxQuery, collectionName, projection, true);
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.JsonDBOperations#explain(java.lang.String, java.lang.Class, java.util.Comparator, java.lang.String)
+   */
+  @Override
+  public <T> QueryExplanation explain(String jxQuery, Class<T> entityClass, Comparator<? super T> comparator, String slice) {
+    return explain(jxQuery, Util.determineCollectionName(entityClass), comparator, slice);
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.JsonDBOperations#explain(java.lang.String, java.lang.String, java.util.Comparator, java.lang.String)
+   */
+  @SuppressWarnings("unchecked")
+  @Override
+  public <T> QueryExplanation explain(String jxQuery, String collectionName, Comparator<? super T> comparator, String slice) {
+    long start = System.nanoTime();
+    PreparedQuery query = prepare(jxQuery);
+    CollectionMetaData cmd = loadedCollectionMetaData(collectionName);
+    QueryExplanation explanation = new QueryExplanation(collectionName, jxQuery, comparator, slice);
+    long lockRequested = System.nanoTime();
+    Map<Object, T> collection = lockForRead(cmd);
+    explanation.recordLockWait(System.nanoTime() - lockRequested);
+    int limit = Util.getSliceLimit(slice);
+    try {
+      long planStart = System.nanoTime();
+      IndexLookup lookup = cmd.getIndexes().plan(query, collection, comparator, limit);
+      long planned = System.nanoTime();
+      boolean parallel = null != comparator || limit < 0;
+      if (null == lookup) {
+        explanation.recordPlan(AccessPath.SCAN, collection.size(), true, false, parallel && isParallel(collection),
+            planned - planStart);
+      } else {
+        explanation.recordPlan(lookup.getAccessPath(), lookup.getIds().size(), lookup.hasResidual(), lookup.isOrdered(),
+            parallel && lookup.hasResidual() && isParallel(lookup.getIds().size()), planned - planStart);
+      }
+      //Evaluated in full here when in parallel, lazily as the documents are read otherwise
+      Iterator<T> resultItr = iterate(lookup, query, collectionName, collection, parallel);
+      explanation.recordEvaluation(System.nanoTime() - planned);
+      List<T> result = copyOf(resultItr, null != lookup && lookup.isOrdered(), cmd, comparator, slice, explanation);
+      explanation.recordResult(result.size(), System.nanoTime() - start);
+      return explanation;
+    } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
+      logger.error("Error when decrypting value for a @Secret annotated field for entity: " + collectionName, e);
+      throw new JsonDBException("Error when decrypting value for a @Secret annotated field for entity: " + collectionName, e);
+    } finally {
+      cmd.getCollectionLock().readLock().unlock();
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.JsonDBOperations#findRows(java.lang.String, java.lang.Class, io.jsondb.query.Projection)
+   */
+  @Override
+  public <T> List<Map<String, Object>> findRows(String jxQuery, Class<T> entityClass, Projection projection) {
+    return findRows(jxQuery, Util.determineCollectionName(entityClass), projection);
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.JsonDBOperations#findRows(java.lang.String, java.lang.String, io.jsondb.query.Projection)
+   */
+  @SuppressWarnings("unchecked")
+  @Override
+  public List<Map<String, Object>> findRows(String jxQuery, String collectionName, Projection projection) {
+    return (List<Map<String, Object>>) project(jxQuery, collectionName, projection, false);
+  }
+
+  /**
+   * Finds the documents a query finds and copies their projected fields, into new entities or into rows
+   */
+  @SuppressWarnings("unchecked")
+  private List<?> project(String jxQuery, String collectionName, Projection projection, boolean entities) {
+    PreparedQuery query = prepare(jxQuery);
+    CollectionMetaData cmd = loadedCollectionMetaData(collectionName);
+    Projector projector = projectorOf(projection, cmd, entities);
+    Map<Object, Object> collection = lockForRead(cmd);
+    try {
+      IndexLookup lookup = cmd.getIndexes().plan(query, collection, null, -1);
+      Iterator<Object> resultItr = iterate(lookup, query, collectionName, collection, true);
+      List<Object> projected = new ArrayList<Object>();
       while (resultItr.hasNext()) {
-        T document = resultItr.next();
-        if (isSliceable) {
-          //Since slicing is enabled we defer the deepcopy and decryption to later stage.
-          newCollection.add(document);
-        } else {
-          Object obj = Util.deepCopy(document);
-          if (encrypted && cmd.hasSecret() && null != obj) {
-            CryptoUtil.decryptFields(obj, cmd, dbConfig.getCipher());
-          }
-          newCollection.add((T) obj);
-        }
+        projected.add(projector.project(resultItr.next()));
       }
-      if (comparator != null) {
-        // It is tempting to attempt to sort the objects in the while loop above, but it has no real benefit
-        // See: https://stackoverflow.com/questions/24136930/sort-while-inserting-or-copy-and-sort
-        newCollection.sort(comparator);
-      }
-      if (isSliceable) {
-        List<Integer> indexes = Util.getSliceIndexes(slice, newCollection.size());
-        if (indexes != null) {
-          List<T> slicedCollection = new ArrayList<T>(indexes.size());
-          for (int index : indexes) {
-            Object obj = Util.deepCopy(newCollection.get(index));
-            if (encrypted && cmd.hasSecret() && null != obj) {
-              CryptoUtil.decryptFields(obj, cmd, dbConfig.getCipher());
-            }
-            slicedCollection.add((T) obj);
+      return projected;
+    } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
+      logger.error("Error when decrypting value for a @Secret annotated field for entity: " + collectionName, e);
+      throw new JsonDBException("Error when decrypting value for a @Secret annotated field for entity: " + collectionName, e);
+    } finally {
+      cmd.getCollectionLock().readLock().unlock();
+    }
+  }
+
+  private Projector projectorOf(Projection projection, CollectionMetaData cmd, boolean entities) {
+    if (null == projection) {
+      throw new InvalidJsonDbApiUsageException("Projection cannot be null");
+    }
+    return new Projector(projection, cmd, encrypted ? dbConfig.getCipher() : null, entities);
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.JsonDBOperations#find(io.jsondb.query.PreparedQuery, java.lang.Class)
+   */
+  @Override
+  public <T> List<T> find(PreparedQuery query, Class<T> entityClass) {
+    return find(query, Util.determineCollectionName(entityClass), null, null);
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.JsonDBOperations#find(io.jsondb.query.PreparedQuery, java.lang.String)
+   */
+  @Override
+  public <T> List<T> find(PreparedQuery query, String collectionName) {
+    return find(query, collectionName, null, null);
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.JsonDBOperations#find(io.jsondb.query.PreparedQuery, java.lang.Class, java.util.Comparator, java.lang.String)
+   */
+  @Override
+  public <T> List<T> find(PreparedQuery query, Class<T> entityClass, Comparator<? super T> comparator, String slice) {
+    return find(query, Util.determineCollectionName(entityClass), comparator, slice);
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.JsonDBOperations#find(io.jsondb.query.PreparedQuery, java.lang.String, java.util.Comparator, java.lang.String)
+   */
+  @SuppressWarnings("unchecked")
+  @Override
+  public <T> List<T> find(PreparedQuery query, String collectionName, Comparator<? super T> comparator, String slice) {
+    if (null == query) {
+      throw new InvalidJsonDbApiUsageException("Query cannot be null");
+    }
+    ensureCollectionLoaded(collectionName);
+    CollectionMetaData cmd = cmdMap.get(collectionName);
+    if(null == cmd) {
+      throw new InvalidJsonDbApiUsageException("Collection by name '" + collectionName + "' not found. Create collection first.");
+    }
+    Map<Object, T> collection = lockForRead(cmd);
+    int limit = Util.getSliceLimit(slice);
+    try {
+      //A Sort on the fields of a sorted index reads the documents in order, and only as many as the slice needs
+      IndexLookup lookup = cmd.getIndexes().plan(query, collection, comparator, limit);
+      //The first documents of an unsorted slice are found lazily, on this thread, and the rest are never evaluated
+      Iterator<T> resultItr = iterate(lookup, query, collectionName, collection, null != comparator || limit < 0);
+      return copyOf(resultItr, null != lookup && lookup.isOrdered(), cmd, comparator, slice);
+    } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
+      logger.error("Error when decrypting value for a @Secret annotated field for entity: " + collectionName, e);
+      throw new JsonDBException("Error when decrypting value for a @Secret annotated field for entity: " + collectionName, e);
+    } finally {
+      cmd.getCollectionLock().readLock().unlock();
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.JsonDBOperations#find(io.jsondb.query.Criteria, java.lang.Class)
+   */
+  @Override
+  public <T> List<T> find(Criteria criteria, Class<T> entityClass) {
+    return find(criteria, Util.determineCollectionName(entityClass), null, null);
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.JsonDBOperations#find(io.jsondb.query.Criteria, java.lang.String)
+   */
+  @Override
+  public <T> List<T> find(Criteria criteria, String collectionName) {
+    return find(criteria, collectionName, null, null);
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.JsonDBOperations#find(io.jsondb.query.Criteria, java.lang.Class, java.util.Comparator, java.lang.String)
+   */
+  @Override
+  public <T> List<T> find(Criteria criteria, Class<T> entityClass, Comparator<? super T> comparator, String slice) {
+    return find(criteria, Util.determineCollectionName(entityClass), comparator, slice);
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.JsonDBOperations#find(io.jsondb.query.Criteria, java.lang.String, java.util.Comparator, java.lang.String)
+   */
+  @SuppressWarnings("unchecked")
+  @Override
+  public <T> List<T> find(Criteria criteria, String collectionName, Comparator<? super T> comparator, String slice) {
+    if (null == criteria) {
+      throw new InvalidJsonDbApiUsageException("Criteria cannot be null");
+    }
+    ensureCollectionLoaded(collectionName);
+    CollectionMetaData cmd = cmdMap.get(collectionName);
+    if(null == cmd) {
+      throw new InvalidJsonDbApiUsageException("Collection by name '" + collectionName + "' not found. Create collection first.");
+    }
+    CompiledCriteria compiled = CompiledCriteria.compile(criteria, cmd);
+    Map<Object, T> collection = lockForRead(cmd);
+    try {
+      int limit = Util.getSliceLimit(slice);
+      IndexLookup lookup = cmd.getIndexes().plan(compiled, collection, comparator, limit);
+      Iterator<T> resultItr = iterate(lookup, compiled, collection, null != comparator || limit < 0);
+      return copyOf(resultItr, null != lookup && lookup.isOrdered(), cmd, comparator, slice);
+    } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
+      logger.error("Error when decrypting value for a @Secret annotated field for entity: " + collectionName, e);
+      throw new JsonDBException("Error when decrypting value for a @Secret annotated field for entity: " + collectionName, e);
+    } finally {
+      cmd.getCollectionLock().readLock().unlock();
+    }
+  }
+
+  /**
+   * Copies the found documents, sorted and sliced as requested. Must be invoked holding the read lock of the collection.
+   *
+   * @param resultItr the found documents, as held by the collection
+   * @param ordered true if they are found in the order of the comparator already
+   */
+  private <T> List<T> copyOf(Iterator<T> resultItr, boolean ordered, CollectionMetaData cmd, Comparator<? super T> comparator,
+      String slice) throws IllegalAccessException, IllegalArgumentException, InvocationTargetException {
+    return copyOf(resultItr, ordered, cmd, comparator, slice, null);
+  }
+
+  /**
+   * @param explanation records what every step costs, null unless the find is explained
+   */
+  private <T> List<T> copyOf(Iterator<T> resultItr, boolean ordered, CollectionMetaData cmd, Comparator<? super T> comparator,
+      String slice, QueryExplanation explanation) throws IllegalAccessException, IllegalArgumentException, InvocationTargetException {
+    if (null != explanation) {
+      resultItr = explained(resultItr, explanation);
+    }
+    boolean isSliceable = Util.isSliceable(slice);
+    int limit = isSliceable ? Util.getSliceLimit(slice) : -1;
+    boolean sorted = comparator != null && !ordered;
+    List<T> newCollection;
+    if (sorted && limit >= 0) {
+      long start = System.nanoTime();
+      long evaluated = (null == explanation) ? 0 : explanation.getEvaluateNanos();
+      //The slice picks from the first documents in order only, which a heap of that many finds
+      newCollection = Util.leastOf(resultItr, limit, comparator);
+      if (null != explanation) {
+        //The heap is filled as the documents are found, the time spent finding them is not sorting
+        explanation.recordSort(System.nanoTime() - start - (explanation.getEvaluateNanos() - evaluated));
+      }
+    } else {
+      newCollection = new ArrayList<T>();
+      while (resultItr.hasNext() && (sorted || limit < 0 || newCollection.size() < limit)) {
+        newCollection.add(resultItr.next());
+      }
+      if (!isSliceable) {
+        newCollection = copiesOf(newCollection, cmd, explanation);
+      }
+      if (sorted) {
+        long start = System.nanoTime();
+        // It is tempting to attempt to sort the objects in the while loop above, but it has no real benefit
+        // See: https://stackoverflow.com/questions/24136930/sort-while-inserting-or-copy-and-sort
+        sort(newCollection, comparator);
+        if (null != explanation) {
+          explanation.recordSort(System.nanoTime() - start);
+        }
+      }
+    }
+    if (isSliceable) {
+      //Since slicing is enabled the deepcopy and decryption is deferred to this stage.
+      List<Integer> indexes = Util.getSliceIndexes(slice, newCollection.size());
+      if (indexes != null) {
+        List<T> slicedCollection = new ArrayList<T>(indexes.size());
+        for (int index : indexes) {
+          slicedCollection.add(newCollection.get(index));
+        }
+        return copiesOf(slicedCollection, cmd, explanation);
+      }
+      return copiesOf(newCollection, cmd, explanation);
+    }
+    return newCollection;
+  }
+
+  /**
+   * @return the found documents, recording the time spent finding them and how many were found
+   */
+  private static <T> Iterator<T> explained(final Iterator<T> resultItr, final QueryExplanation explanation) {
+    return new Iterator<T>() {
+      @Override
+      public boolean hasNext() {
+        long start = System.nanoTime();
+        try {
+          return resultItr.hasNext();
+        } finally {
+          explanation.recordEvaluation(System.nanoTime() - start);
+        }
+      }
+
+      @Override
+      public T next() {
+        long start = System.nanoTime();
+        try {
+          return resultItr.next();
+        } finally {
+          explanation.recordEvaluation(System.nanoTime() - start);
+          explanation.recordMatch();
+        }
+      }
+    };
+  }
+
+  private <T> List<T> copiesOf(List<T> documents, final CollectionMetaData cmd)
+      throws IllegalAccessException, IllegalArgumentException, InvocationTargetException {
+    return copiesOf(documents, cmd, null);
+  }
+
+  /**
+   * Copies documents and decrypts their @Secret fields, in parallel if there are enough of them
+   *
+   * @param explanation records the time spent copying and decrypting, null unless the find is explained
+   * @return the copies, in the order of the given documents
+   */
+  private <T> List<T> copiesOf(List<T> documents, final CollectionMetaData cmd, final QueryExplanation explanation)
+      throws IllegalAccessException, IllegalArgumentException, InvocationTargetException {
+    if (!isParallel(documents.size())) {
+      List<T> copies = new ArrayList<T>(documents.size());
+      for (T document : documents) {
+        copies.add(copyOf(document, cmd, explanation));
+      }
+      return copies;
+    }
+    return PartitionedTask.invoke(dbConfig.getQueryPool(), documents, new PartitionedTask.Work<T, T>() {
+      @Override
+      public List<T> apply(List<T> partition) {
+        List<T> copies = new ArrayList<T>(partition.size());
+        for (T document : partition) {
+          try {
+            copies.add(copyOf(document, cmd, explanation));
+          } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
+            logger.error("Error when decrypting value for a @Secret annotated field for entity: " + cmd.getCollectionName(), e);
+            throw new JsonDBException("Error when decrypting value for a @Secret annotated field for entity: "
+                + cmd.getCollectionName(), e);
+          }
+        }
+        return copies;
+      }
+    });
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> T copyOf(T document, CollectionMetaData cmd, QueryExplanation explanation)
+      throws IllegalAccessException, IllegalArgumentException, InvocationTargetException {
+    long start = System.nanoTime();
+    Object obj = Util.deepCopy(document);
+    long copied = System.nanoTime();
+    if (encrypted && cmd.hasSecret() && null != obj) {
+      CryptoUtil.decryptFields(obj, cmd, dbConfig.getCipher());
+    }
+    if (null != explanation) {
+      explanation.recordCopy(copied - start);
+      explanation.recordDecryption(System.nanoTime() - copied);
+    }
+    return (T) obj;
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.JsonDBOperations#cursor(java.lang.String, java.lang.Class)
+   */
+  @Override
+  public <T> Cursor<T> cursor(String jxQuery, Class<T> entityClass) {
+    return cursor(jxQuery, Util.determineCollectionName(entityClass), null);
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.JsonDBOperations#cursor(java.lang.String, java.lang.String)
+   */
+  @Override
+  public <T> Cursor<T> cursor(String jxQuery, String collectionName) {
+    return cursor(jxQuery, collectionName, null);
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.JsonDBOperations#cursor(java.lang.String, java.lang.String, java.util.Comparator)
+   */
+  @SuppressWarnings("unchecked")
+  @Override
+  public <T> Cursor<T> cursor(String jxQuery, String collectionName, Comparator<? super T> comparator) {
+    PreparedQuery query = prepare(jxQuery);
+    ensureCollectionLoaded(collectionName);
+    CollectionMetaData cmd = cmdMap.get(collectionName);
+    if(null == cmd) {
+      throw new InvalidJsonDbApiUsageException("Collection by name '" + collectionName + "' not found. Create collection first.");
+    }
+    List<T> snapshot = new ArrayList<T>();
+    Map<Object, T> collection = lockForRead(cmd);
+    try {
+      IndexLookup lookup = cmd.getIndexes().plan(query, collection, comparator, -1);
+      Iterator<T> resultItr = iterate(lookup, query, collectionName, collection, true);
+      while (resultItr.hasNext()) {
+        snapshot.add(resultItr.next());
+      }
+      if (comparator != null && (null == lookup || !lookup.isOrdered())) {
+        sort(snapshot, comparator);
+      }
+    } finally {
+      cmd.getCollectionLock().readLock().unlock();
+    }
+    //The documents held are never changed, only replaced, so they are copied later without the lock
+    return new Cursor<T>(snapshot, cmd, (encrypted && cmd.hasSecret()) ? dbConfig.getCipher() : null);
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.JsonDBOperations#stream(java.lang.String, java.lang.Class)
+   */
+  @Override
+  public <T> Stream<T> stream(String jxQuery, Class<T> entityClass) {
+    return stream(jxQuery, Util.determineCollectionName(entityClass));
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.JsonDBOperations#stream(java.lang.String, java.lang.String)
+   */
+  @Override
+  public <T> Stream<T> stream(String jxQuery, String collectionName) {
+    return this.<T>cursor(jxQuery, collectionName, null).stream();
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.JsonDBOperations#forEach(java.lang.String, java.lang.Class, java.util.function.Consumer)
+   */
+  @Override
+  public <T> void forEach(String jxQuery, Class<T> entityClass, Consumer<? super T> action) {
+    forEach(jxQuery, Util.determineCollectionName(entityClass), action);
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.JsonDBOperations#forEach(java.lang.String, java.lang.String, java.util.function.Consumer)
+   */
+  @Override
+  public <T> void forEach(String jxQuery, String collectionName, Consumer<? super T> action) {
+    if (null == action) {
+      throw new InvalidJsonDbApiUsageException("Action cannot be null");
+    }
+    try (Cursor<T> cursor = cursor(jxQuery, collectionName, null)) {
+      while (cursor.hasNext()) {
+        action.accept(cursor.next());
+      }
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.JsonDBOperations#findAll(java.lang.Class)
+   */
+  @Override
+  public <T> List<T> findAll(Class<T> entityClass) {
+    return findAll(Util.determineCollectionName(entityClass));
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.JsonDBOperations#findAll(java.lang.String)
+   */
+  @SuppressWarnings("unchecked")
+  @Override
+  public <T> List<T> findAll(String collectionName) {
+    return findAll(collectionName, null);
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.JsonDBOperations#findAll(java.lang.Class, java.util.Comparator)
+   */
+  @Override
+  public <T> List<T> findAll(Class<T> entityClass, Comparator<? super T> comparator) {
+    return findAll(Util.determineCollectionName(entityClass), comparator);
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.JsonDBOperations#findAll(java.lang.String, java.util.Comparator)
+   */
+  @Override
+  public <T> List<T> findAll(String collectionName, Comparator<? super T> comparator) {
+    return findAll(collectionName, comparator, null);
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.JsonDBOperations#findAll(java.lang.Class, java.util.Comparator, java.lang.String)
+   */
+  @Override
+  public <T> List<T> findAll(Class<T> entityClass, Comparator<? super T> comparator, String slice) {
+    return findAll(Util.determineCollectionName(entityClass), comparator, slice);
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.JsonDBOperations#findAll(java.lang.String, java.util.Comparator, java.lang.String)
+   */
+  @SuppressWarnings("unchecked")
+  @Override
+  public <T> List<T> findAll(String collectionName, Comparator<? super T> comparator, String slice) {
+    ensureCollectionLoaded(collectionName);
+    CollectionMetaData cmd = cmdMap.get(collectionName);
+    if(null == cmd) {
+      throw new InvalidJsonDbApiUsageException("Collection by name '" + collectionName + "' not found. Create collection first.");
+    }
+    Map<Object, T> collection = lockForRead(cmd);
+    boolean isSliceable = Util.isSliceable(slice);
+    try {
+      IndexLookup lookup = null;
+      if (null != comparator) {
+        lookup = cmd.getIndexes().lookup(null, comparator, isSliceable ? Util.getSliceLimit(slice) : -1);
+      }
+      Collection<T> documents = (null == lookup) ? collection.values() : documentsOf(lookup.getIds(), collection);
+      return copyOf(documents.iterator(), null != lookup, cmd, comparator, slice);
+    } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
+      logger.error("Error when decrypting value for a @Secret annotated field for entity: " + collectionName, e);
+      throw new JsonDBException("Error when decrypting value for a @Secret annotated field for entity: " + collectionName, e);
+    } finally {
+      cmd.getCollectionLock().readLock().unlock();
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.JsonDBOperations#search(io.jsondb.query.TextSearch, java.lang.Class)
+   */
+  @Override
+  public <T> List<T> search(TextSearch search, Class<T> entityClass) {
+    return search(search, Util.determineCollectionName(entityClass));
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.JsonDBOperations#search(io.jsondb.query.TextSearch, java.lang.String)
+   */
+  @SuppressWarnings("unchecked")
+  @Override
+  public <T> List<T> search(TextSearch search, String collectionName) {
+    ensureCollectionLoaded(collectionName);
+    CollectionMetaData cmd = cmdMap.get(collectionName);
+    if(null == cmd) {
+      throw new InvalidJsonDbApiUsageException("Collection by name '" + collectionName + "' not found. Create collection first.");
+    }
+    Map<Object, T> collection = lockForRead(cmd);
+    try {
+      CollectionIndexes indexes = cmd.getIndexes();
+      Map<Object, Double> matches = indexes.getFullTextIndex(search.getIndexName()).search(search);
+      if (null != search.getFilter() && !matches.isEmpty()) {
+        List<Object> filteredIds = indexes.lookup(search.getFilter());
+        Set<Object> selected = new HashSet<Object>();
+        if (null != filteredIds) {
+          selected.addAll(filteredIds);
+        } else {
+          //Evaluate the query against the matching documents only
+          JXPathContext context = JXPathContext.newContext(documentsOf(new ArrayList<Object>(matches.keySet()), collection));
+          Iterator<T> resultItr = (Iterator<T>) prepare(search.getFilter()).iterate(context);
+          while (resultItr.hasNext()) {
+            selected.add(Util.getIdForEntity(resultItr.next(), cmd.getIdAnnotatedFieldGetterMethod()));
+          }
+        }
+        matches.keySet().retainAll(selected);
+      }
+      List<T> newCollection = new ArrayList<T>();
+      for (T document : documentsOf(indexes.order(matches, search.isRanked(), search.getLimit()), collection)) {
+        Object obj = Util.deepCopy(document);
+        if (encrypted && cmd.hasSecret() && null != obj) {
+          CryptoUtil.decryptFields(obj, cmd, dbConfig.getCipher());
+        }
+        newCollection.add((T) obj);
+      }
+      return newCollection;
+    } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
+      logger.error("Error when decrypting value for a @Secret annotated field for entity: " + collectionName, e);
+      throw new JsonDBException("Error when decrypting value for a @Secret annotated field for entity: " + collectionName, e);
+    } finally {
+      cmd.getCollectionLock().readLock().unlock();
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.JsonDBOperations#search(io.jsondb.query.GeoQuery, java.lang.Class)
+   */
+  @Override
+  public <T> List<T> search(GeoQuery query, Class<T> entityClass) {
+    return search(query, Util.determineCollectionName(entityClass));
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.JsonDBOperations#search(io.jsondb.query.GeoQuery, java.lang.String)
+   */
+  @SuppressWarnings("unchecked")
+  @Override
+  public <T> List<T> search(GeoQuery query, String collectionName) {
+    ensureCollectionLoaded(collectionName);
+    CollectionMetaData cmd = cmdMap.get(collectionName);
+    if(null == cmd) {
+      throw new InvalidJsonDbApiUsageException("Collection by name '" + collectionName + "' not found. Create collection first.");
+    }
+    Map<Object, T> collection = lockForRead(cmd);
+    try {
+      List<T> newCollection = new ArrayList<T>();
+      for (T document : documentsOf(cmd.getIndexes().search(query), collection)) {
+        Object obj = Util.deepCopy(document);
+        if (encrypted && cmd.hasSecret() && null != obj) {
+          CryptoUtil.decryptFields(obj, cmd, dbConfig.getCipher());
+        }
+        newCollection.add((T) obj);
+      }
+      return newCollection;
+    } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
+      logger.error("Error when decrypting value for a @Secret annotated field for entity: " + collectionName, e);
+      throw new JsonDBException("Error when decrypting value for a @Secret annotated field for entity: " + collectionName, e);
+    } finally {
+      cmd.getCollectionLock().readLock().unlock();
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.JsonDBOperations#findById(java.lang.Object, java.lang.Class)
+   */
+  @Override
+  public <T> T findById(Object id, Class<T> entityClass) {
+    return findById(id, Util.determineCollectionName(entityClass));
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.JsonDBOperations#findById(java.lang.Object, java.lang.String)
+   */
+  @SuppressWarnings("unchecked")
+  @Override
+  public <T> T findById(Object id, String collectionName) {
+    ensureCollectionLoaded(collectionName);
+    CollectionMetaData cmd = cmdMap.get(collectionName);
+    if(null == cmd) {
+      throw new InvalidJsonDbApiUsageException("Collection by name '" + collectionName + "' not found. Create collection first.");
+    }
+    Map<Object, T> collection = lockForRead(cmd);
+    try {
+      Object obj = Util.deepCopy(collection.get(id));
+      if(encrypted && cmd.hasSecret() && null != obj){
+        CryptoUtil.decryptFields(obj, cmd, dbConfig.getCipher());
+      }
+      return (T) obj;
+    } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
+      logger.error("Error when decrypting value for a @Secret annotated field for entity: " + collectionName, e);
+      throw new JsonDBException("Error when decrypting value for a @Secret annotated field for entity: " + collectionName, e);
+    } finally {
+      cmd.getCollectionLock().readLock().unlock();
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.JsonDBOperations#findById(java.lang.Object, java.lang.Class, io.jsondb.query.Projection)
+   */
+  @Override
+  public <T> T findById(Object id, Class<T> entityClass, Projection projection) {
+    return findById(id, Util.determineCollectionName(entityClass), projection);
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.JsonDBOperations#findById(java.lang.Object, java.lang.String, io.jsondb.query.Projection)
+   */
+  @SuppressWarnings("unchecked")
+  @Override
+  public <T> T findById(Object id, String collectionName, Projection projection) {
+    CollectionMetaData cmd = loadedCollectionMetaData(collectionName);
+    Projector projector = projectorOf(projection, cmd, true);
+    Map<Object, Object> collection = lockForRead(cmd);
+    try {
+      Object document = collection.get(id);
+      return (null == document) ? null : (T) projector.project(document);
+    } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
+      logger.error("Error when decrypting value for a @Secret annotated field for entity: " + collectionName, e);
+      throw new JsonDBException("Error when decrypting value for a @Secret annotated field for entity: " + collectionName, e);
+    } finally {
+      cmd.getCollectionLock().readLock().unlock();
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.JsonDBOperations#findOne(java.lang.String, java.lang.Class)
+   */
+  @Override
+  public <T> T findOne(String jxQuery, Class<T> entityClass) {
+    return findOne(jxQuery, Util.determineCollectionName(entityClass));
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.JsonDBOperations#findOne(java.lang.String, java.lang.String)
+   */
+  @Override
+  public <T> T findOne(String jxQuery, String collectionName) {
+    return findOne(prepare(jxQuery), collectionName);
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.JsonDBOperations#findOne(io.jsondb.query.PreparedQuery, java.lang.Class)
+   */
+  @Override
+  public <T> T findOne(PreparedQuery query, Class<T> entityClass) {
+    return findOne(query, Util.determineCollectionName(entityClass));
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.JsonDBOperations#findOne(io.jsondb.query.PreparedQuery, java.lang.String)
+   */
+  @SuppressWarnings("unchecked")
+  @Override
+  public <T> T findOne(PreparedQuery query, String collectionName) {
+    if (null == query) {
+      throw new InvalidJsonDbApiUsageException("Query cannot be null");
+    }
+    ensureCollectionLoaded(collectionName);
+    CollectionMetaData collectionMeta = cmdMap.get(collectionName);
+    if(null == collectionMeta) {
+      throw new InvalidJsonDbApiUsageException("Collection by name '" + collectionName + "' not found. Create collection first");
+    }
+    Map<Object, T> collection = lockForRead(collectionMeta);
+    try {
+      IndexLookup lookup = collectionMeta.getIndexes().plan(query, collection, null, -1);
+      Iterator<T> resultItr = iterate(lookup, query, collectionName, collection, false);
+      while (resultItr.hasNext()) {
+        T document = resultItr.next();
+        Object obj = Util.deepCopy(document);
+        if(encrypted && collectionMeta.hasSecret() && null!= obj){
+          CryptoUtil.decryptFields(obj, collectionMeta, dbConfig.getCipher());
+        }
+        return (T) obj; // Return the first element we find.
+      }
+      return null;
+    } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
+      logger.error("Error when decrypting value for a @Secret annotated field for entity: " + collectionName, e);
+      throw new JsonDBException("Error when decrypting value for a @Secret annotated field for entity: " + collectionName, e);
+    } finally {
+      collectionMeta.getCollectionLock().readLock().unlock();
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.JsonDBOperations#findOne(io.jsondb.query.Criteria, java.lang.Class)
+   */
+  @Override
+  public <T> T findOne(Criteria criteria, Class<T> entityClass) {
+    return findOne(criteria, Util.determineCollectionName(entityClass));
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.JsonDBOperations#findOne(io.jsondb.query.Criteria, java.lang.String)
+   */
+  @SuppressWarnings("unchecked")
+  @Override
+  public <T> T findOne(Criteria criteria, String collectionName) {
+    if (null == criteria) {
+      throw new InvalidJsonDbApiUsageException("Criteria cannot be null");
+    }
+    ensureCollectionLoaded(collectionName);
+    CollectionMetaData collectionMeta = cmdMap.get(collectionName);
+    if(null == collectionMeta) {
+      throw new InvalidJsonDbApiUsageException("Collection by name '" + collectionName + "' not found. Create collection first");
+    }
+    CompiledCriteria compiled = CompiledCriteria.compile(criteria, collectionMeta);
+    Map<Object, T> collection = lockForRead(collectionMeta);
+    try {
+      IndexLookup lookup = collectionMeta.getIndexes().plan(compiled, collection, null, -1);
+      Collection<T> candidates = (null == lookup) ? collection.values() : documentsOf(lookup.getIds(), collection);
+      for (T document : candidates) {
+        if ((null != lookup && !lookup.hasResidual()) || compiled.matches(document)) {
+          Object obj = Util.deepCopy(document);
+          if(encrypted && collectionMeta.hasSecret() && null!= obj){
+            CryptoUtil.decryptFields(obj, collectionMeta, dbConfig.getCipher());
           }
-          return slicedCollection;
+          return (T) obj; // Return the first element we find.
         }
       }
-      return newCollection;
+      return null;
     } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
       logger.error("Error when decrypting value for a @Secret annotated field for entity: " + collectionName, e);
       throw new JsonDBException("Error when decrypting value for a @Secret annotated field for entity: " + collectionName, e);
     } finally {
-      cmd.getCollectionLock().readLock().unlock();
+      collectionMeta.getCollectionLock().readLock().unlock();
     }
   }
 
   /* (non-Javadoc)
-   * @see io.jsondb.JsonDBOperations#findAll(java.lang.Class)
+   * @see io.jsondb.JsonDBOperations#count(java.lang.String, java.lang.Class)
    */
   @Override
-  public <T> List<T> findAll(Class<T> entityClass) {
-    return findAll(Util.determineCollectionName(entityClass));
+  public <T> int count(String jxQuery, Class<T> entityClass) {
+    return count(jxQuery, Util.determineCollectionName(entityClass));
   }
 
   /* (non-Javadoc)
-   * @see io.jsondb.JsonDBOperations#findAll(java.lang.String)
+   * @see io.jsondb.JsonDBOperations#count(java.lang.String, java.lang.String)
    */
   @SuppressWarnings("unchecked")
   @Override
-  public <T> List<T> findAll(String collectionName) {
-    return findAll(collectionName, null);
+  public int count(String jxQuery, String collectionName) {
+    PreparedQuery query = prepare(jxQuery);
+    CollectionMetaData cmd = loadedCollectionMetaData(collectionName);
+    Map<Object, Object> collection = lockForRead(cmd);
+    try {
+      //Counted from the bitmaps of the indexes, without collecting the ids, when they answer the query
+      int count = cmd.getIndexes().count(jxQuery);
+      if (count >= 0) {
+        return count;
+      }
+      IndexLookup lookup = cmd.getIndexes().plan(query, collection, null, -1);
+      if (null != lookup && !lookup.hasResidual()) {
+        return lookup.getIds().size();
+      }
+      Iterator<Object> resultItr = iterate(lookup, query, collectionName, collection, true);
+      for (count = 0; resultItr.hasNext(); count++) {
+        resultItr.next();
+      }
+      return count;
+    } finally {
+      cmd.getCollectionLock().readLock().unlock();
+    }
   }
 
   /* (non-Javadoc)
-   * @see io.jsondb.JsonDBOperations#findAll(java.lang.Class, java.util.Comparator)
+   * @see io.jsondb.JsonDBOperations#exists(java.lang.String, java.lang.Class)
    */
   @Override
-  public <T> List<T> findAll(Class<T> entityClass, Comparator<? super T> comparator) {
-    return findAll(Util.determineCollectionName(entityClass), comparator);
+  public <T> boolean exists(String jxQuery, Class<T> entityClass) {
+    return exists(jxQuery, Util.determineCollectionName(entityClass));
   }
 
   /* (non-Javadoc)
-   * @see io.jsondb.JsonDBOperations#findAll(java.lang.String, java.util.Comparator)
+   * @see io.jsondb.JsonDBOperations#exists(java.lang.String, java.lang.String)
    */
+  @SuppressWarnings("unchecked")
   @Override
-  public <T> List<T> findAll(String collectionName, Comparator<? super T> comparator) {
-    return findAll(collectionName, comparator, null);
+  public boolean exists(String jxQuery, String collectionName) {
+    PreparedQuery query = prepare(jxQuery);
+    CollectionMetaData cmd = loadedCollectionMetaData(collectionName);
+    Map<Object, Object> collection = lockForRead(cmd);
+    try {
+      IndexLookup lookup = cmd.getIndexes().plan(query, collection, null, -1);
+      if (null != lookup && !lookup.hasResidual()) {
+        return !lookup.getIds().isEmpty();
+      }
+      return iterate(lookup, query, collectionName, collection, false).hasNext();
+    } finally {
+      cmd.getCollectionLock().readLock().unlock();
+    }
   }
 
   /* (non-Javadoc)
-   * @see io.jsondb.JsonDBOperations#findAll(java.lang.Class, java.util.Comparator, java.lang.String)
+   * @see io.jsondb.JsonDBOperations#distinct(java.lang.String, java.lang.String, java.lang.Class)
    */
   @Override
-  public <T> List<T> findAll(Class<T> entityClass, Comparator<? super T> comparator, String slice) {
-    return findAll(Util.determineCollectionName(entityClass), comparator, slice);
+  public <T> List<Object> distinct(String fieldName, String jxQuery, Class<T> entityClass) {
+    return distinct(fieldName, jxQuery, Util.determineCollectionName(entityClass));
   }
 
   /* (non-Javadoc)
-   * @see io.jsondb.JsonDBOperations#findAll(java.lang.String, java.util.Comparator, java.lang.String)
+   * @see io.jsondb.JsonDBOperations#distinct(java.lang.String, java.lang.String, java.lang.String)
    */
   @SuppressWarnings("unchecked")
   @Override
-  public <T> List<T> findAll(String collectionName, Comparator<? super T> comparator, String slice) {
-    CollectionMetaData cmd = cmdMap.get(collectionName);
-    Map<Object, T> collection = (Map<Object, T>) collectionsRef.get().get(collectionName);
-    if((null == cmd) || (null == collection)) {
-      throw new InvalidJsonDbApiUsageException("Collection by name '" + collectionName + "' not found. Create collection first.");
-    }
-    cmd.getCollectionLock().readLock().lock();
-    boolean isSliceable = Util.isSliceable(slice);
+  public List<Object> distinct(String fieldName, String jxQuery, String collectionName) {
+    if (null == fieldName || fieldName.trim().isEmpty()) {
+      throw new InvalidJsonDbApiUsageException("Field name cannot be null or empty");
+    }
+    PreparedQuery query = prepare(jxQuery);
+    CollectionMetaData cmd = loadedCollectionMetaData(collectionName);
+    DocumentPath path = new DocumentPath(cmd, fieldName);
+    Set<Object> values = new LinkedHashSet<Object>();
+    Map<Object, Object> collection = lockForRead(cmd);
     try {
-      List<T> newCollection = new ArrayList<T>();
-      for (T document : collection.values()) {
-        if (isSliceable) {
-          //Since slicing is enabled we defer the deepcopy and decryption to later stage.
-          newCollection.add(document);
-        } else {
-          T obj = (T)Util.deepCopy(document);
-          if (encrypted && cmd.hasSecret() && null != obj) {
-            CryptoUtil.decryptFields(obj, cmd, dbConfig.getCipher());
-          }
-          newCollection.add((T) obj);
-        }
-      }
-      if (comparator != null) {
-        // It is tempting to attempt to sort the obejcts in the while loop above, but it has no real benefit
-        // See: https://stackoverflow.com/questions/24136930/sort-while-inserting-or-copy-and-sort
-        newCollection.sort(comparator);
-      }
-      if (isSliceable) {
-        List<Integer> indexes = Util.getSliceIndexes(slice, newCollection.size());
-        if (indexes != null) {
-          List<T> slicedCollection = new ArrayList<T>(indexes.size());
-          for (int index : indexes) {
-            Object obj = Util.deepCopy(newCollection.get(index));
-            if (encrypted && cmd.hasSecret() && null != obj) {
-              CryptoUtil.decryptFields(obj, cmd, dbConfig.getCipher());
-            }
-            slicedCollection.add((T) obj);
-          }
-          return slicedCollection;
-        }
+      IndexLookup lookup = cmd.getIndexes().plan(query, collection, null, -1);
+      Iterator<Object> resultItr = iterate(lookup, query, collectionName, collection, true);
+      while (resultItr.hasNext()) {
+        values.addAll(path.valuesOf(resultItr.next()));
       }
-      return newCollection;
-    } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
-      logger.error("Error when decrypting value for a @Secret annotated field for entity: " + collectionName, e);
-      throw new JsonDBException("Error when decrypting value for a @Secret annotated field for entity: " + collectionName, e);
     } finally {
       cmd.getCollectionLock().readLock().unlock();
     }
+    List<Object> distinctValues = new ArrayList<Object>(values.size());
+    for (Object value : values) {
+      distinctValues.add(Util.copyOfValue(value));
+    }
+    return distinctValues;
   }
 
   /* (non-Javadoc)
-   * @see io.jsondb.JsonDBOperations#findById(java.lang.Object, java.lang.Class)
+   * @see io.jsondb.JsonDBOperations#aggregate(io.jsondb.query.Aggregation, java.lang.Class)
    */
   @Override
-  public <T> T findById(Object id, Class<T> entityClass) {
-    return findById(id, Util.determineCollectionName(entityClass));
+  public <T> List<Map<String, Object>> aggregate(Aggregation aggregation, Class<T> entityClass) {
+    return aggregate(aggregation, Util.determineCollectionName(entityClass));
   }
 
   /* (non-Javadoc)
-   * @see io.jsondb.JsonDBOperations#findById(java.lang.Object, java.lang.String)
+   * @see io.jsondb.JsonDBOperations#aggregate(io.jsondb.query.Aggregation, java.lang.String)
    */
   @SuppressWarnings("unchecked")
   @Override
-  public <T> T findById(Object id, String collectionName) {
-    CollectionMetaData cmd = cmdMap.get(collectionName);
-    Map<Object, T> collection = (Map<Object, T>) collectionsRef.get().get(collectionName);
-    if((null == cmd) || null == collection) {
-      throw new InvalidJsonDbApiUsageException("Collection by name '" + collectionName + "' not found. Create collection first.");
-    }
-    cmd.getCollectionLock().readLock().lock();
+  public List<Map<String, Object>> aggregate(Aggregation aggregation, String collectionName) {
+    if (null == aggregation) {
+      throw new InvalidJsonDbApiUsageException("Aggregation cannot be null");
+    }
+    PreparedQuery query = (null == aggregation.getQuery()) ? null : prepare(aggregation.getQuery());
+    CollectionMetaData cmd = loadedCollectionMetaData(collectionName);
+    CompiledAggregation compiled = CompiledAggregation.compile(aggregation, cmd);
+    CompiledCriteria criteria = (null == aggregation.getCriteria()) ? null : CompiledCriteria.compile(aggregation.getCriteria(), cmd);
+    List<Map<String, Object>> rows;
+    Map<Object, Object> collection = lockForRead(cmd);
     try {
-      Object obj = Util.deepCopy(collection.get(id));
-      if(encrypted && cmd.hasSecret() && null != obj){
-        CryptoUtil.decryptFields(obj, cmd, dbConfig.getCipher());
+      Iterator<Object> resultItr;
+      if (null != query) {
+        resultItr = iterate(cmd.getIndexes().plan(query, collection, null, -1), query, collectionName, collection, true);
+      } else if (null != criteria) {
+        resultItr = iterate(cmd.getIndexes().plan(criteria, collection, null, -1), criteria, collection, true);
+      } else {
+        resultItr = collection.values().iterator();
       }
-      return (T) obj;
-    } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
-      logger.error("Error when decrypting value for a @Secret annotated field for entity: " + collectionName, e);
-      throw new JsonDBException("Error when decrypting value for a @Secret annotated field for entity: " + collectionName, e);
+      rows = accumulate(compiled, resultItr, isParallel(collection)).rows();
     } finally {
       cmd.getCollectionLock().readLock().unlock();
     }
+    for (Map<String, Object> row : rows) {
+      for (Map.Entry<String, Object> entry : row.entrySet()) {
+        entry.setValue(Util.copyOfValue(entry.getValue()));
+      }
+    }
+    return rows;
   }
 
-  /* (non-Javadoc)
-   * @see io.jsondb.JsonDBOperations#findOne(java.lang.String, java.lang.Class)
+  /**
+   * Accumulates the matching documents into the groups of an aggregation, in parallel on the query pool
+   * if there are enough of them. Must be invoked holding the read lock of the collection.
+   *
+   * @param parallel true if the documents may be enough to accumulate them in parallel
    */
-  @Override
-  public <T> T findOne(String jxQuery, Class<T> entityClass) {
-    return findOne(jxQuery, Util.determineCollectionName(entityClass));
+  private CompiledAggregation.Groups accumulate(final CompiledAggregation aggregation, Iterator<Object> resultItr,
+      boolean parallel) {
+    CompiledAggregation.Groups groups = aggregation.newGroups();
+    if (parallel) {
+      List<Object> documents = new ArrayList<Object>();
+      Iterators.addAll(documents, resultItr);
+      if (isParallel(documents.size())) {
+        List<CompiledAggregation.Groups> partitions = PartitionedTask.invoke(dbConfig.getQueryPool(), documents,
+            new PartitionedTask.Work<Object, CompiledAggregation.Groups>() {
+          @Override
+          public List<CompiledAggregation.Groups> apply(List<Object> partition) {
+            CompiledAggregation.Groups partial = aggregation.newGroups();
+            for (Object document : partition) {
+              partial.add(document);
+            }
+            return Collections.singletonList(partial);
+          }
+        });
+        //Merged in the order of the partitions, so that the groups are in the order they are first seen
+        for (CompiledAggregation.Groups partial : partitions) {
+          groups.addAll(partial);
+        }
+        return groups;
+      }
+      resultItr = documents.iterator();
+    }
+    while (resultItr.hasNext()) {
+      groups.add(resultItr.next());
+    }
+    return groups;
   }
 
-  /* (non-Javadoc)
-   * @see io.jsondb.JsonDBOperations#findOne(java.lang.String, java.lang.String)
+  /**
+   * @return the metadata of a collection, loaded if it was not yet
    */
-  @SuppressWarnings("unchecked")
-  @Override
-  public <T> T findOne(String jxQuery, String collectionName) {
-    CollectionMetaData collectionMeta = cmdMap.get(collectionName);
-    if((null == collectionMeta) || (!collectionsRef.get().containsKey(collectionName))) {
-      throw new InvalidJsonDbApiUsageException("Collection by name '" + collectionName + "' not found. Create collection first");
-    }
-    collectionMeta.getCollectionLock().readLock().lock();
-    try {
-      JXPathContext context = contextsRef.get().get(collectionName);
-      Iterator<T> resultItr = context.iterate(jxQuery);
-      while (resultItr.hasNext()) {
-        T document = resultItr.next();
-        Object obj = Util.deepCopy(document);
-        if(encrypted && collectionMeta.hasSecret() && null!= obj){
-          CryptoUtil.decryptFields(obj, collectionMeta, dbConfig.getCipher());
-        }
-        return (T) obj; // Return the first element we find.
-      }
-      return null;
-    } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
-      logger.error("Error when decrypting value for a @Secret annotated field for entity: " + collectionName, e);
-      throw new JsonDBException("Error when decrypting value for a @Secret annotated field for entity: " + collectionName, e);
-    } finally {
-      collectionMeta.getCollectionLock().readLock().unlock();
+  private CollectionMetaData loadedCollectionMetaData(String collectionName) {
+    ensureCollectionLoaded(collectionName);
+    CollectionMetaData cmd = cmdMap.get(collectionName);
+    //A lazy collection that is not in memory is loaded again once the lock is held
+    if((null == cmd) || (!cmd.isUnloaded() && !collectionsRef.get().containsKey(collectionName))) {
+      throw new InvalidJsonDbApiUsageException("Collection by name '" + collectionName + "' not found. Create collection first.");
     }
+    return cmd;
   }
 
   /* (non-Javadoc)
@@ -835,13 +2535,14 @@ public class JsonDBTemplate implements JsonDBOperations {
   @SuppressWarnings("unchecked")
   @Override
   public <T> void insert(Object objectToSave, String collectionName) {
+    ensureCollectionLoaded(collectionName);
     if (null == objectToSave) {
       throw new InvalidJsonDbApiUsageException("Null Object cannot be inserted into DB");
     }
     Util.ensureNotRestricted(objectToSave);
     Object objToSave = Util.deepCopy(objectToSave);
     CollectionMetaData cmd = cmdMap.get(collectionName);
-    cmd.getCollectionLock().writeLock().lock();
+    lockForWrite(cmd);
     try {
       Map<Object, T> collection = (Map<Object, T>) collectionsRef.get().get(collectionName);
       if (null == collection) {
@@ -856,19 +2557,20 @@ public class JsonDBTemplate implements JsonDBOperations {
       } else if (collection.containsKey(id)) {
         throw new InvalidJsonDbApiUsageException("Object already present in Collection. Use Update or Upsert operation instead of Insert");
       }
+      cmd.getIndexes().checkUnique(id, objToSave);
 
-      JsonWriter jw;
+      CollectionWriter jw;
       try {
-        jw = new JsonWriter(dbConfig, cmd, collectionName, fileObjectsRef.get().get(collectionName));
+        jw = getCollectionWriter(cmd, collectionName);
       } catch (IOException ioe) {
         logger.error("Failed to obtain writer for " + collectionName, ioe);
         throw new JsonDBException("Failed to save " + collectionName, ioe);
       }
 
-      boolean appendResult = jw.appendToJsonFile(collection.values(), objToSave);
+      boolean appendResult = append(jw, collection, Collections.singletonMap(Util.deepCopy(id), (T) objToSave));
 
       if(appendResult) {
-        collection.put(Util.deepCopy(id), (T) objToSave);
+        cmd.getIndexes().add(id, objToSave);
       }
     } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
       logger.error("Error when encrypting value for a @Secret annotated field for entity: " + collectionName, e);
@@ -878,6 +2580,31 @@ public class JsonDBTemplate implements JsonDBOperations {
     }
   }
 
+  /**
+   * Writes new documents to the end of a collection and adds them to it. The lines of a offset indexed
+   * collection are appended to its file in place, so that the documents already in the file are neither
+   * read nor written and the positions of their lines stay valid.
+   *
+   * @return true if the documents were written
+   */
+  @SuppressWarnings("unchecked")
+  private <T> boolean append(CollectionWriter jw, Map<Object, T> collection, Map<Object, T> newDocuments) {
+    if (collection instanceof OffsetIndexedCollection) {
+      //Only a database on disk has offset indexed collections, its writer is always a JsonWriter
+      LinePositions positions = ((JsonWriter) jw).appendLinesToJsonFile(newDocuments.values());
+      if (null == positions) {
+        return false;
+      }
+      ((OffsetIndexedCollection<T>) collection).putAppended(newDocuments, positions);
+      return true;
+    }
+    if (!jw.appendToJsonFile(collection.values(), newDocuments.values())) {
+      return false;
+    }
+    collection.putAll(newDocuments);
+    return true;
+  }
+
   /* (non-Javadoc)
    * @see io.jsondb.JsonDBOperations#insert(java.util.Collection, java.lang.Class)
    */
@@ -892,11 +2619,12 @@ public class JsonDBTemplate implements JsonDBOperations {
   @SuppressWarnings("unchecked")
   @Override
   public <T> void insert(Collection<? extends T> batchToSave, String collectionName) {
+    ensureCollectionLoaded(collectionName);
     if (null == batchToSave) {
       throw new InvalidJsonDbApiUsageException("Null Object batch cannot be inserted into DB");
     }
     CollectionMetaData collectionMeta = cmdMap.get(collectionName);
-    collectionMeta.getCollectionLock().writeLock().lock();
+    lockForWrite(collectionMeta);
     try {
       Map<Object, T> collection = (Map<Object, T>) collectionsRef.get().get(collectionName);
       if (null == collection) {
@@ -921,18 +2649,21 @@ public class JsonDBTemplate implements JsonDBOperations {
         }
         newCollection.put(Util.deepCopy(id), (T) obj);
       }
+      cmd.getIndexes().checkUnique(newCollection);
 
-      JsonWriter jw;
+      CollectionWriter jw;
       try {
-        jw = new JsonWriter(dbConfig, cmd, collectionName, fileObjectsRef.get().get(collectionName));
+        jw = getCollectionWriter(cmd, collectionName);
       } catch (IOException ioe) {
         logger.error("Failed to obtain writer for " + collectionName, ioe);
         throw new JsonDBException("Failed to save " + collectionName, ioe);
       }
-      boolean appendResult = jw.appendToJsonFile(collection.values(), newCollection.values());
+      boolean appendResult = append(jw, collection, newCollection);
 
       if(appendResult) {
-        collection.putAll(newCollection);
+        for (Entry<Object, T> entry : newCollection.entrySet()) {
+          cmd.getIndexes().add(entry.getKey(), entry.getValue());
+        }
       }
     } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
       logger.error("Error when encrypting value for a @Secret annotated field for entity: " + collectionName, e);
@@ -955,13 +2686,14 @@ public class JsonDBTemplate implements JsonDBOperations {
    */
   @Override
   public <T> void save(Object objectToSave, String collectionName) {
+    ensureCollectionLoaded(collectionName);
     if (null == objectToSave) {
       throw new InvalidJsonDbApiUsageException("Null Object cannot be updated into DB");
     }
     Util.ensureNotRestricted(objectToSave);
     Object objToSave = Util.deepCopy(objectToSave);
     CollectionMetaData collectionMeta = cmdMap.get(collectionName);
-    collectionMeta.getCollectionLock().writeLock().lock();
+    lockForWrite(collectionMeta);
     try {
       @SuppressWarnings("unchecked")
       Map<Object, T> collection = (Map<Object, T>) collectionsRef.get().get(collectionName);
@@ -981,9 +2713,10 @@ public class JsonDBTemplate implements JsonDBOperations {
       if(encrypted && cmd.hasSecret()){
         CryptoUtil.encryptFields(objToSave, cmd, dbConfig.getCipher());
       }
-      JsonWriter jw = null;
+      cmd.getIndexes().checkUnique(id, objToSave);
+      CollectionWriter jw = null;
       try {
-        jw = new JsonWriter(dbConfig, cmd, collectionName, fileObjectsRef.get().get(collectionName));
+        jw = getCollectionWriter(cmd, collectionName);
       } catch (IOException ioe) {
         logger.error("Failed to obtain writer for " + collectionName, ioe);
         throw new JsonDBException("Failed to save " + collectionName, ioe);
@@ -994,6 +2727,7 @@ public class JsonDBTemplate implements JsonDBOperations {
         @SuppressWarnings("unchecked")
         T newObject = (T) objToSave;
         collection.put(id, newObject);
+        cmd.getIndexes().replace(id, existingObject, newObject);
       }
     } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
       logger.error("Error when encrypting value for a @Secret annotated field for entity: " + collectionName, e);
@@ -1024,13 +2758,14 @@ public class JsonDBTemplate implements JsonDBOperations {
    */
   @Override
   public <T> T remove(Object objectToRemove, String collectionName) {
+    ensureCollectionLoaded(collectionName);
     if (null == objectToRemove) {
       throw new InvalidJsonDbApiUsageException("Null Object cannot be removed from DB");
     }
     Util.ensureNotRestricted(objectToRemove);
 
     CollectionMetaData collectionMeta = cmdMap.get(collectionName);
-    collectionMeta.getCollectionLock().writeLock().lock();
+    lockForWrite(collectionMeta);
     try {
       @SuppressWarnings("unchecked")
       Map<Object, T> collection = (Map<Object, T>) collectionsRef.get().get(collectionName);
@@ -1043,17 +2778,20 @@ public class JsonDBTemplate implements JsonDBOperations {
       if (!collection.containsKey(id)) {
         throw new InvalidJsonDbApiUsageException(String.format("Objects with Id %s not found in collection %s", id, collectionName));
       }
+      //Fetched before the file is rewritten, a offset indexed collection can not read it afterwards
+      T objectRemoved = collection.get(id);
 
-      JsonWriter jw;
+      CollectionWriter jw;
       try {
-        jw = new JsonWriter(dbConfig, cmd, collectionName, fileObjectsRef.get().get(collectionName));
+        jw = getCollectionWriter(cmd, collectionName);
       } catch (IOException ioe) {
         logger.error("Failed to obtain writer for " + collectionName, ioe);
         throw new JsonDBException("Failed to save " + collectionName, ioe);
       }
       boolean substractResult = jw.removeFromJsonFile(collection, id);
       if(substractResult) {
-        T objectRemoved = collection.remove(id);
+        collection.remove(id);
+        cmd.getIndexes().remove(id, objectRemoved);
         // Don't need to clone it, this object no more exists in the collection
         return objectRemoved;
       } else {
@@ -1077,11 +2815,12 @@ public class JsonDBTemplate implements JsonDBOperations {
    */
   @Override
   public <T> List<T> remove(Collection<? extends T> batchToRemove, String collectionName) {
+    ensureCollectionLoaded(collectionName);
     if (null == batchToRemove) {
       throw new InvalidJsonDbApiUsageException("Null Object batch cannot be removed from DB");
     }
     CollectionMetaData cmd = cmdMap.get(collectionName);
-    cmd.getCollectionLock().writeLock().lock();
+    lockForWrite(cmd);
     try {
       @SuppressWarnings("unchecked")
       Map<Object, T> collection = (Map<Object, T>) collectionsRef.get().get(collectionName);
@@ -1089,34 +2828,36 @@ public class JsonDBTemplate implements JsonDBOperations {
         throw new InvalidJsonDbApiUsageException("Collection by name '" + collectionName + "' not found. Create collection first.");
       }
 
-      Set<Object> removeIds = new HashSet<Object>();
+      Map<Object, T> objectsToRemove = new LinkedHashMap<Object, T>();
 
       for (T o : batchToRemove) {
         Object id = Util.getIdForEntity(o, cmd.getIdAnnotatedFieldGetterMethod());
         if (collection.containsKey(id)) {
-          removeIds.add(id);
+          objectsToRemove.put(id, collection.get(id));
         }
       }
 
-      if(removeIds.size() < 1) {
+      if(objectsToRemove.size() < 1) {
         return null;
       }
 
-      JsonWriter jw;
+      CollectionWriter jw;
       try {
-        jw = new JsonWriter(dbConfig, cmd, collectionName, fileObjectsRef.get().get(collectionName));
+        jw = getCollectionWriter(cmd, collectionName);
       } catch (IOException ioe) {
         logger.error("Failed to obtain writer for " + collectionName, ioe);
         throw new JsonDBException("Failed to save " + collectionName, ioe);
       }
-      boolean substractResult = jw.removeFromJsonFile(collection, removeIds);
+      boolean substractResult = jw.removeFromJsonFile(collection, objectsToRemove.keySet());
 
       List<T> removedObjects = null;
       if(substractResult) {
         removedObjects = new ArrayList<T>();
-        for (Object id : removeIds) {
+        for (Entry<Object, T> entry : objectsToRemove.entrySet()) {
+          collection.remove(entry.getKey());
+          cmd.getIndexes().remove(entry.getKey(), entry.getValue());
           // Don't need to clone it, this object no more exists in the collection
-          removedObjects.add(collection.remove(id));
+          removedObjects.add(entry.getValue());
         }
       }
       return removedObjects;
@@ -1143,13 +2884,14 @@ public class JsonDBTemplate implements JsonDBOperations {
   @SuppressWarnings("unchecked")
   @Override
   public <T> void upsert(Object objectToSave, String collectionName) {
+    ensureCollectionLoaded(collectionName);
     if (null == objectToSave) {
       throw new InvalidJsonDbApiUsageException("Null Object cannot be upserted into DB");
     }
     Util.ensureNotRestricted(objectToSave);
     Object objToSave = Util.deepCopy(objectToSave);
     CollectionMetaData collectionMeta = cmdMap.get(collectionName);
-    collectionMeta.getCollectionLock().writeLock().lock();
+    lockForWrite(collectionMeta);
     try {
       Map<Object, T> collection = (Map<Object, T>) collectionsRef.get().get(collectionName);
       if (null == collection) {
@@ -1167,25 +2909,29 @@ public class JsonDBTemplate implements JsonDBOperations {
       } else if (collection.containsKey(id)) {
         insert = false;
       }
+      cmd.getIndexes().checkUnique(id, objToSave);
 
-      JsonWriter jw;
+      CollectionWriter jw;
       try {
-        jw = new JsonWriter(dbConfig, cmd, collectionName, fileObjectsRef.get().get(collectionName));
+        jw = getCollectionWriter(cmd, collectionName);
       } catch (IOException ioe) {
         logger.error("Failed to obtain writer for " + collectionName, ioe);
         throw new JsonDBException("Failed to save " + collectionName, ioe);
       }
 
       if (insert) {
-        boolean insertResult = jw.appendToJsonFile(collection.values(), objToSave);
+        boolean insertResult = append(jw, collection, Collections.singletonMap(Util.deepCopy(id), (T) objToSave));
         if(insertResult) {
-          collection.put(Util.deepCopy(id), (T) objToSave);
+          cmd.getIndexes().add(id, objToSave);
         }
       } else {
+        //Read before the file is written, a offset indexed collection can no longer read it afterwards
+        T oldObject = collection.get(id);
         boolean updateResult = jw.updateInJsonFile(collection, id, (T)objToSave);
         if (updateResult) {
           T newObject = (T) objToSave;
           collection.put(id, newObject);
+          cmd.getIndexes().replace(id, oldObject, newObject);
         }
       }
     } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
@@ -1210,11 +2956,12 @@ public class JsonDBTemplate implements JsonDBOperations {
   @SuppressWarnings("unchecked")
   @Override
   public <T> void upsert(Collection<? extends T> batchToSave, String collectionName) {
+    ensureCollectionLoaded(collectionName);
     if (null == batchToSave) {
       throw new InvalidJsonDbApiUsageException("Null Object batch cannot be upserted into DB");
     }
     CollectionMetaData collectionMeta = cmdMap.get(collectionName);
-    collectionMeta.getCollectionLock().writeLock().lock();
+    lockForWrite(collectionMeta);
     try {
       Map<Object, T> collection = (Map<Object, T>) collectionsRef.get().get(collectionName);
       if (null == collection) {
@@ -1247,26 +2994,41 @@ public class JsonDBTemplate implements JsonDBOperations {
           collectionToUpdate.put(Util.deepCopy(id), (T) obj);
         }
       }
+      if (cmd.getIndexes().isBuilt()) {
+        Map<Object, T> collectionToUpsert = new LinkedHashMap<Object, T>(collectionToInsert);
+        collectionToUpsert.putAll(collectionToUpdate);
+        cmd.getIndexes().checkUnique(collectionToUpsert);
+      }
 
-      JsonWriter jw;
+      CollectionWriter jw;
       try {
-        jw = new JsonWriter(dbConfig, cmd, collectionName, fileObjectsRef.get().get(collectionName));
+        jw = getCollectionWriter(cmd, collectionName);
       } catch (IOException ioe) {
         logger.error("Failed to obtain writer for " + collectionName, ioe);
         throw new JsonDBException("Failed to save " + collectionName, ioe);
       }
 
       if (collectionToInsert.size() > 0) {
-        boolean insertResult = jw.appendToJsonFile(collection.values(), collectionToInsert.values());
+        boolean insertResult = append(jw, collection, collectionToInsert);
         if(insertResult) {
-          collection.putAll(collectionToInsert);
+          for (Entry<Object, T> entry : collectionToInsert.entrySet()) {
+            cmd.getIndexes().add(entry.getKey(), entry.getValue());
+          }
         }
       }
 
       if (collectionToUpdate.size() > 0) {
+        //Read before the file is written, a offset indexed collection can no longer read them afterwards
+        Map<Object, T> oldObjects = new HashMap<Object, T>();
+        for (Object id : collectionToUpdate.keySet()) {
+          oldObjects.put(id, collection.get(id));
+        }
         boolean updateResult = jw.updateInJsonFile(collection, collectionToUpdate);
         if (updateResult) {
-         collection.putAll(collectionToUpdate);
+          for (Entry<Object, T> entry : collectionToUpdate.entrySet()) {
+            collection.put(entry.getKey(), entry.getValue());
+            cmd.getIndexes().replace(entry.getKey(), oldObjects.get(entry.getKey()), entry.getValue());
+          }
         }
       }
     } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
@@ -1290,20 +3052,22 @@ public class JsonDBTemplate implements JsonDBOperations {
    */
   @Override
   public <T> T findAndRemove(String jxQuery, String collectionName) {
+    ensureCollectionLoaded(collectionName);
     if (null == jxQuery) {
       throw new InvalidJsonDbApiUsageException("Query string cannot be null.");
     }
     CollectionMetaData cmd = cmdMap.get(collectionName);
-    @SuppressWarnings("unchecked")
-    Map<Object, T> collection = (Map<Object, T>) collectionsRef.get().get(collectionName);
-    if((null == cmd) || (null == collection)) {
+    if(null == cmd) {
       throw new InvalidJsonDbApiUsageException("Collection by name '" + collectionName + "' not found. Create collection first.");
     }
-    cmd.getCollectionLock().writeLock().lock();
+    lockForWrite(cmd);
     try {
-      JXPathContext context = contextsRef.get().get(collectionName);
       @SuppressWarnings("unchecked")
-      Iterator<T> resultItr = context.iterate(jxQuery);
+      Map<Object, T> collection = (Map<Object, T>) collectionsRef.get().get(collectionName);
+      if (null == collection) {
+        throw new InvalidJsonDbApiUsageException("Collection by name '" + collectionName + "' not found. Create collection first.");
+      }
+      Iterator<T> resultItr = iterate(jxQuery, collectionName, cmd, collection, false);
       T objectToRemove = null;
       while (resultItr.hasNext()) {
         objectToRemove = resultItr.next();
@@ -1315,18 +3079,19 @@ public class JsonDBTemplate implements JsonDBOperations {
           throw new InvalidJsonDbApiUsageException(String.format("Objects with Id %s not found in collection %s", idToRemove, collectionName));
         }
 
-        JsonWriter jw;
+        CollectionWriter jw;
         try {
-          jw = new JsonWriter(dbConfig, cmd, collectionName, fileObjectsRef.get().get(collectionName));
+          jw = getCollectionWriter(cmd, collectionName);
         } catch (IOException ioe) {
           logger.error("Failed to obtain writer for " + collectionName, ioe);
           throw new JsonDBException("Failed to save " + collectionName, ioe);
         }
         boolean substractResult = jw.removeFromJsonFile(collection, idToRemove);
         if (substractResult) {
-          T objectRemoved = collection.remove(idToRemove);
+          collection.remove(idToRemove);
+          cmd.getIndexes().remove(idToRemove, objectToRemove);
           // Don't need to clone it, this object no more exists in the collection
-          return objectRemoved;
+          return objectToRemove;
         } else {
           logger.error("Unexpected, Failed to substract the object");
         }
@@ -1350,43 +3115,47 @@ public class JsonDBTemplate implements JsonDBOperations {
    */
   @Override
   public <T> List<T> findAllAndRemove(String jxQuery, String collectionName) {
+    ensureCollectionLoaded(collectionName);
     CollectionMetaData cmd = cmdMap.get(collectionName);
-    @SuppressWarnings("unchecked")
-    Map<Object, T> collection = (Map<Object, T>) collectionsRef.get().get(collectionName);
-    if((null == cmd) || (null == collection)) {
+    if(null == cmd) {
       throw new InvalidJsonDbApiUsageException("Collection by name '" + collectionName + "' not found. Create collection first.");
     }
-    cmd.getCollectionLock().writeLock().lock();
+    lockForWrite(cmd);
     try {
-      JXPathContext context = contextsRef.get().get(collectionName);
       @SuppressWarnings("unchecked")
-      Iterator<T> resultItr = context.iterate(jxQuery);
-      Set<Object> removeIds = new HashSet<Object>();
+      Map<Object, T> collection = (Map<Object, T>) collectionsRef.get().get(collectionName);
+      if (null == collection) {
+        throw new InvalidJsonDbApiUsageException("Collection by name '" + collectionName + "' not found. Create collection first.");
+      }
+      Iterator<T> resultItr = iterate(jxQuery, collectionName, cmd, collection, true);
+      Map<Object, T> objectsToRemove = new LinkedHashMap<Object, T>();
       while (resultItr.hasNext()) {
         T objectToRemove = resultItr.next();
         Object idToRemove = Util.getIdForEntity(objectToRemove, cmd.getIdAnnotatedFieldGetterMethod());
-        removeIds.add(idToRemove);
+        objectsToRemove.put(idToRemove, objectToRemove);
       }
 
-      if(removeIds.size() < 1) {
+      if(objectsToRemove.size() < 1) {
         return null;
       }
 
-      JsonWriter jw;
+      CollectionWriter jw;
       try {
-        jw = new JsonWriter(dbConfig, cmd, collectionName, fileObjectsRef.get().get(collectionName));
+        jw = getCollectionWriter(cmd, collectionName);
       } catch (IOException ioe) {
         logger.error("Failed to obtain writer for " + collectionName, ioe);
         throw new JsonDBException("Failed to save " + collectionName, ioe);
       }
-      boolean substractResult = jw.removeFromJsonFile(collection, removeIds);
+      boolean substractResult = jw.removeFromJsonFile(collection, objectsToRemove.keySet());
 
       List<T> removedObjects = null;
       if(substractResult) {
         removedObjects = new ArrayList<T>();
-        for (Object id : removeIds) {
+        for (Entry<Object, T> entry : objectsToRemove.entrySet()) {
+          collection.remove(entry.getKey());
+          cmd.getIndexes().remove(entry.getKey(), entry.getValue());
           // Don't need to clone it, this object no more exists in the collection
-          removedObjects.add(collection.remove(id));
+          removedObjects.add(entry.getValue());
         }
       }
       return removedObjects;
@@ -1410,15 +3179,18 @@ public class JsonDBTemplate implements JsonDBOperations {
   @SuppressWarnings("unchecked")
   @Override
   public <T> T findAndModify(String jxQuery, Update update, String collectionName) {
+    ensureCollectionLoaded(collectionName);
     CollectionMetaData cmd = cmdMap.get(collectionName);
-    Map<Object, T> collection = (Map<Object, T>) collectionsRef.get().get(collectionName);
-    if((null == cmd) || (null == collection)) {
+    if(null == cmd) {
       throw new InvalidJsonDbApiUsageException("Collection by name '" + collectionName + "' not found. Create collection first.");
     }
-    cmd.getCollectionLock().writeLock().lock();
+    lockForWrite(cmd);
     try {
-      JXPathContext context = contextsRef.get().get(collectionName);
-      Iterator<T> resultItr = context.iterate(jxQuery);
+      Map<Object, T> collection = (Map<Object, T>) collectionsRef.get().get(collectionName);
+      if (null == collection) {
+        throw new InvalidJsonDbApiUsageException("Collection by name '" + collectionName + "' not found. Create collection first.");
+      }
+      Iterator<T> resultItr = iterate(jxQuery, collectionName, cmd, collection, false);
       T objectToModify = null;
       T clonedModifiedObject = null;
 
@@ -1443,9 +3215,10 @@ public class JsonDBTemplate implements JsonDBOperations {
         }
 
         Object idToModify = Util.getIdForEntity(clonedModifiedObject, cmd.getIdAnnotatedFieldGetterMethod());
-        JsonWriter jw = null;
+        cmd.getIndexes().checkUnique(idToModify, clonedModifiedObject);
+        CollectionWriter jw = null;
         try {
-          jw = new JsonWriter(dbConfig, cmd, collectionName, fileObjectsRef.get().get(collectionName));
+          jw = getCollectionWriter(cmd, collectionName);
         } catch (IOException ioe) {
           logger.error("Failed to obtain writer for " + collectionName, ioe);
           throw new JsonDBException("Failed to save " + collectionName, ioe);
@@ -1453,6 +3226,7 @@ public class JsonDBTemplate implements JsonDBOperations {
         boolean updateResult = jw.updateInJsonFile(collection, idToModify, clonedModifiedObject);
         if (updateResult) {
          collection.put(idToModify, clonedModifiedObject);
+         cmd.getIndexes().replace(idToModify, objectToModify, clonedModifiedObject);
          //Clone it once more because we want to disconnect it from the in-memory objects before returning.
          T returnObj = (T) Util.deepCopy(clonedModifiedObject);
          if(encrypted && cmd.hasSecret() && null!= returnObj){
@@ -1485,16 +3259,21 @@ public class JsonDBTemplate implements JsonDBOperations {
   @SuppressWarnings("unchecked")
   @Override
   public <T> List<T> findAllAndModify(String jxQuery, Update update, String collectionName) {
+    ensureCollectionLoaded(collectionName);
     CollectionMetaData cmd = cmdMap.get(collectionName);
-    Map<Object, T> collection = (Map<Object, T>) collectionsRef.get().get(collectionName);
-    if((null == cmd) || (null == collection)) {
+    if(null == cmd) {
       throw new InvalidJsonDbApiUsageException("Collection by name '" + collectionName + "' not found. Create collection first.");
     }
-    cmd.getCollectionLock().writeLock().lock();
+    lockForWrite(cmd);
     try {
-      JXPathContext context = contextsRef.get().get(collectionName);
-      Iterator<T> resultItr = context.iterate(jxQuery);
+      Map<Object, T> collection = (Map<Object, T>) collectionsRef.get().get(collectionName);
+      if (null == collection) {
+        throw new InvalidJsonDbApiUsageException("Collection by name '" + collectionName + "' not found. Create collection first.");
+      }
+      Iterator<T> resultItr = iterate(jxQuery, collectionName, cmd, collection, true);
       Map<Object, T> clonedModifiedObjects = new HashMap<Object, T>();
+      //Kept for the indexes, a offset indexed collection can no longer read them once the file is written
+      Map<Object, T> objectsToModify = new HashMap<Object, T>();
 
       while (resultItr.hasNext()) {
         T objectToModify = resultItr.next();
@@ -1514,29 +3293,25 @@ public class JsonDBTemplate implements JsonDBOperations {
         }
         Object id = Util.getIdForEntity(clonedModifiedObject, cmd.getIdAnnotatedFieldGetterMethod());
         clonedModifiedObjects.put(id, clonedModifiedObject);
+        objectsToModify.put(id, objectToModify);
       }
+      cmd.getIndexes().checkUnique(clonedModifiedObjects);
 
-      JsonWriter jw = null;
+      CollectionWriter jw = null;
       try {
-        jw = new JsonWriter(dbConfig, cmd, collectionName, fileObjectsRef.get().get(collectionName));
+        jw = getCollectionWriter(cmd, collectionName);
       } catch (IOException ioe) {
         logger.error("Failed to obtain writer for " + collectionName, ioe);
         throw new JsonDBException("Failed to save " + collectionName, ioe);
       }
       boolean updateResult = jw.updateInJsonFile(collection, clonedModifiedObjects);
       if (updateResult) {
-       collection.putAll(clonedModifiedObjects);
-       //Clone it once more because we want to disconnect it from the in-memory objects before returning.
-       List<T> returnObjects = new ArrayList<T>();
-       for (T obj : clonedModifiedObjects.values()) {
-         //Clone it once more because we want to disconnect it from the in-memory objects before returning.
-         T returnObj = (T) Util.deepCopy(obj);
-         if(encrypted && cmd.hasSecret() && null!= returnObj){
-           CryptoUtil.decryptFields(returnObj, cmd, dbConfig.getCipher());
-         }
-         returnObjects.add(returnObj);
+       for (Entry<Object, T> entry : clonedModifiedObjects.entrySet()) {
+         collection.put(entry.getKey(), entry.getValue());
+         cmd.getIndexes().replace(entry.getKey(), objectsToModify.get(entry.getKey()), entry.getValue());
        }
-       return returnObjects;
+       //Clone it once more because we want to disconnect it from the in-memory objects before returning.
+       return copiesOf(new ArrayList<T>(clonedModifiedObjects.values()), cmd);
       }
       return null;
     } catch (IllegalAccessException | IllegalArgumentException | InvocationTargetException e) {
@@ -1558,15 +3333,22 @@ public class JsonDBTemplate implements JsonDBOperations {
     if (!encrypted) {
       throw new InvalidJsonDbApiUsageException("DB is not encrypted, nothing to change for EncryptionKey");
     }
-
-    for (Entry<String, Map<Object, ?>> entry : collectionsRef.get().entrySet()) {
-      CollectionMetaData cmd = cmdMap.get(entry.getKey());
+    for (CollectionMetaData cmd : cmdMap.values()) {
       if (cmd.hasSecret()) {
-        cmd.getCollectionLock().writeLock().lock();
+        ensureCollectionLoaded(cmd.getCollectionName());
       }
     }
+
+    //Lazy collections unloaded meanwhile are loaded again as they are locked
+    List<CollectionMetaData> lockedCollections = new ArrayList<CollectionMetaData>();
     String collectionName = null;
     try {
+      for (CollectionMetaData cmd : cmdMap.values()) {
+        if (cmd.hasSecret()) {
+          lockForWrite(cmd);
+          lockedCollections.add(cmd);
+        }
+      }
       for (Entry<String, Map<Object, ?>> entry : collectionsRef.get().entrySet()) {
         collectionName = entry.getKey();
         Map<Object, T> collection = (Map<Object, T>) entry.getValue();
@@ -1581,9 +3363,9 @@ public class JsonDBTemplate implements JsonDBOperations {
             //We will reuse the Id in the previous collection, should hopefully not cause any issues
             reCryptedObjects.put(object.getKey(), clonedObject);
           }
-          JsonWriter jw = null;
+          CollectionWriter jw = null;
           try {
-            jw = new JsonWriter(dbConfig, cmd, collectionName, fileObjectsRef.get().get(collectionName));
+            jw = getCollectionWriter(cmd, collectionName);
           } catch (IOException ioe) {
             logger.error("Failed to obtain writer for " + collectionName, ioe);
             throw new JsonDBException("Failed to save " + collectionName, ioe);
@@ -1593,6 +3375,7 @@ public class JsonDBTemplate implements JsonDBOperations {
             throw new JsonDBException("Failed to write re-crypted collection data to .json files, database might have become insconsistent");
           }
           collection.putAll(reCryptedObjects);
+          cmd.getIndexes().rebuild(collection);
         }
       }
       dbConfig.setCipher(newCipher);
@@ -1600,11 +3383,48 @@ public class JsonDBTemplate implements JsonDBOperations {
       logger.error("Error when encrypting value for a @Secret annotated field for entity: " + collectionName, e);
       throw new JsonDBException("Error when encrypting value for a @Secret annotated field for entity: " + collectionName, e);
     } finally {
-      for (Entry<String, Map<Object, ?>> entry : collectionsRef.get().entrySet()) {
-        CollectionMetaData cmd = cmdMap.get(entry.getKey());
-        if (cmd.hasSecret()) {
-          cmd.getCollectionLock().writeLock().unlock();
+      for (CollectionMetaData cmd : lockedCollections) {
+        cmd.getCollectionLock().writeLock().unlock();
+      }
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.JsonDBOperations#checkpoint()
+   */
+  @Override
+  public void checkpoint() {
+    if (dbConfig.isInMemory()) {
+      throw new InvalidJsonDbApiUsageException("A in-memory database has no snapshots, use backup() to write it to disk");
+    }
+    if (!dbConfig.isSnapshotsEnabled()) {
+      throw new InvalidJsonDbApiUsageException("Snapshots are not enabled, enable them using JsonDBConfig.setSnapshotsEnabled()");
+    }
+    for (CollectionMetaData cmd : cmdMap.values()) {
+      String collectionName = cmd.getCollectionName();
+      cmd.getCollectionLock().readLock().lock();
+      try {
+        Map<Object, ?> collection = collectionsRef.get().get(collectionName);
+        File collectionFile = fileObjectsRef.get().get(collectionName);
+        if (null == collection || null == collectionFile || !collectionFile.exists()) {
+          //Not loaded, whatever snapshot exists is still as good as it was
+          continue;
         }
+        if (cmd.isOffsetIndexed()) {
+          //Its documents are read from the .json file on demand, a snapshot would only add a second copy
+          continue;
+        }
+        if (!cmd.isCollectionFileStateCurrent(collectionFile)) {
+          //The file was changed behind our back, the documents in memory do not represent it
+          logger.warn("Collection file {} changed since it was loaded, skipping its snapshot", collectionFile.getName());
+          continue;
+        }
+        CollectionSnapshot snapshot = new CollectionSnapshot(dbConfig, cmd, collectionFile);
+        if (!snapshot.isCurrent()) {
+          snapshot.write(collection.values());
+        }
+      } finally {
+        cmd.getCollectionLock().readLock().unlock();
       }
     }
   }
@@ -1620,6 +3440,10 @@ public class JsonDBTemplate implements JsonDBOperations {
     } catch (IllegalArgumentException e) {
       throw new InvalidJsonDbApiUsageException(e.getMessage());
     }
+    if (dbConfig.isInMemory()) {
+      backupInMemory(zipFile);
+      return;
+    }
     File dbDirectory = dbConfig.getDbFilesLocation();
     lockAllCollectionsWrite();
     try {
@@ -1633,6 +3457,48 @@ public class JsonDBTemplate implements JsonDBOperations {
     }
   }
 
+  /**
+   * Writes every collection of a in-memory database into a temporary directory exactly as it
+   * would be kept in a dbFiles location and archives that, so the backup can be restored into
+   * any database.
+   */
+  private void backupInMemory(File zipFile) {
+    File tempDirectory = null;
+    lockAllCollectionsWrite();
+    try {
+      tempDirectory = Files.createTempDirectory("jsondb-backup-").toFile();
+      for (Entry<String, Map<Object, ?>> entry : collectionsRef.get().entrySet()) {
+        File collectionFile = new File(tempDirectory, entry.getKey() + ".json");
+        writeCollectionFile(collectionFile, cmdMap.get(entry.getKey()), entry.getValue().values());
+      }
+      JsonDbArchive.createBackupZip(tempDirectory, zipFile);
+      logger.info("Created JsonDB backup at {}", zipFile.getAbsolutePath());
+    } catch (IOException e) {
+      logger.error("Failed to create JsonDB backup at {}", zipFile.getAbsolutePath(), e);
+      throw new JsonDBException("Failed to create JsonDB backup at " + zipFile.getAbsolutePath(), e);
+    } finally {
+      unlockAllCollectionsWrite();
+      if (null != tempDirectory) {
+        Util.delete(tempDirectory);
+      }
+    }
+  }
+
+  private void writeCollectionFile(File collectionFile, CollectionMetaData cmd, Collection<?> documents) throws IOException {
+    ObjectMapper objectMapper = dbConfig.getObjectMapper();
+    BufferedWriter writer = Files.newBufferedWriter(collectionFile.toPath(), dbConfig.getCharset());
+    try {
+      writer.write(objectMapper.writeValueAsString(new SchemaVersion(cmd.getActualSchemaVersion())));
+      writer.newLine();
+      for (Object document : documents) {
+        writer.write(objectMapper.writeValueAsString(document));
+        writer.newLine();
+      }
+    } finally {
+      writer.close();
+    }
+  }
+
   /* (non-Javadoc)
    * @see org.jsondb.JsonDBOperations#restore(java.lang.String, boolean)
    */
@@ -1655,6 +3521,10 @@ public class JsonDBTemplate implements JsonDBOperations {
   }
 
   private void restoreReplace(File zipFile) {
+    if (dbConfig.isInMemory()) {
+      restoreReplaceInMemory(zipFile);
+      return;
+    }
     File dbDirectory = dbConfig.getDbFilesLocation();
     lockAllCollectionsWrite();
     try {
@@ -1669,6 +3539,56 @@ public class JsonDBTemplate implements JsonDBOperations {
     }
   }
 
+  private void restoreReplaceInMemory(File zipFile) {
+    File tempDirectory = null;
+    lockAllCollectionsWrite();
+    try {
+      tempDirectory = Files.createTempDirectory("jsondb-restore-").toFile();
+      Map<String, File> extractedCollections = JsonDbArchive.extractToDirectory(tempDirectory, zipFile);
+      for (String collectionName : cmdMap.keySet()) {
+        File backupCollectionFile = extractedCollections.get(collectionName);
+        if (null == backupCollectionFile) {
+          contextsRef.get().remove(collectionName);
+          collectionsRef.get().remove(collectionName);
+          cmdMap.get(collectionName).getIndexes().clear();
+          cmdMap.get(collectionName).setLineFingerprints(null);
+        } else {
+          loadCollectionIntoMemory(collectionName, backupCollectionFile);
+        }
+      }
+      logger.info("Restored JsonDB from backup {} (replace mode)", zipFile.getAbsolutePath());
+    } catch (IOException e) {
+      logger.error("Failed to restore JsonDB from backup {}", zipFile.getAbsolutePath(), e);
+      throw new JsonDBException("Failed to restore JsonDB from backup " + zipFile.getAbsolutePath(), e);
+    } finally {
+      unlockAllCollectionsWrite();
+      if (null != tempDirectory) {
+        Util.delete(tempDirectory);
+      }
+    }
+  }
+
+  /**
+   * Replaces the documents of a collection of a in-memory database with those read from the
+   * given file, the file is not referred to afterwards.
+   */
+  private void loadCollectionIntoMemory(String collectionName, File collectionFile) {
+    CollectionMetaData cmd = cmdMap.get(collectionName);
+    cmd.getCollectionLock().writeLock().lock();
+    try {
+      Map<Object, ?> collection = loadCollection(collectionFile, collectionName, cmd);
+      if (null == collection) {
+        throw new JsonDBException("Failed to read collection " + collectionName + " from " + collectionFile.getName());
+      }
+      cmd.setLineFingerprints(null);
+      collectionsRef.get().put(collectionName, collection);
+      contextsRef.get().put(collectionName, JXPathContext.newContext(collection.values()));
+      cmd.getIndexes().rebuild(collection);
+    } finally {
+      cmd.getCollectionLock().writeLock().unlock();
+    }
+  }
+
   private void restoreMerge(File zipFile) {
     File tempDirectory = null;
     try {
@@ -1682,13 +3602,17 @@ public class JsonDBTemplate implements JsonDBOperations {
         CollectionMetaData cmd = cmdMap.get(collectionName);
 
         if (null == cmd) {
-          File targetFile = new File(dbDirectory, backupCollectionFile.getName());
-          JsonDbArchive.copyCollectionFile(backupCollectionFile, targetFile);
+          if (!dbConfig.isInMemory()) {
+            File targetFile = new File(dbDirectory, backupCollectionFile.getName());
+            JsonDbArchive.copyCollectionFile(backupCollectionFile, targetFile);
+          }
           continue;
         }
 
         if (collectionExists(collectionName)) {
           mergeCollectionFromBackup(collectionName, cmd, backupCollectionFile);
+        } else if (dbConfig.isInMemory()) {
+          loadCollectionIntoMemory(collectionName, backupCollectionFile);
         } else {
           File targetFile = new File(dbDirectory, backupCollectionFile.getName());
           JsonDbArchive.copyCollectionFile(backupCollectionFile, targetFile);
@@ -1720,12 +3644,24 @@ public class JsonDBTemplate implements JsonDBOperations {
     List<T> documents = new ArrayList<T>();
     JsonReader jr = null;
     try {
-      jr = new JsonReader(dbConfig, collectionFile);
-      String line = null;
+      jr = new JsonReader(dbConfig, collectionFile, !dbConfig.isInMemory());
+      ObjectReader documentReader = dbConfig.getObjectReader(entity);
       int lineNo = 1;
-      while ((line = jr.readLine()) != null) {
-        if (lineNo++ > 1) {
-          documents.add(dbConfig.getObjectMapper().readValue(line, entity));
+      if (isByteLevelLoadSupported()) {
+        byte[] line = null;
+        while ((line = jr.readLineBytes()) != null) {
+          if (lineNo++ > 1) {
+            T document = documentReader.readValue(line, 0, jr.getLineLength());
+            documents.add(document);
+          }
+        }
+      } else {
+        String line = null;
+        while ((line = jr.readLine()) != null) {
+          if (lineNo++ > 1) {
+            T document = documentReader.readValue(line);
+            documents.add(document);
+          }
         }
       }
     } catch (IOException e) {
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+
+/**
+ * Tells the templates of the JVM when the heap runs low. The usage thresholds of the heap memory
+ * pools are JVM wide settings, so they are set when the first template registers and reset when
+ * the last one is unregistered, and the threshold of the first template is the one used. Pools
+ * whose threshold something else had set are left alone, their notifications serve just as well.
+ *
+ * @version 1.0 19-Oct-2026
+ */
+final class LowMemoryMonitor {
+
+  private static final List<Runnable> evictors = new CopyOnWriteArrayList<Runnable>();
+  private static final List<MemoryPoolMXBean> changedPools = new ArrayList<MemoryPoolMXBean>();
+  private static NotificationListener listener;
+
+  private LowMemoryMonitor() {
+  }
+
+  /**
+   * @param evictor invoked every time the heap usage exceeds the threshold
+   * @param threshold fraction of the maximum size of the heap memory pools, between 0 and 1
+   */
+  static synchronized void register(Runnable evictor, double threshold) {
+    evictors.add(evictor);
+    if (null != listener) {
+      return;
+    }
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == MemoryType.HEAP && pool.isUsageThresholdSupported()) {
+        long max = pool.getUsage().getMax();
+        if (max > 0 && pool.getUsageThreshold() == 0) {
+          pool.setUsageThreshold((long) (max * threshold));
+          changedPools.add(pool);
+        }
+      }
+    }
+    listener = new NotificationListener() {
+      @Override
+      public void handleNotification(Notification notification, Object handback) {
+        if (MemoryNotificationInfo.MEMORY_THRESHOLD_EXCEEDED.equals(notification.getType())) {
+          for (Runnable evictor : evictors) {
+            evictor.run();
+          }
+        }
+      }
+    };
+    ((NotificationEmitter) ManagementFactory.getMemoryMXBean()).addNotificationListener(listener, null, null);
+  }
+
+  /**
+   * @param evictor as passed to {@link #register(Runnable, double)}, nothing happens if it is not registered
+   */
+  static synchronized void unregister(Runnable evictor) {
+    if (!evictors.remove(evictor) || !evictors.isEmpty()) {
+      return;
+    }
+    try {
+      ((NotificationEmitter) ManagementFactory.getMemoryMXBean()).removeNotificationListener(listener);
+    } catch (ListenerNotFoundException e) {
+      //Already gone, nothing to clean up
+    }
+    listener = null;
+    for (MemoryPoolMXBean pool : changedPools) {
+      pool.setUsageThreshold(0);
+    }
+    changedPools.clear();
+  }
+
+}
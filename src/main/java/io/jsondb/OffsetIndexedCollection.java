@@ -0,0 +1,621 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.Weigher;
+
+import io.jsondb.io.JsonReader;
+import io.jsondb.io.LinePositions;
+
+/**
+ * A collection that does not keep its documents in memory. Only the Id of every document together
+ * with the position and length of its line in the .json file is held, plus a bounded cache of
+ * recently looked up documents bounded by a {@link CollectionMemoryBudget}. Documents are parsed from the file when they are needed,
+ * {@link #get(Object)} seeks straight to the line of the document while {@link #values()} and
+ * {@link #entrySet()} read through the file front to back.
+ *
+ * This is used for collections annotated with {@link io.jsondb.annotation.Document#offsetIndexed()}
+ * and for collections that were given a memory budget using {@link JsonDBConfig#setMemoryBudget(String, CollectionMemoryBudget)}.
+ * Like any other collection it relies on the collection lock, it must only be read while holding
+ * the read lock and only be modified while holding the write lock. As for the regular in memory
+ * collections the .json file must be written first and the map updated afterwards. Documents
+ * appended to the end of the file are recorded with {@link #putAppended(Map, LinePositions)} and
+ * leave the positions of all other lines as they are, after any other modification the file was
+ * written anew and the line positions are recomputed the next time a document is read.
+ *
+ * @param <T> Type annotated with {@link io.jsondb.annotation.Document} annotation
+ *            and member of the baseScanPackage
+ * @version 1.0 19-Oct-2026
+ */
+public class OffsetIndexedCollection<T> extends AbstractMap<Object, T> {
+  private static final int WINDOW_SIZE = 64 * 1024;
+  private static final Object REMOVED = new Object();
+
+  private final JsonDBConfig dbConfig;
+  private final CollectionMetaData cmd;
+  private final File collectionFile;
+  private final ObjectReader documentReader;
+  private final Charset charset;
+
+  private volatile Layout layout = new Layout(new ArrayList<Object>(), new HashMap<Object, Integer>(), new long[0], new int[0]);
+  private volatile boolean offsetsStale;
+  private volatile int generation;
+  private final Cache<Object, CachedDocument<T>> documentCache;
+  private volatile long emergencyEvictionCount;
+  private final ThreadLocal<ReadWindow> readWindows = new ThreadLocal<ReadWindow>();
+
+  private final DocumentList values = new DocumentList();
+  private final EntrySet entrySet = new EntrySet();
+
+  private OffsetIndexedCollection(JsonDBConfig dbConfig, CollectionMetaData cmd, File collectionFile) {
+    this.dbConfig = dbConfig;
+    this.cmd = cmd;
+    this.collectionFile = collectionFile;
+    this.documentReader = dbConfig.getObjectReader(cmd.getClazz());
+    this.charset = dbConfig.getCharset();
+    CollectionMemoryBudget budget = dbConfig.getMemoryBudget(cmd.getCollectionName());
+    if (null == budget) {
+      budget = CollectionMemoryBudget.ofDocuments(dbConfig.getDocumentCacheSize());
+    }
+    this.documentCache = buildCache(budget);
+  }
+
+  /**
+   * A single segment, otherwise Guava splits the budget between the segments and a document
+   * larger than its segment's share would never stay cached.
+   */
+  private static <T> Cache<Object, CachedDocument<T>> buildCache(CollectionMemoryBudget budget) {
+    if (budget.isByteBudget()) {
+      return CacheBuilder.newBuilder()
+          .concurrencyLevel(1)
+          .maximumWeight(budget.getMaxBytes())
+          .weigher(new Weigher<Object, CachedDocument<T>>() {
+            @Override
+            public int weigh(Object key, CachedDocument<T> value) {
+              return value.size;
+            }
+          })
+          .recordStats()
+          .build();
+    }
+    return CacheBuilder.newBuilder().concurrencyLevel(1).maximumSize(budget.getMaxDocuments()).recordStats().build();
+  }
+
+  /**
+   * Builds the offset index of a collection by reading its .json file once. Every document is
+   * parsed to determine its Id but none of them is retained.
+   *
+   * @param dbConfig the settings of the database
+   * @param cmd the metadata of the collection
+   * @param collectionFile the .json file of the collection
+   * @param <T> Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *            and member of the baseScanPackage
+   * @return the indexed collection
+   * @throws IOException if the file cannot be read or parsed
+   */
+  public static <T> OffsetIndexedCollection<T> load(JsonDBConfig dbConfig, CollectionMetaData cmd, File collectionFile) throws IOException {
+    OffsetIndexedCollection<T> collection = new OffsetIndexedCollection<T>(dbConfig, cmd, collectionFile);
+    collection.layout = collection.reindex(true);
+    return collection;
+  }
+
+  @Override
+  public int size() {
+    return layout.ordinals.size();
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return layout.ordinals.containsKey(key);
+  }
+
+  @Override
+  public T get(Object key) {
+    if (!layout.ordinals.containsKey(key)) {
+      return null;
+    }
+    CachedDocument<T> cached = documentCache.getIfPresent(key);
+    if (null != cached) {
+      return cached.document;
+    }
+    Layout current = currentLayout();
+    Integer ordinal = current.ordinals.get(key);
+    if (null == ordinal) {
+      return null;
+    }
+    T document = readDocument(current, ordinal);
+    if (!key.equals(cmd.getId(document))) {
+      //The file was not written in the order we expected, fall back to reading all Ids again
+      current = reindexQuietly(current);
+      ordinal = current.ordinals.get(key);
+      if (null == ordinal) {
+        return null;
+      }
+      document = readDocument(current, ordinal);
+    }
+    documentCache.put(key, new CachedDocument<T>(document, current.lengths[ordinal]));
+    return document;
+  }
+
+  /**
+   * Records a document that has already been written to the .json file, which was written anew
+   * for it, so the line positions are recomputed the next time a document is read.
+   *
+   * @return always null, the previous version of the document is not read back from the file
+   */
+  @Override
+  public T put(Object key, T value) {
+    Layout current = layout;
+    //The length of the new line is not known until the file is scanned again, assume a average document
+    int estimatedSize = current.ordinals.isEmpty() ? 0 : (int) Math.min(Integer.MAX_VALUE, current.indexedBytes / current.ordinals.size());
+    if (!current.ordinals.containsKey(key)) {
+      current.ordinals.put(key, current.ids.size());
+      current.ids.add(key);
+    }
+    documentCache.put(key, new CachedDocument<T>(value, estimatedSize));
+    markOffsetsStale();
+    return null;
+  }
+
+  /**
+   * Records documents that have been appended to the end of the .json file. The lines before them
+   * did not move, so the positions of the other documents stay valid and the file is not read again.
+   *
+   * @param documents the appended documents by their Id, in the order of their lines
+   * @param positions the position and length of the appended lines
+   */
+  public void putAppended(Map<Object, ? extends T> documents, LinePositions positions) {
+    Layout current = layout;
+    int line = 0;
+    for (Entry<Object, ? extends T> entry : documents.entrySet()) {
+      int length = positions.getLength(line);
+      if (current.ordinals.containsKey(entry.getKey())) {
+        //The file now holds the Id twice, leave it to a reindex to sort out which line wins
+        put(entry.getKey(), entry.getValue());
+      } else {
+        int ordinal = current.ids.size();
+        current.ordinals.put(entry.getKey(), ordinal);
+        current.ids.add(entry.getKey());
+        current.setPosition(ordinal, positions.getOffset(line), length);
+        documentCache.put(entry.getKey(), new CachedDocument<T>(entry.getValue(), length));
+      }
+      line++;
+    }
+    generation++;
+  }
+
+  /**
+   * Forgets a document that has already been removed from the .json file. Its ordinal is left
+   * behind as a tombstone until the line positions are next recomputed.
+   *
+   * @return the document if it happened to be cached, otherwise null as it can no longer be read from the file
+   */
+  @Override
+  public T remove(Object key) {
+    Layout current = layout;
+    Integer ordinal = current.ordinals.remove(key);
+    if (null == ordinal) {
+      return null;
+    }
+    current.ids.set(ordinal, REMOVED);
+    CachedDocument<T> previous = documentCache.getIfPresent(key);
+    documentCache.invalidate(key);
+    markOffsetsStale();
+    return null == previous ? null : previous.document;
+  }
+
+  @Override
+  public void clear() {
+    layout = new Layout(new ArrayList<Object>(), new HashMap<Object, Integer>(), new long[0], new int[0]);
+    documentCache.invalidateAll();
+    markOffsetsStale();
+  }
+
+  /**
+   * Returns the documents in file order as a List, so that JXPath can walk them by index
+   * without having to step through a iterator from the start for every element.
+   */
+  @Override
+  public Collection<T> values() {
+    return values;
+  }
+
+  @Override
+  public Set<Entry<Object, T>> entrySet() {
+    return entrySet;
+  }
+
+  /**
+   * Drops every cached document, used when the JVM is running low on memory.
+   */
+  public void evictCachedDocuments() {
+    documentCache.invalidateAll();
+    emergencyEvictionCount++;
+  }
+
+  /**
+   * @return the hit, miss and eviction counts and the current size of the document cache
+   */
+  public CollectionCacheStats getCacheStats() {
+    CacheStats stats = documentCache.stats();
+    long cachedBytes = 0;
+    long cachedDocuments = 0;
+    for (CachedDocument<T> cached : documentCache.asMap().values()) {
+      cachedBytes += cached.size;
+      cachedDocuments++;
+    }
+    return new CollectionCacheStats(stats.hitCount(), stats.missCount(), stats.evictionCount(),
+        emergencyEvictionCount, cachedDocuments, cachedBytes);
+  }
+
+  private void markOffsetsStale() {
+    offsetsStale = true;
+    generation++;
+  }
+
+  /**
+   * Returns the line positions, recomputing them first if the file was written anew. Writers always
+   * emit the documents in the order of this map, so it is enough to find the line boundaries and pair
+   * them with the Ids we already know, only if the number of lines does not match are the documents
+   * parsed again.
+   *
+   * This runs under the read lock of the collection, concurrently with other readers. So the new
+   * positions go into a new {@link Layout} that is published once complete, the one other readers
+   * may be using is never changed.
+   *
+   * The file is read without taking its lock. This can be invoked by a writer that is iterating the
+   * documents it rewrites while it holds that lock, and the collection lock already keeps the
+   * writers of this JVM out while the collection is read.
+   */
+  private Layout currentLayout() {
+    if (!offsetsStale) {
+      return layout;
+    }
+    synchronized (this) {
+      if (offsetsStale) {
+        try {
+          Layout scanned = scanLineOffsets(layout);
+          layout = (null == scanned) ? reindex(false) : scanned;
+        } catch (IOException e) {
+          throw new JsonDBException("Failed to index collection file " + collectionFile.getName(), e);
+        }
+        generation++;
+        offsetsStale = false;
+      }
+      return layout;
+    }
+  }
+
+  /**
+   * @param found the layout a document was not found at where it was expected
+   * @return a layout read from the file, unless another reader has already replaced the one that was wrong
+   */
+  private Layout reindexQuietly(Layout found) {
+    synchronized (this) {
+      if (layout == found) {
+        try {
+          layout = reindex(false);
+        } catch (IOException e) {
+          throw new JsonDBException("Failed to index collection file " + collectionFile.getName(), e);
+        }
+        generation++;
+      }
+      return layout;
+    }
+  }
+
+  /**
+   * @return the positions of the lines of the known Ids, or null if the file does not hold as many documents
+   */
+  private Layout scanLineOffsets(Layout current) throws IOException {
+    List<Object> ids = current.ids;
+    Map<Object, Integer> ordinals = current.ordinals;
+    if (ids.size() != ordinals.size()) {
+      ids = new ArrayList<Object>(current.ordinals.size());
+      ordinals = new HashMap<Object, Integer>();
+      for (Object id : current.ids) {
+        if (id != REMOVED) {
+          ordinals.put(id, ids.size());
+          ids.add(id);
+        }
+      }
+    }
+    long[] newOffsets = new long[ids.size()];
+    int[] newLengths = new int[ids.size()];
+    JsonReader jr = new JsonReader(dbConfig, collectionFile, false);
+    try {
+      int documentNo = -1; //The first line holds the schema version
+      while (null != jr.readLineBytes()) {
+        if (documentNo >= 0) {
+          if (documentNo >= newOffsets.length) {
+            return null;
+          }
+          newOffsets[documentNo] = jr.getLineOffset();
+          newLengths[documentNo] = jr.getLineLength();
+        }
+        documentNo++;
+      }
+      if (documentNo != newOffsets.length) {
+        return null;
+      }
+    } finally {
+      jr.close();
+    }
+    return new Layout(ids, ordinals, newOffsets, newLengths);
+  }
+
+  private Layout reindex(boolean lockFile) throws IOException {
+    List<Object> newIds = new ArrayList<Object>();
+    Map<Object, Integer> newOrdinals = new HashMap<Object, Integer>();
+    long[] newOffsets = new long[1024];
+    int[] newLengths = new int[1024];
+    JsonReader jr = new JsonReader(dbConfig, collectionFile, lockFile);
+    try {
+      boolean firstLine = true;
+      byte[] line = null;
+      while ((line = jr.readLineBytes()) != null) {
+        if (firstLine) {
+          SchemaVersion v = dbConfig.getObjectReader(SchemaVersion.class).readValue(decode(line, 0, jr.getLineLength()));
+          cmd.setActualSchemaVersion(v.getSchemaVersion());
+          firstLine = false;
+          continue;
+        }
+        T row = parse(line, 0, jr.getLineLength());
+        Object id = cmd.getId(row);
+        int ordinal = newIds.size();
+        if (ordinal == newOffsets.length) {
+          newOffsets = Arrays.copyOf(newOffsets, ordinal * 2);
+          newLengths = Arrays.copyOf(newLengths, ordinal * 2);
+        }
+        Integer previous = newOrdinals.put(id, ordinal);
+        if (null != previous) {
+          //Same as a LinkedHashMap, a duplicate Id keeps its first position but the last document wins
+          newOrdinals.put(id, previous);
+          newOffsets[previous] = jr.getLineOffset();
+          newLengths[previous] = jr.getLineLength();
+          continue;
+        }
+        newIds.add(id);
+        newOffsets[ordinal] = jr.getLineOffset();
+        newLengths[ordinal] = jr.getLineLength();
+      }
+    } finally {
+      jr.close();
+    }
+    return new Layout(newIds, newOrdinals, newOffsets, newLengths);
+  }
+
+  private T readDocument(Layout current, int ordinal) {
+    long offset = current.offsets[ordinal];
+    int length = current.lengths[ordinal];
+    ReadWindow window = readWindows.get();
+    if (null == window) {
+      window = new ReadWindow();
+      readWindows.set(window);
+    }
+    try {
+      if (!window.contains(generation, offset, length)) {
+        window.fill(generation, offset, length);
+      }
+      return parse(window.buffer, (int) (offset - window.offset), length);
+    } catch (IOException e) {
+      throw new JsonDBException("Failed to read document from collection file " + collectionFile.getName(), e);
+    }
+  }
+
+  private T parse(byte[] bytes, int offset, int length) throws IOException {
+    if (StandardCharsets.UTF_8.equals(charset)) {
+      return documentReader.readValue(bytes, offset, length);
+    }
+    return documentReader.readValue(decode(bytes, offset, length));
+  }
+
+  private String decode(byte[] bytes, int offset, int length) {
+    return new String(bytes, offset, length, charset);
+  }
+
+  private T getDocument(Layout current, int ordinal) {
+    //Peek without touching the statistics, the hit and miss counts are about lookups by Id
+    CachedDocument<T> cached = documentCache.asMap().get(current.ids.get(ordinal));
+    if (null != cached) {
+      return cached.document;
+    }
+    //Scans do not populate the cache, they would evict the documents that are actually looked up often
+    return readDocument(current, ordinal);
+  }
+
+  /**
+   * The Ids in the order of the lines of the .json file together with the position and length of
+   * every line, removed Ids are left as REMOVED until the positions are next recomputed. Readers
+   * that recompute the positions build a new instance, writers hold the write lock of the
+   * collection and change the current one in place.
+   */
+  private static final class Layout {
+    private final List<Object> ids;
+    private final Map<Object, Integer> ordinals;
+    private long[] offsets;
+    private int[] lengths;
+    private long indexedBytes;
+
+    private Layout(List<Object> ids, Map<Object, Integer> ordinals, long[] offsets, int[] lengths) {
+      this.ids = ids;
+      this.ordinals = ordinals;
+      this.offsets = offsets;
+      this.lengths = lengths;
+      for (int i = 0; i < ids.size(); i++) {
+        indexedBytes += lengths[i];
+      }
+    }
+
+    private void setPosition(int ordinal, long offset, int length) {
+      if (ordinal >= offsets.length) {
+        int capacity = Math.max(ordinal + 1, offsets.length * 2);
+        offsets = Arrays.copyOf(offsets, capacity);
+        lengths = Arrays.copyOf(lengths, capacity);
+      }
+      offsets[ordinal] = offset;
+      lengths[ordinal] = length;
+      indexedBytes += length;
+    }
+  }
+
+  private static final class CachedDocument<T> {
+    private final T document;
+    private final int size;
+
+    private CachedDocument(T document, int size) {
+      this.document = document;
+      this.size = size;
+    }
+  }
+
+  /**
+   * A chunk of the .json file, kept per thread so that a sequential scan reads the file in large
+   * blocks. The file is opened only for the duration of a read, so that the writers can replace it.
+   */
+  private class ReadWindow {
+    private byte[] buffer = new byte[WINDOW_SIZE];
+    private long offset = -1;
+    private int limit;
+    private int windowGeneration = -1;
+
+    private boolean contains(int currentGeneration, long start, int length) {
+      return windowGeneration == currentGeneration && offset >= 0 && start >= offset && start + length <= offset + limit;
+    }
+
+    private void fill(int currentGeneration, long start, int length) throws IOException {
+      if (buffer.length < length) {
+        buffer = new byte[length];
+      }
+      FileChannel channel = FileChannel.open(collectionFile.toPath(), StandardOpenOption.READ);
+      try {
+        ByteBuffer bb = ByteBuffer.wrap(buffer);
+        long position = start;
+        while (bb.hasRemaining()) {
+          int read = channel.read(bb, position);
+          if (read < 0) {
+            break;
+          }
+          position += read;
+        }
+        limit = bb.position();
+      } finally {
+        channel.close();
+      }
+      if (limit < length) {
+        throw new IOException("Collection file " + collectionFile.getName() + " is shorter than expected");
+      }
+      offset = start;
+      windowGeneration = currentGeneration;
+    }
+  }
+
+  private class DocumentList extends AbstractList<T> {
+    @Override
+    public T get(int index) {
+      Layout current = currentLayout();
+      if (index < 0 || index >= current.ids.size()) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + current.ids.size());
+      }
+      return getDocument(current, index);
+    }
+
+    @Override
+    public int size() {
+      return currentLayout().ids.size();
+    }
+  }
+
+  private class EntrySet extends AbstractSet<Entry<Object, T>> {
+    @Override
+    public Iterator<Entry<Object, T>> iterator() {
+      final Layout current = currentLayout();
+      return new Iterator<Entry<Object, T>>() {
+        private int next = 0;
+
+        @Override
+        public boolean hasNext() {
+          return next < current.ids.size();
+        }
+
+        @Override
+        public Entry<Object, T> next() {
+          if (!hasNext()) {
+            throw new NoSuchElementException();
+          }
+          final int ordinal = next++;
+          final Object id = current.ids.get(ordinal);
+          return new Entry<Object, T>() {
+            private T document;
+
+            @Override
+            public Object getKey() {
+              return id;
+            }
+
+            @Override
+            public T getValue() {
+              //Parsed only when asked for, so that skipping a entry by its key costs nothing
+              if (null == document) {
+                document = getDocument(current, ordinal);
+              }
+              return document;
+            }
+
+            @Override
+            public T setValue(T value) {
+              throw new UnsupportedOperationException();
+            }
+          };
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return OffsetIndexedCollection.this.size();
+    }
+  }
+}
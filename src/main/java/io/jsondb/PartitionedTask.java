@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Applies the work of a query to a list of documents in partitions, run on a fork join pool. The
+ * results of the partitions are merged in the order of the partitions, so they are in the order of
+ * the documents they come from.
+ *
+ * @version 1.0 19-Oct-2026
+ */
+class PartitionedTask<S, R> extends RecursiveTask<List<R>> {
+
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * The work done on a single partition, on any thread of the pool
+   */
+  interface Work<S, R> {
+    List<R> apply(List<S> partition);
+  }
+
+  private final List<S> documents;
+  private final int from;
+  private final int to;
+  private final int partitionSize;
+  private final Work<S, R> work;
+
+  private PartitionedTask(List<S> documents, int from, int to, int partitionSize, Work<S, R> work) {
+    this.documents = documents;
+    this.from = from;
+    this.to = to;
+    this.partitionSize = partitionSize;
+    this.work = work;
+  }
+
+  /**
+   * @param pool the pool to run the partitions on
+   * @param documents the documents, not modified while the work runs
+   * @param work the work done on every partition
+   * @return the results of all partitions, in the order of the partitions
+   */
+  static <S, R> List<R> invoke(ForkJoinPool pool, List<S> documents, Work<S, R> work) {
+    //A few partitions per thread, so that threads done early take over from the slow ones
+    int partitions = 4 * pool.getParallelism();
+    int partitionSize = Math.max(1, (documents.size() + partitions - 1) / partitions);
+    return pool.invoke(new PartitionedTask<S, R>(documents, 0, documents.size(), partitionSize, work));
+  }
+
+  /* (non-Javadoc)
+   * @see java.util.concurrent.RecursiveTask#compute()
+   */
+  @Override
+  protected List<R> compute() {
+    if (to - from <= partitionSize) {
+      return work.apply(documents.subList(from, to));
+    }
+    int middle = (from + to) >>> 1;
+    PartitionedTask<S, R> left = new PartitionedTask<S, R>(documents, from, middle, partitionSize, work);
+    left.fork();
+    List<R> right = new PartitionedTask<S, R>(documents, middle, to, partitionSize, work).compute();
+    List<R> results = left.join();
+    if (right.isEmpty()) {
+      return results;
+    }
+    List<R> merged = new ArrayList<R>(results.size() + right.size());
+    merged.addAll(results);
+    merged.addAll(right);
+    return merged;
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import io.jsondb.crypto.ICipher;
+import io.jsondb.query.Projection;
+
+/**
+ * Copies the projected fields of documents, into new entities with only those fields set or into rows
+ * of the field names to the values. The getters and setters are resolved once, when the projector is
+ * created, and a @Secret field is decrypted only if it is projected.
+ *
+ * @version 1.0 19-Oct-2026
+ */
+class Projector {
+
+  private final List<String> fieldNames;
+  private final Method[] getters;
+  private final Method[] setters;
+  private final boolean[] secret;
+  private final ICipher cipher;
+  private final Constructor<?> constructor;
+
+  /**
+   * @param projection the fields to copy
+   * @param cmd metadata of the collection of the documents
+   * @param cipher the cipher to decrypt the projected @Secret fields with, null if the database is not encrypted
+   * @param entities true to copy into new entities, false to copy into rows
+   */
+  Projector(Projection projection, CollectionMetaData cmd, ICipher cipher, boolean entities) {
+    this.fieldNames = projection.getFieldNames();
+    this.getters = new Method[fieldNames.size()];
+    this.setters = new Method[fieldNames.size()];
+    this.secret = new boolean[fieldNames.size()];
+    this.cipher = cipher;
+    for (int i = 0; i < getters.length; i++) {
+      String fieldName = fieldNames.get(i);
+      getters[i] = cmd.getGetterMethodForFieldName(fieldName);
+      setters[i] = cmd.getSetterMethodForFieldName(fieldName);
+      if (null == getters[i] || (entities && null == setters[i])) {
+        throw new InvalidJsonDbApiUsageException("Field '" + fieldName + "' of collection '" + cmd.getCollectionName()
+            + "' cannot be projected, it has no " + (null == getters[i] ? "getter" : "setter") + " method");
+      }
+      secret[i] = cmd.isSecretField(fieldName);
+    }
+    if (!entities) {
+      this.constructor = null;
+      return;
+    }
+    try {
+      this.constructor = cmd.getClazz().getDeclaredConstructor();
+      this.constructor.setAccessible(true);
+    } catch (NoSuchMethodException | SecurityException e) {
+      throw new InvalidJsonDbApiUsageException("Entity " + cmd.getClazz().getName()
+          + " of collection '" + cmd.getCollectionName() + "' cannot be projected, it has no constructor without arguments");
+    }
+  }
+
+  /**
+   * @param document a document of the collection, only read
+   * @return a new entity with the projected fields set, or a row of them, sharing nothing with the document
+   */
+  Object project(Object document)
+      throws IllegalAccessException, IllegalArgumentException, InvocationTargetException {
+    if (null == constructor) {
+      Map<String, Object> row = new LinkedHashMap<String, Object>();
+      for (int i = 0; i < getters.length; i++) {
+        row.put(fieldNames.get(i), valueOf(i, document));
+      }
+      return row;
+    }
+    Object entity;
+    try {
+      entity = constructor.newInstance();
+    } catch (InstantiationException e) {
+      throw new JsonDBException("Failed to create an instance of " + constructor.getDeclaringClass().getName(), e);
+    }
+    for (int i = 0; i < getters.length; i++) {
+      setters[i].invoke(entity, valueOf(i, document));
+    }
+    return entity;
+  }
+
+  private Object valueOf(int i, Object document)
+      throws IllegalAccessException, IllegalArgumentException, InvocationTargetException {
+    Object value = getters[i].invoke(document);
+    if (secret[i]) {
+      return (null == cipher || null == value) ? value : cipher.decrypt((String) value);
+    }
+    return Util.copyOfValue(value, getters[i].getGenericReturnType());
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb;
+
+/**
+ * A point in time view of the cache of query results of a collection, see {@link CollectionResultCache}.
+ *
+ * @version 1.0 19-Oct-2026
+ */
+public class QueryCacheStats {
+  private final long hitCount;
+  private final long missCount;
+  private final long evictionCount;
+  private final long invalidationCount;
+  private final long cachedResults;
+  private final long cachedBytes;
+
+  public QueryCacheStats(long hitCount, long missCount, long evictionCount, long invalidationCount,
+      long cachedResults, long cachedBytes) {
+    this.hitCount = hitCount;
+    this.missCount = missCount;
+    this.evictionCount = evictionCount;
+    this.invalidationCount = invalidationCount;
+    this.cachedResults = cachedResults;
+    this.cachedBytes = cachedBytes;
+  }
+
+  /**
+   * @return number of finds answered from the cache
+   */
+  public long getHitCount() {
+    return hitCount;
+  }
+
+  /**
+   * @return number of finds that had to evaluate the query
+   */
+  public long getMissCount() {
+    return missCount;
+  }
+
+  /**
+   * @return number of results dropped to stay within the maximum number of results or because they expired
+   */
+  public long getEvictionCount() {
+    return evictionCount;
+  }
+
+  /**
+   * @return number of times all cached results were dropped because the collection changed
+   */
+  public long getInvalidationCount() {
+    return invalidationCount;
+  }
+
+  public long getCachedResults() {
+    return cachedResults;
+  }
+
+  /**
+   * @return size of the cached results, measured as the length of their serialized form
+   */
+  public long getCachedBytes() {
+    return cachedBytes;
+  }
+
+  @Override
+  public String toString() {
+    return "QueryCacheStats [hitCount=" + hitCount + ", missCount=" + missCount + ", evictionCount=" + evictionCount
+        + ", invalidationCount=" + invalidationCount + ", cachedResults=" + cachedResults
+        + ", cachedBytes=" + cachedBytes + "]";
+  }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb;
+
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.jsondb.index.AccessPath;
+
+/**
+ * How a find was executed and what each of its steps cost, returned by
+ * {@link JsonDBOperations#explain(String, String, Comparator, String)}. The timings are wall clock
+ * nanoseconds, except for copying and decrypting, which are summed over the threads of the query
+ * pool when the documents are copied in parallel.
+ *
+ * @version 1.0 19-Oct-2026
+ */
+public class QueryExplanation {
+  private final String collectionName;
+  private final String query;
+  private final String comparator;
+  private final String slice;
+
+  private AccessPath accessPath = AccessPath.SCAN;
+  private int candidateCount;
+  private boolean residual;
+  private boolean orderedByIndex;
+  private boolean parallel;
+  private long matchCount;
+  private int returnedCount;
+
+  private long lockWaitNanos;
+  private long planNanos;
+  private long evaluateNanos;
+  private long sortNanos;
+  private final AtomicLong copyNanos = new AtomicLong();
+  private final AtomicLong decryptNanos = new AtomicLong();
+  private long totalNanos;
+
+  QueryExplanation(String collectionName, String query, Comparator<?> comparator, String slice) {
+    this.collectionName = collectionName;
+    this.query = query;
+    this.comparator = (null == comparator) ? null : comparator.toString();
+    this.slice = slice;
+  }
+
+  void recordPlan(AccessPath accessPath, int candidateCount, boolean residual, boolean orderedByIndex, boolean parallel,
+      long planNanos) {
+    this.accessPath = accessPath;
+    this.candidateCount = candidateCount;
+    this.residual = residual;
+    this.orderedByIndex = orderedByIndex;
+    this.parallel = parallel;
+    this.planNanos = planNanos;
+  }
+
+  void recordLockWait(long nanos) {
+    this.lockWaitNanos = nanos;
+  }
+
+  void recordEvaluation(long nanos) {
+    this.evaluateNanos += nanos;
+  }
+
+  void recordMatch() {
+    this.matchCount++;
+  }
+
+  void recordSort(long nanos) {
+    this.sortNanos += nanos;
+  }
+
+  void recordCopy(long nanos) {
+    copyNanos.addAndGet(nanos);
+  }
+
+  void recordDecryption(long nanos) {
+    decryptNanos.addAndGet(nanos);
+  }
+
+  void recordResult(int returnedCount, long totalNanos) {
+    this.returnedCount = returnedCount;
+    this.totalNanos = totalNanos;
+  }
+
+  public String getCollectionName() {
+    return collectionName;
+  }
+
+  public String getQuery() {
+    return query;
+  }
+
+  /**
+   * @return the description of the comparator, null if the documents were not sorted
+   */
+  public String getComparator() {
+    return comparator;
+  }
+
+  public String getSlice() {
+    return slice;
+  }
+
+  public AccessPath getAccessPath() {
+    return accessPath;
+  }
+
+  /**
+   * @return number of documents the access path selected, all documents of the collection for a scan
+   */
+  public int getCandidateCount() {
+    return candidateCount;
+  }
+
+  /**
+   * @return true if JXPath evaluated the query, or the part of it the access path did not answer, against the candidates
+   */
+  public boolean isResidual() {
+    return residual;
+  }
+
+  /**
+   * @return true if a sorted index returned the documents in the order of the comparator, so they were not sorted
+   */
+  public boolean isOrderedByIndex() {
+    return orderedByIndex;
+  }
+
+  /**
+   * @return true if JXPath evaluated the query against partitions of the candidates on the query pool
+   */
+  public boolean isParallel() {
+    return parallel;
+  }
+
+  /**
+   * @return number of matching documents read, fewer than all matches if an unsorted slice needed only the first ones
+   */
+  public long getMatchCount() {
+    return matchCount;
+  }
+
+  /**
+   * @return number of documents copied and returned
+   */
+  public int getReturnedCount() {
+    return returnedCount;
+  }
+
+  /**
+   * @return time spent waiting for the read lock of the collection
+   */
+  public long getLockWaitNanos() {
+    return lockWaitNanos;
+  }
+
+  /**
+   * @return time spent choosing the access path and looking up the candidates
+   */
+  public long getPlanNanos() {
+    return planNanos;
+  }
+
+  /**
+   * @return time spent evaluating the query against the candidates and reading the matches
+   */
+  public long getEvaluateNanos() {
+    return evaluateNanos;
+  }
+
+  /**
+   * @return time spent sorting the matches, or picking the first ones in order for a slice
+   */
+  public long getSortNanos() {
+    return sortNanos;
+  }
+
+  /**
+   * @return time spent deep-copying the documents returned
+   */
+  public long getCopyNanos() {
+    return copyNanos.get();
+  }
+
+  /**
+   * @return time spent decrypting the @Secret fields of the documents returned
+   */
+  public long getDecryptNanos() {
+    return decryptNanos.get();
+  }
+
+  /**
+   * @return time the whole find took, from preparing the query to the last copy
+   */
+  public long getTotalNanos() {
+    return totalNanos;
+  }
+
+  @Override
+  public String toString() {
+    return "QueryExplanation [collectionName=" + collectionName + ", query=" + query + ", comparator=" + comparator
+        + ", slice=" + slice + ", accessPath=" + accessPath + ", candidateCount=" + candidateCount
+        + ", residual=" + residual + ", orderedByIndex=" + orderedByIndex + ", parallel=" + parallel
+        + ", matchCount=" + matchCount + ", returnedCount=" + returnedCount + ", lockWaitNanos=" + lockWaitNanos
+        + ", planNanos=" + planNanos + ", evaluateNanos=" + evaluateNanos + ", sortNanos=" + sortNanos
+        + ", copyNanos=" + copyNanos + ", decryptNanos=" + decryptNanos + ", totalNanos=" + totalNanos + "]";
+  }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import io.jsondb.crypto.CryptoUtil;
+import io.jsondb.crypto.ICipher;
+
+/**
+ * The cached results of the finds of a collection, see {@link CollectionResultCache}. Every result
+ * is stamped with the generation of the collection it was found in, see
+ * {@link io.jsondb.index.CollectionIndexes#getGeneration()}, and the first lookup that sees the
+ * collection in a later generation drops all results. A result found while the collection changed
+ * is never cached.
+ *
+ * @version 1.0 19-Oct-2026
+ */
+class QueryResultCache {
+
+  /**
+   * A find by a query, comparators are told apart by identity as they rarely implement equals
+   */
+  private static final class Key {
+    private final String jxQuery;
+    private final Comparator<?> comparator;
+    private final String slice;
+
+    private Key(String jxQuery, Comparator<?> comparator, String slice) {
+      this.jxQuery = jxQuery;
+      this.comparator = comparator;
+      this.slice = slice;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * (31 * jxQuery.hashCode() + System.identityHashCode(comparator)) + (null == slice ? 0 : slice.hashCode());
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) obj;
+      return jxQuery.equals(other.jxQuery) && comparator == other.comparator
+          && (null == slice ? null == other.slice : slice.equals(other.slice));
+    }
+  }
+
+  private static final class CachedResult {
+    private final long generation;
+    private final byte[] json;
+
+    private CachedResult(long generation, byte[] json) {
+      this.generation = generation;
+      this.json = json;
+    }
+  }
+
+  private final Cache<Key, CachedResult> results;
+  private final ObjectMapper objectMapper;
+  private final ICipher cipher;
+  private volatile long generation;
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+  private final AtomicLong invalidationCount = new AtomicLong();
+
+  /**
+   * @param bounds the bounds of the cache
+   * @param objectMapper the mapper the documents are serialized with
+   * @param cipher the cipher of the @Secret fields, null if the database is not encrypted
+   */
+  QueryResultCache(CollectionResultCache bounds, ObjectMapper objectMapper, ICipher cipher) {
+    //A single segment, otherwise Guava splits the maximum between the segments and evicts results well before it is reached
+    CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().concurrencyLevel(1).maximumSize(bounds.getMaxResults())
+        .recordStats();
+    if (bounds.getTimeToLiveMillis() > 0) {
+      builder.expireAfterWrite(bounds.getTimeToLiveMillis(), TimeUnit.MILLISECONDS);
+    }
+    this.results = builder.build();
+    this.objectMapper = objectMapper;
+    this.cipher = cipher;
+  }
+
+  /**
+   * @return fresh copies of the documents of a cached result, decrypted, or null if the result is not cached
+   */
+  <T> List<T> get(CollectionMetaData cmd, String jxQuery, Comparator<?> comparator, String slice)
+      throws IllegalAccessException, IllegalArgumentException, InvocationTargetException {
+    long current = cmd.getIndexes().getGeneration();
+    invalidateIfChanged(current);
+    CachedResult cached = results.getIfPresent(new Key(jxQuery, comparator, slice));
+    if (null == cached || cached.generation != current) {
+      missCount.incrementAndGet();
+      return null;
+    }
+    hitCount.incrementAndGet();
+    JavaType listType = objectMapper.getTypeFactory().constructCollectionType(List.class, cmd.getClazz());
+    List<T> documents;
+    try {
+      documents = objectMapper.readValue(cached.json, listType);
+    } catch (IOException e) {
+      throw new JsonDBException("Failed to read a cached result of collection " + cmd.getCollectionName(), e);
+    }
+    if (null != cipher && cmd.hasSecret()) {
+      for (T document : documents) {
+        CryptoUtil.decryptFields(document, cmd, cipher);
+      }
+    }
+    return documents;
+  }
+
+  /**
+   * Caches a result, unless the collection changed since it was found
+   *
+   * @param generation generation of the collection the result was found in
+   * @param documents the decrypted copies of the documents found, only read
+   */
+  void put(CollectionMetaData cmd, long generation, String jxQuery, Comparator<?> comparator, String slice,
+      List<?> documents) throws IllegalAccessException, IllegalArgumentException, InvocationTargetException {
+    if (generation != cmd.getIndexes().getGeneration()) {
+      return;
+    }
+    List<?> cachedDocuments = documents;
+    if (null != cipher && cmd.hasSecret()) {
+      //Cached as the collection holds them, the plain text of a @Secret field is only ever handed to the caller
+      List<Object> encrypted = new ArrayList<Object>(documents.size());
+      for (Object document : documents) {
+        Object copy = Util.deepCopy(document);
+        CryptoUtil.encryptFields(copy, cmd, cipher);
+        encrypted.add(copy);
+      }
+      cachedDocuments = encrypted;
+    }
+    try {
+      results.put(new Key(jxQuery, comparator, slice), new CachedResult(generation, objectMapper.writeValueAsBytes(cachedDocuments)));
+    } catch (IOException e) {
+      throw new JsonDBException("Failed to cache a result of collection " + cmd.getCollectionName(), e);
+    }
+  }
+
+  private void invalidateIfChanged(long current) {
+    if (current == generation) {
+      return;
+    }
+    synchronized (this) {
+      if (current == generation) {
+        return;
+      }
+      generation = current;
+      if (results.size() > 0) {
+        results.invalidateAll();
+        invalidationCount.incrementAndGet();
+      }
+    }
+  }
+
+  /**
+   * @return the hit, miss, eviction and invalidation counts and the current size of the cache
+   */
+  QueryCacheStats getStats(CollectionMetaData cmd) {
+    invalidateIfChanged(cmd.getIndexes().getGeneration());
+    long cachedBytes = 0;
+    long cachedResults = 0;
+    for (CachedResult cached : results.asMap().values()) {
+      cachedBytes += cached.json.length;
+      cachedResults++;
+    }
+    return new QueryCacheStats(hitCount.get(), missCount.get(), results.stats().evictionCount(), invalidationCount.get(),
+        cachedResults, cachedBytes);
+  }
+}
@@ -31,6 +31,7 @@ import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Type;
 import java.text.ParseException;
 import java.util.*;
 
@@ -188,6 +189,39 @@ public class Util {
     }
   }
 
+  /**
+   * A utility method that copies a value read from a document, unless it cannot change, see {@link #copyOfValue(Object, Type)}.
+   *
+   * @param value a value of a field of a document, may be null
+   * @return the value itself if it is immutable, otherwise a deep clone of the same class
+   */
+  protected static Object copyOfValue(Object value) {
+    return copyOfValue(value, null);
+  }
+
+  /**
+   * A utility method that copies a value read from a document, unless it cannot change.
+   *
+   * @param value a value of a field of a document, may be null
+   * @param type the declared type of the field, with the types of the elements of a collection, null for the class of the value
+   * @return the value itself if it is immutable, otherwise a deep clone that shares nothing with the document
+   */
+  protected static Object copyOfValue(Object value, Type type) {
+    boolean immutable = null == value || value instanceof String || value instanceof Number || value instanceof Boolean
+        || value instanceof Character || value instanceof Enum;
+    if (immutable) {
+      return value;
+    }
+    if (null == type) {
+      return deepCopy(value);
+    }
+    try {
+      return objectMapper.readValue(objectMapper.writeValueAsString(value), objectMapper.constructType(type));
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
   /**
    * Utility to stamp the version into a newly created .json File
    * This method is expected to be invoked on a newly created .json file before it is usable.
@@ -448,4 +482,86 @@ public class Util {
     }
     return indexes;
   }
+
+  /**
+   * Utility method to find out how many leading elements a slice needs at most, which is known
+   * without the number of elements when the slice steps forward from and to a non negative index.
+   * Example slice = "0:50" needs the first 50 elements, slice = "-50:" needs to know them all.
+   *
+   * @param slice a slice string as accepted by {@link #getSliceIndexes(String, int)}
+   * @return the number of leading elements the slice picks from, or -1 if it depends on the number of elements
+   */
+  public static int getSliceLimit(String slice) {
+    if (!isSliceable(slice)) {
+      return -1;
+    }
+    String[] parts = slice.split(":", -1);
+    if (parts.length < 2 || parts.length > 3 || parts[1].trim().length() < 1) {
+      return -1;
+    }
+    try {
+      int i = (parts[0].trim().length() > 0) ? Integer.parseInt(parts[0].trim()) : 0;
+      int j = Integer.parseInt(parts[1].trim());
+      int k = (parts.length == 3 && parts[2].trim().length() > 0) ? Integer.parseInt(parts[2].trim()) : 1;
+      return (i >= 0 && j >= 0 && k > 0) ? j : -1;
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  /**
+   * Utility method to pick the k least elements in the order of a comparator while holding no more
+   * than k of them, for a slice of the first elements of a large sorted result. The elements equal
+   * to each other keep the order they come in, so the result is exactly the first k elements of
+   * a stable sort of all of them.
+   *
+   * @param elements the elements to pick from
+   * @param k the number of elements to pick
+   * @param comparator the order of the elements
+   * @param <T> the type of the elements
+   * @return the k least elements, or all of them if there are fewer, in order
+   */
+  public static <T> List<T> leastOf(Iterator<? extends T> elements, int k, final Comparator<? super T> comparator) {
+    //Every element is ranked by its arrival after the comparator, so that no two elements are equal
+    Comparator<Ranked<T>> byRank = new Comparator<Ranked<T>>() {
+      @Override
+      public int compare(Ranked<T> a, Ranked<T> b) {
+        int c = comparator.compare(a.element, b.element);
+        return (c != 0) ? c : Long.compare(a.arrival, b.arrival);
+      }
+    };
+    List<T> least = new ArrayList<T>();
+    if (k < 1) {
+      return least;
+    }
+    PriorityQueue<Ranked<T>> greatestFirst = new PriorityQueue<Ranked<T>>(Math.min(k, 1024), Collections.reverseOrder(byRank));
+    long arrival = 0;
+    while (elements.hasNext()) {
+      T element = elements.next();
+      if (greatestFirst.size() < k) {
+        greatestFirst.add(new Ranked<T>(element, arrival));
+      } else if (comparator.compare(element, greatestFirst.peek().element) < 0) {
+        //An element equal to the greatest held arrived later, so it ranks after it
+        greatestFirst.poll();
+        greatestFirst.add(new Ranked<T>(element, arrival));
+      }
+      arrival++;
+    }
+    List<Ranked<T>> ranked = new ArrayList<Ranked<T>>(greatestFirst);
+    ranked.sort(byRank);
+    for (Ranked<T> element : ranked) {
+      least.add(element.element);
+    }
+    return least;
+  }
+
+  private static final class Ranked<T> {
+    private final T element;
+    private final long arrival;
+
+    private Ranked(T element, long arrival) {
+      this.element = element;
+      this.arrival = arrival;
+    }
+  }
 }
@@ -35,4 +35,27 @@ import java.lang.annotation.Target;
 public @interface Document {
   String collection();
   String schemaVersion();
+
+  /**
+   * When true the collection is not read into memory when the template is constructed,
+   * instead it is loaded on first access and may be unloaded again once it has been idle
+   * for longer than {@link io.jsondb.JsonDBConfig#getCollectionIdleTimeout()}.
+   *
+   * @return true if the collection should be loaded lazily
+   */
+  boolean lazy() default false;
+
+  /**
+   * When true the documents of the collection are not held in memory, only the position of every
+   * document in the .json file is, together with a small cache of recently looked up documents
+   * whose size is set by {@link io.jsondb.JsonDBConfig#setDocumentCacheSize(int)}. Lookups by Id
+   * read a single line from the file, queries read through the whole file.
+   *
+   * Meant for collections that are too large to be kept on the heap, every query is a lot slower.
+   * Secondary indexes work as usual, they hold the indexed values and the Ids of the documents
+   * and are built by reading through the file once when the collection is loaded.
+   *
+   * @return true if documents should be read from the .json file on demand
+   */
+  boolean offsetIndexed() default false;
 }
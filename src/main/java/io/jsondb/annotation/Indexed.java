@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import io.jsondb.index.IndexType;
+
+/**
+ * Marks a field of a @Document class whose values JsonDB keeps a index of. Queries that test the
+ * field for equality, or for a range of values with a sorted index, are then answered from the index
+ * instead of evaluating the query against every document in the collection. The words of a text
+ * field with a full text index are searched with {@link io.jsondb.JsonDBOperations#search(io.jsondb.query.TextSearch, String)}. Indexes on more than
+ * one field are created with {@link io.jsondb.JsonDBOperations#createIndex(io.jsondb.index.IndexDefinition, String)}.
+ *
+ * @version 1.0 19-Oct-2026
+ */
+@Inherited
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ ElementType.FIELD })
+public @interface Indexed {
+
+  /**
+   * @return the kind of index to keep
+   */
+  IndexType type() default IndexType.HASH;
+
+  /**
+   * @return true if no two documents of the collection may hold the same non null value in the field
+   */
+  boolean unique() default false;
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.annotation.processing;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+import io.jsondb.DocumentRegistry;
+import io.jsondb.annotation.Id;
+import io.jsondb.annotation.Indexed;
+import io.jsondb.annotation.Secret;
+
+/**
+ * A annotation processor that writes the {@link DocumentRegistry} resource, listing every class
+ * annotated with {@link io.jsondb.annotation.Document} together with its @Id, @Secret and @Indexed fields
+ * and the getters and setters of all its fields, exactly as {@link io.jsondb.CollectionMetaData}
+ * would otherwise find them by scanning the classpath and reflecting over every class.
+ *
+ * javac runs it automatically when jsondb is on the classpath, with Gradle it has to be added to
+ * the annotationProcessor configuration as well.
+ *
+ * @version 1.0 19-Oct-2026
+ */
+@SupportedAnnotationTypes("io.jsondb.annotation.Document")
+public class DocumentRegistryProcessor extends AbstractProcessor {
+
+  private final Map<String, String> documents = new LinkedHashMap<String, String>();
+  private final Set<Element> originatingElements = new LinkedHashSet<Element>();
+
+  /* (non-Javadoc)
+   * @see javax.annotation.processing.AbstractProcessor#getSupportedSourceVersion()
+   */
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  /* (non-Javadoc)
+   * @see javax.annotation.processing.AbstractProcessor#process(java.util.Set, javax.annotation.processing.RoundEnvironment)
+   */
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+    for (TypeElement annotation : annotations) {
+      for (Element e : roundEnv.getElementsAnnotatedWith(annotation)) {
+        if (e.getKind() == ElementKind.CLASS) {
+          TypeElement type = (TypeElement) e;
+          String className = processingEnv.getElementUtils().getBinaryName(type).toString();
+          documents.put(className, describeDocument(className, type));
+          originatingElements.add(type);
+        }
+      }
+    }
+    if (roundEnv.processingOver() && !documents.isEmpty()) {
+      writeRegistry();
+    }
+    return false;
+  }
+
+  private String describeDocument(String className, TypeElement type) {
+    List<String> fields = new ArrayList<String>();
+    //Same order CollectionMetaData walks the class, the class itself first and then its super classes
+    TypeElement current = type;
+    while (null != current) {
+      String declaringClass = processingEnv.getElementUtils().getBinaryName(current).toString();
+      Set<String> methodNames = new LinkedHashSet<String>();
+      for (ExecutableElement m : ElementFilter.methodsIn(current.getEnclosedElements())) {
+        methodNames.add(m.getSimpleName().toString());
+      }
+      for (VariableElement f : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+        String fieldName = f.getSimpleName().toString();
+        String getterMethodName = formGetterMethodName(f);
+        String setterMethodName = formSetterMethodName(f);
+        Indexed indexed = f.getAnnotation(Indexed.class);
+        fields.add("{\"declaringClass\":" + quote(declaringClass)
+            + ",\"name\":" + quote(fieldName)
+            + ",\"getter\":" + (methodNames.contains(getterMethodName) ? quote(getterMethodName) : "null")
+            + ",\"setter\":" + (methodNames.contains(setterMethodName) ? quote(setterMethodName) : "null")
+            + ",\"id\":" + (null != f.getAnnotation(Id.class))
+            + ",\"secret\":" + (null != f.getAnnotation(Secret.class))
+            + ",\"indexed\":" + (null != indexed)
+            + ",\"uniqueIndex\":" + (null != indexed && indexed.unique())
+            + ",\"indexType\":" + (null != indexed ? quote(indexed.type().name()) : "null") + "}");
+      }
+      current = superclassOf(current);
+    }
+
+    StringBuilder sb = new StringBuilder();
+    sb.append("{\"className\":").append(quote(className)).append(",\"fields\":[");
+    for (int i = 0; i < fields.size(); i++) {
+      if (i > 0) {
+        sb.append(',');
+      }
+      sb.append("\n    ").append(fields.get(i));
+    }
+    sb.append("]}");
+    return sb.toString();
+  }
+
+  private TypeElement superclassOf(TypeElement type) {
+    TypeMirror superclass = type.getSuperclass();
+    if (superclass.getKind() != TypeKind.DECLARED) {
+      return null;
+    }
+    TypeElement superElement = (TypeElement) ((DeclaredType) superclass).asElement();
+    if (superElement.getQualifiedName().contentEquals(Object.class.getName())) {
+      return null;
+    }
+    return superElement;
+  }
+
+  private void writeRegistry() {
+    try {
+      FileObject resource = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "",
+          DocumentRegistry.REGISTRY_RESOURCE, originatingElements.toArray(new Element[originatingElements.size()]));
+      Writer writer = resource.openWriter();
+      try {
+        writer.write("[");
+        boolean first = true;
+        for (String document : documents.values()) {
+          writer.write(first ? "\n  " : ",\n  ");
+          writer.write(document);
+          first = false;
+        }
+        writer.write("\n]\n");
+      } finally {
+        writer.close();
+      }
+    } catch (IOException e) {
+      processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+          "Failed to write " + DocumentRegistry.REGISTRY_RESOURCE + ": " + e.getMessage());
+    }
+  }
+
+  private static String formGetterMethodName(VariableElement field) {
+    String fieldName = field.getSimpleName().toString();
+    if (field.asType().getKind() == TypeKind.BOOLEAN) {
+      return "is" + Character.toUpperCase(fieldName.charAt(0)) + fieldName.substring(1);
+    } else {
+      return "get" + Character.toUpperCase(fieldName.charAt(0)) + fieldName.substring(1);
+    }
+  }
+
+  private static String formSetterMethodName(VariableElement field) {
+    String fieldName = field.getSimpleName().toString();
+    return "set" + Character.toUpperCase(fieldName.charAt(0)) + fieldName.substring(1);
+  }
+
+  private static String quote(String s) {
+    StringBuilder sb = new StringBuilder(s.length() + 2).append('"');
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      if (c == '"' || c == '\\') {
+        sb.append('\\');
+      }
+      sb.append(c);
+    }
+    return sb.append('"').toString();
+  }
+}
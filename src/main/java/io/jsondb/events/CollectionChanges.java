@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.events;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * The Ids of the documents that an incremental reload of a collection found to be added,
+ * removed or changed in the collection file compared to what was held in memory.
+ *
+ * @version 1.0 19-Oct-2026
+ */
+public class CollectionChanges {
+  private final Set<Object> addedIds;
+  private final Set<Object> removedIds;
+  private final Set<Object> changedIds;
+
+  public CollectionChanges(Set<Object> addedIds, Set<Object> removedIds, Set<Object> changedIds) {
+    this.addedIds = Collections.unmodifiableSet(addedIds);
+    this.removedIds = Collections.unmodifiableSet(removedIds);
+    this.changedIds = Collections.unmodifiableSet(changedIds);
+  }
+
+  public Set<Object> getAddedIds() {
+    return addedIds;
+  }
+
+  public Set<Object> getRemovedIds() {
+    return removedIds;
+  }
+
+  public Set<Object> getChangedIds() {
+    return changedIds;
+  }
+
+  /**
+   * @return true if the file held exactly the documents that were in memory
+   */
+  public boolean isEmpty() {
+    return addedIds.isEmpty() && removedIds.isEmpty() && changedIds.isEmpty();
+  }
+
+  @Override
+  public String toString() {
+    return "CollectionChanges [addedIds=" + addedIds + ", removedIds=" + removedIds + ", changedIds=" + changedIds + "]";
+  }
+}
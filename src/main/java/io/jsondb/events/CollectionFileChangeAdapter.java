@@ -44,4 +44,7 @@ public abstract class CollectionFileChangeAdapter implements CollectionFileChang
   @Override
   public void collectionFileModified(String collectionName) {  }
 
+  @Override
+  public void collectionReloaded(String collectionName, CollectionChanges changes) {  }
+
 }
@@ -60,4 +60,16 @@ public interface CollectionFileChangeListener extends EventListener {
    * @param collectionName the name of the collection whose corresponding file was modified.
    */
   void collectionFileModified(String collectionName);
+
+  /**
+   * Invoked after a collection was reloaded incrementally, see {@link io.jsondb.JsonDBConfig#setIncrementalReload(boolean)},
+   * with the exact documents that differed between the collection file and the collection in memory.
+   * It is not invoked for full reloads.
+   *
+   * The default implementation does nothing so that existing listeners need not implement it.
+   *
+   * @param collectionName the name of the collection that was reloaded.
+   * @param changes the Ids of the documents that were added, removed or changed.
+   */
+  default void collectionReloaded(String collectionName, CollectionChanges changes) {  }
 }
@@ -109,6 +109,25 @@ public class EventListenerList {
     return false;
   }
 
+  /**
+   * Notifies the listeners of the documents a incremental reload found to be different.
+   *
+   * @param collectionName the name of the collection that was reloaded
+   * @param changes the Ids of the added, removed and changed documents
+   */
+  public void fireCollectionReloaded(String collectionName, CollectionChanges changes) {
+    if (null == listeners) {
+      return;
+    }
+    for (CollectionFileChangeListener listener : new ArrayList<CollectionFileChangeListener>(listeners)) {
+      try {
+        listener.collectionReloaded(collectionName, changes);
+      } catch (RuntimeException e) {
+        logger.error("CollectionFileChangeListener failed handling reload of collection {}", collectionName, e);
+      }
+    }
+  }
+
   public void shutdown() {
     if (null != listeners && listeners.size() > 0) {
       stopWatcher = true;
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.index;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+import io.jsondb.CollectionMetaData;
+import io.jsondb.InvalidJsonDbApiUsageException;
+
+/**
+ * A bitmap index, maps every value of a field to a bitmap of the {@link DocumentSlots} of the
+ * documents holding it. Meant for fields with few distinct values such as enums and booleans, where
+ * it takes a bit per document and value, and where several conditions on such fields are answered
+ * by and-ing, or-ing and negating bitmaps instead of looking at the documents.
+ *
+ * @version 1.0 19-Oct-2026
+ */
+public class BitmapIndex implements CollectionIndex {
+
+  private final IndexDefinition definition;
+  private final DocumentField field;
+  private final DocumentSlots slots;
+  private final Map<Object, BitSet> bitmaps = new HashMap<Object, BitSet>();
+
+  public BitmapIndex(IndexDefinition definition, CollectionMetaData cmd, DocumentSlots slots) {
+    if (definition.getFieldNames().size() != 1) {
+      throw new InvalidJsonDbApiUsageException("Bitmap index '" + definition.getName() + "' must have exactly one field");
+    }
+    if (definition.isUnique()) {
+      throw new InvalidJsonDbApiUsageException("Bitmap index '" + definition.getName() + "' cannot be unique");
+    }
+    this.field = new DocumentField(cmd, definition.getFieldNames().get(0));
+    if (field.isMultiValued()) {
+      throw new InvalidJsonDbApiUsageException("Field '" + field.getFieldName() + "' of collection '"
+          + cmd.getCollectionName() + "' holds more than one value, it cannot be bitmap indexed");
+    }
+    if (cmd.isSecretField(field.getFieldName())) {
+      throw new InvalidJsonDbApiUsageException("Field '" + field.getFieldName() + "' of collection '" + cmd.getCollectionName()
+          + "' is a @Secret field, its encrypted values cannot be bitmap indexed");
+    }
+    this.definition = definition;
+    this.slots = slots;
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.index.CollectionIndex#getDefinition()
+   */
+  @Override
+  public IndexDefinition getDefinition() {
+    return definition;
+  }
+
+  public DocumentField getField() {
+    return field;
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.index.CollectionIndex#add(java.lang.Object, java.lang.Object)
+   */
+  @Override
+  public void add(Object id, Object document) {
+    Object value = KeyedIndex.normalize(field.get(document));
+    if (null == value) {
+      return;
+    }
+    BitSet bitmap = bitmaps.get(value);
+    if (null == bitmap) {
+      bitmap = new BitSet();
+      bitmaps.put(value, bitmap);
+    }
+    bitmap.set(slots.assign(id));
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.index.CollectionIndex#remove(java.lang.Object, java.lang.Object)
+   */
+  @Override
+  public void remove(Object id, Object document) {
+    Object value = KeyedIndex.normalize(field.get(document));
+    BitSet bitmap = (null == value) ? null : bitmaps.get(value);
+    int slot = slots.slotOf(id);
+    if (null == bitmap || slot < 0) {
+      return;
+    }
+    bitmap.clear(slot);
+    if (bitmap.isEmpty()) {
+      bitmaps.remove(value);
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.index.CollectionIndex#clear()
+   */
+  @Override
+  public void clear() {
+    bitmaps.clear();
+  }
+
+  /**
+   * @param value a normalized value
+   * @return a new bitmap of the slots of the documents holding the value
+   */
+  public BitSet lookup(Object value) {
+    BitSet bitmap = bitmaps.get(value);
+    return (null == bitmap) ? new BitSet() : (BitSet) bitmap.clone();
+  }
+
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.index;
+
+/**
+ * A secondary index of a collection, kept up to date by {@link CollectionIndexes} with every change
+ * made to the collection. Implementations are not thread safe, they are guarded by the lock of the
+ * collection they belong to.
+ *
+ * @version 1.0 19-Oct-2026
+ */
+public interface CollectionIndex {
+
+  /**
+   * @return the definition this index was created from
+   */
+  IndexDefinition getDefinition();
+
+  /**
+   * Indexes a document that has just been added to the collection
+   *
+   * @param id id of the document
+   * @param document the document as held by the collection
+   */
+  void add(Object id, Object document);
+
+  /**
+   * Forgets a document that has just been removed from the collection
+   *
+   * @param id id of the document
+   * @param document the document as it was held by the collection
+   */
+  void remove(Object id, Object document);
+
+  /**
+   * Forgets all documents
+   */
+  void clear();
+}
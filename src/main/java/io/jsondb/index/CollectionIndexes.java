@@ -0,0 +1,755 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.index;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.jsondb.CollectionMetaData;
+import io.jsondb.InvalidJsonDbApiUsageException;
+import io.jsondb.query.GeoQuery;
+import io.jsondb.query.PreparedQuery;
+import io.jsondb.query.Sort;
+
+/**
+ * The secondary indexes of a collection. {@link io.jsondb.JsonDBTemplate} tells it about every
+ * document added to, replaced in or removed from the collection while holding the write lock of the
+ * collection, and rebuilds it whenever the collection is (re)loaded.
+ *
+ * The indexes are only consulted while they are built for the documents currently in memory,
+ * a collection that is not loaded or is offset indexed is scanned unless its documents are
+ * selected by their id.
+ *
+ * @version 1.0 19-Oct-2026
+ */
+public class CollectionIndexes {
+  private Logger logger = LoggerFactory.getLogger(CollectionIndexes.class);
+
+  private final CollectionMetaData cmd;
+  private final Map<String, CollectionIndex> indexes = new LinkedHashMap<String, CollectionIndex>();
+
+  //Position of every document in the collection, lookups return ids in the order the collection holds them
+  private final Map<Object, Long> ordinals = new HashMap<Object, Long>();
+  private final Comparator<Object> byOrdinal = new Comparator<Object>() {
+    @Override
+    public int compare(Object id1, Object id2) {
+      return Long.compare(ordinals.get(id1), ordinals.get(id2));
+    }
+  };
+  private long nextOrdinal;
+  //Dense numbering of the documents for the bitmaps that conditions are evaluated with
+  private final DocumentSlots slots = new DocumentSlots();
+  private volatile boolean built;
+  //Drawn from a counter shared by all collections, so that a generation is never reused, not even by a recreated collection
+  private static final AtomicLong generations = new AtomicLong();
+  private volatile long generation = generations.incrementAndGet();
+
+  public CollectionIndexes(CollectionMetaData cmd) {
+    this.cmd = cmd;
+  }
+
+  /**
+   * Adds a index without building it, used for the indexes declared with
+   * {@link io.jsondb.annotation.Indexed} before the collection is loaded.
+   *
+   * @param definition definition of the index
+   */
+  public void define(IndexDefinition definition) {
+    if (indexes.containsKey(definition.getName())) {
+      throw new InvalidJsonDbApiUsageException("Collection '" + cmd.getCollectionName() + "' already has a index named '"
+          + definition.getName() + "'");
+    }
+    indexes.put(definition.getName(), newIndex(definition));
+  }
+
+  /**
+   * Adds a index and builds it for the documents of the collection
+   *
+   * @param definition definition of the index
+   * @param collection the documents of the collection, null if it is not loaded
+   */
+  public void create(IndexDefinition definition, Map<Object, ?> collection) {
+    if (indexes.containsKey(definition.getName())) {
+      throw new InvalidJsonDbApiUsageException("Collection '" + cmd.getCollectionName() + "' already has a index named '"
+          + definition.getName() + "'");
+    }
+    CollectionIndex index = newIndex(definition);
+    indexes.put(definition.getName(), index);
+    if (null == collection) {
+      return;
+    }
+    if (built) {
+      for (Map.Entry<Object, ?> entry : collection.entrySet()) {
+        index.add(entry.getKey(), entry.getValue());
+      }
+    } else {
+      build(collection);
+    }
+    if (definition.isUnique() && (index instanceof KeyedIndex) && ((KeyedIndex) index).hasDuplicates()) {
+      drop(definition.getName());
+      throw new InvalidJsonDbApiUsageException("Cannot create unique index '" + definition.getName() + "', documents of collection '"
+          + cmd.getCollectionName() + "' already share values of " + String.join(", ", definition.getFieldNames()));
+    }
+  }
+
+  /**
+   * @param indexName name of the index to drop
+   * @return true if the collection had such a index
+   */
+  public boolean drop(String indexName) {
+    if (null == indexes.remove(indexName)) {
+      return false;
+    }
+    if (indexes.isEmpty()) {
+      clear();
+    }
+    return true;
+  }
+
+  public List<IndexDefinition> getDefinitions() {
+    List<IndexDefinition> definitions = new ArrayList<IndexDefinition>();
+    for (CollectionIndex index : indexes.values()) {
+      definitions.add(index.getDefinition());
+    }
+    return definitions;
+  }
+
+  public boolean isEmpty() {
+    return indexes.isEmpty();
+  }
+
+  /**
+   * @return true if the indexes are built for the documents currently in memory
+   */
+  public boolean isBuilt() {
+    return built;
+  }
+
+  /**
+   * @return a number that changes whenever a document is added to, replaced in or removed from the collection,
+   *         or the collection is loaded, reloaded or unloaded, whether or not it has indexes
+   */
+  public long getGeneration() {
+    return generation;
+  }
+
+  private CollectionIndex newIndex(IndexDefinition definition) {
+    switch (definition.getType()) {
+      case SORTED:
+        return new SortedIndex(definition, cmd);
+      case FULL_TEXT:
+        return new FullTextIndex(definition, cmd);
+      case BITMAP:
+        return new BitmapIndex(definition, cmd, slots);
+      case MULTIKEY:
+        return new MultiKeyIndex(definition, cmd);
+      case SPATIAL:
+        return new SpatialIndex(definition, cmd);
+      case HASH:
+      default:
+        return new HashIndex(definition, cmd);
+    }
+  }
+
+  /**
+   * Builds all indexes from scratch for a freshly loaded collection
+   *
+   * @param collection the documents of the collection
+   */
+  public void rebuild(Map<Object, ?> collection) {
+    if (!build(collection)) {
+      return;
+    }
+    for (CollectionIndex index : indexes.values()) {
+      if (index.getDefinition().isUnique() && (index instanceof KeyedIndex) && ((KeyedIndex) index).hasDuplicates()) {
+        logger.warn("Documents of collection '{}' violate unique index '{}', the file was modified outside of JsonDB",
+            cmd.getCollectionName(), index.getDefinition().getName());
+      }
+    }
+  }
+
+  private boolean build(Map<Object, ?> collection) {
+    clear();
+    if (indexes.isEmpty()) {
+      return false;
+    }
+    built = true;
+    for (Map.Entry<Object, ?> entry : collection.entrySet()) {
+      add(entry.getKey(), entry.getValue());
+    }
+    return true;
+  }
+
+  /**
+   * Forgets all documents, for a collection that was unloaded or dropped
+   */
+  public void clear() {
+    generation = generations.incrementAndGet();
+    built = false;
+    ordinals.clear();
+    nextOrdinal = 0;
+    slots.clear();
+    for (CollectionIndex index : indexes.values()) {
+      index.clear();
+    }
+  }
+
+  public void add(Object id, Object document) {
+    generation = generations.incrementAndGet();
+    if (!built) {
+      return;
+    }
+    if (!ordinals.containsKey(id)) {
+      ordinals.put(id, nextOrdinal++);
+    }
+    slots.assign(id);
+    for (CollectionIndex index : indexes.values()) {
+      index.add(id, document);
+    }
+  }
+
+  public void remove(Object id, Object document) {
+    generation = generations.incrementAndGet();
+    if (!built) {
+      return;
+    }
+    ordinals.remove(id);
+    for (CollectionIndex index : indexes.values()) {
+      index.remove(id, document);
+    }
+    slots.release(id);
+  }
+
+  /**
+   * Re-indexes a document whose id stays in place in the collection
+   *
+   * @param id id of the document
+   * @param oldDocument the document as it was held by the collection, null if it was not
+   * @param newDocument the document now held by the collection
+   */
+  public void replace(Object id, Object oldDocument, Object newDocument) {
+    generation = generations.incrementAndGet();
+    if (!built) {
+      return;
+    }
+    if (null != oldDocument) {
+      for (CollectionIndex index : indexes.values()) {
+        index.remove(id, oldDocument);
+      }
+    }
+    add(id, newDocument);
+  }
+
+  /**
+   * Checks that writing a document would not violate a unique index, must be called before anything is written
+   *
+   * @param id id of the document
+   * @param document the document about to be inserted or replace the one with the same id
+   */
+  public void checkUnique(Object id, Object document) {
+    checkUnique(Collections.singletonMap(id, document));
+  }
+
+  /**
+   * Checks that writing a batch of documents would not violate a unique index, must be called before anything is written
+   *
+   * @param documents the documents about to be inserted or replace the ones with the same ids
+   */
+  public void checkUnique(Map<Object, ?> documents) {
+    if (!built) {
+      return;
+    }
+    for (CollectionIndex index : indexes.values()) {
+      if (!index.getDefinition().isUnique() || !(index instanceof KeyedIndex)) {
+        continue;
+      }
+      KeyedIndex keyedIndex = (KeyedIndex) index;
+      Map<Object, Object> batchKeys = new HashMap<Object, Object>();
+      for (Map.Entry<Object, ?> entry : documents.entrySet()) {
+        Object key = keyedIndex.keyOf(entry.getValue());
+        if (null == key || !keyedIndex.isConstrained(key)) {
+          continue;
+        }
+        Object sameKeyId = batchKeys.put(key, entry.getKey());
+        boolean duplicate = null != sameKeyId && !sameKeyId.equals(entry.getKey());
+        for (Object holder : keyedIndex.lookup(key)) {
+          //A holder that is itself part of the batch is checked against its new value instead
+          if (!holder.equals(entry.getKey()) && !documents.containsKey(holder)) {
+            duplicate = true;
+          }
+        }
+        if (duplicate) {
+          throw new InvalidJsonDbApiUsageException("Unique index '" + index.getDefinition().getName() + "' of collection '"
+              + cmd.getCollectionName() + "' already holds the value '" + keyedIndex.describe(entry.getValue()) + "'");
+        }
+      }
+    }
+  }
+
+  /**
+   * Answers a query from the indexes if they can answer each of its comparisons
+   *
+   * @param jxQuery the JXPath query
+   * @return the ids of the matching documents in collection order, or null if the indexes cannot answer the query
+   */
+  public List<Object> lookup(String jxQuery) {
+    IndexLookup lookup = lookup(jxQuery, null, -1);
+    return (null == lookup) ? null : lookup.getIds();
+  }
+
+  /**
+   * Answers a query from the indexes, in the order of the given comparator if it is a {@link Sort}
+   * on the fields of a sorted index that can answer the query as well.
+   *
+   * A conjunction of comparisons is first tried as a single lookup of a hash index or scan of a
+   * sorted index. Otherwise every comparison is answered by a index on its field as a bitmap of
+   * document slots, and the bitmaps are and-ed, or-ed and negated as the query joins the comparisons.
+   *
+   * @param jxQuery the JXPath query, null to select all documents
+   * @param comparator the requested order of the documents, may be null
+   * @param limit the number of documents needed if they are returned in the requested order, -1 for all
+   * @return the ids of the matching documents, or null if the indexes cannot answer the query
+   */
+  public IndexLookup lookup(String jxQuery, Comparator<?> comparator, int limit) {
+    return lookup(jxQuery, Collections.<String, Object>emptyMap(), comparator, limit);
+  }
+
+  private IndexLookup lookup(String jxQuery, Map<String, ?> variables, Comparator<?> comparator, int limit) {
+    if (!built) {
+      return null;
+    }
+    IndexQuery query = null;
+    if (null != jxQuery) {
+      query = IndexQuery.parse(jxQuery, variables);
+      if (null == query) {
+        return null;
+      }
+    }
+    return lookup(query, comparator, limit);
+  }
+
+  private IndexLookup lookup(IndexQuery query, Comparator<?> comparator, int limit) {
+    if (!built) {
+      return null;
+    }
+    List<Comparison> comparisons = (null == query) ? Collections.<Comparison>emptyList() : query.getComparisons();
+
+    if (null != comparisons) {
+      if (comparator instanceof Sort) {
+        for (CollectionIndex index : indexes.values()) {
+          if (index instanceof SortedIndex) {
+            SortedIndex sortedIndex = (SortedIndex) index;
+            SortedIndex.Range range = sortedIndex.plan(comparisons);
+            Boolean descending = (null == range) ? null : sortedIndex.ordering(range, (Sort) comparator);
+            if (null != descending) {
+              return new IndexLookup(sortedIndex.scan(range, descending, limit, byOrdinal), true);
+            }
+          }
+        }
+      }
+      if (comparisons.isEmpty()) {
+        //Reading all documents from a index is no better than reading the collection
+        return null;
+      }
+
+      if (comparisons.size() == 1 && comparisons.get(0).getOperator() == Comparison.Operator.EQ) {
+        Comparison equality = comparisons.get(0);
+        for (CollectionIndex index : indexes.values()) {
+          if (index instanceof HashIndex) {
+            DocumentField field = ((HashIndex) index).getField();
+            if (field.getFieldName().equals(equality.getFieldName()) && equality.isAnswerableFor(field.getType())) {
+              Set<Object> ids = ((HashIndex) index).lookup(KeyedIndex.normalize(equality.getLiteral()));
+              return new IndexLookup(inCollectionOrder(ids), false);
+            }
+          }
+          if (index instanceof MultiKeyIndex) {
+            MultiKeyIndex multiKeyIndex = (MultiKeyIndex) index;
+            if (multiKeyIndex.getPath().equals(equality.getFieldName()) && equality.isAnswerableFor(multiKeyIndex.getValueType())) {
+              Set<Object> ids = multiKeyIndex.lookup(KeyedIndex.normalize(equality.getLiteral()));
+              return new IndexLookup(inCollectionOrder(ids), false);
+            }
+          }
+        }
+      }
+      for (CollectionIndex index : indexes.values()) {
+        if (index instanceof SortedIndex) {
+          SortedIndex sortedIndex = (SortedIndex) index;
+          SortedIndex.Range range = sortedIndex.plan(comparisons);
+          if (null != range) {
+            return new IndexLookup(inCollectionOrder(sortedIndex.scan(range, false, -1, byOrdinal)), false);
+          }
+        }
+      }
+    }
+
+    BitSet matches = evaluate(query.getCondition());
+    return (null == matches) ? null : new IndexLookup(idsOf(matches), false);
+  }
+
+  /**
+   * Counts the documents matching a query without collecting their ids if the query is answered with bitmaps
+   *
+   * @param jxQuery the JXPath query
+   * @return the number of matching documents, or -1 if the indexes cannot answer the query
+   */
+  public int count(String jxQuery) {
+    IndexQuery query = built ? IndexQuery.parse(jxQuery) : null;
+    if (null == query) {
+      return -1;
+    }
+    BitSet matches = evaluate(query.getCondition());
+    if (null != matches) {
+      return matches.cardinality();
+    }
+    IndexLookup lookup = lookup(jxQuery, null, -1);
+    return (null == lookup) ? -1 : lookup.getIds().size();
+  }
+
+  /**
+   * Plans a query against the collection. The query is answered from the indexes if they can answer
+   * all of it, otherwise it is narrowed down to candidate documents with the comparisons of its top
+   * level conjunction on the id field, looked up in the collection, or on indexed fields, and the
+   * rest of the query is left to be evaluated against the candidates only.
+   *
+   * @param preparedQuery the JXPath query with the values bound to its variables
+   * @param collection the documents of the collection
+   * @param comparator the requested order of the documents, may be null
+   * @param limit the number of documents needed if they are returned in the requested order, -1 for all
+   * @return the ids of the matching or candidate documents, or null if JXPath has to scan all documents
+   */
+  public IndexLookup plan(PreparedQuery preparedQuery, Map<Object, ?> collection, Comparator<?> comparator, int limit) {
+    return plan(IndexQuery.parseConjuncts(preparedQuery.getQuery(), preparedQuery.getVariables()), collection, comparator, limit);
+  }
+
+  /**
+   * Plans a criteria against the collection, as a JXPath query is planned. The documents are
+   * narrowed down with the comparisons of the criteria the indexes can answer, and its
+   * existence checks and regular expressions are left to be evaluated against the candidates.
+   *
+   * @param criteria the criteria with its paths resolved
+   * @param collection the documents of the collection
+   * @param comparator the requested order of the documents, may be null
+   * @param limit the number of documents needed if they are returned in the requested order, -1 for all
+   * @return the ids of the matching or candidate documents, or null if the criteria has to be evaluated against all documents
+   */
+  public IndexLookup plan(CompiledCriteria criteria, Map<Object, ?> collection, Comparator<?> comparator, int limit) {
+    return plan(criteria.toIndexQuery(), collection, comparator, limit);
+  }
+
+  private IndexLookup plan(IndexQuery query, Map<Object, ?> collection, Comparator<?> comparator, int limit) {
+    if (null == query) {
+      return null;
+    }
+    if (!query.isPartial()) {
+      IndexLookup lookup = lookup(query, comparator, limit);
+      if (null != lookup) {
+        return lookup;
+      }
+    }
+    Method idGetter = cmd.getIdAnnotatedFieldGetterMethod();
+    List<Comparison> onId = new ArrayList<Comparison>();
+    List<Condition> others = new ArrayList<Condition>();
+    Comparison idEquality = null;
+    for (Condition conjunct : query.getConjuncts()) {
+      if (conjunct instanceof Comparison && null != idGetter
+          && ((Comparison) conjunct).getFieldName().equals(cmd.getIdAnnotatedFieldName())
+          && ((Comparison) conjunct).isAnswerableFor(idGetter.getReturnType())) {
+        Comparison comparison = (Comparison) conjunct;
+        onId.add(comparison);
+        if (null == idEquality && comparison.getOperator() == Comparison.Operator.EQ) {
+          idEquality = comparison;
+        }
+      } else {
+        others.add(conjunct);
+      }
+    }
+
+    boolean residual = query.isPartial();
+    Collection<Object> candidates = null;
+    AccessPath accessPath = AccessPath.INDEX;
+    Object id = (null == idEquality) ? null : idOf(idEquality.getLiteral(), idGetter.getReturnType());
+    if (null != id) {
+      //At most one document, the rest of the query is cheaper to evaluate against it than to look up
+      candidates = collection.containsKey(id) ? Collections.singletonList(id) : Collections.emptyList();
+      residual |= !others.isEmpty();
+      accessPath = AccessPath.ID;
+    } else {
+      BitSet matches = null;
+      for (Condition conjunct : others) {
+        BitSet operand = built ? evaluate(conjunct) : null;
+        if (null == operand) {
+          residual = true;
+        } else if (null == matches) {
+          matches = operand;
+        } else {
+          matches.and(operand);
+        }
+      }
+      if (null != matches) {
+        candidates = idsOf(matches);
+      } else if (!onId.isEmpty()) {
+        //The ids are compared as they are, without reading the documents
+        candidates = collection.keySet();
+        accessPath = AccessPath.ID_KEYS;
+      } else {
+        return null;
+      }
+    }
+
+    List<Object> ids = new ArrayList<Object>();
+    for (Object candidate : candidates) {
+      boolean selected = true;
+      for (int i = 0; selected && i < onId.size(); i++) {
+        selected = onId.get(i).matches(candidate);
+      }
+      if (selected) {
+        ids.add(candidate);
+      }
+    }
+    return new IndexLookup(ids, false, residual, accessPath);
+  }
+
+  /**
+   * @return the id equal to the literal of a comparison with the id field, null if it cannot be told without comparing
+   */
+  private static Object idOf(Object literal, Class<?> idType) {
+    if (!(literal instanceof Double)) {
+      return (idType == String.class) ? literal : null;
+    }
+    double d = ((Double) literal).doubleValue();
+    if ((idType == Integer.class || idType == int.class) && d == (int) d) {
+      return Integer.valueOf((int) d);
+    }
+    if ((idType == Long.class || idType == long.class) && d == (long) d) {
+      return Long.valueOf((long) d);
+    }
+    if (idType == Double.class || idType == double.class) {
+      return Double.valueOf(d);
+    }
+    return null;
+  }
+
+  /**
+   * @return a bitmap of the slots of the documents matching the condition, or null if the indexes cannot answer it
+   */
+  private BitSet evaluate(Condition condition) {
+    if (condition instanceof Comparison) {
+      return evaluate((Comparison) condition);
+    }
+    if (condition instanceof Condition.Not) {
+      BitSet operand = evaluate(((Condition.Not) condition).getOperand());
+      if (null == operand) {
+        return null;
+      }
+      BitSet matches = slots.all();
+      matches.andNot(operand);
+      return matches;
+    }
+    boolean and = condition instanceof Condition.And;
+    List<Condition> operands = and ? ((Condition.And) condition).getOperands() : ((Condition.Or) condition).getOperands();
+    BitSet matches = null;
+    for (Condition operand : operands) {
+      BitSet operandMatches = evaluate(operand);
+      if (null == operandMatches) {
+        return null;
+      }
+      if (null == matches) {
+        matches = operandMatches;
+      } else if (and) {
+        matches.and(operandMatches);
+      } else {
+        matches.or(operandMatches);
+      }
+    }
+    return matches;
+  }
+
+  private BitSet evaluate(Comparison comparison) {
+    for (CollectionIndex index : indexes.values()) {
+      //A path of fields or a field holding many values, whose comparisons hold if any value compares
+      if (index instanceof MultiKeyIndex && ((MultiKeyIndex) index).getPath().equals(comparison.getFieldName())
+          && comparison.getOperator() == Comparison.Operator.EQ
+          && comparison.isAnswerableFor(((MultiKeyIndex) index).getValueType())) {
+        return slotsOf(((MultiKeyIndex) index).lookup(KeyedIndex.normalize(comparison.getLiteral())));
+      }
+    }
+    Method getterMethod = cmd.getGetterMethodForFieldName(comparison.getFieldName());
+    if (null == getterMethod || !comparison.isAnswerableFor(getterMethod.getReturnType())) {
+      return null;
+    }
+    if (comparison.getOperator() == Comparison.Operator.NE) {
+      //Answerable only for fields that always hold a value, which then hold any value but the one they are equal to
+      BitSet equal = evaluate(new Comparison(comparison.getFieldName(), Comparison.Operator.EQ, comparison.getLiteral()));
+      if (null == equal) {
+        return null;
+      }
+      BitSet matches = slots.all();
+      matches.andNot(equal);
+      return matches;
+    }
+    Object value = KeyedIndex.normalize(comparison.getLiteral());
+    for (CollectionIndex index : indexes.values()) {
+      if (index instanceof BitmapIndex && ((BitmapIndex) index).getField().getFieldName().equals(comparison.getFieldName())
+          && comparison.getOperator() == Comparison.Operator.EQ) {
+        return ((BitmapIndex) index).lookup(value);
+      }
+    }
+    for (CollectionIndex index : indexes.values()) {
+      if (index instanceof HashIndex && ((HashIndex) index).getField().getFieldName().equals(comparison.getFieldName())
+          && comparison.getOperator() == Comparison.Operator.EQ) {
+        return slotsOf(((HashIndex) index).lookup(value));
+      }
+    }
+    for (CollectionIndex index : indexes.values()) {
+      if (index instanceof SortedIndex) {
+        SortedIndex.Range range = ((SortedIndex) index).plan(Collections.singletonList(comparison));
+        if (null != range) {
+          return slotsOf(((SortedIndex) index).scan(range, false, -1, byOrdinal));
+        }
+      }
+    }
+    return null;
+  }
+
+  private BitSet slotsOf(Collection<Object> ids) {
+    BitSet bitmap = new BitSet();
+    for (Object id : ids) {
+      bitmap.set(slots.slotOf(id));
+    }
+    return bitmap;
+  }
+
+  private List<Object> idsOf(BitSet bitmap) {
+    List<Object> ids = new ArrayList<Object>(bitmap.cardinality());
+    for (int slot = bitmap.nextSetBit(0); slot >= 0; slot = bitmap.nextSetBit(slot + 1)) {
+      ids.add(slots.idAt(slot));
+    }
+    if (ids.size() > 1) {
+      Collections.sort(ids, byOrdinal);
+    }
+    return ids;
+  }
+
+  /**
+   * @param indexName name of the full text index, null for the only full text index of the collection
+   * @return the full text index
+   */
+  public FullTextIndex getFullTextIndex(String indexName) {
+    return findIndex(FullTextIndex.class, "full text", indexName);
+  }
+
+  /**
+   * @param indexName name of the spatial index, null for the only spatial index of the collection
+   * @return the spatial index
+   */
+  public SpatialIndex getSpatialIndex(String indexName) {
+    return findIndex(SpatialIndex.class, "spatial", indexName);
+  }
+
+  private <I extends CollectionIndex> I findIndex(Class<I> indexClass, String kind, String indexName) {
+    I found = null;
+    for (CollectionIndex index : indexes.values()) {
+      if (!indexClass.isInstance(index) || (null != indexName && !indexName.equals(index.getDefinition().getName()))) {
+        continue;
+      }
+      if (null != found) {
+        throw new InvalidJsonDbApiUsageException("Collection '" + cmd.getCollectionName()
+            + "' has more than one " + kind + " index, name the one to search");
+      }
+      found = indexClass.cast(index);
+    }
+    if (null == found) {
+      throw new InvalidJsonDbApiUsageException("Collection '" + cmd.getCollectionName() + "' has no " + kind + " index"
+          + (null == indexName ? "" : " named '" + indexName + "'"));
+    }
+    return found;
+  }
+
+  /**
+   * Finds the documents whose point lies in the area of a geo query
+   *
+   * @param query the geo query
+   * @return the ids of the matching documents, in collection order for a box and nearest first otherwise
+   */
+  public List<Object> search(GeoQuery query) {
+    return getSpatialIndex(query.getIndexName()).search(query, byOrdinal);
+  }
+
+  /**
+   * Orders the documents matching a text search
+   *
+   * @param matches ids of the matching documents mapped to their relevance score
+   * @param ranked true to order the documents by descending score, false for collection order
+   * @param limit the number of documents to return at most, -1 for all
+   * @return the ids of the first documents in order
+   */
+  public List<Object> order(Map<Object, Double> matches, boolean ranked, int limit) {
+    Comparator<Object> order = byOrdinal;
+    if (ranked) {
+      //Equally relevant documents keep their collection order, like a stable sort would
+      order = new Comparator<Object>() {
+        @Override
+        public int compare(Object id1, Object id2) {
+          int byScore = Double.compare(matches.get(id2), matches.get(id1));
+          return (byScore != 0) ? byScore : byOrdinal.compare(id1, id2);
+        }
+      };
+    }
+    if (limit < 0 || limit >= matches.size()) {
+      List<Object> ids = new ArrayList<Object>(matches.keySet());
+      Collections.sort(ids, order);
+      return ids;
+    }
+    //Keep only the best documents seen so far, the worst of them at the head of the queue
+    PriorityQueue<Object> best = new PriorityQueue<Object>(limit + 1, Collections.reverseOrder(order));
+    for (Object id : matches.keySet()) {
+      best.add(id);
+      if (best.size() > limit) {
+        best.poll();
+      }
+    }
+    List<Object> ids = new ArrayList<Object>(best);
+    Collections.sort(ids, order);
+    return ids;
+  }
+
+  private List<Object> inCollectionOrder(Collection<Object> ids) {
+    List<Object> sorted = new ArrayList<Object>(ids);
+    if (sorted.size() > 1) {
+      Collections.sort(sorted, byOrdinal);
+    }
+    return sorted;
+  }
+}
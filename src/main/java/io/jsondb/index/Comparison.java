@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.index;
+
+/**
+ * A single predicate of a {@link IndexQuery}, a field or path of fields of the document compared with a literal
+ *
+ * @version 1.0 19-Oct-2026
+ */
+public class Comparison extends Condition {
+
+  /**
+   * The comparison operators of XPath
+   */
+  public enum Operator {
+    EQ("="), NE("!="), LT("<"), LE("<="), GT(">"), GE(">=");
+
+    private final String symbol;
+
+    Operator(String symbol) {
+      this.symbol = symbol;
+    }
+
+    static Operator of(String symbol) {
+      for (Operator op : values()) {
+        if (op.symbol.equals(symbol)) {
+          return op;
+        }
+      }
+      throw new IllegalArgumentException("Unknown operator " + symbol);
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Enum#toString()
+     */
+    @Override
+    public String toString() {
+      return symbol;
+    }
+  }
+
+  private final String fieldName;
+  private final Operator operator;
+  private final Object literal;
+
+  public Comparison(String fieldName, Operator operator, Object literal) {
+    this.fieldName = fieldName;
+    this.operator = operator;
+    this.literal = literal;
+  }
+
+  public String getFieldName() {
+    return fieldName;
+  }
+
+  public Operator getOperator() {
+    return operator;
+  }
+
+  /**
+   * @return a String for a quoted literal, a Double for a number, a Boolean for true() or false()
+   */
+  public Object getLiteral() {
+    return literal;
+  }
+
+  /**
+   * JXPath converts between strings and numbers before comparing them and compares with &lt; and &gt;
+   * only as numbers. A index holds the values as they are, so it can only answer comparisons whose
+   * literal is of the same kind as the field.
+   *
+   * @param fieldType the declared type of the field
+   * @return true if comparing the index values with the literal gives the same answer as JXPath
+   */
+  public boolean isAnswerableFor(Class<?> fieldType) {
+    boolean numericField = Number.class.isAssignableFrom(fieldType)
+        || (fieldType.isPrimitive() && fieldType != boolean.class && fieldType != char.class);
+    if (literal instanceof Double) {
+      return numericField && operator != Operator.NE;
+    }
+    if (literal instanceof Boolean) {
+      //A primitive field always has a value, so it is never missing from the comparison
+      return fieldType == boolean.class && (operator == Operator.EQ || operator == Operator.NE);
+    }
+    if (operator == Operator.EQ) {
+      return fieldType == String.class || fieldType == Character.class || fieldType == char.class || fieldType.isEnum();
+    }
+    return false;
+  }
+
+  /**
+   * Compares a value of the field with the literal, as JXPath would for a field the comparison is answerable for
+   *
+   * @param value a value of the field, may be null
+   * @return true if the value satisfies the comparison
+   */
+  public boolean matches(Object value) {
+    if (null == value) {
+      //A missing value fails every comparison but a inequality with a boolean
+      return literal instanceof Boolean && operator == Operator.NE;
+    }
+    if (literal instanceof Double) {
+      double d = ((Number) value).doubleValue();
+      double l = ((Double) literal).doubleValue();
+      switch (operator) {
+        case EQ: return d == l;
+        case LT: return d < l;
+        case LE: return d <= l;
+        case GT: return d > l;
+        case GE: return d >= l;
+        default: return d != l;
+      }
+    }
+    boolean equal = (literal instanceof Boolean) ? literal.equals(value) : literal.equals(value.toString());
+    return (operator == Operator.NE) ? !equal : equal;
+  }
+
+  /* (non-Javadoc)
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    if (literal instanceof Boolean) {
+      return fieldName + operator + literal + "()";
+    }
+    return fieldName + operator + (literal instanceof String ? "'" + literal + "'" : literal);
+  }
+}
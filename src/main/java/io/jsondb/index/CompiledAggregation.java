@@ -0,0 +1,325 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.index;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import io.jsondb.CollectionMetaData;
+import io.jsondb.InvalidJsonDbApiUsageException;
+import io.jsondb.query.Aggregation;
+import io.jsondb.query.Aggregation.Accumulator;
+import io.jsondb.query.Aggregation.Function;
+
+/**
+ * An {@link Aggregation} bound to a collection, with the getters of its paths resolved. The documents
+ * are accumulated into {@link Groups} as they are read, holding a few running values per group and
+ * no documents, and groups accumulated from separate parts of the collection merge into one.
+ *
+ * @version 1.0 19-Oct-2026
+ */
+public class CompiledAggregation {
+
+  private final Aggregation aggregation;
+  private final List<DocumentPath> keyPaths = new ArrayList<DocumentPath>();
+  private final List<DocumentPath> valuePaths = new ArrayList<DocumentPath>();
+  private final boolean[] integral;
+
+  private CompiledAggregation(Aggregation aggregation, CollectionMetaData cmd) {
+    this.aggregation = aggregation;
+    Map<String, DocumentPath> paths = new HashMap<String, DocumentPath>();
+    for (String path : aggregation.getGroupBy()) {
+      keyPaths.add(pathOf(path, paths, cmd));
+    }
+    List<Accumulator> accumulators = aggregation.getAccumulators();
+    this.integral = new boolean[accumulators.size()];
+    for (int i = 0; i < accumulators.size(); i++) {
+      Accumulator accumulator = accumulators.get(i);
+      DocumentPath path = (null == accumulator.getPath()) ? null : pathOf(accumulator.getPath(), paths, cmd);
+      Class<?> type = (null == path) ? null : boxed(path.getValueType());
+      if ((accumulator.getFunction() == Function.SUM || accumulator.getFunction() == Function.AVG)
+          && !Number.class.isAssignableFrom(type)) {
+        throw new InvalidJsonDbApiUsageException("Cannot " + accumulator.getFunction() + " path '" + path.getPath()
+            + "' of collection '" + cmd.getCollectionName() + "', its values are not numbers");
+      }
+      if ((accumulator.getFunction() == Function.MIN || accumulator.getFunction() == Function.MAX)
+          && !Comparable.class.isAssignableFrom(type)) {
+        throw new InvalidJsonDbApiUsageException("Cannot " + accumulator.getFunction() + " path '" + path.getPath()
+            + "' of collection '" + cmd.getCollectionName() + "', its values are not comparable");
+      }
+      valuePaths.add(path);
+      integral[i] = type == Long.class || type == Integer.class || type == Short.class || type == Byte.class;
+    }
+  }
+
+  private static DocumentPath pathOf(String path, Map<String, DocumentPath> paths, CollectionMetaData cmd) {
+    DocumentPath documentPath = paths.get(path);
+    if (null == documentPath) {
+      documentPath = new DocumentPath(cmd, path);
+      paths.put(path, documentPath);
+    }
+    return documentPath;
+  }
+
+  private static Class<?> boxed(Class<?> type) {
+    if (!type.isPrimitive()) {
+      return type;
+    }
+    if (type == int.class) {
+      return Integer.class;
+    } else if (type == long.class) {
+      return Long.class;
+    } else if (type == double.class) {
+      return Double.class;
+    } else if (type == float.class) {
+      return Float.class;
+    } else if (type == short.class) {
+      return Short.class;
+    } else if (type == byte.class) {
+      return Byte.class;
+    } else if (type == char.class) {
+      return Character.class;
+    }
+    return Boolean.class;
+  }
+
+  /**
+   * @param aggregation the aggregation
+   * @param cmd metadata of the collection it is evaluated on
+   * @return the aggregation with the getters of its paths resolved
+   */
+  public static CompiledAggregation compile(Aggregation aggregation, CollectionMetaData cmd) {
+    return new CompiledAggregation(aggregation, cmd);
+  }
+
+  public Aggregation getAggregation() {
+    return aggregation;
+  }
+
+  /**
+   * @return no groups yet, the single group of all documents if the aggregation does not group by
+   */
+  public Groups newGroups() {
+    return new Groups();
+  }
+
+  /**
+   * The running values of an accumulator in a group
+   */
+  private static class State {
+    private long count;
+    private long longSum;
+    private double doubleSum;
+    private Object extreme;
+  }
+
+  /**
+   * The groups of the documents accumulated so far, in the order they are first seen
+   */
+  public class Groups {
+
+    private final Map<List<Object>, State[]> groups = new LinkedHashMap<List<Object>, State[]>();
+
+    private Groups() {
+      if (keyPaths.isEmpty()) {
+        groups.put(Collections.emptyList(), newStates());
+      }
+    }
+
+    private State[] newStates() {
+      State[] states = new State[valuePaths.size()];
+      for (int i = 0; i < states.length; i++) {
+        states[i] = new State();
+      }
+      return states;
+    }
+
+    /**
+     * Accumulates a document into the groups it is part of
+     *
+     * @param document a document of the collection, only read
+     */
+    public void add(Object document) {
+      List<List<Object>> valuesAt = new ArrayList<List<Object>>(valuePaths.size());
+      for (DocumentPath path : valuePaths) {
+        valuesAt.add((null == path) ? null : path.valuesOf(document));
+      }
+      for (List<Object> key : keysOf(document)) {
+        State[] states = groups.get(key);
+        if (null == states) {
+          states = newStates();
+          groups.put(key, states);
+        }
+        for (int i = 0; i < states.length; i++) {
+          accumulate(i, states[i], valuesAt.get(i));
+        }
+      }
+    }
+
+    /**
+     * @return the keys of the groups a document is part of, one for every combination of its values at the paths grouped by
+     */
+    private Set<List<Object>> keysOf(Object document) {
+      Set<List<Object>> keys = Collections.singleton(Collections.emptyList());
+      for (DocumentPath path : keyPaths) {
+        List<Object> values = path.valuesOf(document);
+        if (values.isEmpty()) {
+          values = Collections.singletonList(null);
+        }
+        Set<List<Object>> extended = new LinkedHashSet<List<Object>>();
+        for (List<Object> key : keys) {
+          for (Object value : values) {
+            List<Object> longer = new ArrayList<Object>(key.size() + 1);
+            longer.addAll(key);
+            longer.add(value);
+            extended.add(longer);
+          }
+        }
+        keys = extended;
+      }
+      return keys;
+    }
+
+    private void accumulate(int i, State state, List<Object> values) {
+      Function function = aggregation.getAccumulators().get(i).getFunction();
+      if (function == Function.COUNT) {
+        state.count++;
+        return;
+      }
+      for (Object value : values) {
+        state.count++;
+        if (function == Function.MIN || function == Function.MAX) {
+          state.extreme = extremeOf(function, state.extreme, value);
+        } else if (integral[i]) {
+          state.longSum += ((Number) value).longValue();
+        } else {
+          state.doubleSum += ((Number) value).doubleValue();
+        }
+      }
+    }
+
+    /**
+     * Merges groups accumulated from documents read after those of these groups
+     *
+     * @param other the groups to merge into these
+     */
+    public void addAll(Groups other) {
+      for (Map.Entry<List<Object>, State[]> entry : other.groups.entrySet()) {
+        State[] states = groups.get(entry.getKey());
+        if (null == states) {
+          groups.put(entry.getKey(), entry.getValue());
+          continue;
+        }
+        for (int i = 0; i < states.length; i++) {
+          State state = entry.getValue()[i];
+          states[i].count += state.count;
+          states[i].longSum += state.longSum;
+          states[i].doubleSum += state.doubleSum;
+          Function function = aggregation.getAccumulators().get(i).getFunction();
+          if (null != state.extreme) {
+            states[i].extreme = extremeOf(function, states[i].extreme, state.extreme);
+          }
+        }
+      }
+    }
+
+    /**
+     * @return the rows of the groups, sorted and limited as requested, with the values grouped by and
+     *         the least and greatest values as held by the documents
+     */
+    public List<Map<String, Object>> rows() {
+      List<Accumulator> accumulators = aggregation.getAccumulators();
+      List<Map<String, Object>> rows = new ArrayList<Map<String, Object>>(groups.size());
+      for (Map.Entry<List<Object>, State[]> entry : groups.entrySet()) {
+        Map<String, Object> row = new LinkedHashMap<String, Object>();
+        for (int i = 0; i < keyPaths.size(); i++) {
+          row.put(keyPaths.get(i).getPath(), entry.getKey().get(i));
+        }
+        for (int i = 0; i < accumulators.size(); i++) {
+          row.put(accumulators.get(i).getName(), valueOf(i, entry.getValue()[i]));
+        }
+        rows.add(row);
+      }
+      if (!aggregation.getSortBy().isEmpty()) {
+        //Stable, so that rows in the same place of the order stay in the order their groups are first seen
+        Collections.sort(rows, new Comparator<Map<String, Object>>() {
+          @Override
+          public int compare(Map<String, Object> row1, Map<String, Object> row2) {
+            List<String> sortBy = aggregation.getSortBy();
+            for (int i = 0; i < sortBy.size(); i++) {
+              int c = SortKey.compareValues(KeyedIndex.normalize(row1.get(sortBy.get(i))),
+                  KeyedIndex.normalize(row2.get(sortBy.get(i))));
+              if (c != 0) {
+                return aggregation.isDescending(i) ? -c : c;
+              }
+            }
+            return 0;
+          }
+        });
+      }
+      int limit = aggregation.getLimit();
+      return (limit >= 0 && limit < rows.size()) ? new ArrayList<Map<String, Object>>(rows.subList(0, limit)) : rows;
+    }
+
+    private Object valueOf(int i, State state) {
+      switch (aggregation.getAccumulators().get(i).getFunction()) {
+        case COUNT:
+          return Long.valueOf(state.count);
+        case SUM:
+          if (state.count == 0) {
+            return null;
+          }
+          return integral[i] ? (Object) Long.valueOf(state.longSum) : (Object) Double.valueOf(state.doubleSum);
+        case AVG:
+          if (state.count == 0) {
+            return null;
+          }
+          return Double.valueOf((integral[i] ? (double) state.longSum : state.doubleSum) / state.count);
+        default:
+          return state.extreme;
+      }
+    }
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static Object extremeOf(Function function, Object current, Object value) {
+    if (null == current) {
+      return value;
+    }
+    int c = ((Comparable) value).compareTo(current);
+    return (function == Function.MIN ? c < 0 : c > 0) ? value : current;
+  }
+
+  /* (non-Javadoc)
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return aggregation.toString();
+  }
+}
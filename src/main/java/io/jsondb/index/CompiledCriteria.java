@@ -0,0 +1,279 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.index;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import io.jsondb.CollectionMetaData;
+import io.jsondb.query.Criteria;
+
+/**
+ * A {@link Criteria} bound to a collection, with the getters of its paths resolved, evaluated on
+ * the documents directly and turned into the {@link IndexQuery} the indexes answer.
+ *
+ * @version 1.0 19-Oct-2026
+ */
+public class CompiledCriteria {
+
+  private final Criteria criteria;
+  private final DocumentPath path;
+  private final Set<Object> values;
+  private final List<CompiledCriteria> operands;
+
+  private CompiledCriteria(Criteria criteria, Map<String, DocumentPath> paths, CollectionMetaData cmd) {
+    this.criteria = criteria;
+    if (null == criteria.getPath()) {
+      this.path = null;
+      this.values = Collections.emptySet();
+      List<CompiledCriteria> compiled = new ArrayList<CompiledCriteria>();
+      for (Criteria operand : criteria.getOperands()) {
+        compiled.add(new CompiledCriteria(operand, paths, cmd));
+      }
+      this.operands = compiled;
+    } else {
+      DocumentPath documentPath = paths.get(criteria.getPath());
+      if (null == documentPath) {
+        documentPath = new DocumentPath(cmd, criteria.getPath());
+        paths.put(criteria.getPath(), documentPath);
+      }
+      this.path = documentPath;
+      Set<Object> normalized = new HashSet<Object>();
+      for (Object value : criteria.getValues()) {
+        normalized.add(KeyedIndex.normalize(value));
+      }
+      this.values = normalized;
+      this.operands = Collections.emptyList();
+    }
+  }
+
+  /**
+   * @param criteria the criteria
+   * @param cmd metadata of the collection it is evaluated on
+   * @return the criteria with the getters of its paths resolved
+   */
+  public static CompiledCriteria compile(Criteria criteria, CollectionMetaData cmd) {
+    return new CompiledCriteria(criteria, new HashMap<String, DocumentPath>(), cmd);
+  }
+
+  public Criteria getCriteria() {
+    return criteria;
+  }
+
+  /**
+   * @param document a document of the collection
+   * @return true if the criteria holds for the document
+   */
+  public boolean matches(Object document) {
+    switch (criteria.getOperator()) {
+      case AND:
+        for (CompiledCriteria operand : operands) {
+          if (!operand.matches(document)) {
+            return false;
+          }
+        }
+        return true;
+      case OR:
+        for (CompiledCriteria operand : operands) {
+          if (operand.matches(document)) {
+            return true;
+          }
+        }
+        return false;
+      case NOT:
+        return !operands.get(0).matches(document);
+      default:
+        break;
+    }
+
+    List<Object> found = path.valuesOf(document);
+    switch (criteria.getOperator()) {
+      case EQ:
+      case IN:
+        return found.isEmpty() ? values.contains(null) : isAnyIn(found);
+      case NE:
+        return found.isEmpty() ? !values.contains(null) : !isAnyIn(found);
+      case EXISTS:
+        return !found.isEmpty();
+      case REGEX:
+        Pattern pattern = criteria.getPattern();
+        for (Object value : found) {
+          Object normalized = KeyedIndex.normalize(value);
+          if (normalized instanceof String && pattern.matcher((String) normalized).find()) {
+            return true;
+          }
+        }
+        return false;
+      default:
+        Object bound = KeyedIndex.normalize(criteria.getValues().get(0));
+        for (Object value : found) {
+          if (compares(KeyedIndex.normalize(value), bound)) {
+            return true;
+          }
+        }
+        return false;
+    }
+  }
+
+  private boolean isAnyIn(List<Object> found) {
+    for (Object value : found) {
+      if (values.contains(KeyedIndex.normalize(value))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private boolean compares(Object value, Object bound) {
+    int c;
+    if (value instanceof Double && bound instanceof Double) {
+      //Compared with < and > so that NaN satisfies none of them, as in XPath
+      double d = ((Double) value).doubleValue();
+      double b = ((Double) bound).doubleValue();
+      switch (criteria.getOperator()) {
+        case GT: return d > b;
+        case GTE: return d >= b;
+        case LT: return d < b;
+        default: return d <= b;
+      }
+    } else if (value instanceof Comparable && value.getClass() == bound.getClass()) {
+      c = ((Comparable) value).compareTo(bound);
+    } else {
+      return false;
+    }
+    switch (criteria.getOperator()) {
+      case GT: return c > 0;
+      case GTE: return c >= 0;
+      case LT: return c < 0;
+      default: return c <= 0;
+    }
+  }
+
+  /**
+   * Turns the criteria into the conditions the indexes may answer. Comparisons with numbers, Strings,
+   * enums, characters and booleans are, existence and regular expressions are not.
+   *
+   * @return the conditions joined with 'and' at the top level of the criteria that could be turned,
+   *         {@link IndexQuery#isPartial()} if some could not, or null if none could
+   */
+  public IndexQuery toIndexQuery() {
+    List<CompiledCriteria> conjuncts = new ArrayList<CompiledCriteria>();
+    collectConjuncts(conjuncts);
+    List<Condition> conditions = new ArrayList<Condition>();
+    for (CompiledCriteria conjunct : conjuncts) {
+      Condition condition = conjunct.toCondition();
+      if (null != condition) {
+        conditions.add(condition);
+      }
+    }
+    if (conditions.isEmpty()) {
+      return null;
+    }
+    return IndexQuery.of((conditions.size() == 1) ? conditions.get(0) : new Condition.And(conditions),
+        conditions.size() < conjuncts.size());
+  }
+
+  private void collectConjuncts(List<CompiledCriteria> conjuncts) {
+    if (criteria.getOperator() == Criteria.Operator.AND) {
+      for (CompiledCriteria operand : operands) {
+        operand.collectConjuncts(conjuncts);
+      }
+    } else {
+      conjuncts.add(this);
+    }
+  }
+
+  private Condition toCondition() {
+    switch (criteria.getOperator()) {
+      case AND:
+      case OR:
+        List<Condition> conditions = new ArrayList<Condition>();
+        for (CompiledCriteria operand : operands) {
+          Condition condition = operand.toCondition();
+          if (null == condition) {
+            return null;
+          }
+          conditions.add(condition);
+        }
+        return (criteria.getOperator() == Criteria.Operator.AND) ? new Condition.And(conditions) : new Condition.Or(conditions);
+      case NOT:
+        Condition operand = operands.get(0).toCondition();
+        return (null == operand) ? null : new Condition.Not(operand);
+      case EQ:
+        return equality(criteria.getValues().get(0));
+      case NE:
+        Condition equality = equality(criteria.getValues().get(0));
+        return (null == equality) ? null : new Condition.Not(equality);
+      case IN:
+        if (criteria.getValues().isEmpty()) {
+          return null;
+        }
+        List<Condition> equalities = new ArrayList<Condition>();
+        for (Object value : criteria.getValues()) {
+          Condition condition = equality(value);
+          if (null == condition) {
+            return null;
+          }
+          equalities.add(condition);
+        }
+        return (equalities.size() == 1) ? equalities.get(0) : new Condition.Or(equalities);
+      case GT:
+        return range(Comparison.Operator.GT);
+      case GTE:
+        return range(Comparison.Operator.GE);
+      case LT:
+        return range(Comparison.Operator.LT);
+      case LTE:
+        return range(Comparison.Operator.LE);
+      default:
+        return null;
+    }
+  }
+
+  private Condition equality(Object value) {
+    Object literal = KeyedIndex.normalize(value);
+    if (literal instanceof Double || literal instanceof String || literal instanceof Boolean) {
+      return new Comparison(path.getPath(), Comparison.Operator.EQ, literal);
+    }
+    return null;
+  }
+
+  private Condition range(Comparison.Operator operator) {
+    //JXPath, whose answers the indexes give, compares with < and > as numbers only, so only comparisons with numbers agree
+    Object literal = KeyedIndex.normalize(criteria.getValues().get(0));
+    return (literal instanceof Double) ? new Comparison(path.getPath(), operator, literal) : null;
+  }
+
+  /* (non-Javadoc)
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return criteria.toString();
+  }
+}
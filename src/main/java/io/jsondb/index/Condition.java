@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.index;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A condition of a {@link IndexQuery}, either a {@link Comparison} of a field with a literal or
+ * conditions joined with 'and', 'or' or negated with 'not()'.
+ *
+ * @version 1.0 19-Oct-2026
+ */
+public abstract class Condition {
+
+  /**
+   * Conditions that must all hold
+   */
+  public static final class And extends Condition {
+    private final List<Condition> operands;
+
+    public And(List<Condition> operands) {
+      this.operands = Collections.unmodifiableList(new ArrayList<Condition>(operands));
+    }
+
+    public List<Condition> getOperands() {
+      return operands;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+      return join(operands, " and ");
+    }
+  }
+
+  /**
+   * Conditions of which at least one must hold
+   */
+  public static final class Or extends Condition {
+    private final List<Condition> operands;
+
+    public Or(List<Condition> operands) {
+      this.operands = Collections.unmodifiableList(new ArrayList<Condition>(operands));
+    }
+
+    public List<Condition> getOperands() {
+      return operands;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+      return join(operands, " or ");
+    }
+  }
+
+  /**
+   * A condition that must not hold
+   */
+  public static final class Not extends Condition {
+    private final Condition operand;
+
+    public Not(Condition operand) {
+      this.operand = operand;
+    }
+
+    public Condition getOperand() {
+      return operand;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+      return "not(" + operand + ")";
+    }
+  }
+
+  private static String join(List<Condition> operands, String separator) {
+    StringBuilder sb = new StringBuilder("(");
+    for (Condition operand : operands) {
+      if (sb.length() > 1) {
+        sb.append(separator);
+      }
+      sb.append(operand);
+    }
+    return sb.append(")").toString();
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.index;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.Map;
+
+import io.jsondb.CollectionMetaData;
+import io.jsondb.InvalidJsonDbApiUsageException;
+import io.jsondb.JsonDBException;
+
+/**
+ * Reads the value of a field from the documents of a collection through the getter
+ * {@link CollectionMetaData} found for it.
+ *
+ * @version 1.0 19-Oct-2026
+ */
+public class DocumentField {
+
+  private final String fieldName;
+  private final Method getterMethod;
+  private final MethodHandle getterHandle;
+
+  public DocumentField(CollectionMetaData cmd, String fieldName) {
+    this.fieldName = fieldName;
+    this.getterMethod = cmd.getGetterMethodForFieldName(fieldName);
+    if (null == getterMethod) {
+      throw new InvalidJsonDbApiUsageException("Field '" + fieldName + "' of collection '" + cmd.getCollectionName()
+          + "' has no getter method, it cannot be indexed");
+    }
+    MethodHandle handle;
+    try {
+      handle = MethodHandles.lookup().unreflect(getterMethod).asType(MethodType.methodType(Object.class, Object.class));
+    } catch (IllegalAccessException e) {
+      handle = null;
+    }
+    this.getterHandle = handle;
+  }
+
+  public String getFieldName() {
+    return fieldName;
+  }
+
+  /**
+   * @return the declared type of the field, as returned by its getter
+   */
+  public Class<?> getType() {
+    return getterMethod.getReturnType();
+  }
+
+  /**
+   * @return the declared type of the field with its type arguments, as returned by its getter
+   */
+  public Type getGenericType() {
+    return getterMethod.getGenericReturnType();
+  }
+
+  /**
+   * @return true if the field holds a collection, a map or a array rather than a single value
+   */
+  public boolean isMultiValued() {
+    Class<?> type = getType();
+    return type.isArray() || Collection.class.isAssignableFrom(type) || Map.class.isAssignableFrom(type);
+  }
+
+  /**
+   * Reads the field of the given document
+   *
+   * @param document document to read the field of
+   * @return the value of the field, may be null
+   */
+  public Object get(Object document) {
+    try {
+      if (null != getterHandle) {
+        return getterHandle.invokeExact(document);
+      }
+      return getterMethod.invoke(document);
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Throwable e) {
+      throw new JsonDBException("Failed to read field '" + fieldName + "' of " + document.getClass().getName(), e);
+    }
+  }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.index;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import io.jsondb.CollectionMetaData;
+import io.jsondb.InvalidJsonDbApiUsageException;
+import io.jsondb.JsonDBException;
+
+/**
+ * Reads the values found at a path of fields such as <code>status</code> or <code>disks/name</code>
+ * from the documents of a collection, following every element of the collections and arrays along
+ * the path. The getters along the path are resolved from the declared types once, when the path is
+ * created.
+ *
+ * @version 1.0 19-Oct-2026
+ */
+public class DocumentPath {
+
+  private final String path;
+  private final DocumentField field;
+  private final List<Method> nestedGetters = new ArrayList<Method>();
+  private final Class<?> valueType;
+
+  public DocumentPath(CollectionMetaData cmd, String path) {
+    this.path = path;
+    String[] segments = path.split("/");
+    if (null == cmd.getGetterMethodForFieldName(segments[0])) {
+      throw new InvalidJsonDbApiUsageException("Path '" + path + "' of collection '" + cmd.getCollectionName()
+          + "' has no getter method for '" + segments[0] + "'");
+    }
+    if (cmd.isSecretField(segments[0])) {
+      throw new InvalidJsonDbApiUsageException("Field '" + segments[0] + "' of collection '" + cmd.getCollectionName()
+          + "' is a @Secret field, its values are held encrypted");
+    }
+    this.field = new DocumentField(cmd, segments[0]);
+
+    Type type = elementsOf(field.getGenericType());
+    for (int i = 1; i < segments.length; i++) {
+      Class<?> owner = rawClass(type);
+      Method getter = (null == owner) ? null : getterOf(owner, segments[i]);
+      if (null == getter) {
+        throw new InvalidJsonDbApiUsageException("Path '" + path + "' of collection '" + cmd.getCollectionName()
+            + "' has no getter method for '" + segments[i] + "'");
+      }
+      nestedGetters.add(getter);
+      type = elementsOf(getter.getGenericReturnType());
+    }
+    Class<?> leaf = rawClass(type);
+    this.valueType = (null == leaf) ? Object.class : leaf;
+  }
+
+  /**
+   * @return the type of a collection or array element, or the type itself if it is neither
+   */
+  static Type elementsOf(Type type) {
+    while (true) {
+      if (type instanceof Class && ((Class<?>) type).isArray()) {
+        type = ((Class<?>) type).getComponentType();
+      } else if (type instanceof GenericArrayType) {
+        type = ((GenericArrayType) type).getGenericComponentType();
+      } else if (type instanceof ParameterizedType
+          && Collection.class.isAssignableFrom((Class<?>) ((ParameterizedType) type).getRawType())) {
+        type = ((ParameterizedType) type).getActualTypeArguments()[0];
+      } else if (type instanceof Class && Collection.class.isAssignableFrom((Class<?>) type)) {
+        //A raw collection does not tell what it holds
+        return Object.class;
+      } else {
+        return type;
+      }
+    }
+  }
+
+  static Class<?> rawClass(Type type) {
+    if (type instanceof Class) {
+      return (Class<?>) type;
+    }
+    if (type instanceof ParameterizedType) {
+      return (Class<?>) ((ParameterizedType) type).getRawType();
+    }
+    return null;
+  }
+
+  static Method getterOf(Class<?> clazz, String fieldName) {
+    String suffix = Character.toUpperCase(fieldName.charAt(0)) + fieldName.substring(1);
+    for (String prefix : new String[] {"get", "is"}) {
+      try {
+        Method getter = clazz.getMethod(prefix + suffix);
+        if (!Modifier.isStatic(getter.getModifiers()) && getter.getReturnType() != void.class) {
+          return getter;
+        }
+      } catch (NoSuchMethodException e) {
+        //Try the next prefix
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @return the field names separated by '/'
+   */
+  public String getPath() {
+    return path;
+  }
+
+  /**
+   * @return the declared type of the values found at the end of the path, Object if it is not declared
+   */
+  public Class<?> getValueType() {
+    return valueType;
+  }
+
+  /**
+   * @param document a document of the collection
+   * @return the non null values found at the path in the document, as they are held
+   */
+  public List<Object> valuesOf(Object document) {
+    List<Object> values = new ArrayList<Object>(1);
+    collect(field.get(document), 0, values);
+    return values;
+  }
+
+  private void collect(Object value, int segment, List<Object> values) {
+    if (null == value) {
+      return;
+    }
+    if (value instanceof Collection) {
+      for (Object element : (Collection<?>) value) {
+        collect(element, segment, values);
+      }
+    } else if (value.getClass().isArray()) {
+      for (int i = 0; i < Array.getLength(value); i++) {
+        collect(Array.get(value, i), segment, values);
+      }
+    } else if (segment == nestedGetters.size()) {
+      values.add(value);
+    } else {
+      Method getter = nestedGetters.get(segment);
+      try {
+        collect(getter.invoke(value), segment + 1, values);
+      } catch (IllegalAccessException | InvocationTargetException e) {
+        throw new JsonDBException("Failed to read '" + getter.getName() + "' of " + value.getClass().getName()
+            + " for path '" + path + "'", e);
+      }
+    }
+  }
+}
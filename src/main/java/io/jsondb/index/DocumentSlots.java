@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.index;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Numbers the documents of a collection densely from 0, so that a set of documents can be held
+ * as a bitmap of their slots. The slot of a removed document goes on a free list and is given to
+ * the next document added, which keeps the numbers dense without ever renumbering documents.
+ *
+ * @version 1.0 19-Oct-2026
+ */
+public class DocumentSlots {
+
+  private final Map<Object, Integer> slots = new HashMap<Object, Integer>();
+  private final List<Object> ids = new ArrayList<Object>();
+  private final Deque<Integer> freeSlots = new ArrayDeque<Integer>();
+  private final BitSet used = new BitSet();
+
+  /**
+   * @param id id of a document
+   * @return the slot of the document, given it one if it had none
+   */
+  public int assign(Object id) {
+    Integer slot = slots.get(id);
+    if (null != slot) {
+      return slot;
+    }
+    if (freeSlots.isEmpty()) {
+      slot = ids.size();
+      ids.add(id);
+    } else {
+      slot = freeSlots.pop();
+      ids.set(slot, id);
+    }
+    slots.put(id, slot);
+    used.set(slot);
+    return slot;
+  }
+
+  /**
+   * Frees the slot of a document that was removed from the collection
+   *
+   * @param id id of the document
+   */
+  public void release(Object id) {
+    Integer slot = slots.remove(id);
+    if (null != slot) {
+      ids.set(slot, null);
+      used.clear(slot);
+      freeSlots.push(slot);
+    }
+  }
+
+  /**
+   * @param id id of a document
+   * @return the slot of the document, -1 if it has none
+   */
+  public int slotOf(Object id) {
+    Integer slot = slots.get(id);
+    return (null == slot) ? -1 : slot;
+  }
+
+  /**
+   * @param slot a slot
+   * @return the id of the document in the slot, null if the slot is free
+   */
+  public Object idAt(int slot) {
+    return (slot < ids.size()) ? ids.get(slot) : null;
+  }
+
+  /**
+   * @return a new bitmap of the slots that hold a document
+   */
+  public BitSet all() {
+    return (BitSet) used.clone();
+  }
+
+  /**
+   * @return the number of documents that have a slot
+   */
+  public int size() {
+    return slots.size();
+  }
+
+  public void clear() {
+    slots.clear();
+    ids.clear();
+    freeSlots.clear();
+    used.clear();
+  }
+}
@@ -0,0 +1,324 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.index;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import io.jsondb.CollectionMetaData;
+import io.jsondb.InvalidJsonDbApiUsageException;
+import io.jsondb.query.TextSearch;
+
+/**
+ * A full text index, an inverted index from every word of the indexed fields to the documents
+ * holding it and the positions it has in them. The words are kept sorted so that a prefix
+ * search reads only the words starting with the prefix, and the positions let a phrase search
+ * check that its words follow each other. The words of the second and later fields are positioned
+ * after a gap so that a phrase never spans two fields.
+ *
+ * Matches are scored with Okapi BM25, which rewards documents that hold the searched words often
+ * relative to their length and words that few documents hold.
+ *
+ * @version 1.0 19-Oct-2026
+ */
+public class FullTextIndex implements CollectionIndex {
+  private static final double K1 = 1.2;
+  private static final double B = 0.75;
+
+  private final IndexDefinition definition;
+  private final List<DocumentField> fields = new ArrayList<DocumentField>();
+  private final Tokenizer tokenizer;
+
+  //word -> id of every document holding it -> positions of the word in the document
+  private final TreeMap<String, Map<Object, int[]>> postings = new TreeMap<String, Map<Object, int[]>>();
+  //id -> number of words the document holds
+  private final Map<Object, Integer> lengths = new HashMap<Object, Integer>();
+  private long totalLength;
+
+  public FullTextIndex(IndexDefinition definition, CollectionMetaData cmd) {
+    if (definition.isUnique()) {
+      throw new InvalidJsonDbApiUsageException("Full text index '" + definition.getName() + "' cannot be unique");
+    }
+    for (String fieldName : definition.getFieldNames()) {
+      DocumentField field = new DocumentField(cmd, fieldName);
+      if (!field.isMultiValued() && !CharSequence.class.isAssignableFrom(field.getType())) {
+        throw new InvalidJsonDbApiUsageException("Field '" + fieldName + "' of collection '" + cmd.getCollectionName()
+            + "' does not hold text, it cannot be full text indexed");
+      }
+      if (cmd.isSecretField(fieldName)) {
+        throw new InvalidJsonDbApiUsageException("Field '" + fieldName + "' of collection '" + cmd.getCollectionName()
+            + "' is a @Secret field, its encrypted values cannot be full text indexed");
+      }
+      fields.add(field);
+    }
+    this.definition = definition;
+    this.tokenizer = (null == definition.getTokenizer()) ? new SimpleTokenizer() : definition.getTokenizer();
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.index.CollectionIndex#getDefinition()
+   */
+  @Override
+  public IndexDefinition getDefinition() {
+    return definition;
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.index.CollectionIndex#add(java.lang.Object, java.lang.Object)
+   */
+  @Override
+  public void add(Object id, Object document) {
+    if (lengths.containsKey(id)) {
+      return;
+    }
+    List<String> words = wordsOf(document);
+    Map<String, List<Integer>> positions = new HashMap<String, List<Integer>>();
+    int length = 0;
+    for (int position = 0; position < words.size(); position++) {
+      String word = words.get(position);
+      if (null == word) {
+        continue;
+      }
+      length++;
+      List<Integer> wordPositions = positions.get(word);
+      if (null == wordPositions) {
+        wordPositions = new ArrayList<Integer>();
+        positions.put(word, wordPositions);
+      }
+      wordPositions.add(position);
+    }
+    for (Map.Entry<String, List<Integer>> entry : positions.entrySet()) {
+      Map<Object, int[]> holders = postings.get(entry.getKey());
+      if (null == holders) {
+        holders = new HashMap<Object, int[]>();
+        postings.put(entry.getKey(), holders);
+      }
+      int[] wordPositions = new int[entry.getValue().size()];
+      for (int i = 0; i < wordPositions.length; i++) {
+        wordPositions[i] = entry.getValue().get(i);
+      }
+      holders.put(id, wordPositions);
+    }
+    lengths.put(id, length);
+    totalLength += length;
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.index.CollectionIndex#remove(java.lang.Object, java.lang.Object)
+   */
+  @Override
+  public void remove(Object id, Object document) {
+    Integer length = lengths.remove(id);
+    if (null == length) {
+      return;
+    }
+    totalLength -= length;
+    for (String word : wordsOf(document)) {
+      if (null == word) {
+        continue;
+      }
+      Map<Object, int[]> holders = postings.get(word);
+      if (null != holders) {
+        holders.remove(id);
+        if (holders.isEmpty()) {
+          postings.remove(word);
+        }
+      }
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.index.CollectionIndex#clear()
+   */
+  @Override
+  public void clear() {
+    postings.clear();
+    lengths.clear();
+    totalLength = 0;
+  }
+
+  /**
+   * The words of the indexed fields of a document, with a null between the words of two fields
+   */
+  private List<String> wordsOf(Object document) {
+    List<String> words = new ArrayList<String>();
+    for (DocumentField field : fields) {
+      Object value = field.get(document);
+      if (null == value) {
+        continue;
+      }
+      if (value instanceof Map) {
+        value = ((Map<?, ?>) value).values();
+      }
+      if (value instanceof Collection) {
+        for (Object element : (Collection<?>) value) {
+          addWords(words, element);
+        }
+      } else if (value.getClass().isArray()) {
+        for (int i = 0; i < Array.getLength(value); i++) {
+          addWords(words, Array.get(value, i));
+        }
+      } else {
+        addWords(words, value);
+      }
+    }
+    return words;
+  }
+
+  private void addWords(List<String> words, Object text) {
+    if (null == text) {
+      return;
+    }
+    List<String> textWords = tokenizer.tokenize(text.toString());
+    if (textWords.isEmpty()) {
+      return;
+    }
+    if (!words.isEmpty()) {
+      words.add(null);
+    }
+    words.addAll(textWords);
+  }
+
+  /**
+   * Finds the documents matching a text search
+   *
+   * @param search the text search
+   * @return the ids of the matching documents mapped to their relevance score, or to 0 if the
+   *         search does not rank its results
+   */
+  public Map<Object, Double> search(TextSearch search) {
+    List<String> words = tokenizer.tokenize(search.getText());
+    if (words.isEmpty()) {
+      return new HashMap<Object, Double>();
+    }
+    //Every clause is the words a document must hold one of, a single word or the words starting with a prefix
+    List<NavigableMap<String, Map<Object, int[]>>> clauses = new ArrayList<NavigableMap<String, Map<Object, int[]>>>();
+    for (int i = 0; i < words.size(); i++) {
+      String word = words.get(i);
+      if (search.getMode() == TextSearch.Mode.PREFIX && i == words.size() - 1) {
+        clauses.add(postings.subMap(word, true, word + Character.MAX_VALUE, false));
+      } else {
+        clauses.add(postings.subMap(word, true, word, true));
+      }
+    }
+
+    Map<Object, Double> matches = new LinkedHashMap<Object, Double>();
+    if (search.getMode() == TextSearch.Mode.ANY_TERM) {
+      for (NavigableMap<String, Map<Object, int[]>> clause : clauses) {
+        for (Map<Object, int[]> holders : clause.values()) {
+          for (Object id : holders.keySet()) {
+            matches.put(id, 0.0);
+          }
+        }
+      }
+    } else {
+      //Start from the clause fewest documents hold and check the others for each of them
+      NavigableMap<String, Map<Object, int[]>> rarest = null;
+      int rarestCount = Integer.MAX_VALUE;
+      for (NavigableMap<String, Map<Object, int[]>> clause : clauses) {
+        int count = 0;
+        for (Map<Object, int[]> holders : clause.values()) {
+          count += holders.size();
+        }
+        if (count < rarestCount) {
+          rarest = clause;
+          rarestCount = count;
+        }
+      }
+      for (Map<Object, int[]> holders : rarest.values()) {
+        for (Object id : holders.keySet()) {
+          if (!matches.containsKey(id) && holdsAll(id, clauses)
+              && (search.getMode() != TextSearch.Mode.PHRASE || holdsPhrase(id, clauses))) {
+            matches.put(id, 0.0);
+          }
+        }
+      }
+    }
+
+    if (search.isRanked()) {
+      for (Map.Entry<Object, Double> match : matches.entrySet()) {
+        match.setValue(score(match.getKey(), clauses));
+      }
+    }
+    return matches;
+  }
+
+  private static boolean holdsAll(Object id, List<NavigableMap<String, Map<Object, int[]>>> clauses) {
+    for (NavigableMap<String, Map<Object, int[]>> clause : clauses) {
+      boolean holds = false;
+      for (Map<Object, int[]> holders : clause.values()) {
+        if (holders.containsKey(id)) {
+          holds = true;
+          break;
+        }
+      }
+      if (!holds) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean holdsPhrase(Object id, List<NavigableMap<String, Map<Object, int[]>>> clauses) {
+    //The clauses of a phrase search are single words
+    List<int[]> positions = new ArrayList<int[]>(clauses.size());
+    for (NavigableMap<String, Map<Object, int[]>> clause : clauses) {
+      positions.add(clause.firstEntry().getValue().get(id));
+    }
+    for (int start : positions.get(0)) {
+      boolean follows = true;
+      for (int i = 1; i < positions.size() && follows; i++) {
+        follows = Arrays.binarySearch(positions.get(i), start + i) >= 0;
+      }
+      if (follows) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private double score(Object id, List<NavigableMap<String, Map<Object, int[]>>> clauses) {
+    double documents = lengths.size();
+    double averageLength = (double) totalLength / documents;
+    double length = lengths.get(id);
+    double score = 0;
+    for (NavigableMap<String, Map<Object, int[]>> clause : clauses) {
+      for (Map<Object, int[]> holders : clause.values()) {
+        int[] positions = holders.get(id);
+        if (null == positions) {
+          continue;
+        }
+        double idf = Math.log(1 + (documents - holders.size() + 0.5) / (holders.size() + 0.5));
+        double tf = positions.length;
+        score += idf * tf * (K1 + 1) / (tf + K1 * (1 - B + B * length / averageLength));
+      }
+    }
+    return score;
+  }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.index;
+
+import java.util.HashMap;
+import java.util.Set;
+
+import io.jsondb.CollectionMetaData;
+import io.jsondb.InvalidJsonDbApiUsageException;
+
+/**
+ * A index that maps every value of a single field to the ids of the documents holding it.
+ * Documents whose field is null are not indexed.
+ *
+ * @version 1.0 19-Oct-2026
+ */
+public class HashIndex extends KeyedIndex {
+
+  private final DocumentField field;
+
+  public HashIndex(IndexDefinition definition, CollectionMetaData cmd) {
+    super(definition, new HashMap<Object, Set<Object>>());
+    if (definition.getFieldNames().size() != 1) {
+      throw new InvalidJsonDbApiUsageException("A hash index is defined on exactly one field, index '"
+          + definition.getName() + "' has " + definition.getFieldNames().size());
+    }
+    this.field = new DocumentField(cmd, definition.getFieldNames().get(0));
+    if (field.isMultiValued()) {
+      throw new InvalidJsonDbApiUsageException("Field '" + field.getFieldName() + "' of collection '"
+          + cmd.getCollectionName() + "' holds more than one value, it cannot be hash indexed, use a multikey index");
+    }
+  }
+
+  public DocumentField getField() {
+    return field;
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.index.KeyedIndex#keyOf(java.lang.Object)
+   */
+  @Override
+  public Object keyOf(Object document) {
+    return normalize(field.get(document));
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.index.KeyedIndex#isConstrained(java.lang.Object)
+   */
+  @Override
+  public boolean isConstrained(Object key) {
+    return null != key;
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.index.KeyedIndex#describe(java.lang.Object)
+   */
+  @Override
+  public String describe(Object document) {
+    return String.valueOf(field.get(document));
+  }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import io.jsondb.InvalidJsonDbApiUsageException;
+
+/**
+ * Describes a secondary index of a collection, passed to
+ * {@link io.jsondb.JsonDBOperations#createIndex(IndexDefinition, String)}.
+ *
+ * <pre>
+ * jsonDBTemplate.createIndex(IndexDefinition.hash("email").unique(), User.class);
+ * jsonDBTemplate.createIndex(IndexDefinition.sorted("customerId", "createdAt"), Order.class);
+ * jsonDBTemplate.createIndex(IndexDefinition.fullText("title", "description"), Article.class);
+ * jsonDBTemplate.createIndex(IndexDefinition.spatial("latitude", "longitude").cellSize(0.1), Site.class);
+ * </pre>
+ *
+ * @version 1.0 19-Oct-2026
+ */
+public class IndexDefinition {
+
+  private final IndexType type;
+  private final List<String> fieldNames;
+  private String name;
+  private boolean unique;
+  private Tokenizer tokenizer;
+  private double cellSize = SpatialIndex.DEFAULT_CELL_SIZE;
+
+  protected IndexDefinition(IndexType type, List<String> fieldNames) {
+    if (null == fieldNames || fieldNames.isEmpty()) {
+      throw new InvalidJsonDbApiUsageException("A index needs at least one field");
+    }
+    for (String fieldName : fieldNames) {
+      if (null == fieldName || fieldName.trim().length() < 1) {
+        throw new InvalidJsonDbApiUsageException("Index field name cannot be null or empty");
+      }
+    }
+    this.type = type;
+    this.fieldNames = Collections.unmodifiableList(new ArrayList<String>(fieldNames));
+    this.name = String.join("_", fieldNames);
+  }
+
+  /**
+   * Static factory method to define a hash index on the given field
+   *
+   * @param fieldName name of the field to index
+   * @return the index definition, named after the field
+   */
+  public static IndexDefinition hash(String fieldName) {
+    return new IndexDefinition(IndexType.HASH, Collections.singletonList(fieldName));
+  }
+
+  /**
+   * Static factory method to define a sorted index on the given fields
+   *
+   * @param fieldNames names of the fields to index, the first one the most significant
+   * @return the index definition, named after the fields
+   */
+  public static IndexDefinition sorted(String... fieldNames) {
+    return new IndexDefinition(IndexType.SORTED, Arrays.asList(fieldNames));
+  }
+
+  /**
+   * Static factory method to define a bitmap index on the given field, which should hold few distinct values
+   *
+   * @param fieldName name of the field to index
+   * @return the index definition, named after the field
+   */
+  public static IndexDefinition bitmap(String fieldName) {
+    return new IndexDefinition(IndexType.BITMAP, Collections.singletonList(fieldName));
+  }
+
+  /**
+   * Static factory method to define a multikey index on the values found at the given path
+   *
+   * @param path a field holding a collection or array, like "tags", or a path into its elements, like "volumes/name"
+   * @return the index definition, named after the path
+   */
+  public static IndexDefinition multikey(String path) {
+    return new IndexDefinition(IndexType.MULTIKEY, Collections.singletonList(path));
+  }
+
+  /**
+   * Static factory method to define a full text index on the given text fields, searched with
+   * {@link io.jsondb.JsonDBOperations#search(io.jsondb.query.TextSearch, String)}
+   *
+   * @param fieldNames names of the String fields, or collections of Strings, to index the words of
+   * @return the index definition, named after the fields
+   */
+  public static IndexDefinition fullText(String... fieldNames) {
+    return new IndexDefinition(IndexType.FULL_TEXT, Arrays.asList(fieldNames));
+  }
+
+  /**
+   * Static factory method to define a spatial index on a pair of fields holding the latitude and
+   * longitude of a point in degrees, searched with
+   * {@link io.jsondb.JsonDBOperations#search(io.jsondb.query.GeoQuery, String)}
+   *
+   * @param latitudeFieldName name of the numeric field holding the latitude, -90 to 90
+   * @param longitudeFieldName name of the numeric field holding the longitude, -180 to 180
+   * @return the index definition, named after the fields
+   */
+  public static IndexDefinition spatial(String latitudeFieldName, String longitudeFieldName) {
+    return new IndexDefinition(IndexType.SPATIAL, Arrays.asList(latitudeFieldName, longitudeFieldName));
+  }
+
+  /**
+   * Gives the index a name other than the default, which is the indexed field names joined by '_'
+   *
+   * @param name name of the index
+   * @return this index definition
+   */
+  public IndexDefinition named(String name) {
+    if (null == name || name.trim().length() < 1) {
+      throw new InvalidJsonDbApiUsageException("Index name cannot be null or empty");
+    }
+    this.name = name;
+    return this;
+  }
+
+  /**
+   * Makes the index refuse documents holding a non null value already held by another document
+   *
+   * @return this index definition
+   */
+  public IndexDefinition unique() {
+    this.unique = true;
+    return this;
+  }
+
+  /**
+   * Sets the tokenizer that splits the text of the fields and of the searches into words,
+   * by default a {@link SimpleTokenizer} that lowercases the words.
+   *
+   * @param tokenizer the tokenizer, only full text indexes have one
+   * @return this index definition
+   */
+  public IndexDefinition tokenizer(Tokenizer tokenizer) {
+    if (type != IndexType.FULL_TEXT) {
+      throw new InvalidJsonDbApiUsageException("Only a full text index has a tokenizer, index '" + name + "' is " + type);
+    }
+    if (null == tokenizer) {
+      throw new InvalidJsonDbApiUsageException("Tokenizer cannot be null");
+    }
+    this.tokenizer = tokenizer;
+    return this;
+  }
+
+  /**
+   * Sets the size of the square grid cells a spatial index files the points under, by default
+   * half a degree. Cells a little larger than the typical search radius work best.
+   *
+   * @param degrees the cell size in degrees of latitude and longitude
+   * @return this index definition
+   */
+  public IndexDefinition cellSize(double degrees) {
+    if (type != IndexType.SPATIAL) {
+      throw new InvalidJsonDbApiUsageException("Only a spatial index has a cell size, index '" + name + "' is " + type);
+    }
+    if (!(degrees > 0 && degrees <= 90)) {
+      throw new InvalidJsonDbApiUsageException("Cell size of a spatial index must be more than 0 and at most 90 degrees");
+    }
+    this.cellSize = degrees;
+    return this;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public IndexType getType() {
+    return type;
+  }
+
+  public List<String> getFieldNames() {
+    return fieldNames;
+  }
+
+  public boolean isUnique() {
+    return unique;
+  }
+
+  public Tokenizer getTokenizer() {
+    return tokenizer;
+  }
+
+  public double getCellSize() {
+    return cellSize;
+  }
+
+  /* (non-Javadoc)
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return name + " " + type + (unique ? " UNIQUE " : " ") + fieldNames;
+  }
+}
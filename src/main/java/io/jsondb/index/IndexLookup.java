@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.index;
+
+import java.util.List;
+
+/**
+ * The ids of the documents matching a query, as found in a index or by the id of the documents
+ *
+ * @version 1.0 19-Oct-2026
+ */
+public class IndexLookup {
+
+  private final List<Object> ids;
+  private final boolean ordered;
+  private final boolean residual;
+  private final AccessPath accessPath;
+
+  public IndexLookup(List<Object> ids, boolean ordered) {
+    this(ids, ordered, false, AccessPath.INDEX);
+  }
+
+  public IndexLookup(List<Object> ids, boolean ordered, boolean residual, AccessPath accessPath) {
+    this.ids = ids;
+    this.ordered = ordered;
+    this.residual = residual;
+    this.accessPath = accessPath;
+  }
+
+  /**
+   * @return the ids, in collection order unless {@link #isOrdered()}
+   */
+  public List<Object> getIds() {
+    return ids;
+  }
+
+  /**
+   * @return true if the ids are in the order of the requested {@link io.jsondb.query.Sort} already,
+   *         possibly cut short to the requested limit
+   */
+  public boolean isOrdered() {
+    return ordered;
+  }
+
+  /**
+   * @return true if the ids are only candidates, the query still has to be evaluated against their documents
+   */
+  public boolean hasResidual() {
+    return residual;
+  }
+
+  /**
+   * @return how the ids were found
+   */
+  public AccessPath getAccessPath() {
+    return accessPath;
+  }
+}
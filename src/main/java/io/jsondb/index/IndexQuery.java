@@ -0,0 +1,347 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.index;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Recognizes the JXPath queries the indexes can answer, those that consist of a single predicate
+ * made of comparisons between a field or path of fields of the document and a literal or a bound variable,
+ * joined with 'and' and 'or' and negated with 'not()', like <code>/.[email='x']</code>,
+ * <code>/.[customerId='x' and total &gt; 100]</code> or
+ * <code>/.[status='OPEN' and (region='EU' or region='US') and not(archived=true())]</code>.
+ * Any other query is left to JXPath.
+ *
+ * @version 1.0 19-Oct-2026
+ */
+public class IndexQuery {
+
+  private static final Pattern PREDICATE = Pattern.compile("\\s*/\\.\\s*\\[(.*)\\]\\s*", Pattern.DOTALL);
+  private static final Pattern COMPARISON = Pattern.compile(
+      "\\s*@?([A-Za-z_$][\\w$]*(?:/[A-Za-z_$][\\w$]*)*)\\s*(<=|>=|!=|=|<|>)\\s*(?:'([^']*)'|\"([^\"]*)\"|(-?\\d+(?:\\.\\d+)?)|(true|false)\\(\\s*\\)|\\$([A-Za-z_][\\w.-]*))");
+  private static final Pattern AND = Pattern.compile("\\s*and(?=[\\s(])");
+  private static final Pattern OR = Pattern.compile("\\s*or(?=[\\s(])");
+  private static final Pattern NOT = Pattern.compile("\\s*not\\s*\\(");
+  private static final Pattern OPEN = Pattern.compile("\\s*\\(");
+  private static final Pattern CLOSE = Pattern.compile("\\s*\\)");
+  private static final Pattern END = Pattern.compile("\\s*$");
+
+  private final Condition condition;
+  private final List<Comparison> comparisons;
+  private final boolean partial;
+
+  private IndexQuery(Condition condition, boolean partial) {
+    this.condition = condition;
+    this.partial = partial;
+    List<Comparison> conjunction = new ArrayList<Comparison>();
+    this.comparisons = isConjunction(condition, conjunction) ? Collections.unmodifiableList(conjunction) : null;
+  }
+
+  private static boolean isConjunction(Condition condition, List<Comparison> comparisons) {
+    if (condition instanceof Comparison) {
+      comparisons.add((Comparison) condition);
+      return true;
+    }
+    if (condition instanceof Condition.And) {
+      for (Condition operand : ((Condition.And) condition).getOperands()) {
+        if (!isConjunction(operand, comparisons)) {
+          return false;
+        }
+      }
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * @param jxQuery a JXPath query
+   * @return the query, or null if it is anything but comparisons with literals joined with and, or and not()
+   */
+  public static IndexQuery parse(String jxQuery) {
+    return parse(jxQuery, Collections.<String, Object>emptyMap());
+  }
+
+  /**
+   * @param jxQuery a JXPath query
+   * @param variables the values bound to the variables of the query, which are compared like literals
+   * @return the query, or null if it is anything but comparisons with literals or bound variables joined with
+   *         and, or and not()
+   */
+  public static IndexQuery parse(String jxQuery, Map<String, ?> variables) {
+    if (null == jxQuery) {
+      return null;
+    }
+    Matcher predicate = PREDICATE.matcher(jxQuery);
+    if (!predicate.matches()) {
+      return null;
+    }
+    Parser parser = new Parser(predicate.group(1), variables);
+    Condition condition = parser.or();
+    if (null == condition || !parser.accept(END)) {
+      return null;
+    }
+    return new IndexQuery(condition, false);
+  }
+
+  /**
+   * @param condition conditions recognized from a query built otherwise than as a JXPath String
+   * @param partial true if the query has conditions that were left out
+   * @return the query of the conditions
+   */
+  static IndexQuery of(Condition condition, boolean partial) {
+    return new IndexQuery(condition, partial);
+  }
+
+  /**
+   * Recognizes the conditions of a query that is a conjunction at its top level, each on its own,
+   * like <code>customerId='x'</code> in <code>/.[customerId='x' and contains(note, 'gift')]</code>.
+   * The documents matching the query are among those matching the recognized conditions.
+   *
+   * @param jxQuery a JXPath query
+   * @return the recognized conditions of the query and-ed together, {@link #isPartial()} if some were not,
+   *         or null if none were
+   */
+  public static IndexQuery parseConjuncts(String jxQuery) {
+    return parseConjuncts(jxQuery, Collections.<String, Object>emptyMap());
+  }
+
+  /**
+   * @param jxQuery a JXPath query
+   * @param variables the values bound to the variables of the query, which are compared like literals
+   * @return the recognized conditions of the query and-ed together, {@link #isPartial()} if some were not,
+   *         or null if none were
+   */
+  public static IndexQuery parseConjuncts(String jxQuery, Map<String, ?> variables) {
+    IndexQuery query = parse(jxQuery, variables);
+    if (null != query || null == jxQuery) {
+      return query;
+    }
+    Matcher predicate = PREDICATE.matcher(jxQuery);
+    if (!predicate.matches()) {
+      return null;
+    }
+    List<String> conjuncts = splitConjuncts(predicate.group(1));
+    if (null == conjuncts) {
+      return null;
+    }
+    List<Condition> operands = new ArrayList<Condition>();
+    for (String conjunct : conjuncts) {
+      Parser parser = new Parser(conjunct, variables);
+      Condition condition = parser.or();
+      if (null != condition && parser.accept(END)) {
+        operands.add(condition);
+      }
+    }
+    if (operands.isEmpty()) {
+      return null;
+    }
+    return new IndexQuery((operands.size() == 1) ? operands.get(0) : new Condition.And(operands),
+        operands.size() < conjuncts.size());
+  }
+
+  /**
+   * @return the operands of the 'and' operators outside of any parentheses, brackets or quotes,
+   *         null if there is a 'or' among them or the brackets do not balance
+   */
+  private static List<String> splitConjuncts(String text) {
+    List<String> conjuncts = new ArrayList<String>();
+    int depth = 0;
+    int start = 0;
+    char quote = 0;
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (0 != quote) {
+        quote = (c == quote) ? 0 : quote;
+      } else if (c == '\'' || c == '"') {
+        quote = c;
+      } else if (c == '(' || c == '[') {
+        depth++;
+      } else if (c == ')' || c == ']') {
+        if (--depth < 0) {
+          return null;
+        }
+      } else if (depth == 0 && isOperator(text, i, "or")) {
+        return null;
+      } else if (depth == 0 && isOperator(text, i, "and")) {
+        conjuncts.add(text.substring(start, i));
+        start = i + 3;
+      }
+    }
+    if (0 != depth || 0 != quote) {
+      return null;
+    }
+    conjuncts.add(text.substring(start));
+    return conjuncts;
+  }
+
+  private static boolean isOperator(String text, int i, String operator) {
+    int end = i + operator.length();
+    return text.startsWith(operator, i) && i > 0 && Character.isWhitespace(text.charAt(i - 1))
+        && end < text.length() && (Character.isWhitespace(text.charAt(end)) || text.charAt(end) == '(');
+  }
+
+  /**
+   * @return the conditions of the query
+   */
+  public Condition getCondition() {
+    return condition;
+  }
+
+  /**
+   * @return the comparisons of the query if they are all joined with 'and', null otherwise
+   */
+  public List<Comparison> getComparisons() {
+    return comparisons;
+  }
+
+  /**
+   * @return the conditions joined with 'and' at the top level of the query
+   */
+  public List<Condition> getConjuncts() {
+    if (condition instanceof Condition.And) {
+      return ((Condition.And) condition).getOperands();
+    }
+    return Collections.singletonList(condition);
+  }
+
+  /**
+   * @return true if the query has conditions that were not recognized, which the documents must be checked against as well
+   */
+  public boolean isPartial() {
+    return partial;
+  }
+
+  /* (non-Javadoc)
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return condition.toString();
+  }
+
+  /**
+   * A recursive descent parser of the predicate, 'and' binds tighter than 'or' as it does in XPath
+   */
+  private static class Parser {
+    private final String text;
+    private final Map<String, ?> variables;
+    private int position;
+
+    Parser(String text, Map<String, ?> variables) {
+      this.text = text;
+      this.variables = variables;
+    }
+
+    boolean accept(Pattern pattern) {
+      Matcher m = pattern.matcher(text);
+      m.region(position, text.length());
+      if (!m.lookingAt()) {
+        return false;
+      }
+      position = m.end();
+      return true;
+    }
+
+    Condition or() {
+      List<Condition> operands = new ArrayList<Condition>();
+      do {
+        Condition operand = and();
+        if (null == operand) {
+          return null;
+        }
+        operands.add(operand);
+      } while (accept(OR));
+      return (operands.size() == 1) ? operands.get(0) : new Condition.Or(operands);
+    }
+
+    Condition and() {
+      List<Condition> operands = new ArrayList<Condition>();
+      do {
+        Condition operand = unary();
+        if (null == operand) {
+          return null;
+        }
+        operands.add(operand);
+      } while (accept(AND));
+      return (operands.size() == 1) ? operands.get(0) : new Condition.And(operands);
+    }
+
+    Condition unary() {
+      boolean negated = accept(NOT);
+      if (negated || accept(OPEN)) {
+        Condition operand = or();
+        if (null == operand || !accept(CLOSE)) {
+          return null;
+        }
+        return negated ? new Condition.Not(operand) : operand;
+      }
+      return comparison();
+    }
+
+    Comparison comparison() {
+      Matcher m = COMPARISON.matcher(text);
+      m.region(position, text.length());
+      if (!m.lookingAt()) {
+        return null;
+      }
+      position = m.end();
+      Object literal;
+      if (null != m.group(3)) {
+        literal = m.group(3);
+      } else if (null != m.group(4)) {
+        literal = m.group(4);
+      } else if (null != m.group(5)) {
+        literal = Double.valueOf(m.group(5));
+      } else if (null != m.group(6)) {
+        literal = Boolean.valueOf(m.group(6));
+      } else {
+        literal = literalOf(m.group(7));
+        if (null == literal) {
+          return null;
+        }
+      }
+      return new Comparison(m.group(1), Comparison.Operator.of(m.group(2)), literal);
+    }
+
+    /**
+     * @return the bound value of a variable as the literal JXPath would compare it as, null if it is unbound or
+     *         of any other type
+     */
+    private Object literalOf(String variableName) {
+      Object value = variables.get(variableName);
+      if (value instanceof String || value instanceof Character || value instanceof Enum) {
+        return value.toString();
+      }
+      if (value instanceof Number) {
+        return Double.valueOf(((Number) value).doubleValue());
+      }
+      if (value instanceof Boolean) {
+        return value;
+      }
+      return null;
+    }
+  }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.index;
+
+/**
+ * The kinds of secondary indexes JsonDB can keep for a collection
+ *
+ * @version 1.0 19-Oct-2026
+ */
+public enum IndexType {
+  /**
+   * Maps every value of a field to the ids of the documents holding it, answers equality queries
+   */
+  HASH,
+  /**
+   * Keeps the documents sorted by one or more fields, answers equality comparisons on a prefix of
+   * the fields followed by a range on the next one, and returns documents in the order of the fields
+   */
+  SORTED,
+  /**
+   * Maps every word of one or more text fields to the documents and positions holding it, answers
+   * {@link io.jsondb.query.TextSearch} term, phrase and prefix searches
+   */
+  FULL_TEXT,
+  /**
+   * Maps every value of a field to a bitmap of the documents holding it, meant for fields with few
+   * distinct values such as enums and booleans. Answers equality comparisons, also when they are
+   * joined with 'and', 'or' and 'not()', with bitwise operations.
+   */
+  BITMAP,
+  /**
+   * Maps every value found at a path of fields, following the elements of collection and array
+   * fields along the way, to the ids of the documents holding it. Answers equality comparisons
+   * on the path, which hold if any of the values is equal.
+   */
+  MULTIKEY,
+  /**
+   * Files the points held by a latitude and a longitude field under the cells of a grid, answers
+   * {@link io.jsondb.query.GeoQuery} bounding box, radius and nearest neighbour searches
+   */
+  SPATIAL
+}
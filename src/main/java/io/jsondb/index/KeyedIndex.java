@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.index;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Base of the indexes that map a key computed from every document to the ids of the documents
+ * holding it, and so can enforce a unique constraint.
+ *
+ * @version 1.0 19-Oct-2026
+ */
+public abstract class KeyedIndex implements CollectionIndex {
+
+  private final IndexDefinition definition;
+  protected final Map<Object, Set<Object>> ids;
+
+  protected KeyedIndex(IndexDefinition definition, Map<Object, Set<Object>> ids) {
+    this.definition = definition;
+    this.ids = ids;
+  }
+
+  /**
+   * Turns a field value or query literal into the value it is indexed under. Values are compared
+   * the way JXPath compares them: numbers by their double value, characters and enums by their
+   * string value.
+   *
+   * @param value a field value or query literal
+   * @return the normalized value, null for null
+   */
+  public static Object normalize(Object value) {
+    if (value instanceof Number) {
+      double d = ((Number) value).doubleValue();
+      //JXPath finds 0 and -0 equal, Double does not
+      return Double.valueOf(d == 0.0d ? 0.0d : d);
+    }
+    if (value instanceof Character || value instanceof Enum) {
+      return value.toString();
+    }
+    return value;
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.index.CollectionIndex#getDefinition()
+   */
+  @Override
+  public IndexDefinition getDefinition() {
+    return definition;
+  }
+
+  /**
+   * @param document a document of the collection
+   * @return the key the document is indexed under, null if it is not indexed
+   */
+  public abstract Object keyOf(Object document);
+
+  /**
+   * @param key key as returned by {@link #keyOf(Object)}
+   * @return true if a unique constraint applies to documents with this key
+   */
+  public abstract boolean isConstrained(Object key);
+
+  /**
+   * @param document a document of the collection
+   * @return the indexed value(s) of the document, for messages
+   */
+  public abstract String describe(Object document);
+
+  /**
+   * @param key key as returned by {@link #keyOf(Object)}
+   * @return ids of the documents indexed under the key, never null
+   */
+  public Set<Object> lookup(Object key) {
+    Set<Object> found = ids.get(key);
+    return (null == found) ? Collections.emptySet() : found;
+  }
+
+  /**
+   * @return true if some key a unique constraint applies to is held by more than one document
+   */
+  public boolean hasDuplicates() {
+    for (Map.Entry<Object, Set<Object>> entry : ids.entrySet()) {
+      if (entry.getValue().size() > 1 && isConstrained(entry.getKey())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.index.CollectionIndex#add(java.lang.Object, java.lang.Object)
+   */
+  @Override
+  public void add(Object id, Object document) {
+    Object key = keyOf(document);
+    if (null != key) {
+      Set<Object> holders = ids.get(key);
+      if (null == holders) {
+        holders = new LinkedHashSet<Object>();
+        ids.put(key, holders);
+      }
+      holders.add(id);
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.index.CollectionIndex#remove(java.lang.Object, java.lang.Object)
+   */
+  @Override
+  public void remove(Object id, Object document) {
+    Object key = keyOf(document);
+    if (null != key) {
+      Set<Object> holders = ids.get(key);
+      if (null != holders) {
+        holders.remove(id);
+        if (holders.isEmpty()) {
+          ids.remove(key);
+        }
+      }
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.index.CollectionIndex#clear()
+   */
+  @Override
+  public void clear() {
+    ids.clear();
+  }
+}
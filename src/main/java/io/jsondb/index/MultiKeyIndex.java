@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.index;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import io.jsondb.CollectionMetaData;
+import io.jsondb.InvalidJsonDbApiUsageException;
+import io.jsondb.JsonDBException;
+
+/**
+ * A multikey index, indexes a document under every value found at a path of fields such as
+ * <code>tags</code> or <code>volumes/name</code>, where any field along the path may hold a
+ * collection or array whose every element is followed. It answers the equality comparisons that
+ * JXPath evaluates as "any element equals", like <code>/.[tags='x']</code> or
+ * <code>/.[volumes/name='x']</code>.
+ *
+ * The getters along the path are resolved from the declared types when the index is created, so
+ * the collections must declare their element type, like <code>List&lt;Volume&gt;</code>.
+ *
+ * @version 1.0 19-Oct-2026
+ */
+public class MultiKeyIndex implements CollectionIndex {
+
+  private final IndexDefinition definition;
+  private final String path;
+  private final DocumentField field;
+  private final List<Method> nestedGetters = new ArrayList<Method>();
+  private final Class<?> valueType;
+  private final Map<Object, Set<Object>> ids = new HashMap<Object, Set<Object>>();
+
+  public MultiKeyIndex(IndexDefinition definition, CollectionMetaData cmd) {
+    if (definition.getFieldNames().size() != 1) {
+      throw new InvalidJsonDbApiUsageException("A multikey index is defined on exactly one field path, index '"
+          + definition.getName() + "' has " + definition.getFieldNames().size());
+    }
+    if (definition.isUnique()) {
+      throw new InvalidJsonDbApiUsageException("Multikey index '" + definition.getName() + "' cannot be unique");
+    }
+    this.definition = definition;
+    this.path = definition.getFieldNames().get(0);
+    String[] segments = path.split("/");
+    this.field = new DocumentField(cmd, segments[0]);
+    if (cmd.isSecretField(segments[0])) {
+      throw new InvalidJsonDbApiUsageException("Field '" + segments[0] + "' of collection '" + cmd.getCollectionName()
+          + "' is a @Secret field, its encrypted values cannot be indexed");
+    }
+
+    Type type = DocumentPath.elementsOf(field.getGenericType());
+    for (int i = 1; i < segments.length; i++) {
+      Class<?> owner = DocumentPath.rawClass(type);
+      Method getter = (null == owner) ? null : DocumentPath.getterOf(owner, segments[i]);
+      if (null == getter) {
+        throw new InvalidJsonDbApiUsageException("Path '" + path + "' of collection '" + cmd.getCollectionName()
+            + "' has no getter method for '" + segments[i] + "', it cannot be indexed");
+      }
+      nestedGetters.add(getter);
+      type = DocumentPath.elementsOf(getter.getGenericReturnType());
+    }
+    Class<?> leaf = DocumentPath.rawClass(type);
+    if (null == leaf || leaf == Object.class || Map.class.isAssignableFrom(leaf)) {
+      throw new InvalidJsonDbApiUsageException("Values at path '" + path + "' of collection '" + cmd.getCollectionName()
+          + "' are not of a declared single value type, they cannot be multikey indexed");
+    }
+    this.valueType = leaf;
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.index.CollectionIndex#getDefinition()
+   */
+  @Override
+  public IndexDefinition getDefinition() {
+    return definition;
+  }
+
+  /**
+   * @return the path of fields the index follows, the field names separated by '/'
+   */
+  public String getPath() {
+    return path;
+  }
+
+  /**
+   * @return the declared type of the values found at the end of the path
+   */
+  public Class<?> getValueType() {
+    return valueType;
+  }
+
+  /**
+   * @param document a document of the collection
+   * @return the distinct normalized values found at the path in the document
+   */
+  public Set<Object> keysOf(Object document) {
+    Set<Object> keys = new HashSet<Object>();
+    collect(field.get(document), 0, keys);
+    return keys;
+  }
+
+  private void collect(Object value, int segment, Set<Object> keys) {
+    if (null == value) {
+      return;
+    }
+    if (value instanceof Collection) {
+      for (Object element : (Collection<?>) value) {
+        collect(element, segment, keys);
+      }
+    } else if (value.getClass().isArray()) {
+      for (int i = 0; i < Array.getLength(value); i++) {
+        collect(Array.get(value, i), segment, keys);
+      }
+    } else if (segment == nestedGetters.size()) {
+      keys.add(KeyedIndex.normalize(value));
+    } else {
+      Method getter = nestedGetters.get(segment);
+      try {
+        collect(getter.invoke(value), segment + 1, keys);
+      } catch (IllegalAccessException | InvocationTargetException e) {
+        throw new JsonDBException("Failed to read '" + getter.getName() + "' of " + value.getClass().getName()
+            + " for path '" + path + "'", e);
+      }
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.index.CollectionIndex#add(java.lang.Object, java.lang.Object)
+   */
+  @Override
+  public void add(Object id, Object document) {
+    for (Object key : keysOf(document)) {
+      Set<Object> holders = ids.get(key);
+      if (null == holders) {
+        holders = new LinkedHashSet<Object>();
+        ids.put(key, holders);
+      }
+      holders.add(id);
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.index.CollectionIndex#remove(java.lang.Object, java.lang.Object)
+   */
+  @Override
+  public void remove(Object id, Object document) {
+    for (Object key : keysOf(document)) {
+      Set<Object> holders = ids.get(key);
+      if (null != holders) {
+        holders.remove(id);
+        if (holders.isEmpty()) {
+          ids.remove(key);
+        }
+      }
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.index.CollectionIndex#clear()
+   */
+  @Override
+  public void clear() {
+    ids.clear();
+  }
+
+  /**
+   * @param key a normalized value
+   * @return the ids of the documents holding the value anywhere at the path, in no particular order
+   */
+  public Set<Object> lookup(Object key) {
+    Set<Object> holders = ids.get(key);
+    return (null == holders) ? Collections.<Object>emptySet() : Collections.unmodifiableSet(holders);
+  }
+}
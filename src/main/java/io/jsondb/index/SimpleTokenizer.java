@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.index;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * The default {@link Tokenizer} of full text indexes, takes every run of letters and digits as a
+ * word and lowercases it unless told otherwise.
+ *
+ * @version 1.0 19-Oct-2026
+ */
+public class SimpleTokenizer implements Tokenizer {
+
+  private final boolean lowercase;
+
+  public SimpleTokenizer() {
+    this(true);
+  }
+
+  /**
+   * @param lowercase false to keep the words as they are written, making searches case sensitive
+   */
+  public SimpleTokenizer(boolean lowercase) {
+    this.lowercase = lowercase;
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.index.Tokenizer#tokenize(java.lang.String)
+   */
+  @Override
+  public List<String> tokenize(String text) {
+    List<String> words = new ArrayList<String>();
+    int start = -1;
+    int i = 0;
+    while (i <= text.length()) {
+      boolean wordChar = false;
+      int next = i + 1;
+      if (i < text.length()) {
+        int codePoint = text.codePointAt(i);
+        wordChar = Character.isLetterOrDigit(codePoint);
+        next = i + Character.charCount(codePoint);
+      }
+      if (wordChar && start < 0) {
+        start = i;
+      } else if (!wordChar && start >= 0) {
+        String word = text.substring(start, i);
+        words.add(lowercase ? word.toLowerCase(Locale.ROOT) : word);
+        start = -1;
+      }
+      i = next;
+    }
+    return words;
+  }
+
+  /* (non-Javadoc)
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return lowercase ? "SimpleTokenizer" : "SimpleTokenizer(case sensitive)";
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.index;
+
+import java.util.Arrays;
+
+/**
+ * The key of a document in a {@link SortedIndex}, the normalized values of the indexed fields
+ * in the order the index was defined with. Null sorts before any value.
+ *
+ * @version 1.0 19-Oct-2026
+ */
+public final class SortKey implements Comparable<SortKey> {
+
+  /**
+   * Sorts before any value, fills the fields of a range bound that are not constrained
+   */
+  static final Object MIN = new Object() {
+    @Override
+    public String toString() {
+      return "MIN";
+    }
+  };
+
+  /**
+   * Sorts after any value, fills the fields of a range bound that are not constrained
+   */
+  static final Object MAX = new Object() {
+    @Override
+    public String toString() {
+      return "MAX";
+    }
+  };
+
+  private final Object[] values;
+
+  SortKey(Object[] values) {
+    this.values = values;
+  }
+
+  Object get(int i) {
+    return values[i];
+  }
+
+  boolean hasNull() {
+    for (Object value : values) {
+      if (null == value) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Compares two normalized values, null sorts first and values of different classes by the
+   * name of their class.
+   *
+   * @param v1 the first value
+   * @param v2 the second value
+   * @return a negative number, zero or a positive number as v1 sorts before, with or after v2
+   */
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  public static int compareValues(Object v1, Object v2) {
+    if (v1 == v2) {
+      return 0;
+    }
+    if (v1 == MIN || v2 == MAX) {
+      return -1;
+    }
+    if (v1 == MAX || v2 == MIN) {
+      return 1;
+    }
+    if (null == v1) {
+      return -1;
+    }
+    if (null == v2) {
+      return 1;
+    }
+    if (v1.getClass() == v2.getClass()) {
+      return ((Comparable) v1).compareTo(v2);
+    }
+    return v1.getClass().getName().compareTo(v2.getClass().getName());
+  }
+
+  /* (non-Javadoc)
+   * @see java.lang.Comparable#compareTo(java.lang.Object)
+   */
+  @Override
+  public int compareTo(SortKey other) {
+    for (int i = 0; i < values.length; i++) {
+      int c = compareValues(values[i], other.values[i]);
+      if (c != 0) {
+        return c;
+      }
+    }
+    return 0;
+  }
+
+  /* (non-Javadoc)
+   * @see java.lang.Object#equals(java.lang.Object)
+   */
+  @Override
+  public boolean equals(Object o) {
+    return (o instanceof SortKey) && compareTo((SortKey) o) == 0;
+  }
+
+  /* (non-Javadoc)
+   * @see java.lang.Object#hashCode()
+   */
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(values);
+  }
+
+  /* (non-Javadoc)
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return Arrays.toString(values);
+  }
+}
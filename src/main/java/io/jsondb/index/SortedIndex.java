@@ -0,0 +1,295 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.index;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+import io.jsondb.CollectionMetaData;
+import io.jsondb.InvalidJsonDbApiUsageException;
+import io.jsondb.query.Sort;
+
+/**
+ * A index that keeps the documents sorted by the values of one or more fields. It answers
+ * equality comparisons on a prefix of its fields optionally followed by a range on the next field,
+ * and hands out the documents in the order of its fields for a {@link Sort} on the same fields.
+ *
+ * Every document is indexed, null sorts before any value. The index is guarded by the lock of the
+ * collection it belongs to, so a plain TreeMap is all it needs.
+ *
+ * @version 1.0 19-Oct-2026
+ */
+public class SortedIndex extends KeyedIndex {
+
+  private final List<DocumentField> fields = new ArrayList<DocumentField>();
+  private final TreeMap<Object, Set<Object>> sorted;
+
+  public SortedIndex(IndexDefinition definition, CollectionMetaData cmd) {
+    this(definition, cmd, new TreeMap<Object, Set<Object>>());
+  }
+
+  private SortedIndex(IndexDefinition definition, CollectionMetaData cmd, TreeMap<Object, Set<Object>> sorted) {
+    super(definition, sorted);
+    this.sorted = sorted;
+    for (String fieldName : definition.getFieldNames()) {
+      DocumentField field = new DocumentField(cmd, fieldName);
+      Class<?> type = field.getType();
+      if (field.isMultiValued() || !(type.isPrimitive() || Comparable.class.isAssignableFrom(type))) {
+        throw new InvalidJsonDbApiUsageException("Field '" + fieldName + "' of collection '" + cmd.getCollectionName()
+            + "' does not hold a single comparable value, it cannot be sort indexed");
+      }
+      if (cmd.isSecretField(fieldName)) {
+        throw new InvalidJsonDbApiUsageException("Field '" + fieldName + "' of collection '" + cmd.getCollectionName()
+            + "' is a @Secret field, its encrypted values cannot be sort indexed");
+      }
+      fields.add(field);
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.index.KeyedIndex#keyOf(java.lang.Object)
+   */
+  @Override
+  public Object keyOf(Object document) {
+    Object[] values = new Object[fields.size()];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = normalize(fields.get(i).get(document));
+    }
+    return new SortKey(values);
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.index.KeyedIndex#isConstrained(java.lang.Object)
+   */
+  @Override
+  public boolean isConstrained(Object key) {
+    return !((SortKey) key).hasNull();
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.index.KeyedIndex#describe(java.lang.Object)
+   */
+  @Override
+  public String describe(Object document) {
+    StringBuilder sb = new StringBuilder();
+    for (DocumentField field : fields) {
+      if (sb.length() > 0) {
+        sb.append(", ");
+      }
+      sb.append(field.get(document));
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Works out the part of the index that holds exactly the documents matching all comparisons
+   *
+   * @param comparisons the comparisons of a query, empty to match all documents
+   * @return the range to scan, or null if the index cannot answer the comparisons
+   */
+  public Range plan(List<Comparison> comparisons) {
+    Map<String, List<Comparison>> byField = new LinkedHashMap<String, List<Comparison>>();
+    for (Comparison c : comparisons) {
+      DocumentField field = findField(c.getFieldName());
+      if (null == field || !c.isAnswerableFor(field.getType())) {
+        return null;
+      }
+      List<Comparison> onField = byField.get(c.getFieldName());
+      if (null == onField) {
+        onField = new ArrayList<Comparison>();
+        byField.put(c.getFieldName(), onField);
+      }
+      onField.add(c);
+    }
+
+    int n = fields.size();
+    Object[] lower = new Object[n];
+    Object[] upper = new Object[n];
+    int equalities = 0;
+    while (equalities < n) {
+      List<Comparison> onField = byField.get(fields.get(equalities).getFieldName());
+      if (null == onField || onField.size() != 1 || onField.get(0).getOperator() != Comparison.Operator.EQ) {
+        break;
+      }
+      lower[equalities] = normalize(onField.get(0).getLiteral());
+      upper[equalities] = lower[equalities];
+      byField.remove(fields.get(equalities).getFieldName());
+      equalities++;
+    }
+
+    boolean lowerInclusive = true;
+    boolean upperInclusive = true;
+    int filled = equalities;
+    if (equalities < n && byField.containsKey(fields.get(equalities).getFieldName())) {
+      //A range on the field following the equalities, unbounded ends stop short of null and NaN
+      Object low = Double.valueOf(Double.NEGATIVE_INFINITY);
+      Object high = Double.valueOf(Double.POSITIVE_INFINITY);
+      boolean hasLow = false;
+      boolean hasHigh = false;
+      for (Comparison c : byField.remove(fields.get(equalities).getFieldName())) {
+        switch (c.getOperator()) {
+          case GT:
+          case GE:
+            if (hasLow) {
+              return null;
+            }
+            hasLow = true;
+            low = normalize(c.getLiteral());
+            lowerInclusive = c.getOperator() == Comparison.Operator.GE;
+            break;
+          case LT:
+          case LE:
+            if (hasHigh) {
+              return null;
+            }
+            hasHigh = true;
+            high = normalize(c.getLiteral());
+            upperInclusive = c.getOperator() == Comparison.Operator.LE;
+            break;
+          default:
+            return null;
+        }
+      }
+      lower[equalities] = low;
+      upper[equalities] = high;
+      filled++;
+    }
+    if (!byField.isEmpty()) {
+      //Comparisons on fields that are not a prefix of the index
+      return null;
+    }
+    for (int i = filled; i < n; i++) {
+      //Past the range field the bounds are decided by the fill, so the inclusive flags no longer apply
+      lower[i] = lowerInclusive ? SortKey.MIN : SortKey.MAX;
+      upper[i] = upperInclusive ? SortKey.MAX : SortKey.MIN;
+    }
+    return new Range(new SortKey(lower), lowerInclusive, new SortKey(upper), upperInclusive, equalities);
+  }
+
+  /**
+   * Tells if scanning a range of the index hands out documents in the order of the given sort,
+   * which is the case if the sort is on the fields of the index that follow those fixed by equality
+   * comparisons, all in the same direction.
+   *
+   * @param range a range returned by {@link #plan(List)}
+   * @param sort the requested order
+   * @return null if the index cannot produce the order, otherwise true for a descending scan
+   */
+  public Boolean ordering(Range range, Sort sort) {
+    List<String> fixed = new ArrayList<String>();
+    List<String> remaining = new ArrayList<String>();
+    for (int i = 0; i < fields.size(); i++) {
+      (i < range.equalities ? fixed : remaining).add(fields.get(i).getFieldName());
+    }
+    List<String> sortFields = new ArrayList<String>();
+    Boolean descending = null;
+    for (int i = 0; i < sort.getFieldNames().size(); i++) {
+      String fieldName = sort.getFieldNames().get(i);
+      if (fixed.contains(fieldName)) {
+        continue;
+      }
+      if (null != descending && descending.booleanValue() != sort.isDescending(i)) {
+        return null;
+      }
+      descending = sort.isDescending(i);
+      sortFields.add(fieldName);
+    }
+    if (sortFields.isEmpty()) {
+      return remaining.isEmpty() ? Boolean.FALSE : null;
+    }
+    return sortFields.equals(remaining) ? descending : null;
+  }
+
+  /**
+   * @param range a range returned by {@link #plan(List)}
+   * @param descending true to scan from the end of the range
+   * @param limit maximum number of ids to return, -1 for all
+   * @param idOrder the order of documents sharing a key
+   * @return the ids of the documents in the range in index order
+   */
+  public List<Object> scan(Range range, boolean descending, int limit, Comparator<Object> idOrder) {
+    List<Object> result = new ArrayList<Object>();
+    if (range.lower.compareTo(range.upper) > 0) {
+      //Contradicting comparisons like [age > 40 and age < 30]
+      return result;
+    }
+    NavigableMap<Object, Set<Object>> sub = sorted.subMap(range.lower, range.lowerInclusive, range.upper, range.upperInclusive);
+    if (descending) {
+      sub = sub.descendingMap();
+    }
+    for (Set<Object> holders : sub.values()) {
+      if (holders.size() > 1) {
+        List<Object> ordered = new ArrayList<Object>(holders);
+        Collections.sort(ordered, idOrder);
+        result.addAll(ordered);
+      } else {
+        result.addAll(holders);
+      }
+      if (limit >= 0 && result.size() >= limit) {
+        return result.subList(0, limit);
+      }
+    }
+    return result;
+  }
+
+  private DocumentField findField(String fieldName) {
+    for (DocumentField field : fields) {
+      if (field.getFieldName().equals(fieldName)) {
+        return field;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * A contiguous part of a {@link SortedIndex}
+   */
+  public static class Range {
+    private final SortKey lower;
+    private final boolean lowerInclusive;
+    private final SortKey upper;
+    private final boolean upperInclusive;
+    private final int equalities;
+
+    Range(SortKey lower, boolean lowerInclusive, SortKey upper, boolean upperInclusive, int equalities) {
+      this.lower = lower;
+      this.lowerInclusive = lowerInclusive;
+      this.upper = upper;
+      this.upperInclusive = upperInclusive;
+      this.equalities = equalities;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+      return (lowerInclusive ? "[" : "(") + lower + ", " + upper + (upperInclusive ? "]" : ")");
+    }
+  }
+}
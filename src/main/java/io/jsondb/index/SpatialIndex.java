@@ -0,0 +1,385 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.index;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import io.jsondb.CollectionMetaData;
+import io.jsondb.InvalidJsonDbApiUsageException;
+import io.jsondb.query.GeoQuery;
+
+/**
+ * A spatial index, files the point every document holds in a latitude and a longitude field under
+ * a cell of a grid of square cells, so that a search reads only the cells its area overlaps.
+ *
+ * A search around a center visits rings of cells growing outwards from the cell of the center
+ * and stops as soon as no point outside the visited cells can be nearer than the points found.
+ * Distances are great circle distances computed with the haversine formula.
+ *
+ * @version 1.0 19-Oct-2026
+ */
+public class SpatialIndex implements CollectionIndex {
+  public static final double DEFAULT_CELL_SIZE = 0.5;
+  private static final double EARTH_RADIUS = 6371008.8;
+
+  private final IndexDefinition definition;
+  private final DocumentField latitudeField;
+  private final DocumentField longitudeField;
+  private final double cellSize;
+  private final int latitudeCells;
+  private final int longitudeCells;
+
+  //cell -> id -> point, and id -> point for every indexed document
+  private final Map<Long, Map<Object, double[]>> cells = new HashMap<Long, Map<Object, double[]>>();
+  private final Map<Object, double[]> points = new HashMap<Object, double[]>();
+
+  public SpatialIndex(IndexDefinition definition, CollectionMetaData cmd) {
+    if (definition.getFieldNames().size() != 2) {
+      throw new InvalidJsonDbApiUsageException("A spatial index is defined on a latitude and a longitude field, index '"
+          + definition.getName() + "' has " + definition.getFieldNames().size() + " fields");
+    }
+    if (definition.isUnique()) {
+      throw new InvalidJsonDbApiUsageException("Spatial index '" + definition.getName() + "' cannot be unique");
+    }
+    for (String fieldName : definition.getFieldNames()) {
+      if (cmd.isSecretField(fieldName)) {
+        throw new InvalidJsonDbApiUsageException("Field '" + fieldName + "' of collection '" + cmd.getCollectionName()
+            + "' is a @Secret field, its encrypted values cannot be spatially indexed");
+      }
+    }
+    this.definition = definition;
+    this.latitudeField = numericField(cmd, definition.getFieldNames().get(0));
+    this.longitudeField = numericField(cmd, definition.getFieldNames().get(1));
+    this.cellSize = definition.getCellSize();
+    this.latitudeCells = (int) Math.ceil(180 / cellSize);
+    this.longitudeCells = (int) Math.ceil(360 / cellSize);
+  }
+
+  private static DocumentField numericField(CollectionMetaData cmd, String fieldName) {
+    DocumentField field = new DocumentField(cmd, fieldName);
+    Class<?> type = field.getType();
+    boolean numeric = Number.class.isAssignableFrom(type)
+        || (type.isPrimitive() && type != boolean.class && type != char.class);
+    if (!numeric) {
+      throw new InvalidJsonDbApiUsageException("Field '" + fieldName + "' of collection '" + cmd.getCollectionName()
+          + "' is not numeric, it cannot hold a latitude or longitude");
+    }
+    return field;
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.index.CollectionIndex#getDefinition()
+   */
+  @Override
+  public IndexDefinition getDefinition() {
+    return definition;
+  }
+
+  /**
+   * @return the point of the document, null if it has none or one that is not on the globe
+   */
+  private double[] pointOf(Object document) {
+    Object latitude = latitudeField.get(document);
+    Object longitude = longitudeField.get(document);
+    if (!(latitude instanceof Number) || !(longitude instanceof Number)) {
+      return null;
+    }
+    double lat = ((Number) latitude).doubleValue();
+    double lon = ((Number) longitude).doubleValue();
+    if (!(lat >= -90 && lat <= 90 && lon >= -180 && lon <= 180)) {
+      return null;
+    }
+    return new double[] {lat, lon};
+  }
+
+  private int latitudeCell(double latitude) {
+    return Math.min(latitudeCells - 1, (int) Math.floor((latitude + 90) / cellSize));
+  }
+
+  private int longitudeCell(double longitude) {
+    return Math.min(longitudeCells - 1, (int) Math.floor((longitude + 180) / cellSize));
+  }
+
+  private long cellKey(int latitudeCell, int longitudeCell) {
+    return (long) latitudeCell * longitudeCells + longitudeCell;
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.index.CollectionIndex#add(java.lang.Object, java.lang.Object)
+   */
+  @Override
+  public void add(Object id, Object document) {
+    double[] point = pointOf(document);
+    if (null == point) {
+      return;
+    }
+    if (points.containsKey(id)) {
+      remove(id, document);
+    }
+    points.put(id, point);
+    long key = cellKey(latitudeCell(point[0]), longitudeCell(point[1]));
+    Map<Object, double[]> cell = cells.get(key);
+    if (null == cell) {
+      cell = new HashMap<Object, double[]>();
+      cells.put(key, cell);
+    }
+    cell.put(id, point);
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.index.CollectionIndex#remove(java.lang.Object, java.lang.Object)
+   */
+  @Override
+  public void remove(Object id, Object document) {
+    //The point is forgotten as it was indexed, whatever the document holds now
+    double[] point = points.remove(id);
+    if (null == point) {
+      return;
+    }
+    long key = cellKey(latitudeCell(point[0]), longitudeCell(point[1]));
+    Map<Object, double[]> cell = cells.get(key);
+    if (null != cell) {
+      cell.remove(id);
+      if (cell.isEmpty()) {
+        cells.remove(key);
+      }
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.index.CollectionIndex#clear()
+   */
+  @Override
+  public void clear() {
+    cells.clear();
+    points.clear();
+  }
+
+  /**
+   * Finds the documents whose point lies in the area of a geo query
+   *
+   * @param query the geo query
+   * @param idOrder the collection order of the ids
+   * @return the ids of the matching documents, in collection order for a box and nearest first otherwise
+   */
+  public List<Object> search(GeoQuery query, Comparator<Object> idOrder) {
+    if (query.getLimit() == 0 || points.isEmpty()) {
+      return new ArrayList<Object>();
+    }
+    if (query.getShape() == GeoQuery.Shape.BOX) {
+      return within(query, idOrder);
+    }
+    return near(query, idOrder);
+  }
+
+  private List<Object> within(GeoQuery query, Comparator<Object> idOrder) {
+    double minLat = query.getMinLatitude();
+    double maxLat = query.getMaxLatitude();
+    double minLon = query.getMinLongitude();
+    double maxLon = query.getMaxLongitude();
+    boolean crossesAntimeridian = minLon > maxLon;
+
+    int firstLatitudeCell = latitudeCell(minLat);
+    int lastLatitudeCell = latitudeCell(maxLat);
+    int firstLongitudeCell = longitudeCell(minLon);
+    int lastLongitudeCell = longitudeCell(maxLon);
+    int longitudeCount = crossesAntimeridian ? longitudeCells - firstLongitudeCell + lastLongitudeCell + 1
+        : lastLongitudeCell - firstLongitudeCell + 1;
+
+    List<Map<Object, double[]>> candidates = new ArrayList<Map<Object, double[]>>();
+    if ((long) (lastLatitudeCell - firstLatitudeCell + 1) * longitudeCount > points.size()) {
+      //A box spanning more cells than there are points is cheaper to answer by looking at every point
+      candidates.add(points);
+    } else {
+      for (int latitudeCell = firstLatitudeCell; latitudeCell <= lastLatitudeCell; latitudeCell++) {
+        for (int i = 0; i < longitudeCount; i++) {
+          Map<Object, double[]> cell = cells.get(cellKey(latitudeCell, (firstLongitudeCell + i) % longitudeCells));
+          if (null != cell) {
+            candidates.add(cell);
+          }
+        }
+      }
+    }
+
+    List<Object> ids = new ArrayList<Object>();
+    for (Map<Object, double[]> candidate : candidates) {
+      for (Map.Entry<Object, double[]> entry : candidate.entrySet()) {
+        double lat = entry.getValue()[0];
+        double lon = entry.getValue()[1];
+        boolean inLongitude = crossesAntimeridian ? (lon >= minLon || lon <= maxLon) : (lon >= minLon && lon <= maxLon);
+        if (lat >= minLat && lat <= maxLat && inLongitude) {
+          ids.add(entry.getKey());
+        }
+      }
+    }
+    Collections.sort(ids, idOrder);
+    if (query.getLimit() > 0 && ids.size() > query.getLimit()) {
+      return new ArrayList<Object>(ids.subList(0, query.getLimit()));
+    }
+    return ids;
+  }
+
+  private List<Object> near(GeoQuery query, Comparator<Object> idOrder) {
+    double lat = query.getMinLatitude();
+    double lon = query.getMinLongitude();
+    Nearest nearest = new Nearest(query.getMaxDistance(), query.getLimit(), idOrder);
+    int centerLatitudeCell = latitudeCell(lat);
+    int centerLongitudeCell = longitudeCell(lon);
+    Set<Long> visited = new HashSet<Long>();
+    int seen = 0;
+    for (int ring = 0; seen < points.size(); ring++) {
+      if (visited.size() > points.size()) {
+        //Visiting empty cells has become more work than measuring the distance to every point
+        nearest = new Nearest(query.getMaxDistance(), query.getLimit(), idOrder);
+        nearest.offerAll(lat, lon, points);
+        break;
+      }
+      for (int dLat = -ring; dLat <= ring; dLat++) {
+        int latitudeCell = centerLatitudeCell + dLat;
+        if (latitudeCell < 0 || latitudeCell >= latitudeCells) {
+          continue;
+        }
+        int step = (Math.abs(dLat) == ring) ? 1 : Math.max(1, 2 * ring);
+        for (int dLon = -ring; dLon <= ring; dLon += step) {
+          long key = cellKey(latitudeCell, Math.floorMod(centerLongitudeCell + dLon, longitudeCells));
+          if (visited.add(key)) {
+            Map<Object, double[]> cell = cells.get(key);
+            if (null != cell) {
+              seen += cell.size();
+              nearest.offerAll(lat, lon, cell);
+            }
+          }
+        }
+      }
+      double bound = distanceBeyond(lat, lon, centerLatitudeCell, centerLongitudeCell, ring);
+      if (bound > query.getMaxDistance() || nearest.isFullWithin(bound)) {
+        break;
+      }
+    }
+    return nearest.ids();
+  }
+
+  /**
+   * @return a distance that every point outside the square of cells around the center, up to the given ring, is further than
+   */
+  private double distanceBeyond(double lat, double lon, int centerLatitudeCell, int centerLongitudeCell, int ring) {
+    double lowLat = Math.max(-90, (centerLatitudeCell - ring) * cellSize - 90);
+    double highLat = Math.min(90, (centerLatitudeCell + ring + 1) * cellSize - 90);
+    double bound = Double.POSITIVE_INFINITY;
+    //No point differs less in latitude than the great circle distance to it
+    if (lowLat > -90) {
+      bound = Math.min(bound, Math.toRadians(lat - lowLat) * EARTH_RADIUS);
+    }
+    if (highLat < 90) {
+      bound = Math.min(bound, Math.toRadians(highLat - lat) * EARTH_RADIUS);
+    }
+    if (2 * ring + 1 < longitudeCells) {
+      double lowLon = (centerLongitudeCell - ring) * cellSize - 180;
+      double highLon = (centerLongitudeCell + ring + 1) * cellSize - 180;
+      double dLon = Math.toRadians(Math.min(lon - lowLon, highLon - lon));
+      //A point within the latitudes of the square but beyond its longitudes, by the haversine formula
+      double maxAbsLat = Math.max(Math.abs(lowLat), Math.abs(highLat));
+      double h = Math.cos(Math.toRadians(lat)) * Math.cos(Math.toRadians(maxAbsLat)) * Math.pow(Math.sin(dLon / 2), 2);
+      bound = Math.min(bound, 2 * EARTH_RADIUS * Math.asin(Math.sqrt(Math.min(1, h))));
+    }
+    return bound;
+  }
+
+  /**
+   * @return the great circle distance in meters between two points given in degrees
+   */
+  public static double distance(double lat1, double lon1, double lat2, double lon2) {
+    double dLat = Math.toRadians(lat2 - lat1);
+    double dLon = Math.toRadians(lon2 - lon1);
+    double h = Math.pow(Math.sin(dLat / 2), 2)
+        + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.pow(Math.sin(dLon / 2), 2);
+    return 2 * EARTH_RADIUS * Math.asin(Math.sqrt(Math.min(1, h)));
+  }
+
+  /**
+   * The points found within the distance of a search around a center, only the nearest ones if
+   * the search has a limit
+   */
+  private static class Nearest {
+    private final double maxDistance;
+    private final int limit;
+    private final Comparator<Object[]> order;
+    private final PriorityQueue<Object[]> farthestFirst;
+    private final List<Object[]> found = new ArrayList<Object[]>();
+
+    Nearest(double maxDistance, int limit, final Comparator<Object> idOrder) {
+      this.maxDistance = maxDistance;
+      this.limit = limit;
+      this.order = new Comparator<Object[]>() {
+        @Override
+        public int compare(Object[] match1, Object[] match2) {
+          int byDistance = Double.compare((Double) match1[1], (Double) match2[1]);
+          return (byDistance != 0) ? byDistance : idOrder.compare(match1[0], match2[0]);
+        }
+      };
+      this.farthestFirst = (limit > 0) ? new PriorityQueue<Object[]>(limit + 1, Collections.reverseOrder(order)) : null;
+    }
+
+    void offerAll(double lat, double lon, Map<Object, double[]> candidates) {
+      for (Map.Entry<Object, double[]> entry : candidates.entrySet()) {
+        double d = distance(lat, lon, entry.getValue()[0], entry.getValue()[1]);
+        if (d > maxDistance) {
+          continue;
+        }
+        Object[] match = new Object[] {entry.getKey(), d};
+        if (null == farthestFirst) {
+          found.add(match);
+        } else {
+          farthestFirst.add(match);
+          if (farthestFirst.size() > limit) {
+            farthestFirst.poll();
+          }
+        }
+      }
+    }
+
+    /**
+     * @return true if the search has found as many points as its limit, all nearer than the given distance
+     */
+    boolean isFullWithin(double distance) {
+      return null != farthestFirst && farthestFirst.size() == limit && (Double) farthestFirst.peek()[1] <= distance;
+    }
+
+    List<Object> ids() {
+      List<Object[]> matches = new ArrayList<Object[]>((null == farthestFirst) ? found : farthestFirst);
+      Collections.sort(matches, order);
+      List<Object> ids = new ArrayList<Object>(matches.size());
+      for (Object[] match : matches) {
+        ids.add(match[0]);
+      }
+      return ids;
+    }
+  }
+}
@@ -0,0 +1,314 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.io;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+
+import io.jsondb.CollectionMetaData;
+import io.jsondb.JsonDBConfig;
+
+/**
+ * A binary checkpoint of a collection, kept in the snapshot folder next to the .json files.
+ *
+ * A snapshot holds the documents of a collection encoded in the Smile binary format, preceded by
+ * a header that records the size, modification time and CRC32 checksum of the .json file the
+ * documents came from. A snapshot is only ever used while that stamp still matches the .json file,
+ * the .json file always remains the source of truth.
+ *
+ * @version 1.0 19-Oct-2026
+ */
+public class CollectionSnapshot {
+
+  public static final String SNAPSHOT_FOLDER = "snapshot";
+  private static final String SNAPSHOT_FILE_EXTENSION = ".snapshot";
+
+  private static final int MAGIC = 0x4A44424B;
+  private static final int FORMAT_VERSION = 1;
+
+  private Logger logger = LoggerFactory.getLogger(CollectionSnapshot.class);
+
+  private JsonDBConfig dbConfig;
+  private CollectionMetaData cmd;
+  private File collectionFile;
+  private File snapshotFile;
+
+  public CollectionSnapshot(JsonDBConfig dbConfig, CollectionMetaData cmd, File collectionFile) {
+    this.dbConfig = dbConfig;
+    this.cmd = cmd;
+    this.collectionFile = collectionFile;
+    File snapshotFolder = new File(collectionFile.getParentFile(), SNAPSHOT_FOLDER);
+    this.snapshotFile = new File(snapshotFolder, cmd.getCollectionName() + SNAPSHOT_FILE_EXTENSION);
+  }
+
+  public File getSnapshotFile() {
+    return snapshotFile;
+  }
+
+  /**
+   * @return true if a snapshot exists and was taken from the .json file exactly as it is now
+   */
+  public boolean isCurrent() {
+    if (!snapshotFile.exists()) {
+      return false;
+    }
+    try {
+      ByteBuffer header = ByteBuffer.wrap(readHeaderBytes());
+      return null != readHeader(header) && isStampCurrent(header);
+    } catch (IOException | BufferUnderflowException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Loads the documents of the collection from the snapshot. Reads the whole snapshot in one go
+   * and decodes the documents from the binary payload, which is much cheaper than parsing the
+   * .json file line by line.
+   *
+   * @param <T> Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *            and member of the baseScanPackage
+   * @return the documents keyed by their Id or null if there is no usable snapshot, in which
+   *         case the collection has to be loaded from the .json file
+   */
+  public <T> Map<Object, T> read() {
+    if (!snapshotFile.exists()) {
+      return null;
+    }
+    @SuppressWarnings("unchecked")
+    Class<T> entity = cmd.getClazz();
+    try {
+      ByteBuffer snapshot = ByteBuffer.wrap(Files.readAllBytes(snapshotFile.toPath()));
+      String actualSchemaVersion = readHeader(snapshot);
+      if (null == actualSchemaVersion || !isStampCurrent(snapshot)) {
+        logger.debug("Snapshot for collection {} is stale, ignoring it", cmd.getCollectionName());
+        return null;
+      }
+      int documentCount = snapshot.getInt();
+      long payloadChecksum = snapshot.getLong();
+      int payloadLength = snapshot.getInt();
+      int payloadOffset = snapshot.position();
+      if (payloadLength != snapshot.remaining()
+          || payloadChecksum != checksum(snapshot.array(), payloadOffset, payloadLength)) {
+        logger.warn("Snapshot for collection {} is damaged, ignoring it", cmd.getCollectionName());
+        return null;
+      }
+
+      Map<Object, T> collection = new LinkedHashMap<Object, T>(Math.max(16, (int) (documentCount / 0.75f) + 1));
+      ObjectMapper snapshotMapper = dbConfig.getSnapshotMapper();
+      MappingIterator<T> documents = snapshotMapper.readerFor(entity).readValues(snapshot.array(), payloadOffset, payloadLength);
+      try {
+        while (documents.hasNextValue()) {
+          T row = documents.nextValue();
+          collection.put(cmd.getId(row), row);
+        }
+      } finally {
+        documents.close();
+      }
+      if (collection.size() != documentCount) {
+        logger.warn("Snapshot for collection {} has {} documents expected {}, ignoring it",
+            cmd.getCollectionName(), collection.size(), documentCount);
+        return null;
+      }
+      cmd.setActualSchemaVersion(actualSchemaVersion);
+      cmd.recordCollectionFileState(collectionFile);
+      return collection;
+    } catch (IOException | RuntimeException e) {
+      logger.warn("Failed to read snapshot for collection {}, falling back to the json file", cmd.getCollectionName(), e);
+      return null;
+    }
+  }
+
+  /**
+   * Writes a snapshot of the given documents in a atomic way. The caller must hold at least the
+   * read lock of the collection and must make sure the documents are exactly what the .json file holds.
+   *
+   * @param documents all documents of the collection
+   * @param <T> Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *            and member of the baseScanPackage
+   * @return true if success
+   */
+  public <T> boolean write(Collection<T> documents) {
+    File snapshotFolder = snapshotFile.getParentFile();
+    if (!snapshotFolder.exists()) {
+      snapshotFolder.mkdirs();
+    }
+    File tFile = null;
+    try {
+      //Stamp the source file first, if it changes while we are writing the stamp will simply not match later
+      long sourceLength = collectionFile.length();
+      long sourceLastModified = collectionFile.lastModified();
+      long sourceChecksum = checksum(collectionFile);
+
+      ByteArrayOutputStream payload = new ByteArrayOutputStream(Math.max(1024, documents.size() * 128));
+      SequenceWriter sequenceWriter = dbConfig.getSnapshotMapper().writerFor(cmd.getClazz()).writeValues(payload);
+      for (T document : documents) {
+        sequenceWriter.write(document);
+      }
+      sequenceWriter.close();
+      byte[] payloadBytes = payload.toByteArray();
+
+      tFile = File.createTempFile(cmd.getCollectionName(), null, snapshotFolder);
+      DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tFile)));
+      try {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        writeString(out, cmd.getClazz().getName());
+        writeString(out, cmd.getActualSchemaVersion());
+        out.writeLong(sourceLength);
+        out.writeLong(sourceLastModified);
+        out.writeLong(sourceChecksum);
+        out.writeInt(documents.size());
+        out.writeLong(checksum(payloadBytes, 0, payloadBytes.length));
+        out.writeInt(payloadBytes.length);
+        out.write(payloadBytes);
+      } finally {
+        out.close();
+      }
+      Files.move(tFile.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      return true;
+    } catch (IOException | RuntimeException e) {
+      logger.error("Failed to write snapshot for collection {}", cmd.getCollectionName(), e);
+      if (null != tFile) {
+        tFile.delete();
+      }
+      return false;
+    }
+  }
+
+  /**
+   * Removes the snapshot if there is one.
+   */
+  public void delete() {
+    try {
+      Files.deleteIfExists(snapshotFile.toPath());
+    } catch (IOException e) {
+      logger.error("Failed to delete snapshot for collection {}", cmd.getCollectionName(), e);
+    }
+  }
+
+  private byte[] readHeaderBytes() throws IOException {
+    //Magic, version, two short strings and the stamp fit comfortably, the rest is the payload
+    InputStream in = new FileInputStream(snapshotFile);
+    try {
+      byte[] buffer = new byte[4096];
+      int length = 0;
+      int read;
+      while (length < buffer.length && (read = in.read(buffer, length, buffer.length - length)) != -1) {
+        length += read;
+      }
+      byte[] header = new byte[length];
+      System.arraycopy(buffer, 0, header, 0, length);
+      return header;
+    } finally {
+      in.close();
+    }
+  }
+
+  /**
+   * Reads the header up to the stamp, leaves the buffer positioned at the stamp.
+   *
+   * @return the schema version recorded in the snapshot, or null if the header does not belong to this collection
+   */
+  private String readHeader(ByteBuffer snapshot) {
+    if (snapshot.getInt() != MAGIC || snapshot.getInt() != FORMAT_VERSION) {
+      return null;
+    }
+    String className = readString(snapshot);
+    String actualSchemaVersion = readString(snapshot);
+    if (!cmd.getClazz().getName().equals(className)) {
+      return null;
+    }
+    return actualSchemaVersion;
+  }
+
+  /**
+   * Compares the stamp at the current buffer position with the .json file, the cheap size and
+   * modification time checks go first, the file is only read for the checksum when those match.
+   */
+  private boolean isStampCurrent(ByteBuffer snapshot) throws IOException {
+    long sourceLength = snapshot.getLong();
+    long sourceLastModified = snapshot.getLong();
+    long sourceChecksum = snapshot.getLong();
+    if (sourceLength != collectionFile.length() || sourceLastModified != collectionFile.lastModified()) {
+      return false;
+    }
+    return sourceChecksum == checksum(collectionFile);
+  }
+
+  private static long checksum(File file) throws IOException {
+    CRC32 crc = new CRC32();
+    InputStream in = new FileInputStream(file);
+    try {
+      byte[] buffer = new byte[64 * 1024];
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        crc.update(buffer, 0, read);
+      }
+    } finally {
+      in.close();
+    }
+    return crc.getValue();
+  }
+
+  private static long checksum(byte[] bytes, int offset, int length) {
+    CRC32 crc = new CRC32();
+    crc.update(bytes, offset, length);
+    return crc.getValue();
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] bytes = (null == value ? "" : value).getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(ByteBuffer buffer) {
+    int length = buffer.getInt();
+    if (length < 0 || length > buffer.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    String value = new String(buffer.array(), buffer.position(), length, StandardCharsets.UTF_8);
+    buffer.position(buffer.position() + length);
+    return value;
+  }
+}
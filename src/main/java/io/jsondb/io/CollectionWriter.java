@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.io;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Persists the changes made to a collection, the template invokes it before it changes the
+ * documents it holds in memory and only changes them if the write succeeded.
+ *
+ * @version 1.0 19-Oct-2026
+ */
+public interface CollectionWriter {
+
+  /**
+   * Persists a new document added to the end of the collection.
+   *
+   * @param collection existing collection
+   * @param objectToSave new Object that is being inserted
+   * @param <T> Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *            and member of the baseScanPackage
+   * @return true if success
+   */
+  <T> boolean appendToJsonFile(Collection<T> collection, Object objectToSave);
+
+  /**
+   * Persists new documents added to the end of the collection.
+   *
+   * @param collection existing collection
+   * @param batchToSave collection of objects to append.
+   * @param <T> Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *            and member of the baseScanPackage
+   * @return true if success
+   */
+  <T> boolean appendToJsonFile(Collection<T> collection, Collection<? extends T> batchToSave);
+
+  /**
+   * Persists the removal of a document.
+   *
+   * @param collection existing collection
+   * @param id id of object to be removed.
+   * @param <T> Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *            and member of the baseScanPackage
+   * @return true if success
+   */
+  <T> boolean removeFromJsonFile(Map<Object, T> collection, Object id);
+
+  /**
+   * Persists the removal of documents.
+   *
+   * @param collection existing collection
+   * @param removeIds ids of objects to be removed.
+   * @param <T> Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *            and member of the baseScanPackage
+   * @return true if success
+   */
+  <T> boolean removeFromJsonFile(Map<Object, T> collection, Set<Object> removeIds);
+
+  /**
+   * Persists the replacement of a document.
+   *
+   * @param collection existing collection
+   * @param id the id of object to save
+   * @param objectToSave the actual object to save.
+   * @param <T> Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *            and member of the baseScanPackage
+   * @return true if success
+   */
+  <T> boolean updateInJsonFile(Map<Object, T> collection, Object id, T objectToSave);
+
+  /**
+   * Persists the replacement of documents.
+   *
+   * @param collection existing collection
+   * @param modifiedObjects objects to update.
+   * @param <T> Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *            and member of the baseScanPackage
+   * @return true if success
+   */
+  <T> boolean updateInJsonFile(Map<Object, T> collection, Map<Object, T> modifiedObjects);
+
+  /**
+   * Persists the entire collection again.
+   *
+   * @param collection existing collection
+   * @param ignoreReadonly force rewrite even if the collection is marked readonly this is necessary for schemaupdate.
+   * @param <T> Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *            and member of the baseScanPackage
+   * @return true if success
+   */
+  <T> boolean reWriteJsonFile(Collection<T> collection, boolean ignoreReadonly);
+
+  /**
+   * Persists the entire collection again with a key renamed in every document.
+   *
+   * @param collection existing collection
+   * @param ignoreReadonly force rewrite even if the collection is marked readonly this is necessary for schemaupdate.
+   * @param oldKey String representing the old key/field
+   * @param newKey String representing the new key/field
+   * @param <T> Type annotated with {@link io.jsondb.annotation.Document} annotation
+   *            and member of the baseScanPackage
+   * @return true if success
+   */
+  <T> boolean renameKeyInJsonFile(Collection<T> collection, boolean ignoreReadonly, String oldKey, String newKey);
+}
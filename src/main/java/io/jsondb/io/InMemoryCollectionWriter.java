@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.io;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+import io.jsondb.CollectionMetaData;
+import io.jsondb.InvalidJsonDbApiUsageException;
+
+/**
+ * The CollectionWriter of a in-memory database, there is nothing to persist so every write
+ * succeeds without any I/O. Readonly collections are refused exactly like {@link JsonWriter} does.
+ *
+ * @version 1.0 19-Oct-2026
+ */
+public class InMemoryCollectionWriter implements CollectionWriter {
+  private CollectionMetaData cmd;
+
+  public InMemoryCollectionWriter(CollectionMetaData cmd) {
+    this.cmd = cmd;
+  }
+
+  private void ensureWritable(boolean ignoreReadonly) {
+    if (!ignoreReadonly && cmd.isReadOnly()) {
+      throw new InvalidJsonDbApiUsageException("Failed to modify collection, Collection is loaded as readonly");
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.io.CollectionWriter#appendToJsonFile(java.util.Collection, java.lang.Object)
+   */
+  @Override
+  public <T> boolean appendToJsonFile(Collection<T> collection, Object objectToSave) {
+    ensureWritable(false);
+    return true;
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.io.CollectionWriter#appendToJsonFile(java.util.Collection, java.util.Collection)
+   */
+  @Override
+  public <T> boolean appendToJsonFile(Collection<T> collection, Collection<? extends T> batchToSave) {
+    ensureWritable(false);
+    return true;
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.io.CollectionWriter#removeFromJsonFile(java.util.Map, java.lang.Object)
+   */
+  @Override
+  public <T> boolean removeFromJsonFile(Map<Object, T> collection, Object id) {
+    ensureWritable(false);
+    return true;
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.io.CollectionWriter#removeFromJsonFile(java.util.Map, java.util.Set)
+   */
+  @Override
+  public <T> boolean removeFromJsonFile(Map<Object, T> collection, Set<Object> removeIds) {
+    ensureWritable(false);
+    return true;
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.io.CollectionWriter#updateInJsonFile(java.util.Map, java.lang.Object, java.lang.Object)
+   */
+  @Override
+  public <T> boolean updateInJsonFile(Map<Object, T> collection, Object id, T objectToSave) {
+    ensureWritable(false);
+    return true;
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.io.CollectionWriter#updateInJsonFile(java.util.Map, java.util.Map)
+   */
+  @Override
+  public <T> boolean updateInJsonFile(Map<Object, T> collection, Map<Object, T> modifiedObjects) {
+    ensureWritable(false);
+    return true;
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.io.CollectionWriter#reWriteJsonFile(java.util.Collection, boolean)
+   */
+  @Override
+  public <T> boolean reWriteJsonFile(Collection<T> collection, boolean ignoreReadonly) {
+    ensureWritable(ignoreReadonly);
+    return true;
+  }
+
+  /* (non-Javadoc)
+   * @see io.jsondb.io.CollectionWriter#renameKeyInJsonFile(java.util.Collection, boolean, java.lang.String, java.lang.String)
+   */
+  @Override
+  public <T> boolean renameKeyInJsonFile(Collection<T> collection, boolean ignoreReadonly, String oldKey, String newKey) {
+    ensureWritable(ignoreReadonly);
+    return true;
+  }
+}
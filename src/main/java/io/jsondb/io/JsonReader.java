@@ -29,6 +29,7 @@ import java.io.RandomAccessFile;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
 import java.nio.channels.OverlappingFileLockException;
+import java.util.Arrays;
 import java.nio.charset.CharsetDecoder;
 import java.nio.charset.CodingErrorAction;
 
@@ -59,34 +60,59 @@ public class JsonReader {
   private File lockFilesLocation;
   private File fileLockLocation;
 
+  //State for reading undecoded lines, see readLineBytes()
+  private byte[] readBuffer;
+  private int readPosition;
+  private int readLimit;
+  private byte[] lineBuffer;
+  private int lineLength;
+  private long lineOffset;
+  private long readBufferOffset;
+  private boolean skipLF;
+
   public JsonReader(JsonDBConfig dbConfig, File collectionFile) throws IOException {
+    this(dbConfig, collectionFile, true);
+  }
+
+  /**
+   * @param dbConfig the settings of the database
+   * @param collectionFile the .json file to read
+   * @param lockFile false to read the file without taking its lock, for readers that are already
+   *        kept apart from the writers of this JVM by the collection lock and may be invoked
+   *        while a writer holds the lock of the file, and for in-memory databases that never
+   *        write the file. Neither the lock directory nor the lock file are created then
+   * @throws IOException if the file cannot be opened or locked
+   */
+  public JsonReader(JsonDBConfig dbConfig, File collectionFile, boolean lockFile) throws IOException {
     this.collectionFile = collectionFile;
     this.lockFilesLocation = new File(collectionFile.getParentFile(), "lock");
     this.fileLockLocation = new File(lockFilesLocation, collectionFile.getName() + ".lock");
-    
-    if(!lockFilesLocation.exists()) {
-      lockFilesLocation.mkdirs();
-    }
-    if(!fileLockLocation.exists()) {
-      fileLockLocation.createNewFile();
-    }
+
 
     CharsetDecoder decoder = dbConfig.getCharset().newDecoder();
     decoder.onMalformedInput(CodingErrorAction.REPORT);
     decoder.onUnmappableCharacter(CodingErrorAction.REPORT);
     
-    raf = new RandomAccessFile(fileLockLocation, "rw");
-    channel = raf.getChannel();
-    try {
-      lock = channel.lock();
-    } catch (IOException | OverlappingFileLockException e) {
+    if (lockFile) {
+      if(!lockFilesLocation.exists()) {
+        lockFilesLocation.mkdirs();
+      }
+      if(!fileLockLocation.exists()) {
+        fileLockLocation.createNewFile();
+      }
+      raf = new RandomAccessFile(fileLockLocation, "rw");
+      channel = raf.getChannel();
       try {
-        channel.close();
-        raf.close();
-      } catch (IOException e1) {
-        logger.error("Failed while closing RandomAccessFile for collection file {}", collectionFile.getName());
+        lock = channel.lock();
+      } catch (IOException | OverlappingFileLockException e) {
+        try {
+          channel.close();
+          raf.close();
+        } catch (IOException e1) {
+          logger.error("Failed while closing RandomAccessFile for collection file {}", collectionFile.getName());
+        }
+        throw new JsonFileLockException("JsonReader failed to obtain a file lock for file " + fileLockLocation, e);
       }
-      throw new JsonFileLockException("JsonReader failed to obtain a file lock for file " + fileLockLocation, e);
     }
 
     fis = new FileInputStream(collectionFile);
@@ -105,6 +131,81 @@ public class JsonReader {
     return reader.readLine();
   }
 
+  /**
+   * A utility method that reads the next line as raw bytes, without decoding it into a String.
+   * Lines are terminated the same way as for {@link #readLine()}. The returned array is reused
+   * by subsequent calls and only its first {@link #getLineLength()} bytes belong to the line.
+   *
+   * This method and {@link #readLine()} must not be mixed on the same reader.
+   *
+   * @return the buffer holding the line just read, or null if the end of the file was reached
+   * @throws IOException if an I/O error occurs
+   */
+  public byte[] readLineBytes() throws IOException {
+    if (null == readBuffer) {
+      readBuffer = new byte[64 * 1024];
+      lineBuffer = new byte[8 * 1024];
+    }
+    lineLength = 0;
+    boolean readSomething = false;
+    while (true) {
+      if (readPosition >= readLimit) {
+        readBufferOffset += readLimit;
+        readLimit = fis.read(readBuffer, 0, readBuffer.length);
+        readPosition = 0;
+        if (readLimit < 1) {
+          readLimit = 0;
+          return readSomething ? lineBuffer : null;
+        }
+      }
+      if (skipLF) {
+        skipLF = false;
+        if (readBuffer[readPosition] == '\n') {
+          readPosition++;
+          continue;
+        }
+      }
+      if (!readSomething) {
+        lineOffset = readBufferOffset + readPosition;
+        readSomething = true;
+      }
+      int start = readPosition;
+      while (readPosition < readLimit) {
+        byte b = readBuffer[readPosition];
+        if (b == '\n' || b == '\r') {
+          appendToLine(start, readPosition - start);
+          readPosition++;
+          skipLF = (b == '\r');
+          return lineBuffer;
+        }
+        readPosition++;
+      }
+      appendToLine(start, readPosition - start);
+    }
+  }
+
+  /**
+   * @return number of valid bytes in the buffer returned by the last call to {@link #readLineBytes()}
+   */
+  public int getLineLength() {
+    return lineLength;
+  }
+
+  /**
+   * @return position in the file of the first byte of the line returned by the last call to {@link #readLineBytes()}
+   */
+  public long getLineOffset() {
+    return lineOffset;
+  }
+
+  private void appendToLine(int start, int length) {
+    if (lineLength + length > lineBuffer.length) {
+      lineBuffer = Arrays.copyOf(lineBuffer, Math.max(lineBuffer.length * 2, lineLength + length));
+    }
+    System.arraycopy(readBuffer, start, lineBuffer, lineLength, length);
+    lineLength += length;
+  }
+
   public void close() {
     try {
       reader.close();
@@ -117,14 +218,16 @@ public class JsonReader {
       logger.error("Failed to close InputStreamReader for collection file {}", collectionFile.getName(), e);
     }
     try {
-      if(lock.isValid()) {
+      if(null != lock && lock.isValid()) {
         lock.release();
       }
     } catch (IOException e) {
       logger.error("Failed to release lock for collection file {}", collectionFile.getName(), e);
     }
     try {
-      channel.close();
+      if (null != channel) {
+        channel.close();
+      }
     } catch (IOException e) {
       logger.error("Failed to close FileChannel for collection file {}", collectionFile.getName(), e);
     }
@@ -134,7 +237,9 @@ public class JsonReader {
       logger.error("Failed to close FileInputStream for collection file {}", collectionFile.getName(), e);
     }
     try {
-      raf.close();
+      if (null != raf) {
+        raf.close();
+      }
     } catch (IOException e) {
       logger.error("Failed to close RandomAccessFile for collection file {}", collectionFile.getName(), e);
     }    
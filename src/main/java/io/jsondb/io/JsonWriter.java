@@ -21,6 +21,7 @@
 package io.jsondb.io;
 
 import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -54,7 +55,7 @@ import io.jsondb.SchemaVersion;
  * @author Farooq Khan
  * @version 1.0 25-Sep-2016
  */
-public class JsonWriter {
+public class JsonWriter implements CollectionWriter {
 
   private Logger logger = LoggerFactory.getLogger(JsonWriter.class);
 
@@ -210,6 +211,7 @@ public class JsonWriter {
 
       try {
         Files.move(tFile.toPath(), collectionFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        cmd.recordCollectionFileState(collectionFile);
       } catch (IOException e) {
         logger.error("Failed to move temporary collection file {} to collection file {}", tFileName, collectionFile.getName(), e);
       }
@@ -301,6 +303,7 @@ public class JsonWriter {
 
       try {
         Files.move(tFile.toPath(), collectionFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        cmd.recordCollectionFileState(collectionFile);
       } catch (IOException e) {
         logger.error("Failed to move temporary collection file {} to collection file {}", tFileName, collectionFile.getName(), e);
       }
@@ -311,6 +314,93 @@ public class JsonWriter {
     }
   }
 
+  /**
+   * A utility method that appends the provided objects to the end of the collection file in place,
+   * the documents already in the file are not written again. If writing fails the file is cut back
+   * to its previous length.
+   *
+   * @param batchToSave collection of objects to append.
+   * @return the position and length of every line written, or null if the write failed
+   */
+  public LinePositions appendLinesToJsonFile(Collection<?> batchToSave) {
+    if (cmd.isReadOnly()) {
+      throw new InvalidJsonDbApiUsageException("Failed to modify collection, Collection is loaded as readonly");
+    }
+    byte[][] lines = new byte[batchToSave.size()][];
+    int lineNo = 0;
+    for (Object o : batchToSave) {
+      try {
+        lines[lineNo++] = objectMapper.writeValueAsString(o).getBytes(charset);
+      } catch (JsonProcessingException e) {
+        logger.error("Failed in coverting Object to Json collection {}", collectionName, e);
+        throw new InvalidJsonDbApiUsageException("Failed Json Processing for collection " + collectionName, e);
+      }
+    }
+    byte[] lineSeparator = System.lineSeparator().getBytes(charset);
+
+    FileLock lock = null;
+    try {
+      try {
+        lock = acquireLock();
+      } catch (IOException e) {
+        logger.error("Failed to acquire lock for collection file {}", collectionFile.getName(), e);
+        return null;
+      }
+
+      long[] offsets = new long[lines.length];
+      int[] lengths = new int[lines.length];
+      RandomAccessFile file = null;
+      long previousLength = -1;
+      try {
+        file = new RandomAccessFile(collectionFile, "rw");
+        previousLength = file.length();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        long position = previousLength;
+        if (previousLength > 0) {
+          file.seek(previousLength - 1);
+          int last = file.read();
+          if (last != '\n' && last != '\r') {
+            //The file was edited by hand, do not glue the first new document to the last line
+            buffer.write(lineSeparator);
+            position += lineSeparator.length;
+          }
+        }
+        for (int i = 0; i < lines.length; i++) {
+          offsets[i] = position;
+          lengths[i] = lines[i].length;
+          buffer.write(lines[i]);
+          buffer.write(lineSeparator);
+          position += lines[i].length + lineSeparator.length;
+        }
+        file.seek(previousLength);
+        file.write(buffer.toByteArray());
+      } catch (IOException e) {
+        logger.error("Failed to append objects to collection file {}", collectionFile.getName(), e);
+        if (null != file && previousLength >= 0) {
+          try {
+            file.setLength(previousLength);
+          } catch (IOException e1) {
+            logger.error("Failed to cut collection file {} back after a failed append", collectionFile.getName(), e1);
+          }
+        }
+        return null;
+      } finally {
+        if (null != file) {
+          try {
+            file.close();
+          } catch (IOException e) {
+            logger.error("Failed to close RandomAccessFile for collection file {}", collectionFile.getName(), e);
+          }
+        }
+      }
+      cmd.recordCollectionFileState(collectionFile);
+      return new LinePositions(offsets, lengths);
+
+    } finally {
+      releaseLock(lock);
+    }
+  }
+
   /**
    * A utility method that substracts the provided Ids and writes rest of the collection to
    * file in a atomic way
@@ -389,6 +479,7 @@ public class JsonWriter {
 
       try {
         Files.move(tFile.toPath(), collectionFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        cmd.recordCollectionFileState(collectionFile);
       } catch (IOException e) {
         logger.error("Failed to move temporary collection file {} to collection file {}", tFileName, collectionFile.getName(), e);
       }
@@ -477,6 +568,7 @@ public class JsonWriter {
 
       try {
         Files.move(tFile.toPath(), collectionFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        cmd.recordCollectionFileState(collectionFile);
       } catch (IOException e) {
         logger.error("Failed to move temporary collection file {} to collection file {}", tFileName, collectionFile.getName(), e);
       }
@@ -571,6 +663,7 @@ public class JsonWriter {
 
       try {
         Files.move(tFile.toPath(), collectionFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        cmd.recordCollectionFileState(collectionFile);
       } catch (IOException e) {
         logger.error("Failed to move temporary collection file {} to collection file {}", tFileName, collectionFile.getName(), e);
       }
@@ -664,6 +757,7 @@ public class JsonWriter {
 
       try {
         Files.move(tFile.toPath(), collectionFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        cmd.recordCollectionFileState(collectionFile);
       } catch (IOException e) {
         logger.error("Failed to move temporary collection file {} to collection file {}", tFileName, collectionFile.getName(), e);
       }
@@ -750,6 +844,7 @@ public class JsonWriter {
 
       try {
         Files.move(tFile.toPath(), collectionFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        cmd.recordCollectionFileState(collectionFile);
       } catch (IOException e) {
         logger.error("Failed to move temporary collection file {} to collection file {}", tFileName, collectionFile.getName(), e);
       }
@@ -844,6 +939,7 @@ public class JsonWriter {
 
       try {
         Files.move(tFile.toPath(), collectionFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+        cmd.recordCollectionFileState(collectionFile);
       } catch (IOException e) {
         logger.error("Failed to move temporary collection file {} to collection file {}", tFileName, collectionFile.getName(), e);
       }
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.io;
+
+/**
+ * Where lines written to the end of a collection file ended up, so that a collection that reads its
+ * documents from the file on demand can locate them without scanning the file.
+ *
+ * @version 1.0 19-Oct-2026
+ */
+public class LinePositions {
+  private final long[] offsets;
+  private final int[] lengths;
+
+  public LinePositions(long[] offsets, int[] lengths) {
+    this.offsets = offsets;
+    this.lengths = lengths;
+  }
+
+  public int size() {
+    return offsets.length;
+  }
+
+  /**
+   * @param line number of the line among the ones written, starting at 0
+   * @return position in the file of the first byte of the line
+   */
+  public long getOffset(int line) {
+    return offsets[line];
+  }
+
+  /**
+   * @param line number of the line among the ones written, starting at 0
+   * @return length of the line in bytes, without the line separator
+   */
+  public int getLength(int line) {
+    return lengths[line];
+  }
+}
@@ -0,0 +1,317 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import io.jsondb.InvalidJsonDbApiUsageException;
+
+/**
+ * An aggregation of the documents of a collection into rows of grouped values, passed to
+ * {@link io.jsondb.JsonDBOperations#aggregate(Aggregation, Class)}. The stages run in a fixed order:
+ * the documents are matched by a JXPath query or a {@link Criteria}, grouped by the values at one or
+ * more paths, reduced to the accumulated values of every group, and the rows are then sorted and limited.
+ *
+ * <pre>
+ * jsonDBTemplate.aggregate(Aggregation.match(Criteria.eq("region", Region.EU))
+ *     .groupBy("status").count("tickets").sum("hours", "totalHours")
+ *     .sortDescending("tickets").limit(10), Ticket.class);
+ * </pre>
+ *
+ * Every row is a map of the paths grouped by to the values of the group, followed by the accumulated
+ * values under their names. Without a group by all matched documents make up a single row. A document
+ * with several values at a path grouped by, as with a collection field, is part of the group of every
+ * one of them, and one with no value at the path is part of the group of null.
+ *
+ * @version 1.0 19-Oct-2026
+ */
+public class Aggregation {
+
+  public enum Function {
+    COUNT, SUM, AVG, MIN, MAX
+  }
+
+  /**
+   * A value computed over the documents of every group
+   */
+  public static class Accumulator {
+    private final Function function;
+    private final String path;
+    private final String name;
+
+    private Accumulator(Function function, String path, String name) {
+      this.function = function;
+      this.path = path;
+      this.name = name;
+    }
+
+    public Function getFunction() {
+      return function;
+    }
+
+    /**
+     * @return the path of the values accumulated, null for {@link Function#COUNT}
+     */
+    public String getPath() {
+      return path;
+    }
+
+    /**
+     * @return the name of the value in the rows
+     */
+    public String getName() {
+      return name;
+    }
+
+    /* (non-Javadoc)
+     * @see java.lang.Object#toString()
+     */
+    @Override
+    public String toString() {
+      return name + ": " + function + "(" + (null == path ? "" : path) + ")";
+    }
+  }
+
+  private String jxQuery;
+  private Criteria criteria;
+  private final List<String> groupBy = new ArrayList<String>();
+  private final List<Accumulator> accumulators = new ArrayList<Accumulator>();
+  private final List<String> sortBy = new ArrayList<String>();
+  private final List<Boolean> descending = new ArrayList<Boolean>();
+  private int limit = -1;
+
+  private Aggregation() {
+  }
+
+  /**
+   * Static factory method to create an Aggregation of the documents matching a JXPath query
+   *
+   * @param jxQuery the JXPath query
+   * @return the Aggregation
+   */
+  public static Aggregation match(String jxQuery) {
+    if (null == jxQuery) {
+      throw new InvalidJsonDbApiUsageException("Query cannot be null");
+    }
+    Aggregation aggregation = new Aggregation();
+    aggregation.jxQuery = jxQuery;
+    return aggregation;
+  }
+
+  /**
+   * Static factory method to create an Aggregation of the documents matching a criteria
+   *
+   * @param criteria the criteria
+   * @return the Aggregation
+   */
+  public static Aggregation match(Criteria criteria) {
+    if (null == criteria) {
+      throw new InvalidJsonDbApiUsageException("Criteria cannot be null");
+    }
+    Aggregation aggregation = new Aggregation();
+    aggregation.criteria = criteria;
+    return aggregation;
+  }
+
+  /**
+   * Static factory method to create an Aggregation of all documents of the collection
+   *
+   * @param paths the fields or paths of fields to group the documents by
+   * @return the Aggregation
+   */
+  public static Aggregation group(String... paths) {
+    return new Aggregation().groupBy(paths);
+  }
+
+  public Aggregation groupBy(String... paths) {
+    for (String path : paths) {
+      checkPath(path);
+      checkName(path);
+      groupBy.add(path);
+    }
+    return this;
+  }
+
+  /**
+   * @param name name of the number of documents of the group in the rows
+   * @return this Aggregation
+   */
+  public Aggregation count(String name) {
+    return accumulate(Function.COUNT, null, name);
+  }
+
+  /**
+   * @param path the numeric field or path of fields
+   * @param name name of the sum of the values in the rows, a Long for integral fields, a Double otherwise
+   * @return this Aggregation
+   */
+  public Aggregation sum(String path, String name) {
+    return accumulate(Function.SUM, checkPath(path), name);
+  }
+
+  /**
+   * @param path the numeric field or path of fields
+   * @param name name of the average of the values in the rows, a Double
+   * @return this Aggregation
+   */
+  public Aggregation avg(String path, String name) {
+    return accumulate(Function.AVG, checkPath(path), name);
+  }
+
+  public Aggregation min(String path, String name) {
+    return accumulate(Function.MIN, checkPath(path), name);
+  }
+
+  public Aggregation max(String path, String name) {
+    return accumulate(Function.MAX, checkPath(path), name);
+  }
+
+  private Aggregation accumulate(Function function, String path, String name) {
+    checkName(name);
+    accumulators.add(new Accumulator(function, path, name));
+    return this;
+  }
+
+  /**
+   * @param names paths grouped by or names of accumulated values to sort the rows by, the first one the most significant
+   * @return this Aggregation
+   */
+  public Aggregation sortAscending(String... names) {
+    return sort(false, names);
+  }
+
+  public Aggregation sortDescending(String... names) {
+    return sort(true, names);
+  }
+
+  private Aggregation sort(boolean descending, String... names) {
+    for (String name : names) {
+      if (!groupBy.contains(name) && !isAccumulated(name)) {
+        throw new InvalidJsonDbApiUsageException("Cannot sort by '" + name + "', it is neither grouped by nor accumulated");
+      }
+      this.sortBy.add(name);
+      this.descending.add(descending);
+    }
+    return this;
+  }
+
+  /**
+   * @param limit the maximum number of rows returned
+   * @return this Aggregation
+   */
+  public Aggregation limit(int limit) {
+    if (limit < 0) {
+      throw new InvalidJsonDbApiUsageException("Limit of an aggregation cannot be negative");
+    }
+    this.limit = limit;
+    return this;
+  }
+
+  private static String checkPath(String path) {
+    if (null == path || path.trim().isEmpty() || path.startsWith("/") || path.endsWith("/") || path.contains("//")) {
+      throw new InvalidJsonDbApiUsageException("Path of an aggregation must be field names separated by '/', was '" + path + "'");
+    }
+    return path;
+  }
+
+  private void checkName(String name) {
+    if (null == name || name.trim().isEmpty()) {
+      throw new InvalidJsonDbApiUsageException("Name of an aggregated value cannot be null or empty");
+    }
+    if (groupBy.contains(name) || isAccumulated(name)) {
+      throw new InvalidJsonDbApiUsageException("Name '" + name + "' is used more than once in the aggregation");
+    }
+  }
+
+  private boolean isAccumulated(String name) {
+    for (Accumulator accumulator : accumulators) {
+      if (accumulator.getName().equals(name)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return the JXPath query matching the documents, null if matched by a criteria or all documents are aggregated
+   */
+  public String getQuery() {
+    return jxQuery;
+  }
+
+  /**
+   * @return the criteria matching the documents, null if matched by a JXPath query or all documents are aggregated
+   */
+  public Criteria getCriteria() {
+    return criteria;
+  }
+
+  public List<String> getGroupBy() {
+    return Collections.unmodifiableList(groupBy);
+  }
+
+  public List<Accumulator> getAccumulators() {
+    return Collections.unmodifiableList(accumulators);
+  }
+
+  public List<String> getSortBy() {
+    return Collections.unmodifiableList(sortBy);
+  }
+
+  /**
+   * @param i position of the name in {@link #getSortBy()}
+   * @return true if the rows are sorted in descending order of it
+   */
+  public boolean isDescending(int i) {
+    return descending.get(i);
+  }
+
+  /**
+   * @return the maximum number of rows returned, -1 for all
+   */
+  public int getLimit() {
+    return limit;
+  }
+
+  /* (non-Javadoc)
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder("match ");
+    sb.append(null != jxQuery ? jxQuery : (null != criteria ? criteria.toString() : "all"));
+    if (!groupBy.isEmpty()) {
+      sb.append(", group by ").append(groupBy);
+    }
+    if (!accumulators.isEmpty()) {
+      sb.append(", accumulate ").append(accumulators);
+    }
+    for (int i = 0; i < sortBy.size(); i++) {
+      sb.append(i > 0 ? ", " : ", sort by ").append(sortBy.get(i)).append(descending.get(i) ? " desc" : " asc");
+    }
+    if (limit >= 0) {
+      sb.append(", limit ").append(limit);
+    }
+    return sb.toString();
+  }
+}
@@ -0,0 +1,274 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import io.jsondb.InvalidJsonDbApiUsageException;
+
+/**
+ * A query built from Java values instead of a JXPath string, passed to
+ * {@link io.jsondb.JsonDBOperations#find(Criteria, Class)}.
+ *
+ * <pre>
+ * jsonDBTemplate.find(Criteria.eq("status", Status.OPEN).and(Criteria.gt("total", 100)), Order.class);
+ * jsonDBTemplate.find(Criteria.or(Criteria.in("region", "EU", "US"), Criteria.exists("disks/name")), Server.class);
+ * </pre>
+ *
+ * A criteria is evaluated on the documents through the getters of the fields it names, resolved
+ * once per query, and uses the indexes of the collection where they can answer it. A path is a
+ * field name or field names separated by '/', any field along it may hold a collection or array,
+ * and a comparison holds if it holds for any of the values found at the path.
+ *
+ * Values are compared as the indexes compare them: numbers of any type by their value, enums and
+ * characters as Strings. The order comparisons compare numbers, and otherwise values of the same
+ * Comparable class, a value of any other type never satisfies them.
+ *
+ * @version 1.0 19-Oct-2026
+ */
+public final class Criteria {
+
+  public enum Operator {
+    EQ, NE, IN, GT, GTE, LT, LTE, EXISTS, REGEX, AND, OR, NOT
+  }
+
+  private final Operator operator;
+  private final String path;
+  private final List<Object> values;
+  private final Pattern pattern;
+  private final List<Criteria> operands;
+
+  private Criteria(Operator operator, String path, List<Object> values, Pattern pattern, List<Criteria> operands) {
+    this.operator = operator;
+    this.path = path;
+    this.values = values;
+    this.pattern = pattern;
+    this.operands = operands;
+  }
+
+  private static Criteria on(Operator operator, String path, Object... values) {
+    if (null == path || path.trim().isEmpty() || path.startsWith("/") || path.endsWith("/") || path.contains("//")) {
+      throw new InvalidJsonDbApiUsageException("Path of a criteria must be field names separated by '/', was '" + path + "'");
+    }
+    return new Criteria(operator, path, Collections.unmodifiableList(Arrays.asList(values)), null,
+        Collections.<Criteria>emptyList());
+  }
+
+  private static Criteria joined(Operator operator, List<Criteria> operands) {
+    if (operands.isEmpty() || operands.contains(null)) {
+      throw new InvalidJsonDbApiUsageException("Criteria joined with " + operator + " cannot be empty or null");
+    }
+    return new Criteria(operator, null, Collections.emptyList(), null,
+        Collections.unmodifiableList(new ArrayList<Criteria>(operands)));
+  }
+
+  private static Object comparable(Object value) {
+    if (null == value) {
+      throw new InvalidJsonDbApiUsageException("Value of a order comparison cannot be null");
+    }
+    return value;
+  }
+
+  /**
+   * @param path the field or path of fields
+   * @param value the value, null for documents with no value at the path
+   * @return a criteria holding for documents with a value at the path equal to the given value
+   */
+  public static Criteria eq(String path, Object value) {
+    return on(Operator.EQ, path, value);
+  }
+
+  /**
+   * @param path the field or path of fields
+   * @param value the value
+   * @return a criteria holding for documents with no value at the path equal to the given value,
+   *         the documents with no value at the path included
+   */
+  public static Criteria ne(String path, Object value) {
+    return on(Operator.NE, path, value);
+  }
+
+  /**
+   * @param path the field or path of fields
+   * @param values the values
+   * @return a criteria holding for documents with a value at the path equal to any of the given values
+   */
+  public static Criteria in(String path, Object... values) {
+    return on(Operator.IN, path, values);
+  }
+
+  /**
+   * @param path the field or path of fields
+   * @param values the values
+   * @return a criteria holding for documents with a value at the path equal to any of the given values
+   */
+  public static Criteria in(String path, Collection<?> values) {
+    return on(Operator.IN, path, values.toArray());
+  }
+
+  public static Criteria gt(String path, Object value) {
+    return on(Operator.GT, path, comparable(value));
+  }
+
+  public static Criteria gte(String path, Object value) {
+    return on(Operator.GTE, path, comparable(value));
+  }
+
+  public static Criteria lt(String path, Object value) {
+    return on(Operator.LT, path, comparable(value));
+  }
+
+  public static Criteria lte(String path, Object value) {
+    return on(Operator.LTE, path, comparable(value));
+  }
+
+  /**
+   * @param path the field or path of fields
+   * @param low the lowest value, included
+   * @param high the highest value, included
+   * @return a criteria holding for documents with a value at the path between the given values
+   */
+  public static Criteria between(String path, Object low, Object high) {
+    return and(gte(path, low), lte(path, high));
+  }
+
+  /**
+   * @param path the field or path of fields
+   * @return a criteria holding for documents with a non null value at the path
+   */
+  public static Criteria exists(String path) {
+    return on(Operator.EXISTS, path);
+  }
+
+  /**
+   * @param path the field or path of fields
+   * @param regex a regular expression found anywhere in the value, anchor it with ^ and $ to match all of it
+   * @return a criteria holding for documents with a String, enum or character value at the path the expression is found in
+   */
+  public static Criteria regex(String path, String regex) {
+    return regex(path, Pattern.compile(regex));
+  }
+
+  /**
+   * @param path the field or path of fields
+   * @param pattern a compiled regular expression found anywhere in the value
+   * @return a criteria holding for documents with a String, enum or character value at the path the expression is found in
+   */
+  public static Criteria regex(String path, Pattern pattern) {
+    Criteria criteria = on(Operator.REGEX, path);
+    return new Criteria(Operator.REGEX, criteria.path, criteria.values, pattern, criteria.operands);
+  }
+
+  public static Criteria and(Criteria... operands) {
+    return joined(Operator.AND, Arrays.asList(operands));
+  }
+
+  public static Criteria or(Criteria... operands) {
+    return joined(Operator.OR, Arrays.asList(operands));
+  }
+
+  public static Criteria not(Criteria operand) {
+    return joined(Operator.NOT, Collections.singletonList(operand));
+  }
+
+  /**
+   * @param other another criteria
+   * @return a criteria holding for documents both this and the other criteria hold for
+   */
+  public Criteria and(Criteria other) {
+    List<Criteria> joined = new ArrayList<Criteria>((operator == Operator.AND) ? operands : Collections.singletonList(this));
+    joined.add(other);
+    return joined(Operator.AND, joined);
+  }
+
+  /**
+   * @param other another criteria
+   * @return a criteria holding for documents this or the other criteria holds for
+   */
+  public Criteria or(Criteria other) {
+    List<Criteria> joined = new ArrayList<Criteria>((operator == Operator.OR) ? operands : Collections.singletonList(this));
+    joined.add(other);
+    return joined(Operator.OR, joined);
+  }
+
+  public Operator getOperator() {
+    return operator;
+  }
+
+  /**
+   * @return the field or path of fields compared, null for criteria joined with and, or and not
+   */
+  public String getPath() {
+    return path;
+  }
+
+  /**
+   * @return the values compared with
+   */
+  public List<Object> getValues() {
+    return values;
+  }
+
+  /**
+   * @return the regular expression of a {@link Operator#REGEX} criteria
+   */
+  public Pattern getPattern() {
+    return pattern;
+  }
+
+  /**
+   * @return the criteria joined with and, or and not
+   */
+  public List<Criteria> getOperands() {
+    return operands;
+  }
+
+  /* (non-Javadoc)
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    switch (operator) {
+      case AND:
+      case OR:
+        StringBuilder joined = new StringBuilder("(");
+        for (int i = 0; i < operands.size(); i++) {
+          joined.append((i > 0) ? " " + operator.name().toLowerCase() + " " : "").append(operands.get(i));
+        }
+        return joined.append(")").toString();
+      case NOT:
+        return "not(" + operands.get(0) + ")";
+      case EXISTS:
+        return "exists(" + path + ")";
+      case REGEX:
+        return "regex(" + path + ", " + pattern + ")";
+      case IN:
+        return path + " in " + values;
+      default:
+        return path + " " + operator.name().toLowerCase() + " " + values.get(0);
+    }
+  }
+}
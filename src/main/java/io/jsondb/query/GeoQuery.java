@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.query;
+
+import io.jsondb.InvalidJsonDbApiUsageException;
+
+/**
+ * A search of a spatial index, passed to {@link io.jsondb.JsonDBOperations#search(GeoQuery, String)}.
+ *
+ * <pre>
+ * jsonDBTemplate.search(GeoQuery.within(51.28, -0.51, 51.69, 0.33), Site.class);
+ * jsonDBTemplate.search(GeoQuery.near(48.8566, 2.3522, 5000), Site.class);
+ * jsonDBTemplate.search(GeoQuery.nearest(40.7128, -74.0060, 3), Site.class);
+ * </pre>
+ *
+ * Latitudes and longitudes are in degrees, distances in meters along the surface of the earth.
+ *
+ * @version 1.0 19-Oct-2026
+ */
+public class GeoQuery {
+
+  public enum Shape {
+    /** Points inside a box of latitudes and longitudes, returned in collection order */
+    BOX,
+    /** Points within a distance of a center, returned nearest first */
+    NEAR
+  }
+
+  private final Shape shape;
+  private final double minLatitude;
+  private final double minLongitude;
+  private final double maxLatitude;
+  private final double maxLongitude;
+  private final double maxDistance;
+  private String indexName;
+  private int limit = -1;
+
+  private GeoQuery(Shape shape, double minLatitude, double minLongitude, double maxLatitude, double maxLongitude, double maxDistance) {
+    this.shape = shape;
+    this.minLatitude = minLatitude;
+    this.minLongitude = minLongitude;
+    this.maxLatitude = maxLatitude;
+    this.maxLongitude = maxLongitude;
+    this.maxDistance = maxDistance;
+  }
+
+  private static void checkPoint(double latitude, double longitude) {
+    if (!(latitude >= -90 && latitude <= 90)) {
+      throw new InvalidJsonDbApiUsageException("Latitude must be between -90 and 90 degrees, was " + latitude);
+    }
+    if (!(longitude >= -180 && longitude <= 180)) {
+      throw new InvalidJsonDbApiUsageException("Longitude must be between -180 and 180 degrees, was " + longitude);
+    }
+  }
+
+  /**
+   * Static factory method to search for the points inside a box. A box whose minimum longitude is
+   * greater than its maximum longitude crosses the 180th meridian.
+   *
+   * @param minLatitude southern edge of the box
+   * @param minLongitude western edge of the box
+   * @param maxLatitude northern edge of the box
+   * @param maxLongitude eastern edge of the box
+   * @return the geo query
+   */
+  public static GeoQuery within(double minLatitude, double minLongitude, double maxLatitude, double maxLongitude) {
+    checkPoint(minLatitude, minLongitude);
+    checkPoint(maxLatitude, maxLongitude);
+    if (minLatitude > maxLatitude) {
+      throw new InvalidJsonDbApiUsageException("Southern edge of the box cannot be north of its northern edge");
+    }
+    return new GeoQuery(Shape.BOX, minLatitude, minLongitude, maxLatitude, maxLongitude, Double.NaN);
+  }
+
+  /**
+   * Static factory method to search for the points within a distance of a center
+   *
+   * @param latitude latitude of the center
+   * @param longitude longitude of the center
+   * @param maxDistance the distance in meters
+   * @return the geo query
+   */
+  public static GeoQuery near(double latitude, double longitude, double maxDistance) {
+    checkPoint(latitude, longitude);
+    if (!(maxDistance >= 0)) {
+      throw new InvalidJsonDbApiUsageException("Distance of a geo query cannot be negative");
+    }
+    return new GeoQuery(Shape.NEAR, latitude, longitude, latitude, longitude, maxDistance);
+  }
+
+  /**
+   * Static factory method to search for the points nearest to a center
+   *
+   * @param latitude latitude of the center
+   * @param longitude longitude of the center
+   * @param k the number of points to return at most
+   * @return the geo query
+   */
+  public static GeoQuery nearest(double latitude, double longitude, int k) {
+    return near(latitude, longitude, Double.POSITIVE_INFINITY).limit(k);
+  }
+
+  /**
+   * Names the spatial index to search, needed only if the collection has more than one
+   *
+   * @param indexName name of the spatial index
+   * @return this geo query
+   */
+  public GeoQuery in(String indexName) {
+    this.indexName = indexName;
+    return this;
+  }
+
+  /**
+   * Returns at most the given number of documents, the nearest ones for a search around a center
+   *
+   * @param limit the number of documents to return at most
+   * @return this geo query
+   */
+  public GeoQuery limit(int limit) {
+    if (limit < 0) {
+      throw new InvalidJsonDbApiUsageException("Limit of a geo query cannot be negative");
+    }
+    this.limit = limit;
+    return this;
+  }
+
+  public Shape getShape() {
+    return shape;
+  }
+
+  /**
+   * @return the southern edge of a box, the latitude of the center of a search around a center
+   */
+  public double getMinLatitude() {
+    return minLatitude;
+  }
+
+  /**
+   * @return the western edge of a box, the longitude of the center of a search around a center
+   */
+  public double getMinLongitude() {
+    return minLongitude;
+  }
+
+  public double getMaxLatitude() {
+    return maxLatitude;
+  }
+
+  public double getMaxLongitude() {
+    return maxLongitude;
+  }
+
+  /**
+   * @return the distance in meters of a search around a center, infinite for a nearest neighbour search
+   */
+  public double getMaxDistance() {
+    return maxDistance;
+  }
+
+  public String getIndexName() {
+    return indexName;
+  }
+
+  /**
+   * @return the number of documents to return at most, -1 for all
+   */
+  public int getLimit() {
+    return limit;
+  }
+
+  /* (non-Javadoc)
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    String area = (shape == Shape.BOX)
+        ? "within [" + minLatitude + ", " + minLongitude + "] - [" + maxLatitude + ", " + maxLongitude + "]"
+        : "near [" + minLatitude + ", " + minLongitude + "] " + maxDistance + "m";
+    return area + (null == indexName ? "" : " in " + indexName) + (limit < 0 ? "" : " limit " + limit);
+  }
+}
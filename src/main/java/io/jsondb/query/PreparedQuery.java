@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.query;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.jxpath.BasicVariables;
+import org.apache.commons.jxpath.CompiledExpression;
+import org.apache.commons.jxpath.JXPathContext;
+import org.apache.commons.jxpath.Variables;
+
+import io.jsondb.InvalidJsonDbApiUsageException;
+
+/**
+ * A JXPath query compiled once and run many times, with values bound to the variables it refers to
+ * as <code>$name</code> instead of concatenated into the query string.
+ *
+ * <pre>
+ * PreparedQuery byOwner = PreparedQuery.prepare("/.[status=$status and owner=$owner]");
+ * jsonDBTemplate.find(byOwner.bind("status", "OPEN").bind("owner", user), Ticket.class);
+ * </pre>
+ *
+ * A prepared query is immutable, binding a value returns a new query that shares the compiled
+ * expression, so one prepared query can be kept in a static field and used by every thread.
+ * Comparisons with bound Strings, numbers, booleans and enums are planned into id and index
+ * lookups like comparisons with literals are.
+ *
+ * @version 1.0 19-Oct-2026
+ */
+public class PreparedQuery {
+
+  private final String query;
+  private final CompiledExpression expression;
+  private final Map<String, Object> variables;
+
+  private PreparedQuery(String query, CompiledExpression expression, Map<String, Object> variables) {
+    this.query = query;
+    this.expression = expression;
+    this.variables = variables;
+  }
+
+  /**
+   * Static factory method to compile a JXPath query
+   *
+   * @param jxQuery the JXPath query, which may refer to variables as <code>$name</code>
+   * @return the prepared query, with no values bound
+   */
+  public static PreparedQuery prepare(String jxQuery) {
+    if (null == jxQuery) {
+      throw new InvalidJsonDbApiUsageException("Query to prepare cannot be null");
+    }
+    return new PreparedQuery(jxQuery, JXPathContext.compile(jxQuery), Collections.<String, Object>emptyMap());
+  }
+
+  /**
+   * Binds a value to a variable of the query
+   *
+   * @param name name of the variable, without the leading $
+   * @param value the value, compared by JXPath as it compares the value of a field
+   * @return a new prepared query with the value bound, this query is left as it is
+   */
+  public PreparedQuery bind(String name, Object value) {
+    if (null == name || name.trim().isEmpty()) {
+      throw new InvalidJsonDbApiUsageException("Name of a query variable cannot be null or empty");
+    }
+    Map<String, Object> bound = new LinkedHashMap<String, Object>(variables);
+    bound.put(name, value);
+    return new PreparedQuery(query, expression, Collections.unmodifiableMap(bound));
+  }
+
+  /**
+   * @return the JXPath query as it was prepared
+   */
+  public String getQuery() {
+    return query;
+  }
+
+  /**
+   * @return the values bound to the variables of the query, by variable name
+   */
+  public Map<String, Object> getVariables() {
+    return variables;
+  }
+
+  /**
+   * Runs the compiled query. The bound values are declared in a child of the given context, which
+   * may be shared with other threads and is left untouched.
+   *
+   * @param context the context of the documents to run the query against
+   * @return the documents the query selects
+   */
+  public Iterator<?> iterate(JXPathContext context) {
+    if (variables.isEmpty()) {
+      return expression.iterate(context);
+    }
+    JXPathContext bound = JXPathContext.newContext(context, context.getContextBean());
+    Variables boundVariables = new BasicVariables();
+    for (Map.Entry<String, Object> variable : variables.entrySet()) {
+      boundVariables.declareVariable(variable.getKey(), variable.getValue());
+    }
+    bound.setVariables(boundVariables);
+    return expression.iterate(bound);
+  }
+
+  /* (non-Javadoc)
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return variables.isEmpty() ? query : query + " " + variables;
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import io.jsondb.InvalidJsonDbApiUsageException;
+
+/**
+ * The fields of the documents a find returns, passed to {@link io.jsondb.JsonDBOperations#findProjected(String, Class, Projection)}.
+ * Only the projected fields are copied out of the documents, and only projected @Secret fields are decrypted.
+ *
+ * <pre>
+ * jsonDBTemplate.findProjected("/.[hostname='x']", Instance.class, Projection.include("id", "hostname"));
+ * jsonDBTemplate.findRows("/.[hostname='x']", Instance.class, Projection.include("id", "hostname"));
+ * </pre>
+ *
+ * @version 1.0 19-Oct-2026
+ */
+public class Projection {
+
+  private final List<String> fieldNames;
+
+  private Projection(List<String> fieldNames) {
+    this.fieldNames = Collections.unmodifiableList(fieldNames);
+  }
+
+  /**
+   * Static factory method to create a Projection of the given fields
+   *
+   * @param fieldNames names of the fields of the documents to return
+   * @return the Projection
+   */
+  public static Projection include(String... fieldNames) {
+    if (null == fieldNames || fieldNames.length < 1) {
+      throw new InvalidJsonDbApiUsageException("Projection must include at least one field");
+    }
+    List<String> included = new ArrayList<String>(fieldNames.length);
+    for (String fieldName : fieldNames) {
+      if (null == fieldName || fieldName.trim().length() < 1) {
+        throw new InvalidJsonDbApiUsageException("Projection field name cannot be null or empty");
+      }
+      if (!included.contains(fieldName)) {
+        included.add(fieldName);
+      }
+    }
+    return new Projection(included);
+  }
+
+  public List<String> getFieldNames() {
+    return fieldNames;
+  }
+
+  /* (non-Javadoc)
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return fieldNames.toString();
+  }
+}
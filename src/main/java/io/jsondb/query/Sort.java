@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.query;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.jsondb.InvalidJsonDbApiUsageException;
+import io.jsondb.JsonDBException;
+import io.jsondb.index.KeyedIndex;
+import io.jsondb.index.SortKey;
+
+/**
+ * A comparator that orders documents by the values of one or more of their fields, read through
+ * their getters. Values compare the way a sorted index compares them, null first. When a find
+ * is given a Sort on the fields of a sorted index the documents are read from the index in order
+ * instead of being sorted, and a slice stops reading as soon as it has what it needs.
+ *
+ * <pre>
+ * jsonDBTemplate.find("/.[customerId='C42']", Order.class, Sort.descending("createdAt"), "0:50");
+ * </pre>
+ *
+ * @version 1.0 19-Oct-2026
+ */
+public class Sort implements Comparator<Object> {
+
+  private final List<String> fieldNames;
+  private final List<Boolean> descending;
+  private final Map<Class<?>, Method[]> getters = new ConcurrentHashMap<Class<?>, Method[]>();
+
+  private Sort(List<String> fieldNames, List<Boolean> descending) {
+    this.fieldNames = Collections.unmodifiableList(fieldNames);
+    this.descending = Collections.unmodifiableList(descending);
+  }
+
+  /**
+   * Static factory method to create a Sort in ascending order of the given fields
+   *
+   * @param fieldNames names of the fields to sort by, the first one the most significant
+   * @return the Sort
+   */
+  public static Sort ascending(String... fieldNames) {
+    return new Sort(Collections.<String>emptyList(), Collections.<Boolean>emptyList()).thenAscending(fieldNames);
+  }
+
+  /**
+   * Static factory method to create a Sort in descending order of the given fields
+   *
+   * @param fieldNames names of the fields to sort by, the first one the most significant
+   * @return the Sort
+   */
+  public static Sort descending(String... fieldNames) {
+    return new Sort(Collections.<String>emptyList(), Collections.<Boolean>emptyList()).thenDescending(fieldNames);
+  }
+
+  /**
+   * A Sort is immutable, it can be shared between threads and keyed on by the query result cache.
+   *
+   * @param fieldNames names of the fields to sort by after the fields of this Sort
+   * @return a new Sort, this one is left as it is
+   */
+  public Sort thenAscending(String... fieldNames) {
+    return then(false, fieldNames);
+  }
+
+  /**
+   * @param fieldNames names of the fields to sort by after the fields of this Sort
+   * @return a new Sort, this one is left as it is
+   * @see #thenAscending(String...)
+   */
+  public Sort thenDescending(String... fieldNames) {
+    return then(true, fieldNames);
+  }
+
+  private Sort then(boolean descending, String... fieldNames) {
+    List<String> newFieldNames = new ArrayList<String>(this.fieldNames);
+    List<Boolean> newDescending = new ArrayList<Boolean>(this.descending);
+    for (String fieldName : fieldNames) {
+      if (null == fieldName || fieldName.trim().length() < 1) {
+        throw new InvalidJsonDbApiUsageException("Sort field name cannot be null or empty");
+      }
+      newFieldNames.add(fieldName);
+      newDescending.add(descending);
+    }
+    return new Sort(newFieldNames, newDescending);
+  }
+
+  public List<String> getFieldNames() {
+    return fieldNames;
+  }
+
+  /**
+   * @param i position of the field in {@link #getFieldNames()}
+   * @return true if the field is sorted in descending order
+   */
+  public boolean isDescending(int i) {
+    return descending.get(i);
+  }
+
+  /* (non-Javadoc)
+   * @see java.util.Comparator#compare(java.lang.Object, java.lang.Object)
+   */
+  @Override
+  public int compare(Object o1, Object o2) {
+    Method[] getters1 = gettersOf(o1.getClass());
+    Method[] getters2 = (o1.getClass() == o2.getClass()) ? getters1 : gettersOf(o2.getClass());
+    for (int i = 0; i < getters1.length; i++) {
+      int c = SortKey.compareValues(KeyedIndex.normalize(invoke(getters1[i], o1)), KeyedIndex.normalize(invoke(getters2[i], o2)));
+      if (c != 0) {
+        return descending.get(i) ? -c : c;
+      }
+    }
+    return 0;
+  }
+
+  private Method[] gettersOf(Class<?> clazz) {
+    Method[] methods = getters.get(clazz);
+    if (null == methods) {
+      methods = new Method[fieldNames.size()];
+      for (int i = 0; i < methods.length; i++) {
+        methods[i] = findGetter(clazz, fieldNames.get(i));
+      }
+      getters.put(clazz, methods);
+    }
+    return methods;
+  }
+
+  private static Method findGetter(Class<?> clazz, String fieldName) {
+    String suffix = Character.toUpperCase(fieldName.charAt(0)) + fieldName.substring(1);
+    for (String getterName : new String[] {"get" + suffix, "is" + suffix}) {
+      try {
+        return clazz.getMethod(getterName);
+      } catch (NoSuchMethodException e) {
+        //Try the next form
+      }
+    }
+    throw new InvalidJsonDbApiUsageException("Cannot sort by field '" + fieldName + "', " + clazz.getName() + " has no getter for it");
+  }
+
+  private static Object invoke(Method getter, Object document) {
+    try {
+      return getter.invoke(document);
+    } catch (IllegalAccessException | InvocationTargetException e) {
+      throw new JsonDBException("Failed to read " + getter.getName() + " of " + document.getClass().getName(), e);
+    }
+  }
+
+  /* (non-Javadoc)
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < fieldNames.size(); i++) {
+      sb.append(i > 0 ? ", " : "").append(fieldNames.get(i)).append(descending.get(i) ? " desc" : " asc");
+    }
+    return sb.toString();
+  }
+}
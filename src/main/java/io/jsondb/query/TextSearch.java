@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.query;
+
+import io.jsondb.InvalidJsonDbApiUsageException;
+
+/**
+ * A search of a full text index, passed to {@link io.jsondb.JsonDBOperations#search(TextSearch, String)}.
+ *
+ * <pre>
+ * jsonDBTemplate.search(TextSearch.allTerms("fast json storage"), Article.class);
+ * jsonDBTemplate.search(TextSearch.phrase("in memory").where("/.[published=true]").rankedByRelevance().limit(10), Article.class);
+ * </pre>
+ *
+ * The text of the search is split into words by the tokenizer of the index, so it is matched the
+ * same way as the indexed text.
+ *
+ * @version 1.0 19-Oct-2026
+ */
+public class TextSearch {
+
+  public enum Mode {
+    /** Documents holding every word of the text */
+    ALL_TERMS,
+    /** Documents holding at least one word of the text */
+    ANY_TERM,
+    /** Documents holding the words of the text one after the other */
+    PHRASE,
+    /** Documents holding every word of the text, the last word being the start of a word */
+    PREFIX
+  }
+
+  private final Mode mode;
+  private final String text;
+  private String indexName;
+  private String filter;
+  private boolean ranked;
+  private int limit = -1;
+
+  private TextSearch(Mode mode, String text) {
+    if (null == text) {
+      throw new InvalidJsonDbApiUsageException("Text to search for cannot be null");
+    }
+    this.mode = mode;
+    this.text = text;
+  }
+
+  /**
+   * Static factory method to search for the documents holding every word of the given text
+   *
+   * @param text the words to search for
+   * @return the text search
+   */
+  public static TextSearch allTerms(String text) {
+    return new TextSearch(Mode.ALL_TERMS, text);
+  }
+
+  /**
+   * Static factory method to search for the documents holding any word of the given text
+   *
+   * @param text the words to search for
+   * @return the text search
+   */
+  public static TextSearch anyTerm(String text) {
+    return new TextSearch(Mode.ANY_TERM, text);
+  }
+
+  /**
+   * Static factory method to search for the documents holding the words of the given text in the same order
+   *
+   * @param text the phrase to search for
+   * @return the text search
+   */
+  public static TextSearch phrase(String text) {
+    return new TextSearch(Mode.PHRASE, text);
+  }
+
+  /**
+   * Static factory method to search for the documents holding every word of the given text, where
+   * the last word may be the start of a longer word, as needed to search while the text is typed
+   *
+   * @param text the words to search for
+   * @return the text search
+   */
+  public static TextSearch prefix(String text) {
+    return new TextSearch(Mode.PREFIX, text);
+  }
+
+  /**
+   * Names the full text index to search, needed only if the collection has more than one
+   *
+   * @param indexName name of the full text index
+   * @return this text search
+   */
+  public TextSearch in(String indexName) {
+    this.indexName = indexName;
+    return this;
+  }
+
+  /**
+   * Keeps only the matching documents that a JXPath query selects as well
+   *
+   * @param jxQuery a JXPath query such as /.[category='news']
+   * @return this text search
+   */
+  public TextSearch where(String jxQuery) {
+    this.filter = jxQuery;
+    return this;
+  }
+
+  /**
+   * Returns the matching documents most relevant first instead of in collection order
+   *
+   * @return this text search
+   */
+  public TextSearch rankedByRelevance() {
+    this.ranked = true;
+    return this;
+  }
+
+  /**
+   * Returns at most the given number of documents, the most relevant ones if the search is ranked
+   *
+   * @param limit the number of documents to return at most
+   * @return this text search
+   */
+  public TextSearch limit(int limit) {
+    if (limit < 0) {
+      throw new InvalidJsonDbApiUsageException("Limit of a text search cannot be negative");
+    }
+    this.limit = limit;
+    return this;
+  }
+
+  public Mode getMode() {
+    return mode;
+  }
+
+  public String getText() {
+    return text;
+  }
+
+  public String getIndexName() {
+    return indexName;
+  }
+
+  public String getFilter() {
+    return filter;
+  }
+
+  public boolean isRanked() {
+    return ranked;
+  }
+
+  /**
+   * @return the number of documents to return at most, -1 for all
+   */
+  public int getLimit() {
+    return limit;
+  }
+
+  /* (non-Javadoc)
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return mode + " '" + text + "'" + (null == indexName ? "" : " in " + indexName)
+        + (null == filter ? "" : " where " + filter) + (ranked ? " ranked" : "") + (limit < 0 ? "" : " limit " + limit);
+  }
+}
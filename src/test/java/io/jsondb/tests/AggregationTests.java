@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import io.jsondb.InvalidJsonDbApiUsageException;
+import io.jsondb.JsonDBConfig;
+import io.jsondb.JsonDBTemplate;
+import io.jsondb.Util;
+import io.jsondb.query.Aggregation;
+import io.jsondb.query.Criteria;
+import io.jsondb.tests.model.Instance;
+import io.jsondb.tests.model.Order;
+import io.jsondb.tests.model.Server;
+import io.jsondb.tests.model.Server.Disk;
+
+/**
+ * Tests for the aggregation of the documents of a collection
+ */
+public class AggregationTests {
+  private String dbFilesLocation = "src/test/resources/dbfiles/aggregationTests";
+  private File dbFilesFolder = new File(dbFilesLocation);
+
+  private ForkJoinPool pool;
+  private JsonDBTemplate jsonDBTemplate = null;
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  @Before
+  public void setUp() {
+    dbFilesFolder.mkdir();
+    pool = new ForkJoinPool(4);
+    JsonDBConfig dbConfig = new JsonDBConfig(dbFilesLocation, "io.jsondb.tests.model", null, false, null);
+    dbConfig.setParallelQueryThreshold(16);
+    dbConfig.setQueryPool(pool);
+    jsonDBTemplate = new JsonDBTemplate(dbConfig);
+    jsonDBTemplate.createCollection(Order.class);
+    List<Order> orders = new ArrayList<Order>();
+    for (int i = 0; i < 200; i++) {
+      orders.add(new Order(String.format("%03d", i), "C" + (i % 3), 1000 + i, i % 50));
+    }
+    jsonDBTemplate.insert(orders, Order.class);
+    jsonDBTemplate.createCollection(Server.class);
+    jsonDBTemplate.insert(Arrays.asList(
+        new Server("s1", Arrays.asList("web", "prod"), Arrays.asList(new Disk("sda", 256), new Disk("sdb", 1024))),
+        new Server("s2", Arrays.asList("db", "prod"), Arrays.asList(new Disk("nvme0", 512))),
+        new Server("s3", Collections.<String>emptyList(), Collections.<Disk>emptyList())),
+        Server.class);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    pool.shutdownNow();
+    Util.delete(dbFilesFolder);
+  }
+
+  private static Map<String, Object> row(Object... namesAndValues) {
+    Map<String, Object> row = new LinkedHashMap<String, Object>();
+    for (int i = 0; i < namesAndValues.length; i += 2) {
+      row.put((String) namesAndValues[i], namesAndValues[i + 1]);
+    }
+    return row;
+  }
+
+  @Test
+  public void testGroupInParallel() {
+    List<Map<String, Object>> rows = jsonDBTemplate.aggregate(Aggregation.group("customerId")
+        .count("orders").sum("total", "revenue").avg("total", "average").min("createdAt", "first").max("createdAt", "last"),
+        Order.class);
+
+    List<Map<String, Object>> expected = new ArrayList<Map<String, Object>>();
+    for (int c = 0; c < 3; c++) {
+      long count = 0;
+      double revenue = 0;
+      for (int i = c; i < 200; i += 3) {
+        count++;
+        revenue += i % 50;
+      }
+      long last = 1000 + c + 3 * (count - 1);
+      expected.add(row("customerId", "C" + c, "orders", count, "revenue", revenue, "average", revenue / count,
+          "first", 1000L + c, "last", last));
+    }
+    assertEquals(expected, rows);
+  }
+
+  @Test
+  public void testWithoutGroupBy() {
+    List<Map<String, Object>> rows = jsonDBTemplate.aggregate(Aggregation.match("/.[customerId='C1']")
+        .count("orders").max("total", "largest"), "orders");
+    assertEquals(Collections.singletonList(row("orders", 67L, "largest", 49.0)), rows);
+
+    rows = jsonDBTemplate.aggregate(Aggregation.match("/.[customerId='none']")
+        .count("orders").sum("total", "revenue"), Order.class);
+    assertEquals(Collections.singletonList(row("orders", 0L, "revenue", null)), rows);
+  }
+
+  @Test
+  public void testMatchSortAndLimit() {
+    List<Map<String, Object>> rows = jsonDBTemplate.aggregate(Aggregation.match(Criteria.gte("total", 45))
+        .groupBy("total").count("orders").sortDescending("total").limit(2), Order.class);
+    assertEquals(Arrays.asList(row("total", 49.0, "orders", 4L), row("total", 48.0, "orders", 4L)), rows);
+  }
+
+  @Test
+  public void testGroupByCollectionField() {
+    List<Map<String, Object>> rows = jsonDBTemplate.aggregate(Aggregation.group("tags")
+        .count("servers").sum("disks/sizeGb", "capacity").sortAscending("tags"), Server.class);
+    assertEquals(Arrays.asList(
+        row("tags", null, "servers", 1L, "capacity", null),
+        row("tags", "db", "servers", 1L, "capacity", 512L),
+        row("tags", "prod", "servers", 2L, "capacity", 1792L),
+        row("tags", "web", "servers", 1L, "capacity", 1280L)), rows);
+  }
+
+  @Test
+  public void testMinOfValuesIsCopied() {
+    List<Map<String, Object>> rows = jsonDBTemplate.aggregate(Aggregation.group("id").min("disks/name", "firstDisk"),
+        Server.class);
+    assertEquals("sda", rows.get(0).get("firstDisk"));
+    assertNull(rows.get(2).get("firstDisk"));
+
+    rows = jsonDBTemplate.aggregate(Aggregation.group("disks").count("servers"), Server.class);
+    Disk disk = (Disk) rows.get(0).get("disks");
+    assertEquals("sda", disk.getName());
+    disk.setName("changed");
+    assertNotSame(disk, jsonDBTemplate.aggregate(Aggregation.group("disks").count("servers"), Server.class).get(0).get("disks"));
+    assertEquals(Arrays.<Object>asList("sda", "sdb", "nvme0"), jsonDBTemplate.distinct("disks/name", ".", Server.class));
+  }
+
+  @Test
+  public void testSumOfNonNumericField() {
+    expectedException.expect(InvalidJsonDbApiUsageException.class);
+    expectedException.expectMessage("Cannot SUM path 'customerId' of collection 'orders', its values are not numbers");
+    jsonDBTemplate.aggregate(Aggregation.group("id").sum("customerId", "sum"), Order.class);
+  }
+
+  @Test
+  public void testGroupBySecretField() {
+    jsonDBTemplate.createCollection(Instance.class);
+    expectedException.expect(InvalidJsonDbApiUsageException.class);
+    expectedException.expectMessage("Field 'privateKey' of collection 'instances' is a @Secret field");
+    jsonDBTemplate.aggregate(Aggregation.group("privateKey").count("instances"), Instance.class);
+  }
+
+  @Test
+  public void testSortByUnknownName() {
+    expectedException.expect(InvalidJsonDbApiUsageException.class);
+    expectedException.expectMessage("Cannot sort by 'total', it is neither grouped by nor accumulated");
+    Aggregation.group("customerId").count("orders").sortAscending("total");
+  }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import io.jsondb.CollectionMetaData;
+import io.jsondb.InvalidJsonDbApiUsageException;
+import io.jsondb.JsonDBTemplate;
+import io.jsondb.Util;
+import io.jsondb.index.CollectionIndexes;
+import io.jsondb.index.DocumentSlots;
+import io.jsondb.index.IndexDefinition;
+import io.jsondb.index.IndexType;
+import io.jsondb.query.Update;
+import io.jsondb.tests.model.Ticket;
+import io.jsondb.tests.model.Ticket.Region;
+import io.jsondb.tests.model.Ticket.Status;
+
+/**
+ * Tests for the bitmap indexes of collections
+ */
+public class BitmapIndexTests {
+  private String dbFilesLocation = "src/test/resources/dbfiles/bitmapIndexTests";
+  private File dbFilesFolder = new File(dbFilesLocation);
+
+  private JsonDBTemplate jsonDBTemplate = null;
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private static List<Ticket> tickets() {
+    return Arrays.asList(
+        new Ticket("t1", Status.OPEN, Region.EU, true, "ann"),
+        new Ticket("t2", Status.CLOSED, Region.US, false, "bob"),
+        new Ticket("t3", Status.OPEN, Region.US, false, "ann"),
+        new Ticket("t4", Status.IN_PROGRESS, Region.APAC, true, "cid"),
+        new Ticket("t5", Status.OPEN, Region.APAC, true, "bob"),
+        new Ticket("t6", null, Region.EU, false, "cid"));
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    dbFilesFolder.mkdir();
+    jsonDBTemplate = new JsonDBTemplate(dbFilesLocation, "io.jsondb.tests.model");
+    jsonDBTemplate.createCollection(Ticket.class);
+    jsonDBTemplate.insert(tickets(), Ticket.class);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    Util.delete(dbFilesFolder);
+  }
+
+  private List<String> find(String jxQuery) {
+    List<String> ids = new ArrayList<String>();
+    for (Ticket ticket : jsonDBTemplate.find(jxQuery, Ticket.class)) {
+      ids.add(ticket.getId());
+    }
+    return ids;
+  }
+
+  @Test
+  public void testAnnotatedFieldsAreBitmapIndexed() {
+    List<IndexDefinition> indexes = jsonDBTemplate.getIndexes(Ticket.class);
+    assertEquals(3, indexes.size());
+    for (IndexDefinition index : indexes) {
+      assertEquals(IndexType.BITMAP, index.getType());
+    }
+  }
+
+  @Test
+  public void testConditionsJoinedWithAndOrNot() {
+    assertEquals(Arrays.asList("t1", "t3", "t5"), find("/.[status='OPEN']"));
+    assertEquals(Arrays.asList("t5"), find("/.[status='OPEN' and region='APAC' and urgent=true()]"));
+    assertEquals(Arrays.asList("t1", "t3", "t5"), find("/.[status='OPEN' and (region='EU' or region='US' or urgent=true())]"));
+    assertEquals(Arrays.asList("t2", "t4", "t6"), find("/.[not(status='OPEN')]"));
+    assertEquals(Arrays.asList("t3"), find("/.[status='OPEN' and not(region='EU') and urgent!=true()]"));
+    assertEquals(0, find("/.[status='OPEN' and status='CLOSED']").size());
+  }
+
+  @Test
+  public void testWritesUpdateTheBitmaps() {
+    jsonDBTemplate.findAllAndModify("/.[status='OPEN' and region='US']", Update.update("status", Status.CLOSED), Ticket.class);
+    assertEquals(Arrays.asList("t2", "t3"), find("/.[status='CLOSED']"));
+
+    jsonDBTemplate.remove(jsonDBTemplate.findById("t1", Ticket.class), Ticket.class);
+    assertEquals(Arrays.asList("t5"), find("/.[status='OPEN']"));
+
+    //The new ticket takes the slot t1 had, and still comes back after the others
+    jsonDBTemplate.insert(new Ticket("t7", Status.OPEN, Region.EU, true, "dee"));
+    assertEquals(Arrays.asList("t5", "t7"), find("/.[status='OPEN']"));
+    assertEquals(Arrays.asList("t6", "t7"), find("/.[region='EU']"));
+    assertEquals(Arrays.asList("t2", "t3", "t4", "t6"), find("/.[not(status='OPEN')]"));
+  }
+
+  @Test
+  public void testCountFromBitmaps() {
+    CollectionMetaData cmd = new CollectionMetaData("tickets", Ticket.class, "1.0", null);
+    CollectionIndexes indexes = cmd.getIndexes();
+    Map<Object, Ticket> collection = new LinkedHashMap<Object, Ticket>();
+    for (Ticket ticket : tickets()) {
+      collection.put(ticket.getId(), ticket);
+    }
+    indexes.rebuild(collection);
+
+    assertEquals(3, indexes.count("/.[status='OPEN']"));
+    assertEquals(2, indexes.count("/.[urgent=true() and not(region='EU')]"));
+    assertEquals(4, indexes.count("/.[region='EU' or status='OPEN']"));
+    //owner is not indexed
+    assertEquals(-1, indexes.count("/.[status='OPEN' and owner='ann']"));
+    assertNull(indexes.lookup("/.[status='OPEN' or owner='ann']"));
+  }
+
+  @Test
+  public void testSlotsAreReused() {
+    DocumentSlots slots = new DocumentSlots();
+    assertEquals(0, slots.assign("a"));
+    assertEquals(1, slots.assign("b"));
+    assertEquals(2, slots.assign("c"));
+    assertEquals(1, slots.assign("b"));
+    slots.release("b");
+    assertEquals(-1, slots.slotOf("b"));
+    assertNull(slots.idAt(1));
+    assertEquals(1, slots.assign("d"));
+    assertEquals(3, slots.assign("e"));
+    assertEquals(4, slots.size());
+    assertEquals(4, slots.all().cardinality());
+  }
+
+  @Test
+  public void testBitmapIndexCannotBeUnique() {
+    expectedException.expect(InvalidJsonDbApiUsageException.class);
+    expectedException.expectMessage("Bitmap index 'owner' cannot be unique");
+    jsonDBTemplate.createIndex(IndexDefinition.bitmap("owner").unique(), Ticket.class);
+  }
+}
@@ -22,6 +22,7 @@ package io.jsondb.tests;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
@@ -35,6 +36,7 @@ import org.junit.rules.ExpectedException;
 
 import com.google.common.io.Files;
 
+import io.jsondb.Cursor;
 import io.jsondb.InvalidJsonDbApiUsageException;
 import io.jsondb.JsonDBTemplate;
 import io.jsondb.Util;
@@ -128,6 +130,18 @@ public class CollectionSchemaUpdateTests {
     TestUtils.checkLastLines(loadbalancerJson, expectedLinesAtEnd);
   }
   
+  @Test
+  public void test_AddFieldLeavesOpenCursorAlone() {
+    Cursor<LoadBalancer> cursor = jsonDBTemplate.cursor(".", LoadBalancer.class);
+
+    IOperation addOperation = new AddOperation("mac", false);
+    jsonDBTemplate.updateCollectionSchema(CollectionSchemaUpdate.update("osName", addOperation), LoadBalancer.class);
+
+    //The cursor still reads the documents as they were when it was opened
+    assertNull(cursor.next().getOsName());
+    assertEquals("mac", jsonDBTemplate.findById("001", LoadBalancer.class).getOsName());
+  }
+
   @Test
   public void test_OnlyDeleteField() {
     assertTrue(jsonDBTemplate.isCollectionReadonly("loadbalancer"));
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import io.jsondb.InvalidJsonDbApiUsageException;
+import io.jsondb.JsonDBTemplate;
+import io.jsondb.Util;
+import io.jsondb.tests.model.Instance;
+import io.jsondb.tests.model.Server;
+import io.jsondb.tests.model.Server.Disk;
+import io.jsondb.tests.model.Ticket;
+import io.jsondb.tests.model.Ticket.Region;
+import io.jsondb.tests.model.Ticket.Status;
+import io.jsondb.tests.util.CountingCipher;
+
+/**
+ * Tests for count, exists and distinct, which read the documents without copying them
+ */
+public class CountTests {
+  private String dbFilesLocation = "src/test/resources/dbfiles/countTests";
+  private File dbFilesFolder = new File(dbFilesLocation);
+
+  private CountingCipher cipher = null;
+  private JsonDBTemplate jsonDBTemplate = null;
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  @Before
+  public void setUp() throws GeneralSecurityException {
+    dbFilesFolder.mkdir();
+    cipher = new CountingCipher();
+    jsonDBTemplate = new JsonDBTemplate(dbFilesLocation, "io.jsondb.tests.model", cipher);
+    jsonDBTemplate.createCollection(Instance.class);
+    List<Instance> instances = new ArrayList<Instance>();
+    for (int i = 0; i < 10; i++) {
+      Instance instance = new Instance();
+      instance.setId(String.format("%02d", i));
+      instance.setHostname("host" + (i % 3));
+      instance.setPrivateKey("key" + i);
+      instances.add(instance);
+    }
+    jsonDBTemplate.insert(instances, Instance.class);
+    jsonDBTemplate.createCollection(Ticket.class);
+    jsonDBTemplate.insert(Arrays.asList(
+        new Ticket("t1", Status.OPEN, Region.EU, true, "ann"),
+        new Ticket("t2", Status.CLOSED, Region.US, false, "bob"),
+        new Ticket("t3", Status.OPEN, Region.US, false, "anna"),
+        new Ticket("t4", Status.CLOSED, Region.APAC, true, "annie")),
+        Ticket.class);
+    jsonDBTemplate.createCollection(Server.class);
+    jsonDBTemplate.insert(Arrays.asList(
+        new Server("s1", Arrays.asList("web", "prod"), Arrays.asList(new Disk("sda", 256), new Disk("sdb", 1024))),
+        new Server("s2", Arrays.asList("db", "prod"), Arrays.asList(new Disk("nvme0", 512))),
+        new Server("s3", Arrays.asList("web", "test"), Collections.<Disk>emptyList())),
+        Server.class);
+    cipher.resetDecryptions();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    Util.delete(dbFilesFolder);
+  }
+
+  @Test
+  public void testCountWithoutDecrypting() {
+    assertEquals(4, jsonDBTemplate.count("/.[hostname='host0']", Instance.class));
+    assertEquals(1, jsonDBTemplate.count("/.[id='05']", "instances"));
+    assertEquals(10, jsonDBTemplate.count(".", Instance.class));
+    assertEquals(0, jsonDBTemplate.count("/.[hostname='none']", Instance.class));
+    assertEquals(0, cipher.getDecryptions());
+  }
+
+  @Test
+  public void testCountFromIndexes() {
+    assertEquals(2, jsonDBTemplate.count("/.[status='OPEN']", Ticket.class));
+    assertEquals(3, jsonDBTemplate.count("/.[region='EU' or status='CLOSED']", Ticket.class));
+    assertEquals(1, jsonDBTemplate.count("/.[status='OPEN' and owner='anna']", Ticket.class));
+  }
+
+  @Test
+  public void testExists() {
+    assertTrue(jsonDBTemplate.exists("/.[hostname='host2']", Instance.class));
+    assertFalse(jsonDBTemplate.exists("/.[hostname='none']", Instance.class));
+    assertTrue(jsonDBTemplate.exists("/.[status='CLOSED' and region='APAC']", Ticket.class));
+    assertFalse(jsonDBTemplate.exists("/.[status='OPEN' and region='APAC']", "tickets"));
+    assertEquals(0, cipher.getDecryptions());
+  }
+
+  @Test
+  public void testDistinct() {
+    assertEquals(Arrays.<Object>asList("host0", "host1", "host2"), jsonDBTemplate.distinct("hostname", ".", Instance.class));
+    assertEquals(Arrays.<Object>asList(Status.OPEN, Status.CLOSED), jsonDBTemplate.distinct("status", ".", Ticket.class));
+    assertEquals(Arrays.<Object>asList(Region.EU, Region.US),
+        jsonDBTemplate.distinct("region", "/.[status='OPEN']", Ticket.class));
+    assertEquals(Arrays.<Object>asList("web", "prod", "db", "test"), jsonDBTemplate.distinct("tags", ".", Server.class));
+    assertEquals(Arrays.<Object>asList(256, 1024, 512), jsonDBTemplate.distinct("disks/sizeGb", ".", Server.class));
+    assertEquals(0, cipher.getDecryptions());
+  }
+
+  @Test
+  public void testDistinctCopiesMutableValues() {
+    List<Object> disks = jsonDBTemplate.distinct("disks", "/.[id='s2']", Server.class);
+    assertEquals(1, disks.size());
+    ((Disk) disks.get(0)).setName("changed");
+    assertEquals(Arrays.<Object>asList("nvme0"), jsonDBTemplate.distinct("disks/name", "/.[id='s2']", Server.class));
+    assertNotSame(disks.get(0), jsonDBTemplate.distinct("disks", "/.[id='s2']", Server.class).get(0));
+  }
+
+  @Test
+  public void testDistinctOfSecretField() {
+    expectedException.expect(InvalidJsonDbApiUsageException.class);
+    expectedException.expectMessage("Field 'privateKey' of collection 'instances' is a @Secret field");
+    jsonDBTemplate.distinct("privateKey", ".", Instance.class);
+  }
+}
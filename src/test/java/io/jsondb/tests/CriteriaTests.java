@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import io.jsondb.CollectionMetaData;
+import io.jsondb.InvalidJsonDbApiUsageException;
+import io.jsondb.JsonDBTemplate;
+import io.jsondb.Util;
+import io.jsondb.index.CollectionIndexes;
+import io.jsondb.index.CompiledCriteria;
+import io.jsondb.index.IndexLookup;
+import io.jsondb.query.Criteria;
+import io.jsondb.query.Sort;
+import io.jsondb.tests.model.Order;
+import io.jsondb.tests.model.Server;
+import io.jsondb.tests.model.Server.Disk;
+import io.jsondb.tests.model.Ticket;
+import io.jsondb.tests.model.Ticket.Region;
+import io.jsondb.tests.model.Ticket.Status;
+
+/**
+ * Tests for the queries built with {@link Criteria}
+ */
+public class CriteriaTests {
+  private String dbFilesLocation = "src/test/resources/dbfiles/criteriaTests";
+  private File dbFilesFolder = new File(dbFilesLocation);
+
+  private JsonDBTemplate jsonDBTemplate = null;
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  @Before
+  public void setUp() throws Exception {
+    dbFilesFolder.mkdir();
+    jsonDBTemplate = new JsonDBTemplate(dbFilesLocation, "io.jsondb.tests.model");
+    jsonDBTemplate.createCollection(Ticket.class);
+    jsonDBTemplate.insert(tickets(), Ticket.class);
+    jsonDBTemplate.createCollection(Order.class);
+    jsonDBTemplate.insert(Arrays.asList(
+        new Order("o1", "c1", 100, 250.0),
+        new Order("o2", "c2", 200, 40.5),
+        new Order("o3", "c1", 300, 99.0),
+        new Order("o4", "c3", 400, 120.0)),
+        Order.class);
+    jsonDBTemplate.createCollection(Server.class);
+    jsonDBTemplate.insert(Arrays.asList(
+        new Server("s1", Arrays.asList("web", "prod"), Arrays.asList(new Disk("sda", 256), new Disk("sdb", 1024))),
+        new Server("s2", Arrays.asList("db", "prod"), Arrays.asList(new Disk("nvme0", 512))),
+        new Server("s3", Arrays.asList("web", "test"), Collections.<Disk>emptyList()),
+        new Server("s4", null, Arrays.asList(new Disk("sda", 128)))),
+        Server.class);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    Util.delete(dbFilesFolder);
+  }
+
+  private static List<Ticket> tickets() {
+    return Arrays.asList(
+        new Ticket("t1", Status.OPEN, Region.EU, true, "ann"),
+        new Ticket("t2", Status.CLOSED, Region.US, false, "bob"),
+        new Ticket("t3", Status.OPEN, Region.US, false, "anna"),
+        new Ticket("t4", Status.CLOSED, Region.APAC, true, null));
+  }
+
+  private <T> List<String> ids(Criteria criteria, Class<T> entityClass) {
+    List<String> ids = new ArrayList<String>();
+    for (Object document : jsonDBTemplate.find(criteria, entityClass)) {
+      if (document instanceof Ticket) {
+        ids.add(((Ticket) document).getId());
+      } else if (document instanceof Order) {
+        ids.add(((Order) document).getId());
+      } else {
+        ids.add(((Server) document).getId());
+      }
+    }
+    return ids;
+  }
+
+  @Test
+  public void testComparisons() {
+    assertEquals(Arrays.asList("t1", "t3"), ids(Criteria.eq("status", Status.OPEN), Ticket.class));
+    assertEquals(Arrays.asList("t1", "t3"), ids(Criteria.eq("status", "OPEN"), Ticket.class));
+    assertEquals(Arrays.asList("t2", "t4"), ids(Criteria.ne("status", Status.OPEN), Ticket.class));
+    assertEquals(Arrays.asList("t1", "t2", "t3"), ids(Criteria.in("region", Region.EU, Region.US), Ticket.class));
+    assertEquals(Arrays.asList("t4"), ids(Criteria.eq("owner", null), Ticket.class));
+    assertEquals(Arrays.asList("o1", "o4"), ids(Criteria.gt("total", 100), Order.class));
+    assertEquals(Arrays.asList("o3", "o4"), ids(Criteria.between("total", 99, 120), Order.class));
+    assertEquals(Arrays.asList("o2"), ids(Criteria.lt("createdAt", 300).and(Criteria.ne("customerId", "c1")), Order.class));
+    assertEquals(Arrays.asList("o1", "o3"), ids(Criteria.lte("customerId", "c1"), Order.class));
+  }
+
+  @Test
+  public void testExistsRegexAndNot() {
+    assertEquals(Arrays.asList("t1", "t2", "t3"), ids(Criteria.exists("owner"), Ticket.class));
+    assertEquals(Arrays.asList("t1", "t3"), ids(Criteria.regex("owner", "^ann"), Ticket.class));
+    assertEquals(Arrays.asList("t3"), ids(Criteria.eq("status", Status.OPEN).and(Criteria.regex("owner", "a$")), Ticket.class));
+    assertEquals(Arrays.asList("t2", "t4"), ids(Criteria.not(Criteria.regex("owner", "^ann")), Ticket.class));
+    assertEquals(Arrays.asList("t1", "t4"),
+        ids(Criteria.or(Criteria.eq("urgent", true), Criteria.eq("owner", "nobody")), Ticket.class));
+  }
+
+  @Test
+  public void testNestedPaths() {
+    assertEquals(Arrays.asList("s1", "s4"), ids(Criteria.eq("disks/name", "sda"), Server.class));
+    assertEquals(Arrays.asList("s1", "s2"), ids(Criteria.gte("disks/sizeGb", 512), Server.class));
+    assertEquals(Arrays.asList("s1", "s2", "s4"), ids(Criteria.exists("disks/name"), Server.class));
+    assertEquals(Arrays.asList("s3"), ids(Criteria.not(Criteria.exists("disks")), Server.class));
+    assertEquals(Arrays.asList("s1", "s2"), ids(Criteria.eq("tags", "prod"), Server.class));
+    assertEquals(Arrays.asList("s3", "s4"), ids(Criteria.ne("tags", "prod"), Server.class));
+  }
+
+  @Test
+  public void testSortAndSlice() {
+    List<Order> orders = jsonDBTemplate.find(Criteria.gt("total", 50), Order.class, Sort.descending("total"), "0:2");
+    assertEquals(2, orders.size());
+    assertEquals("o1", orders.get(0).getId());
+    assertEquals("o4", orders.get(1).getId());
+
+    orders = jsonDBTemplate.find(Criteria.eq("customerId", "c1"), Order.class, Sort.ascending("total"), null);
+    assertEquals("o3", orders.get(0).getId());
+    assertEquals("o1", orders.get(1).getId());
+  }
+
+  @Test
+  public void testFindOne() {
+    assertEquals("t3", jsonDBTemplate.findOne(Criteria.eq("status", Status.OPEN).and(Criteria.eq("region", Region.US)),
+        Ticket.class).getId());
+    assertNull(jsonDBTemplate.findOne(Criteria.eq("owner", "nobody"), Ticket.class));
+  }
+
+  @Test
+  public void testPlannedWithIndexes() {
+    CollectionMetaData cmd = new CollectionMetaData("tickets", Ticket.class, "1.0", null);
+    CollectionIndexes indexes = cmd.getIndexes();
+    Map<Object, Ticket> collection = new LinkedHashMap<Object, Ticket>();
+    for (Ticket ticket : tickets()) {
+      collection.put(ticket.getId(), ticket);
+    }
+    indexes.rebuild(collection);
+
+    IndexLookup lookup = indexes.plan(CompiledCriteria.compile(
+        Criteria.eq("status", Status.OPEN).and(Criteria.ne("region", Region.EU)), cmd), collection, null, -1);
+    assertEquals(Arrays.<Object>asList("t3"), lookup.getIds());
+    assertFalse(lookup.hasResidual());
+
+    lookup = indexes.plan(CompiledCriteria.compile(
+        Criteria.eq("urgent", true).and(Criteria.exists("owner")), cmd), collection, null, -1);
+    assertEquals(Arrays.<Object>asList("t1", "t4"), lookup.getIds());
+    assertTrue(lookup.hasResidual());
+
+    lookup = indexes.plan(CompiledCriteria.compile(Criteria.eq("id", "t2").and(Criteria.eq("owner", "bob")), cmd),
+        collection, null, -1);
+    assertEquals(Arrays.<Object>asList("t2"), lookup.getIds());
+    assertTrue(lookup.hasResidual());
+
+    assertNull(indexes.plan(CompiledCriteria.compile(Criteria.regex("owner", "b"), cmd), collection, null, -1));
+  }
+
+  @Test
+  public void testUnknownPath() {
+    expectedException.expect(InvalidJsonDbApiUsageException.class);
+    expectedException.expectMessage("Path 'disks/vendor' of collection 'servers' has no getter method for 'vendor'");
+    jsonDBTemplate.find(Criteria.eq("disks/vendor", "acme"), Server.class);
+  }
+
+  @Test
+  public void testMalformedPath() {
+    expectedException.expect(InvalidJsonDbApiUsageException.class);
+    expectedException.expectMessage("Path of a criteria must be field names separated by '/', was 'disks//name'");
+    Criteria.exists("disks//name");
+  }
+
+  @Test
+  public void testNullCriteria() {
+    expectedException.expect(InvalidJsonDbApiUsageException.class);
+    expectedException.expectMessage("Criteria cannot be null");
+    jsonDBTemplate.find((Criteria) null, Ticket.class);
+  }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.File;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import io.jsondb.Cursor;
+import io.jsondb.JsonDBTemplate;
+import io.jsondb.Util;
+import io.jsondb.query.Update;
+import io.jsondb.tests.model.Instance;
+import io.jsondb.tests.util.CountingCipher;
+
+/**
+ * Tests for the query results read lazily through cursors, streams and forEach
+ */
+public class CursorTests {
+  private String dbFilesLocation = "src/test/resources/dbfiles/cursorTests";
+  private File dbFilesFolder = new File(dbFilesLocation);
+
+  private CountingCipher cipher = null;
+  private JsonDBTemplate jsonDBTemplate = null;
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  @Before
+  public void setUp() throws GeneralSecurityException {
+    dbFilesFolder.mkdir();
+    cipher = new CountingCipher();
+    jsonDBTemplate = new JsonDBTemplate(dbFilesLocation, "io.jsondb.tests.model", cipher);
+    jsonDBTemplate.createCollection(Instance.class);
+    List<Instance> instances = new ArrayList<Instance>();
+    for (int i = 0; i < 20; i++) {
+      Instance instance = new Instance();
+      instance.setId(String.format("%02d", i));
+      instance.setHostname("host" + (i % 2));
+      instance.setPrivateKey("key" + i);
+      instances.add(instance);
+    }
+    jsonDBTemplate.insert(instances, Instance.class);
+    cipher.resetDecryptions();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    Util.delete(dbFilesFolder);
+  }
+
+  @Test
+  public void testCursorDecryptsAsItReads() {
+    try (Cursor<Instance> cursor = jsonDBTemplate.cursor("/.[hostname='host1']", Instance.class)) {
+      assertEquals(10, cursor.getCount());
+      assertEquals(0, cipher.getDecryptions());
+      Instance first = cursor.next();
+      assertEquals("01", first.getId());
+      assertEquals("key1", first.getPrivateKey());
+      assertEquals(1, cipher.getDecryptions());
+      assertEquals("03", cursor.next().getId());
+    }
+    assertEquals(2, cipher.getDecryptions());
+  }
+
+  @Test
+  public void testStreamReadsOnlyWhatItNeeds() {
+    List<String> keys = jsonDBTemplate.<Instance>stream(".", Instance.class)
+        .limit(3)
+        .map(new Function<Instance, String>() {
+          @Override
+          public String apply(Instance instance) {
+            return instance.getPrivateKey();
+          }
+        })
+        .collect(Collectors.toList());
+    assertEquals(3, keys.size());
+    assertEquals("key2", keys.get(2));
+    assertEquals(3, cipher.getDecryptions());
+  }
+
+  @Test
+  public void testForEach() {
+    final List<String> ids = new ArrayList<String>();
+    jsonDBTemplate.forEach("/.[hostname='host0']", Instance.class, new Consumer<Instance>() {
+      @Override
+      public void accept(Instance instance) {
+        ids.add(instance.getId());
+      }
+    });
+    assertEquals(10, ids.size());
+    assertEquals("18", ids.get(9));
+  }
+
+  @Test
+  public void testSortedCursor() {
+    Comparator<Instance> byIdDescending = new Comparator<Instance>() {
+      @Override
+      public int compare(Instance a, Instance b) {
+        return b.getId().compareTo(a.getId());
+      }
+    };
+    try (Cursor<Instance> cursor = jsonDBTemplate.cursor(".", "instances", byIdDescending)) {
+      assertEquals("19", cursor.next().getId());
+      assertEquals("18", cursor.next().getId());
+    }
+  }
+
+  @Test
+  public void testCursorIsASnapshot() {
+    Cursor<Instance> cursor = jsonDBTemplate.cursor("/.[hostname='host1']", Instance.class);
+    jsonDBTemplate.findAllAndModify("/.[hostname='host1']", Update.update("publicKey", "changed"), Instance.class);
+    jsonDBTemplate.remove(jsonDBTemplate.findById("03", Instance.class), Instance.class);
+
+    List<Instance> read = new ArrayList<Instance>();
+    while (cursor.hasNext()) {
+      read.add(cursor.next());
+    }
+    assertEquals(10, read.size());
+    assertEquals("03", read.get(1).getId());
+    for (Instance instance : read) {
+      assertEquals(null, instance.getPublicKey());
+    }
+  }
+
+  @Test
+  public void testClosedCursor() {
+    Cursor<Instance> cursor = jsonDBTemplate.cursor(".", Instance.class);
+    cursor.next();
+    cursor.close();
+    assertFalse(cursor.hasNext());
+    assertEquals(20, cursor.getCount());
+    assertEquals(1, cipher.getDecryptions());
+    expectedException.expect(NoSuchElementException.class);
+    cursor.next();
+  }
+}
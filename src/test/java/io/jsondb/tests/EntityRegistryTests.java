@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import com.google.common.io.Files;
+
+import io.jsondb.CollectionMetaData;
+import io.jsondb.DocumentRegistry;
+import io.jsondb.DocumentRegistry.RegisteredDocument;
+import io.jsondb.InvalidJsonDbApiUsageException;
+import io.jsondb.JsonDBConfig;
+import io.jsondb.JsonDBTemplate;
+import io.jsondb.Util;
+import io.jsondb.annotation.processing.DocumentRegistryProcessor;
+import io.jsondb.tests.model.Instance;
+import io.jsondb.tests.model.Site;
+
+/**
+ * Tests for the compile time registry of @Document classes and for classes registered explicitly.
+ */
+public class EntityRegistryTests {
+  private String dbFilesLocation = "src/test/resources/dbfiles/entityRegistryTests";
+  private File dbFilesFolder = new File(dbFilesLocation);
+  private File registryTestFolder = new File("build/tmp/entityRegistryTests");
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  @Before
+  public void setUp() throws Exception {
+    dbFilesFolder.mkdir();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    Util.delete(dbFilesFolder);
+    Util.delete(registryTestFolder);
+  }
+
+  @Test
+  public void testExplicitlyRegisteredEntities() {
+    JsonDBConfig dbConfig = new JsonDBConfig(dbFilesLocation, "io.jsondb.tests.model", null, false, null);
+    dbConfig.registerEntityClasses(Instance.class, Site.class);
+
+    Map<String, CollectionMetaData> cmdMap = CollectionMetaData.builder(dbConfig);
+    assertEquals(Arrays.asList("instances", "sites"), Arrays.asList(cmdMap.keySet().toArray()));
+
+    JsonDBTemplate jsonDBTemplate = new JsonDBTemplate(dbConfig);
+    jsonDBTemplate.createCollection(Instance.class);
+    assertTrue(jsonDBTemplate.collectionExists(Instance.class));
+  }
+
+  @Test
+  public void testRegisteringUnannotatedEntity() {
+    JsonDBConfig dbConfig = new JsonDBConfig(dbFilesLocation, "io.jsondb.tests.model", null, false, null);
+
+    expectedException.expect(InvalidJsonDbApiUsageException.class);
+    expectedException.expectMessage("Entity 'String' is not annotated with annotation @Document");
+    dbConfig.registerEntityClasses(String.class);
+  }
+
+  @Test
+  public void testRegistryWrittenByAnnotationProcessor() throws Exception {
+    File sources = new File(registryTestFolder, "src/registrytest");
+    File classes = new File(registryTestFolder, "classes");
+    sources.mkdirs();
+    classes.mkdirs();
+    File base = new File(sources, "Base.java");
+    Files.asCharSink(base, StandardCharsets.UTF_8).write(
+        "package registrytest;\n"
+      + "public class Base {\n"
+      + "  @io.jsondb.annotation.Secret private String key;\n"
+      + "  public String getKey() { return key; }\n"
+      + "  public void setKey(String key) { this.key = key; }\n"
+      + "}\n");
+    File gadget = new File(sources, "Gadget.java");
+    Files.asCharSink(gadget, StandardCharsets.UTF_8).write(
+        "package registrytest;\n"
+      + "@io.jsondb.annotation.Document(collection = \"gadgets\", schemaVersion = \"1.0\")\n"
+      + "public class Gadget extends Base {\n"
+      + "  @io.jsondb.annotation.Id private String id;\n"
+      + "  private boolean active;\n"
+      + "  public String getId() { return id; }\n"
+      + "  public void setId(String id) { this.id = id; }\n"
+      + "  public boolean isActive() { return active; }\n"
+      + "  public void setActive(boolean active) { this.active = active; }\n"
+      + "}\n");
+
+    //A package that merely starts with the same name is not part of the scanned package
+    File otherSources = new File(registryTestFolder, "src/registrytests");
+    otherSources.mkdirs();
+    File widget = new File(otherSources, "Widget.java");
+    Files.asCharSink(widget, StandardCharsets.UTF_8).write(
+        "package registrytests;\n"
+      + "@io.jsondb.annotation.Document(collection = \"widgets\", schemaVersion = \"1.0\")\n"
+      + "public class Widget {\n"
+      + "  @io.jsondb.annotation.Id private String id;\n"
+      + "  public String getId() { return id; }\n"
+      + "  public void setId(String id) { this.id = id; }\n"
+      + "}\n");
+
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    int result = compiler.run(null, null, null, "-processor", DocumentRegistryProcessor.class.getName(), "-d", classes.getPath(),
+        "-cp", System.getProperty("java.class.path"), base.getPath(), gadget.getPath(), widget.getPath());
+    assertEquals(0, result);
+
+    ClassLoader original = Thread.currentThread().getContextClassLoader();
+    try (URLClassLoader loader = new URLClassLoader(new URL[] {classes.toURI().toURL()}, getClass().getClassLoader())) {
+      Thread.currentThread().setContextClassLoader(loader);
+
+      List<String> registered = new ArrayList<String>();
+      for (RegisteredDocument document : DocumentRegistry.load(loader)) {
+        registered.add(document.getClassName());
+      }
+      assertTrue(registered.contains("registrytest.Gadget"));
+
+      JsonDBConfig dbConfig = new JsonDBConfig(dbFilesLocation, "registrytest", null, false, null);
+      Map<String, CollectionMetaData> cmdMap = CollectionMetaData.builder(dbConfig);
+      assertEquals(Arrays.asList("gadgets"), Arrays.asList(cmdMap.keySet().toArray()));
+      CollectionMetaData cmd = cmdMap.get("gadgets");
+      CollectionMetaData reflected = new CollectionMetaData("gadgets", loader.loadClass("registrytest.Gadget"),
+          "1.0", dbConfig.getSchemaComparator());
+
+      assertEquals("id", cmd.getIdAnnotatedFieldName());
+      assertEquals("getId", cmd.getIdAnnotatedFieldGetterMethod().getName());
+      assertEquals(Arrays.asList("key"), cmd.getSecretAnnotatedFieldNames());
+      assertTrue(cmd.hasSecret());
+      assertEquals("isActive", cmd.getGetterMethodForFieldName("active").getName());
+      for (String fieldName : Arrays.asList("id", "active", "key")) {
+        assertEquals(reflected.getGetterMethodForFieldName(fieldName), cmd.getGetterMethodForFieldName(fieldName));
+        assertEquals(reflected.getSetterMethodForFieldName(fieldName), cmd.getSetterMethodForFieldName(fieldName));
+      }
+    } finally {
+      Thread.currentThread().setContextClassLoader(original);
+    }
+  }
+}
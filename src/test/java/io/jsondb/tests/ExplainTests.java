@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.jsondb.JsonDBTemplate;
+import io.jsondb.QueryExplanation;
+import io.jsondb.Util;
+import io.jsondb.crypto.DefaultAESCBCCipher;
+import io.jsondb.index.AccessPath;
+import io.jsondb.query.Sort;
+import io.jsondb.tests.model.Instance;
+import io.jsondb.tests.model.Order;
+import io.jsondb.tests.model.Ticket;
+import io.jsondb.tests.model.Ticket.Region;
+import io.jsondb.tests.model.Ticket.Status;
+
+/**
+ * Tests for the explanation of how a find is executed
+ */
+public class ExplainTests {
+  private String dbFilesLocation = "src/test/resources/dbfiles/explainTests";
+  private File dbFilesFolder = new File(dbFilesLocation);
+
+  private JsonDBTemplate jsonDBTemplate = null;
+
+  @Before
+  public void setUp() throws GeneralSecurityException {
+    dbFilesFolder.mkdir();
+    jsonDBTemplate = new JsonDBTemplate(dbFilesLocation, "io.jsondb.tests.model",
+        new DefaultAESCBCCipher("1r8+24pibarAWgS85/Heeg=="));
+    jsonDBTemplate.createCollection(Instance.class);
+    List<Instance> instances = new ArrayList<Instance>();
+    for (int i = 0; i < 10; i++) {
+      Instance instance = new Instance();
+      instance.setId(String.format("%02d", i));
+      instance.setHostname("host" + (i % 2));
+      instance.setPrivateKey("key" + i);
+      instances.add(instance);
+    }
+    jsonDBTemplate.insert(instances, Instance.class);
+    jsonDBTemplate.createCollection(Ticket.class);
+    jsonDBTemplate.insert(Arrays.asList(
+        new Ticket("t1", Status.OPEN, Region.EU, true, "ann"),
+        new Ticket("t2", Status.CLOSED, Region.US, false, "bob"),
+        new Ticket("t3", Status.OPEN, Region.US, false, "anna")),
+        Ticket.class);
+    jsonDBTemplate.createCollection(Order.class);
+    List<Order> orders = new ArrayList<Order>();
+    for (int i = 0; i < 20; i++) {
+      orders.add(new Order(String.format("%02d", i), "C" + (i % 3), 1000 + i, i));
+    }
+    jsonDBTemplate.insert(orders, Order.class);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    Util.delete(dbFilesFolder);
+  }
+
+  @Test
+  public void testScan() {
+    QueryExplanation explanation = jsonDBTemplate.explain("/.[hostname='host1']", Instance.class, null, null);
+    assertEquals("instances", explanation.getCollectionName());
+    assertEquals(AccessPath.SCAN, explanation.getAccessPath());
+    assertEquals(10, explanation.getCandidateCount());
+    assertTrue(explanation.isResidual());
+    assertEquals(5, explanation.getMatchCount());
+    assertEquals(5, explanation.getReturnedCount());
+    assertTrue(explanation.getCopyNanos() > 0);
+    assertTrue(explanation.getDecryptNanos() > 0);
+    assertTrue(explanation.getTotalNanos() >= explanation.getCopyNanos() + explanation.getDecryptNanos());
+  }
+
+  @Test
+  public void testLookupById() {
+    QueryExplanation explanation = jsonDBTemplate.explain("/.[id='03']", "instances", null, null);
+    assertEquals(AccessPath.ID, explanation.getAccessPath());
+    assertEquals(1, explanation.getCandidateCount());
+    assertFalse(explanation.isResidual());
+    assertEquals(1, explanation.getReturnedCount());
+  }
+
+  @Test
+  public void testLookupInIndex() {
+    QueryExplanation explanation = jsonDBTemplate.explain("/.[status='OPEN']", Ticket.class, null, null);
+    assertEquals(AccessPath.INDEX, explanation.getAccessPath());
+    assertEquals(2, explanation.getCandidateCount());
+    assertFalse(explanation.isResidual());
+    assertEquals(2, explanation.getReturnedCount());
+  }
+
+  @Test
+  public void testSortedIndexAndSlice() {
+    QueryExplanation explanation = jsonDBTemplate.explain("/.[total>=0]", Order.class, Sort.descending("total"), "0:5");
+    assertEquals(AccessPath.INDEX, explanation.getAccessPath());
+    assertTrue(explanation.isOrderedByIndex());
+    assertEquals(0, explanation.getSortNanos());
+    assertEquals(5, explanation.getReturnedCount());
+    assertEquals("total desc", explanation.getComparator());
+
+    explanation = jsonDBTemplate.explain("/.[total>=0]", Order.class, Sort.descending("createdAt"), "0:5");
+    assertFalse(explanation.isOrderedByIndex());
+    assertEquals(20, explanation.getMatchCount());
+    assertEquals(5, explanation.getReturnedCount());
+  }
+
+  @Test
+  public void testUnsortedSliceStopsEarly() {
+    QueryExplanation explanation = jsonDBTemplate.explain("/.[hostname='host0']", Instance.class, null, "0:2");
+    assertEquals(2, explanation.getMatchCount());
+    assertEquals(2, explanation.getReturnedCount());
+  }
+}
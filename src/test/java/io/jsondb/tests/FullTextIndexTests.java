@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import io.jsondb.InvalidJsonDbApiUsageException;
+import io.jsondb.JsonDBTemplate;
+import io.jsondb.Util;
+import io.jsondb.index.IndexDefinition;
+import io.jsondb.index.IndexType;
+import io.jsondb.index.SimpleTokenizer;
+import io.jsondb.query.TextSearch;
+import io.jsondb.query.Update;
+import io.jsondb.tests.model.Article;
+
+/**
+ * Tests for the full text indexes of collections
+ */
+public class FullTextIndexTests {
+  private String dbFilesLocation = "src/test/resources/dbfiles/fullTextIndexTests";
+  private File dbFilesFolder = new File(dbFilesLocation);
+
+  private JsonDBTemplate jsonDBTemplate = null;
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  @Before
+  public void setUp() throws Exception {
+    dbFilesFolder.mkdir();
+    jsonDBTemplate = new JsonDBTemplate(dbFilesLocation, "io.jsondb.tests.model");
+    jsonDBTemplate.createCollection(Article.class);
+    jsonDBTemplate.insert(Arrays.asList(
+        new Article("a1", "Getting started", "JsonDB stores documents in JSON files, one file per collection.", Arrays.asList("intro"), true),
+        new Article("a2", "Indexes", "A index makes a query fast. A sorted index keeps documents sorted, a full text index keeps words.", Arrays.asList("index", "performance"), true),
+        new Article("a3", "Encryption", "Secret fields are encrypted before the JSON file is written.", Arrays.asList("security"), false),
+        new Article("a4", "Full text search", "Searching words of text fields is fast with a full text index.", Arrays.asList("index", "search"), false)),
+        Article.class);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    Util.delete(dbFilesFolder);
+  }
+
+  private static List<String> ids(List<Article> articles) {
+    List<String> ids = new ArrayList<String>();
+    for (Article article : articles) {
+      ids.add(article.getId());
+    }
+    return ids;
+  }
+
+  @Test
+  public void testAnnotatedFieldIsFullTextIndexed() {
+    List<IndexDefinition> indexes = jsonDBTemplate.getIndexes(Article.class);
+    assertEquals(1, indexes.size());
+    assertEquals("body", indexes.get(0).getName());
+    assertEquals(IndexType.FULL_TEXT, indexes.get(0).getType());
+  }
+
+  @Test
+  public void testTermSearches() {
+    assertEquals(Arrays.asList("a2", "a4"), ids(jsonDBTemplate.search(TextSearch.allTerms("Index fast"), Article.class)));
+    assertEquals(Arrays.asList("a1", "a3"), ids(jsonDBTemplate.search(TextSearch.anyTerm("collection secret"), Article.class)));
+    assertEquals(0, jsonDBTemplate.search(TextSearch.allTerms("index secret"), Article.class).size());
+    assertEquals(0, jsonDBTemplate.search(TextSearch.allTerms(" ,.; "), Article.class).size());
+  }
+
+  @Test
+  public void testPhraseSearch() {
+    assertEquals(Arrays.asList("a2", "a4"), ids(jsonDBTemplate.search(TextSearch.phrase("full text index"), Article.class)));
+    assertEquals(Arrays.asList("a2"), ids(jsonDBTemplate.search(TextSearch.phrase("sorted index"), Article.class)));
+    assertEquals(0, jsonDBTemplate.search(TextSearch.phrase("index sorted"), Article.class).size());
+  }
+
+  @Test
+  public void testPrefixSearch() {
+    assertEquals(Arrays.asList("a1", "a2"), ids(jsonDBTemplate.search(TextSearch.prefix("doc"), Article.class)));
+    assertEquals(Arrays.asList("a4"), ids(jsonDBTemplate.search(TextSearch.prefix("text fields sea"), Article.class)));
+  }
+
+  @Test
+  public void testRankedTopK() {
+    //a2 holds the word index three times
+    List<Article> articles = jsonDBTemplate.search(TextSearch.anyTerm("index").rankedByRelevance(), Article.class);
+    assertEquals(Arrays.asList("a2", "a4"), ids(articles));
+    assertEquals(Arrays.asList("a2"), ids(jsonDBTemplate.search(TextSearch.anyTerm("index json").rankedByRelevance().limit(1), Article.class)));
+    assertEquals(Arrays.asList("a1"), ids(jsonDBTemplate.search(TextSearch.anyTerm("index json").limit(1), Article.class)));
+  }
+
+  @Test
+  public void testSearchCombinedWithQuery() {
+    assertEquals(Arrays.asList("a2"), ids(jsonDBTemplate.search(TextSearch.allTerms("index").where("/.[published=true()]"), Article.class)));
+  }
+
+  @Test
+  public void testWritesUpdateTheIndex() {
+    jsonDBTemplate.save(new Article("a1", "Getting started", "JsonDB keeps collections in memory.", null, true), Article.class);
+    assertEquals(0, jsonDBTemplate.search(TextSearch.allTerms("files"), Article.class).size());
+    assertEquals(Arrays.asList("a1"), ids(jsonDBTemplate.search(TextSearch.phrase("in memory"), Article.class)));
+
+    jsonDBTemplate.findAndModify("/.[id='a3']", Update.update("body", "Nothing to see"), Article.class);
+    assertEquals(0, jsonDBTemplate.search(TextSearch.anyTerm("secret"), Article.class).size());
+
+    jsonDBTemplate.remove(jsonDBTemplate.findById("a4", Article.class), Article.class);
+    assertEquals(Arrays.asList("a2"), ids(jsonDBTemplate.search(TextSearch.anyTerm("index"), Article.class)));
+
+    jsonDBTemplate.reloadCollection("articles");
+    assertEquals(Arrays.asList("a1"), ids(jsonDBTemplate.search(TextSearch.phrase("in memory"), Article.class)));
+  }
+
+  @Test
+  public void testIndexOnSeveralFields() {
+    jsonDBTemplate.createIndex(IndexDefinition.fullText("title", "tags").named("titleAndTags")
+        .tokenizer(new SimpleTokenizer(false)), Article.class);
+
+    assertEquals(Arrays.asList("a4"), ids(jsonDBTemplate.search(TextSearch.allTerms("Full search").in("titleAndTags"), Article.class)));
+    assertEquals(0, jsonDBTemplate.search(TextSearch.allTerms("full").in("titleAndTags"), Article.class).size());
+    //A phrase does not span two fields
+    assertEquals(0, jsonDBTemplate.search(TextSearch.phrase("search index").in("titleAndTags"), Article.class).size());
+    assertEquals(Arrays.asList("a2", "a4"), ids(jsonDBTemplate.search(TextSearch.phrase("index").in("titleAndTags"), Article.class)));
+
+    expectedException.expect(InvalidJsonDbApiUsageException.class);
+    expectedException.expectMessage("Collection 'articles' has more than one full text index, name the one to search");
+    jsonDBTemplate.search(TextSearch.allTerms("index"), Article.class);
+  }
+
+  @Test
+  public void testSearchWithoutFullTextIndex() {
+    assertTrue(jsonDBTemplate.dropIndex("body", Article.class));
+
+    expectedException.expect(InvalidJsonDbApiUsageException.class);
+    expectedException.expectMessage("Collection 'articles' has no full text index");
+    jsonDBTemplate.search(TextSearch.allTerms("index"), Article.class);
+  }
+
+  @Test
+  public void testFullTextIndexNeedsTextFields() {
+    expectedException.expect(InvalidJsonDbApiUsageException.class);
+    expectedException.expectMessage("Field 'published' of collection 'articles' does not hold text, it cannot be full text indexed");
+    jsonDBTemplate.createIndex(IndexDefinition.fullText("published"), Article.class);
+  }
+
+  @Test
+  public void testTokenizer() {
+    assertEquals(Arrays.asList("don", "t", "panic", "42"), new SimpleTokenizer().tokenize("Don't PANIC: 42!"));
+    assertEquals(Arrays.asList("\u00dcber", "stra\u00dfe"), new SimpleTokenizer(false).tokenize("\u00dcber-stra\u00dfe"));
+    assertEquals(Collections.emptyList(), new SimpleTokenizer().tokenize(""));
+  }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.tests;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import com.google.common.io.Files;
+
+import io.jsondb.InvalidJsonDbApiUsageException;
+import io.jsondb.JsonDBConfig;
+import io.jsondb.JsonDBTemplate;
+import io.jsondb.Util;
+import io.jsondb.events.CollectionFileChangeAdapter;
+import io.jsondb.tests.model.Instance;
+
+/**
+ * Tests for databases that are kept in memory only.
+ */
+public class InMemoryTests {
+  private String dbFilesLocation = "src/test/resources/dbfiles/inMemoryTests";
+  private File dbFilesFolder = new File(dbFilesLocation);
+  private File instancesJson = new File(dbFilesFolder, "instances.json");
+  private File backupZip = new File(dbFilesFolder, "backup.zip");
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  @Before
+  public void setUp() throws Exception {
+    dbFilesFolder.mkdir();
+    Files.copy(new File("src/test/resources/dbfiles/instances.json"), instancesJson);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    Util.delete(dbFilesFolder);
+  }
+
+  private JsonDBTemplate createInMemoryTemplate(String location) {
+    JsonDBConfig dbConfig = new JsonDBConfig(location, "io.jsondb.tests.model", null, false, null);
+    dbConfig.setInMemory(true);
+    return new JsonDBTemplate(dbConfig);
+  }
+
+  private Instance newInstance(String id) {
+    Instance instance = new Instance();
+    instance.setId(id);
+    instance.setHostname("ec2-54-191-" + id);
+    instance.setPrivateKey("b87eb02f5dd7e5232d7b0fc30a5015e4");
+    instance.setPublicKey("d3aa045f71bf4d1dffd2c5f485a4bc1d");
+    return instance;
+  }
+
+  @Test
+  public void testWithoutDbFilesLocation() {
+    JsonDBTemplate jsonDBTemplate = createInMemoryTemplate(null);
+    assertFalse(jsonDBTemplate.collectionExists(Instance.class));
+
+    jsonDBTemplate.createCollection(Instance.class);
+    jsonDBTemplate.insert(newInstance("11"));
+    jsonDBTemplate.upsert(newInstance("12"));
+    assertEquals(2, jsonDBTemplate.findAll(Instance.class).size());
+    assertEquals("ec2-54-191-12", jsonDBTemplate.findById("12", Instance.class).getHostname());
+
+    jsonDBTemplate.remove(newInstance("11"), Instance.class);
+    assertNull(jsonDBTemplate.findById("11", Instance.class));
+
+    jsonDBTemplate.dropCollection(Instance.class);
+    assertFalse(jsonDBTemplate.collectionExists(Instance.class));
+  }
+
+  @Test
+  public void testDbFilesAreReadButNeverWritten() throws Exception {
+    byte[] original = Files.toByteArray(instancesJson);
+    JsonDBTemplate jsonDBTemplate = createInMemoryTemplate(dbFilesLocation);
+    assertEquals(6, jsonDBTemplate.findAll(Instance.class).size());
+
+    jsonDBTemplate.insert(newInstance("11"));
+    jsonDBTemplate.remove(jsonDBTemplate.findById("01", Instance.class), Instance.class);
+    assertEquals(6, jsonDBTemplate.findAll(Instance.class).size());
+    assertArrayEquals(original, Files.toByteArray(instancesJson));
+
+    jsonDBTemplate.dropCollection(Instance.class);
+    assertTrue(instancesJson.exists());
+
+    //Reloading brings back what is on disk
+    jsonDBTemplate.reLoadDB();
+    assertEquals(6, jsonDBTemplate.findAll(Instance.class).size());
+    assertNull(jsonDBTemplate.findById("11", Instance.class));
+  }
+
+  @Test
+  public void testNoLockFilesAreCreated() {
+    JsonDBTemplate jsonDBTemplate = createInMemoryTemplate(dbFilesLocation);
+    assertEquals(6, jsonDBTemplate.findAll(Instance.class).size());
+    jsonDBTemplate.insert(newInstance("11"));
+    jsonDBTemplate.reLoadDB();
+
+    assertFalse(new File(dbFilesFolder, "lock").exists());
+  }
+
+  @Test
+  public void testBackupAndRestore() {
+    JsonDBTemplate jsonDBTemplate = createInMemoryTemplate(null);
+    jsonDBTemplate.createCollection(Instance.class);
+    jsonDBTemplate.insert(newInstance("11"));
+    jsonDBTemplate.insert(newInstance("12"));
+    jsonDBTemplate.backup(backupZip.getPath());
+    assertTrue(backupZip.exists());
+
+    JsonDBTemplate restored = createInMemoryTemplate(null);
+    restored.restore(backupZip.getPath(), false);
+    assertEquals(2, restored.findAll(Instance.class).size());
+    assertEquals("ec2-54-191-11", restored.findById("11", Instance.class).getHostname());
+
+    //The backup is a regular one, it restores into a database on disk as well
+    JsonDBTemplate onDisk = new JsonDBTemplate(dbFilesLocation, "io.jsondb.tests.model");
+    onDisk.restore(backupZip.getPath(), false);
+    assertEquals(2, onDisk.findAll(Instance.class).size());
+  }
+
+  @Test
+  public void testMergeRestore() {
+    JsonDBTemplate jsonDBTemplate = createInMemoryTemplate(dbFilesLocation);
+    jsonDBTemplate.backup(backupZip.getPath());
+
+    JsonDBTemplate merged = createInMemoryTemplate(null);
+    merged.createCollection(Instance.class);
+    merged.insert(newInstance("11"));
+    merged.restore(backupZip.getPath(), true);
+    assertEquals(7, merged.findAll(Instance.class).size());
+  }
+
+  @Test
+  public void testFileChangeListenersAreRefused() {
+    JsonDBTemplate jsonDBTemplate = createInMemoryTemplate(null);
+
+    expectedException.expect(InvalidJsonDbApiUsageException.class);
+    expectedException.expectMessage("A in-memory database has no collection files to watch");
+    jsonDBTemplate.addCollectionFileChangeListener(new CollectionFileChangeAdapter() {});
+  }
+
+  @Test
+  public void testCheckpointIsRefused() {
+    JsonDBTemplate jsonDBTemplate = createInMemoryTemplate(null);
+
+    expectedException.expect(InvalidJsonDbApiUsageException.class);
+    expectedException.expectMessage("A in-memory database has no snapshots, use backup() to write it to disk");
+    jsonDBTemplate.checkpoint();
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.io.Files;
+
+import io.jsondb.JsonDBConfig;
+import io.jsondb.JsonDBTemplate;
+import io.jsondb.Util;
+import io.jsondb.events.CollectionChanges;
+import io.jsondb.events.CollectionFileChangeAdapter;
+import io.jsondb.tests.model.Instance;
+
+/**
+ * Tests for reloads that only apply the documents that changed in the collection file.
+ */
+public class IncrementalReloadTests {
+  private String dbFilesLocation = "src/test/resources/dbfiles/incrementalReloadTests";
+  private File dbFilesFolder = new File(dbFilesLocation);
+  private File instancesJson = new File(dbFilesFolder, "instances.json");
+
+  private JsonDBTemplate jsonDBTemplate = null;
+  private List<CollectionChanges> reportedChanges = new ArrayList<CollectionChanges>();
+  private CollectionFileChangeAdapter adapter = new CollectionFileChangeAdapter() {
+    @Override
+    public void collectionReloaded(String collectionName, CollectionChanges changes) {
+      reportedChanges.add(changes);
+    }
+  };
+
+  @Before
+  public void setUp() throws Exception {
+    dbFilesFolder.mkdir();
+    Files.copy(new File("src/test/resources/dbfiles/instances.json"), instancesJson);
+    JsonDBConfig dbConfig = new JsonDBConfig(dbFilesLocation, "io.jsondb.tests.model", null, false, null);
+    dbConfig.setIncrementalReload(true);
+    jsonDBTemplate = new JsonDBTemplate(dbConfig);
+    jsonDBTemplate.addCollectionFileChangeListener(adapter);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    jsonDBTemplate.removeCollectionFileChangeListener(adapter);
+    Util.delete(dbFilesFolder);
+  }
+
+  private void rewriteInstancesFile() throws IOException {
+    List<String> lines = Files.readLines(instancesJson, StandardCharsets.UTF_8);
+    List<String> newLines = new ArrayList<String>();
+    for (String line : lines) {
+      if (line.contains("\"id\":\"03\"")) {
+        newLines.add(line.replace("ec2-54-191-04", "ec2-54-191-33"));
+      } else if (!line.contains("\"id\":\"05\"")) {
+        newLines.add(line);
+      }
+    }
+    newLines.add("{\"id\":\"07\",\"hostname\":\"ec2-54-191-07\",\"privateKey\":\"\",\"publicKey\":\"\"}");
+    StringBuilder content = new StringBuilder();
+    for (String line : newLines) {
+      content.append(line).append('\n');
+    }
+    Files.write(content.toString().getBytes(StandardCharsets.UTF_8), instancesJson);
+  }
+
+  @Test
+  public void testOnlyChangedDocumentsAreReported() throws IOException {
+    rewriteInstancesFile();
+    jsonDBTemplate.reloadCollection("instances");
+
+    assertEquals(1, reportedChanges.size());
+    CollectionChanges changes = reportedChanges.get(0);
+    assertEquals(1, changes.getAddedIds().size());
+    assertTrue(changes.getAddedIds().contains("07"));
+    assertEquals(1, changes.getRemovedIds().size());
+    assertTrue(changes.getRemovedIds().contains("05"));
+    assertEquals(1, changes.getChangedIds().size());
+    assertTrue(changes.getChangedIds().contains("03"));
+
+    assertEquals(6, jsonDBTemplate.findAll(Instance.class).size());
+    assertEquals("ec2-54-191-33", jsonDBTemplate.findById("03", Instance.class).getHostname());
+    assertEquals("ec2-54-191-07", jsonDBTemplate.findById("07", Instance.class).getHostname());
+    assertNull(jsonDBTemplate.findById("05", Instance.class));
+  }
+
+  @Test
+  public void testOwnWritesAreNotReported() {
+    Instance instance = jsonDBTemplate.findById("01", Instance.class);
+    instance.setHostname("ec2-54-191-11");
+    jsonDBTemplate.save(instance, Instance.class);
+
+    jsonDBTemplate.reloadCollection("instances");
+
+    assertEquals(1, reportedChanges.size());
+    assertTrue(reportedChanges.get(0).isEmpty());
+    assertEquals("ec2-54-191-11", jsonDBTemplate.findById("01", Instance.class).getHostname());
+  }
+}
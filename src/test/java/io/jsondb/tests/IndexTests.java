@@ -0,0 +1,308 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import com.google.common.io.Files;
+
+import io.jsondb.InvalidJsonDbApiUsageException;
+import io.jsondb.JsonDBTemplate;
+import io.jsondb.Util;
+import io.jsondb.index.Comparison;
+import io.jsondb.index.IndexDefinition;
+import io.jsondb.index.IndexQuery;
+import io.jsondb.index.IndexType;
+import io.jsondb.query.Sort;
+import io.jsondb.query.Update;
+import io.jsondb.tests.model.Account;
+import io.jsondb.tests.model.Instance;
+import io.jsondb.tests.model.Order;
+
+/**
+ * Tests for the secondary indexes of collections
+ */
+public class IndexTests {
+  private String dbFilesLocation = "src/test/resources/dbfiles/indexTests";
+  private File dbFilesFolder = new File(dbFilesLocation);
+  private File instancesJson = new File(dbFilesFolder, "instances.json");
+
+  private JsonDBTemplate jsonDBTemplate = null;
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  @Before
+  public void setUp() throws Exception {
+    dbFilesFolder.mkdir();
+    Files.copy(new File("src/test/resources/dbfiles/instances.json"), instancesJson);
+    jsonDBTemplate = new JsonDBTemplate(dbFilesLocation, "io.jsondb.tests.model");
+    jsonDBTemplate.createCollection(Account.class);
+    jsonDBTemplate.insert(new Account("1", "ann@example.com", "NZ", 31));
+    jsonDBTemplate.insert(new Account("2", "bob@example.com", "AU", 42));
+    jsonDBTemplate.insert(new Account("3", "cid@example.com", "NZ", 27));
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    Util.delete(dbFilesFolder);
+  }
+
+  private static List<String> ids(List<Account> accounts) {
+    List<String> ids = new ArrayList<String>();
+    for (Account account : accounts) {
+      ids.add(account.getId());
+    }
+    return ids;
+  }
+
+  private static List<String> orderIds(List<Order> orders) {
+    List<String> ids = new ArrayList<String>();
+    for (Order order : orders) {
+      ids.add(order.getId());
+    }
+    return ids;
+  }
+
+  private void insertOrders() {
+    jsonDBTemplate.createCollection(Order.class);
+    jsonDBTemplate.insert(Arrays.asList(new Order("o1", "C1", 1, 45.0),
+        new Order("o2", "C2", 2, 12.5),
+        new Order("o3", "C1", 3, 99.0),
+        new Order("o4", "C1", 4, 30.0),
+        new Order("o5", "C2", 5, 60.0)), Order.class);
+  }
+
+  @Test
+  public void testAnnotatedFieldsAreIndexed() {
+    List<IndexDefinition> indexes = jsonDBTemplate.getIndexes(Account.class);
+    assertEquals(2, indexes.size());
+    assertEquals("email", indexes.get(0).getName());
+    assertTrue(indexes.get(0).isUnique());
+    assertEquals("country", indexes.get(1).getName());
+    assertFalse(indexes.get(1).isUnique());
+  }
+
+  @Test
+  public void testFindByIndexedField() {
+    Account account = jsonDBTemplate.findOne("/.[email='bob@example.com']", Account.class);
+    assertEquals("2", account.getId());
+
+    //Results come back in the order the collection holds them
+    assertEquals(Arrays.asList("1", "3"), ids(jsonDBTemplate.find("/.[country='NZ']", Account.class)));
+    assertEquals(0, jsonDBTemplate.find("/.[country='US']", Account.class).size());
+  }
+
+  @Test
+  public void testFindByProgrammaticIndex() {
+    jsonDBTemplate.createIndex(IndexDefinition.hash("age"), Account.class);
+    assertEquals(3, jsonDBTemplate.getIndexes(Account.class).size());
+
+    assertEquals(Arrays.asList("2"), ids(jsonDBTemplate.find("/.[age=42]", Account.class)));
+    jsonDBTemplate.insert(new Account("4", "dee@example.com", "AU", 42));
+    assertEquals(Arrays.asList("2", "4"), ids(jsonDBTemplate.find("/.[age=42]", Account.class)));
+
+    assertTrue(jsonDBTemplate.dropIndex("age", Account.class));
+    assertFalse(jsonDBTemplate.dropIndex("age", Account.class));
+    assertEquals(Arrays.asList("2", "4"), ids(jsonDBTemplate.find("/.[age=42]", Account.class)));
+  }
+
+  @Test
+  public void testUniqueIndexRejectsInsert() {
+    expectedException.expect(InvalidJsonDbApiUsageException.class);
+    expectedException.expectMessage("Unique index 'email' of collection 'accounts' already holds the value 'ann@example.com'");
+    try {
+      jsonDBTemplate.insert(new Account("4", "ann@example.com", "US", 50));
+    } finally {
+      assertNull(jsonDBTemplate.findById("4", Account.class));
+      assertEquals(3, jsonDBTemplate.findAll(Account.class).size());
+    }
+  }
+
+  @Test
+  public void testUniqueIndexRejectsDuplicatesWithinBatch() {
+    expectedException.expect(InvalidJsonDbApiUsageException.class);
+    expectedException.expectMessage("already holds the value 'eve@example.com'");
+    jsonDBTemplate.insert(Arrays.asList(new Account("4", "eve@example.com", "US", 50),
+        new Account("5", "eve@example.com", "US", 51)), Account.class);
+  }
+
+  @Test
+  public void testUniqueIndexAllowsSwappingValuesWithinBatch() {
+    jsonDBTemplate.upsert(Arrays.asList(new Account("1", "bob@example.com", "NZ", 31),
+        new Account("2", "ann@example.com", "AU", 42)), Account.class);
+
+    assertEquals("2", jsonDBTemplate.findOne("/.[email='ann@example.com']", Account.class).getId());
+    assertEquals("1", jsonDBTemplate.findOne("/.[email='bob@example.com']", Account.class).getId());
+  }
+
+  @Test
+  public void testSaveAndRemoveUpdateTheIndexes() {
+    jsonDBTemplate.save(new Account("1", "ann@example.org", "AU", 31), Account.class);
+    assertNull(jsonDBTemplate.findOne("/.[email='ann@example.com']", Account.class));
+    assertEquals("1", jsonDBTemplate.findOne("/.[email='ann@example.org']", Account.class).getId());
+    //The document keeps its place in the collection
+    assertEquals(Arrays.asList("1", "2"), ids(jsonDBTemplate.find("/.[country='AU']", Account.class)));
+
+    jsonDBTemplate.remove(new Account("1", null, null, 0), Account.class);
+    assertNull(jsonDBTemplate.findOne("/.[email='ann@example.org']", Account.class));
+    assertEquals(Arrays.asList("2"), ids(jsonDBTemplate.find("/.[country='AU']", Account.class)));
+  }
+
+  @Test
+  public void testFindAndModifyUpdatesTheIndexes() {
+    Update update = Update.update("country", "AU");
+    List<Account> modified = jsonDBTemplate.findAllAndModify("/.[country='NZ']", update, Account.class);
+    assertEquals(2, modified.size());
+    assertEquals(0, jsonDBTemplate.find("/.[country='NZ']", Account.class).size());
+    assertEquals(Arrays.asList("1", "2", "3"), ids(jsonDBTemplate.find("/.[country='AU']", Account.class)));
+
+    expectedException.expect(InvalidJsonDbApiUsageException.class);
+    jsonDBTemplate.findAndModify("/.[email='cid@example.com']", Update.update("email", "bob@example.com"), Account.class);
+  }
+
+  @Test
+  public void testFindAllAndRemoveUpdatesTheIndexes() {
+    jsonDBTemplate.findAllAndRemove("/.[country='NZ']", Account.class);
+    assertEquals(0, jsonDBTemplate.find("/.[country='NZ']", Account.class).size());
+    assertNull(jsonDBTemplate.findOne("/.[email='ann@example.com']", Account.class));
+    assertEquals("2", jsonDBTemplate.findOne("/.[email='bob@example.com']", Account.class).getId());
+  }
+
+  @Test
+  public void testIndexesAreRebuiltOnReload() {
+    jsonDBTemplate.reloadCollection("accounts");
+    assertEquals(Arrays.asList("1", "3"), ids(jsonDBTemplate.find("/.[country='NZ']", Account.class)));
+
+    JsonDBTemplate otherTemplate = new JsonDBTemplate(dbFilesLocation, "io.jsondb.tests.model");
+    assertEquals("3", otherTemplate.findOne("/.[email='cid@example.com']", Account.class).getId());
+  }
+
+  @Test
+  public void testCreateUniqueIndexOverDuplicates() {
+    jsonDBTemplate.createIndex(IndexDefinition.hash("publicKey"), Instance.class);
+    List<Instance> instances = jsonDBTemplate.find("/.[publicKey='d3aa045f71bf4d1dffd2c5f485a4bc1d']", Instance.class);
+    assertEquals(5, instances.size());
+
+    expectedException.expect(InvalidJsonDbApiUsageException.class);
+    expectedException.expectMessage("Cannot create unique index 'uniquePublicKey'");
+    try {
+      jsonDBTemplate.createIndex(IndexDefinition.hash("publicKey").named("uniquePublicKey").unique(), Instance.class);
+    } finally {
+      assertEquals(1, jsonDBTemplate.getIndexes(Instance.class).size());
+    }
+  }
+
+  @Test
+  public void testCreateIndexOnUnknownField() {
+    expectedException.expect(InvalidJsonDbApiUsageException.class);
+    expectedException.expectMessage("Field 'nickname' of collection 'accounts' has no getter method, it cannot be indexed");
+    jsonDBTemplate.createIndex(IndexDefinition.hash("nickname"), Account.class);
+  }
+
+  @Test
+  public void testQueryRecognition() {
+    List<Comparison> comparisons = IndexQuery.parse("/.[ email = \"x@y\" ]").getComparisons();
+    assertEquals(1, comparisons.size());
+    assertEquals("email", comparisons.get(0).getFieldName());
+    assertEquals(Comparison.Operator.EQ, comparisons.get(0).getOperator());
+    assertEquals("x@y", comparisons.get(0).getLiteral());
+    assertEquals(Double.valueOf(42), IndexQuery.parse("/.[age=42]").getComparisons().get(0).getLiteral());
+
+    comparisons = IndexQuery.parse("/.[country='NZ' and age>=30 and age<40]").getComparisons();
+    assertEquals(3, comparisons.size());
+    assertEquals(Comparison.Operator.GE, comparisons.get(1).getOperator());
+    assertEquals(Comparison.Operator.LT, comparisons.get(2).getOperator());
+
+    IndexQuery query = IndexQuery.parse("/.[country='NZ' or (age=42 and not(active=true()))]");
+    assertNull(query.getComparisons());
+    assertEquals("(country='NZ' or (age=42.0 and not(active=true())))", query.getCondition().toString());
+    assertNull(IndexQuery.parse("/.[country='NZ' and]"));
+    assertEquals("address/city", IndexQuery.parse("/.[address/city='x']").getComparisons().get(0).getFieldName());
+    assertNull(IndexQuery.parse("/.[address[1]/city='x']"));
+  }
+
+  @Test
+  public void testRangeQueryOnSortedIndex() {
+    insertOrders();
+    List<IndexDefinition> indexes = jsonDBTemplate.getIndexes(Order.class);
+    assertEquals(1, indexes.size());
+    assertEquals(IndexType.SORTED, indexes.get(0).getType());
+
+    //Without a Sort the results come back in the order the collection holds them
+    assertEquals(Arrays.asList("o1", "o4", "o5"), orderIds(jsonDBTemplate.find("/.[total>=30 and total<=60]", Order.class)));
+    assertEquals(Arrays.asList("o3"), orderIds(jsonDBTemplate.find("/.[total>60]", Order.class)));
+    assertEquals(0, jsonDBTemplate.find("/.[total>60 and total<50]", Order.class).size());
+  }
+
+  @Test
+  public void testSortedIndexServesSortAndSlice() {
+    insertOrders();
+    assertEquals(Arrays.asList("o3", "o5"), orderIds(jsonDBTemplate.find("/.[total>40]", Order.class, Sort.descending("total"), "0:2")));
+    assertEquals(Arrays.asList("o2", "o4", "o1"), orderIds(jsonDBTemplate.findAll(Order.class, Sort.ascending("total"), "0:3")));
+
+    jsonDBTemplate.save(new Order("o2", "C2", 2, 75.0), Order.class);
+    assertEquals(Arrays.asList("o4", "o1", "o5", "o2", "o3"), orderIds(jsonDBTemplate.findAll(Order.class, Sort.ascending("total"), null)));
+  }
+
+  @Test
+  public void testCompositeSortedIndex() {
+    insertOrders();
+    jsonDBTemplate.createIndex(IndexDefinition.sorted("customerId", "createdAt"), Order.class);
+    assertEquals("customerId_createdAt", jsonDBTemplate.getIndexes(Order.class).get(1).getName());
+
+    //Latest two orders of a customer
+    assertEquals(Arrays.asList("o4", "o3"), orderIds(jsonDBTemplate.find("/.[customerId='C1']", Order.class, Sort.descending("createdAt"), "0:2")));
+    assertEquals(Arrays.asList("o3", "o4"), orderIds(jsonDBTemplate.find("/.[customerId='C1' and createdAt>=2]", Order.class)));
+    assertEquals(0, jsonDBTemplate.find("/.[customerId='C3']", Order.class).size());
+  }
+
+  @Test
+  public void testUniqueCompositeSortedIndex() {
+    insertOrders();
+    jsonDBTemplate.createIndex(IndexDefinition.sorted("customerId", "createdAt").unique(), Order.class);
+
+    expectedException.expect(InvalidJsonDbApiUsageException.class);
+    expectedException.expectMessage("Unique index 'customerId_createdAt' of collection 'orders' already holds the value");
+    jsonDBTemplate.insert(new Order("o6", "C1", 3, 10.0));
+  }
+
+  @Test
+  public void testSortedIndexRejectsSecretFields() {
+    expectedException.expect(InvalidJsonDbApiUsageException.class);
+    expectedException.expectMessage("Field 'privateKey' of collection 'instances' is a @Secret field, its encrypted values cannot be sort indexed");
+    jsonDBTemplate.createIndex(IndexDefinition.sorted("privateKey"), Instance.class);
+  }
+}
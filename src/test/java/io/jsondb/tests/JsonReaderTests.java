@@ -22,11 +22,13 @@ package io.jsondb.tests;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 
 import org.junit.After;
 import org.junit.Before;
@@ -107,6 +109,40 @@ public class JsonReaderTests {
     jr.close();
   }
 
+  @Test
+  public void testReadAllLinesAsBytes() throws IOException {
+    JsonDBConfig dbConfig = new JsonDBConfig(dbFilesLocation, "io.jsondb.tests.model", null, false,
+        new DefaultSchemaVersionComparator());
+
+    JsonReader jr = new JsonReader(dbConfig, instancesJson);
+    byte[] line = jr.readLineBytes();
+    assertEquals("{\"schemaVersion\":\"1.0\"}", new String(line, 0, jr.getLineLength(), StandardCharsets.UTF_8));
+    int lineCount = 1;
+    while (jr.readLineBytes() != null) {
+      lineCount++;
+    }
+    jr.close();
+    assertEquals(7, lineCount);
+  }
+
+  @Test
+  public void testReadLineBytesTerminators() throws IOException {
+    File mixedLineEndings = new File(dbFilesFolder, "mixed.json");
+    Files.write("one\r\ntwo\rthree\nfour".getBytes(StandardCharsets.UTF_8), mixedLineEndings);
+    JsonDBConfig dbConfig = new JsonDBConfig(dbFilesLocation, "io.jsondb.tests.model", null, false,
+        new DefaultSchemaVersionComparator());
+
+    JsonReader jr = new JsonReader(dbConfig, mixedLineEndings);
+    String[] expected = {"one", "two", "three", "four"};
+    for (String expectedLine : expected) {
+      byte[] line = jr.readLineBytes();
+      assertNotNull(line);
+      assertEquals(expectedLine, new String(line, 0, jr.getLineLength(), StandardCharsets.UTF_8));
+    }
+    assertNull(jr.readLineBytes());
+    jr.close();
+  }
+
   @Test
   public void testLockException() throws IOException {
     File lockFolder = new File(dbFilesLocation, "lock");
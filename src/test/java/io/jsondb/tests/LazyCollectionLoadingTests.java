@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.io.Files;
+
+import io.jsondb.JsonDBConfig;
+import io.jsondb.JsonDBTemplate;
+import io.jsondb.Util;
+import io.jsondb.tests.model.Instance;
+import io.jsondb.tests.util.TestUtils;
+
+/**
+ * Tests for lazily loaded collections and the idle collection unloader.
+ */
+public class LazyCollectionLoadingTests {
+  private static final long IDLE_TIMEOUT = 200;
+
+  private String dbFilesLocation = "src/test/resources/dbfiles/lazyCollectionLoadingTests";
+  private File dbFilesFolder = new File(dbFilesLocation);
+  private File instancesJson = new File(dbFilesFolder, "instances.json");
+
+  private String newInstanceJson = "{\"id\":\"07\",\"hostname\":\"ec2-54-191-07\",\"privateKey\":\"Zf9vl5K6WV6BA3eL7JbnrfPMjfJxc9Rkoo0zlROQlgTslmcp9iFzos+MP93GZqop\",\"publicKey\":\"d3aa045f71bf4d1dffd2c5f485a4bc1d\"}";
+
+  @Before
+  public void setUp() throws Exception {
+    dbFilesFolder.mkdir();
+    Files.copy(new File("src/test/resources/dbfiles/instances.json"), instancesJson);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    Util.delete(dbFilesFolder);
+  }
+
+  private JsonDBTemplate createLazyTemplate(long idleTimeout) {
+    JsonDBConfig dbConfig = new JsonDBConfig(dbFilesLocation, "io.jsondb.tests.model", null, false, null);
+    dbConfig.setLazyLoading(true);
+    dbConfig.setCollectionIdleTimeout(idleTimeout);
+    return new JsonDBTemplate(dbConfig);
+  }
+
+  @Test
+  public void testLazyCollectionIsVisibleBeforeFirstAccess() {
+    JsonDBTemplate jsonDBTemplate = createLazyTemplate(0);
+
+    assertTrue(jsonDBTemplate.collectionExists(Instance.class));
+    assertTrue(jsonDBTemplate.getCollectionNames().contains("instances"));
+  }
+
+  @Test
+  public void testLazyCollectionIsLoadedOnFirstAccess() {
+    JsonDBTemplate jsonDBTemplate = createLazyTemplate(0);
+
+    //Changes made before the first access must be visible as nothing was read yet
+    TestUtils.appendDirectToFile(instancesJson, newInstanceJson);
+
+    assertEquals(7, jsonDBTemplate.findAll(Instance.class).size());
+    assertEquals("ec2-54-191-07", jsonDBTemplate.findById("07", Instance.class).getHostname());
+  }
+
+  @Test
+  public void testIdleCollectionIsUnloadedAndReloaded() throws InterruptedException {
+    JsonDBTemplate jsonDBTemplate = createLazyTemplate(IDLE_TIMEOUT);
+    assertEquals(6, jsonDBTemplate.findAll(Instance.class).size());
+
+    TestUtils.appendDirectToFile(instancesJson, newInstanceJson);
+    Thread.sleep(IDLE_TIMEOUT * 5);
+
+    //The collection was released while idle, so this access reads the file again
+    assertEquals(7, jsonDBTemplate.findAll(Instance.class).size());
+  }
+
+  @Test
+  public void testPinnedCollectionIsNotUnloaded() throws InterruptedException {
+    JsonDBTemplate jsonDBTemplate = createLazyTemplate(IDLE_TIMEOUT);
+    jsonDBTemplate.pinCollection(Instance.class);
+    assertEquals(6, jsonDBTemplate.findAll(Instance.class).size());
+
+    TestUtils.appendDirectToFile(instancesJson, newInstanceJson);
+    Thread.sleep(IDLE_TIMEOUT * 5);
+
+    assertEquals(6, jsonDBTemplate.findAll(Instance.class).size());
+
+    jsonDBTemplate.unpinCollection(Instance.class);
+    Thread.sleep(IDLE_TIMEOUT * 5);
+    assertEquals(7, jsonDBTemplate.findAll(Instance.class).size());
+  }
+
+  @Test
+  public void testWritesToLazyCollection() {
+    JsonDBTemplate jsonDBTemplate = createLazyTemplate(0);
+
+    Instance instance = new Instance();
+    instance.setId("08");
+    instance.setHostname("ec2-54-191-08");
+    jsonDBTemplate.insert(instance);
+
+    assertEquals(7, jsonDBTemplate.findAll(Instance.class).size());
+    assertEquals(8, TestUtils.getNoOfLinesInFile(instancesJson));
+  }
+
+  @Test
+  public void testAccessWhileUnloading() throws Exception {
+    //Unloaded as soon as it is idle, so that unloads keep racing with the accesses
+    final JsonDBTemplate jsonDBTemplate = createLazyTemplate(1);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+      for (int i = 0; i < 4; i++) {
+        final int thread = i;
+        results.add(executor.submit(new Callable<Integer>() {
+          @Override
+          public Integer call() throws InterruptedException {
+            for (int j = 0; j < 25; j++) {
+              Instance instance = new Instance();
+              instance.setId("t" + thread + "-" + j);
+              instance.setHostname("ec2-54-191-" + j);
+              jsonDBTemplate.insert(instance);
+              assertEquals("ec2-54-191-01", jsonDBTemplate.findById("01", Instance.class).getHostname());
+              Thread.sleep(2);
+            }
+            return jsonDBTemplate.findAll(Instance.class).size();
+          }
+        }));
+      }
+      for (Future<Integer> result : results) {
+        assertTrue(result.get() >= 31);
+      }
+    } finally {
+      executor.shutdown();
+    }
+    assertEquals(106, jsonDBTemplate.findAll(Instance.class).size());
+  }
+}
@@ -24,6 +24,8 @@ import static org.junit.Assert.assertEquals;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.util.Set;
 
 import org.junit.After;
@@ -72,4 +74,24 @@ public class LoadInvalidJsonTests {
     assertEquals(collectionNames.size(), 0);
     assertEquals(8, TestUtils.getNoOfLinesInFile(instancesJson));
   }
+
+  /**
+   * A test to ensure a collection file with bytes that are not valid UTF-8 is rejected rather than loaded
+   */
+  @Test
+  public void testLoadForMalformedEncoding() throws IOException {
+    byte[] prefix = "{\"id\":\"07\",\"hostname\":\"ec2-54-191-".getBytes(StandardCharsets.UTF_8);
+    byte[] suffix = "\",\"privateKey\":\"\",\"publicKey\":\"\"}\n".getBytes(StandardCharsets.UTF_8);
+    byte[] malformedLine = new byte[prefix.length + 2 + suffix.length];
+    System.arraycopy(prefix, 0, malformedLine, 0, prefix.length);
+    malformedLine[prefix.length] = (byte) 0xC3; //Start of a two byte sequence
+    malformedLine[prefix.length + 1] = (byte) 0x28; //Not a valid continuation byte
+    System.arraycopy(suffix, 0, malformedLine, prefix.length + 2, suffix.length);
+    java.nio.file.Files.write(instancesJson.toPath(), malformedLine, StandardOpenOption.APPEND);
+
+    JsonDBTemplate jsonDBTemplate = new JsonDBTemplate(dbFilesLocation, "io.jsondb.tests.model");
+
+    assertEquals(0, jsonDBTemplate.getCollectionNames().size());
+    assertEquals(8, TestUtils.getNoOfLinesInFile(instancesJson));
+  }
 }
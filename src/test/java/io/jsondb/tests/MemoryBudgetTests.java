@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import com.google.common.io.Files;
+
+import io.jsondb.CollectionCacheStats;
+import io.jsondb.CollectionMemoryBudget;
+import io.jsondb.InvalidJsonDbApiUsageException;
+import io.jsondb.JsonDBConfig;
+import io.jsondb.JsonDBTemplate;
+import io.jsondb.Util;
+import io.jsondb.tests.model.Account;
+import io.jsondb.tests.model.Instance;
+
+/**
+ * Tests for collections whose memory use is limited by a CollectionMemoryBudget.
+ */
+public class MemoryBudgetTests {
+  private String dbFilesLocation = "src/test/resources/dbfiles/memoryBudgetTests";
+  private File dbFilesFolder = new File(dbFilesLocation);
+  private File instancesJson = new File(dbFilesFolder, "instances.json");
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  @Before
+  public void setUp() throws Exception {
+    dbFilesFolder.mkdir();
+    Files.copy(new File("src/test/resources/dbfiles/instances.json"), instancesJson);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    Util.delete(dbFilesFolder);
+  }
+
+  private JsonDBTemplate createTemplate(CollectionMemoryBudget budget) {
+    JsonDBConfig dbConfig = new JsonDBConfig(dbFilesLocation, "io.jsondb.tests.model", null, false, null);
+    dbConfig.setMemoryBudget("instances", budget);
+    return new JsonDBTemplate(dbConfig);
+  }
+
+  @Test
+  public void testDocumentCountBudget() {
+    JsonDBTemplate jsonDBTemplate = createTemplate(CollectionMemoryBudget.ofDocuments(2));
+
+    assertEquals("ec2-54-191-01", jsonDBTemplate.findById("01", Instance.class).getHostname());
+    assertEquals("ec2-54-191-01", jsonDBTemplate.findById("01", Instance.class).getHostname());
+    jsonDBTemplate.findById("02", Instance.class);
+    jsonDBTemplate.findById("03", Instance.class);
+
+    CollectionCacheStats stats = jsonDBTemplate.getCacheStats(Instance.class);
+    assertEquals(1, stats.getHitCount());
+    assertEquals(3, stats.getMissCount());
+    assertEquals(1, stats.getEvictionCount());
+    assertEquals(2, stats.getCachedDocuments());
+  }
+
+  @Test
+  public void testByteBudget() {
+    //The documents of instances.json are 165 bytes long, so only one fits
+    JsonDBTemplate jsonDBTemplate = createTemplate(CollectionMemoryBudget.ofBytes(250));
+
+    jsonDBTemplate.findById("01", Instance.class);
+    jsonDBTemplate.findById("02", Instance.class);
+
+    CollectionCacheStats stats = jsonDBTemplate.getCacheStats(Instance.class);
+    assertEquals(1, stats.getCachedDocuments());
+    assertEquals(1, stats.getEvictionCount());
+    assertEquals(6, jsonDBTemplate.findAll(Instance.class).size());
+  }
+
+  @Test
+  public void testUnboundedCollectionHasNoCacheStats() {
+    JsonDBTemplate jsonDBTemplate = createTemplate(null);
+
+    assertNull(jsonDBTemplate.getCacheStats(Instance.class));
+  }
+
+  @Test
+  public void testNegativeBudget() {
+    expectedException.expect(InvalidJsonDbApiUsageException.class);
+    expectedException.expectMessage("Memory budget cannot be negative");
+    CollectionMemoryBudget.ofBytes(-1);
+  }
+
+  @Test
+  public void testUniqueIndexOfBudgetedCollection() {
+    JsonDBConfig dbConfig = new JsonDBConfig(dbFilesLocation, "io.jsondb.tests.model", null, false, null);
+    dbConfig.setMemoryBudget("accounts", CollectionMemoryBudget.ofDocuments(1));
+    JsonDBTemplate jsonDBTemplate = new JsonDBTemplate(dbConfig);
+    jsonDBTemplate.createCollection(Account.class);
+    jsonDBTemplate.insert(new Account("1", "ann@example.com", "NZ", 31));
+    jsonDBTemplate.insert(new Account("2", "bob@example.com", "AU", 42));
+
+    assertEquals("2", jsonDBTemplate.findOne("/.[email='bob@example.com']", Account.class).getId());
+    expectedException.expect(InvalidJsonDbApiUsageException.class);
+    expectedException.expectMessage("already holds the value 'ann@example.com'");
+    jsonDBTemplate.insert(new Account("3", "ann@example.com", "US", 50));
+  }
+
+  @Test
+  public void testShutdownResetsLowMemoryThresholds() {
+    List<MemoryPoolMXBean> pools = new ArrayList<MemoryPoolMXBean>();
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == MemoryType.HEAP && pool.isUsageThresholdSupported()
+          && pool.getUsage().getMax() > 0 && pool.getUsageThreshold() == 0) {
+        pools.add(pool);
+      }
+    }
+    JsonDBConfig dbConfig = new JsonDBConfig(dbFilesLocation, "io.jsondb.tests.model", null, false, null);
+    dbConfig.setMemoryBudget("instances", CollectionMemoryBudget.ofDocuments(2));
+    dbConfig.setLowMemoryThreshold(0.9);
+    JsonDBTemplate first = new JsonDBTemplate(dbConfig);
+    JsonDBTemplate second = new JsonDBTemplate(dbConfig);
+    for (MemoryPoolMXBean pool : pools) {
+      assertTrue(pool.getUsageThreshold() > 0);
+    }
+
+    first.shutdown();
+    for (MemoryPoolMXBean pool : pools) {
+      assertTrue(pool.getUsageThreshold() > 0);
+    }
+    second.shutdown();
+    second.shutdown();
+    for (MemoryPoolMXBean pool : pools) {
+      assertEquals(0, pool.getUsageThreshold());
+    }
+  }
+}
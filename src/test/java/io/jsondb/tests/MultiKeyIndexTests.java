@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.tests;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import io.jsondb.InvalidJsonDbApiUsageException;
+import io.jsondb.JsonDBTemplate;
+import io.jsondb.Util;
+import io.jsondb.index.IndexDefinition;
+import io.jsondb.index.IndexType;
+import io.jsondb.query.Update;
+import io.jsondb.tests.model.Server;
+import io.jsondb.tests.model.Server.Disk;
+
+/**
+ * Tests for the multikey indexes of collections
+ */
+public class MultiKeyIndexTests {
+  private String dbFilesLocation = "src/test/resources/dbfiles/multiKeyIndexTests";
+  private File dbFilesFolder = new File(dbFilesLocation);
+
+  private JsonDBTemplate jsonDBTemplate = null;
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  @Before
+  public void setUp() throws Exception {
+    dbFilesFolder.mkdir();
+    jsonDBTemplate = new JsonDBTemplate(dbFilesLocation, "io.jsondb.tests.model");
+    jsonDBTemplate.createCollection(Server.class);
+    jsonDBTemplate.insert(Arrays.asList(
+        new Server("s1", Arrays.asList("web", "prod"), Arrays.asList(new Disk("sda", 256), new Disk("sdb", 1024))),
+        new Server("s2", Arrays.asList("db", "prod"), Arrays.asList(new Disk("nvme0", 512))),
+        new Server("s3", Arrays.asList("web", "test"), Collections.<Disk>emptyList()),
+        new Server("s4", null, Arrays.asList(new Disk("sda", 128)))),
+        Server.class);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    Util.delete(dbFilesFolder);
+  }
+
+  private List<String> find(String jxQuery) {
+    List<String> ids = new ArrayList<String>();
+    for (Server server : jsonDBTemplate.find(jxQuery, Server.class)) {
+      ids.add(server.getId());
+    }
+    return ids;
+  }
+
+  @Test
+  public void testMembershipQueries() {
+    assertEquals(IndexType.MULTIKEY, jsonDBTemplate.getIndexes(Server.class).get(0).getType());
+
+    assertEquals(Arrays.asList("s1", "s2"), find("/.[tags='prod']"));
+    assertEquals(Arrays.asList("s1", "s3"), find("/.[tags='web']"));
+    assertEquals(0, find("/.[tags='staging']").size());
+    assertEquals(Arrays.asList("s1", "s2", "s3"), find("/.[tags='db' or tags='web']"));
+    assertEquals(Arrays.asList("s1"), find("/.[tags='web' and tags='prod']"));
+    assertEquals(Arrays.asList("s3", "s4"), find("/.[not(tags='prod')]"));
+  }
+
+  @Test
+  public void testNestedPathInElements() {
+    jsonDBTemplate.createIndex(IndexDefinition.multikey("disks/name"), Server.class);
+    jsonDBTemplate.createIndex(IndexDefinition.multikey("disks/sizeGb"), Server.class);
+
+    assertEquals(Arrays.asList("s1", "s4"), find("/.[disks/name='sda']"));
+    assertEquals(Arrays.asList("s2"), find("/.[disks/sizeGb=512]"));
+    assertEquals(Arrays.asList("s1"), find("/.[disks/name='sda' and tags='web']"));
+  }
+
+  @Test
+  public void testChangedListsUpdateTheIndex() {
+    jsonDBTemplate.save(new Server("s1", Arrays.asList("web", "staging"), null), Server.class);
+    assertEquals(Arrays.asList("s2"), find("/.[tags='prod']"));
+    assertEquals(Arrays.asList("s1"), find("/.[tags='staging']"));
+
+    jsonDBTemplate.findAndModify("/.[id='s2']", Update.update("tags", Arrays.asList("db", "staging")), Server.class);
+    assertEquals(0, find("/.[tags='prod']").size());
+    assertEquals(Arrays.asList("s1", "s2"), find("/.[tags='staging']"));
+
+    jsonDBTemplate.remove(jsonDBTemplate.findById("s1", Server.class), Server.class);
+    assertEquals(Arrays.asList("s2"), find("/.[tags='staging']"));
+  }
+
+  @Test
+  public void testPathWithoutGetter() {
+    expectedException.expect(InvalidJsonDbApiUsageException.class);
+    expectedException.expectMessage("Path 'disks/vendor' of collection 'servers' has no getter method for 'vendor', it cannot be indexed");
+    jsonDBTemplate.createIndex(IndexDefinition.multikey("disks/vendor"), Server.class);
+  }
+
+  @Test
+  public void testHashIndexOnListField() {
+    expectedException.expect(InvalidJsonDbApiUsageException.class);
+    expectedException.expectMessage("Field 'disks' of collection 'servers' holds more than one value, it cannot be hash indexed, use a multikey index");
+    jsonDBTemplate.createIndex(IndexDefinition.hash("disks"), Server.class);
+  }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.jsondb.JsonDBConfig;
+import io.jsondb.JsonDBTemplate;
+import io.jsondb.Util;
+import io.jsondb.index.AccessPath;
+import io.jsondb.index.IndexDefinition;
+import io.jsondb.tests.model.AuditRecord;
+import io.jsondb.tests.util.TestUtils;
+
+/**
+ * Tests for collections that keep only the position of their documents in memory.
+ */
+public class OffsetIndexedCollectionTests {
+  private String dbFilesLocation = "src/test/resources/dbfiles/offsetIndexedCollectionTests";
+  private File dbFilesFolder = new File(dbFilesLocation);
+  private File auditRecordsJson = new File(dbFilesFolder, "auditrecords.json");
+
+  private JsonDBTemplate jsonDBTemplate = null;
+
+  @Before
+  public void setUp() throws Exception {
+    dbFilesFolder.mkdir();
+    jsonDBTemplate = createTemplate();
+    jsonDBTemplate.createCollection(AuditRecord.class);
+    List<AuditRecord> records = new ArrayList<AuditRecord>();
+    for (int i = 0; i < 50; i++) {
+      records.add(newRecord(String.format("%03d", i), "user" + (i % 5), "login"));
+    }
+    jsonDBTemplate.insert(records, AuditRecord.class);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    Util.delete(dbFilesFolder);
+  }
+
+  private JsonDBTemplate createTemplate() {
+    JsonDBConfig dbConfig = new JsonDBConfig(dbFilesLocation, "io.jsondb.tests.model", null, false, null);
+    //A tiny cache, so that most lookups have to go to the file
+    dbConfig.setDocumentCacheSize(2);
+    return new JsonDBTemplate(dbConfig);
+  }
+
+  private AuditRecord newRecord(String id, String user, String action) {
+    AuditRecord record = new AuditRecord();
+    record.setId(id);
+    record.setUser(user);
+    record.setAction(action);
+    return record;
+  }
+
+  @Test
+  public void testFindById() {
+    JsonDBTemplate restartedTemplate = createTemplate();
+
+    assertEquals("user2", restartedTemplate.findById("012", AuditRecord.class).getUser());
+    assertEquals("user4", restartedTemplate.findById("049", AuditRecord.class).getUser());
+    assertEquals("user0", restartedTemplate.findById("000", AuditRecord.class).getUser());
+    assertNull(restartedTemplate.findById("050", AuditRecord.class));
+  }
+
+  @Test
+  public void testFindAndFindAll() {
+    assertEquals(50, jsonDBTemplate.findAll(AuditRecord.class).size());
+
+    List<AuditRecord> records = jsonDBTemplate.find("/.[user='user3']", AuditRecord.class);
+    assertEquals(10, records.size());
+    assertEquals("003", records.get(0).getId());
+    assertEquals("048", records.get(9).getId());
+  }
+
+  @Test
+  public void testWritesKeepPositionsCurrent() {
+    jsonDBTemplate.insert(newRecord("050", "user9", "logout"));
+    AuditRecord changed = newRecord("010", "user7", "a considerably longer action than before");
+    jsonDBTemplate.save(changed, AuditRecord.class);
+    AuditRecord removed = jsonDBTemplate.remove(newRecord("005", null, null), AuditRecord.class);
+
+    assertEquals("user0", removed.getUser());
+    assertNull(jsonDBTemplate.findById("005", AuditRecord.class));
+    assertEquals("user7", jsonDBTemplate.findById("010", AuditRecord.class).getUser());
+    assertEquals("user1", jsonDBTemplate.findById("011", AuditRecord.class).getUser());
+    assertEquals("user9", jsonDBTemplate.findById("050", AuditRecord.class).getUser());
+    assertEquals(50, jsonDBTemplate.findAll(AuditRecord.class).size());
+    assertEquals(51, TestUtils.getNoOfLinesInFile(auditRecordsJson));
+  }
+
+  @Test
+  public void testWriteAfterWrite() {
+    //The second insert rewrites the file from positions that are out of date after the first one
+    jsonDBTemplate.insert(newRecord("050", "user9", "logout"));
+    jsonDBTemplate.insert(newRecord("051", "user9", "login"));
+
+    assertEquals(52, jsonDBTemplate.findAll(AuditRecord.class).size());
+    assertEquals("logout", jsonDBTemplate.findById("050", AuditRecord.class).getAction());
+    assertEquals("login", jsonDBTemplate.findById("051", AuditRecord.class).getAction());
+  }
+
+  @Test
+  public void testInsertAppendsInPlace() throws Exception {
+    Object fileKey = Files.readAttributes(auditRecordsJson.toPath(), BasicFileAttributes.class).fileKey();
+    jsonDBTemplate.insert(newRecord("050", "user9", "logout"));
+    jsonDBTemplate.insert(Arrays.asList(newRecord("051", "user9", "login"), newRecord("052", "user8", "login")), AuditRecord.class);
+
+    //Appended to the same file rather than written anew
+    assertEquals(fileKey, Files.readAttributes(auditRecordsJson.toPath(), BasicFileAttributes.class).fileKey());
+    assertEquals(54, TestUtils.getNoOfLinesInFile(auditRecordsJson));
+    assertEquals("user8", jsonDBTemplate.findById("052", AuditRecord.class).getUser());
+    assertEquals("user2", jsonDBTemplate.findById("012", AuditRecord.class).getUser());
+    assertEquals(2, jsonDBTemplate.find("/.[user='user9']", AuditRecord.class).size());
+    assertEquals("user8", createTemplate().findById("052", AuditRecord.class).getUser());
+  }
+
+  @Test
+  public void testConcurrentReadsAfterWrite() throws Exception {
+    jsonDBTemplate.save(newRecord("010", "user7", "a considerably longer action than before"), AuditRecord.class);
+    //The first readers find the line positions out of date, and all of them must see the same documents
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+      for (int i = 0; i < 8; i++) {
+        results.add(executor.submit(new Callable<Integer>() {
+          @Override
+          public Integer call() {
+            assertEquals("user7", jsonDBTemplate.findById("010", AuditRecord.class).getUser());
+            assertEquals("user1", jsonDBTemplate.findById("011", AuditRecord.class).getUser());
+            return jsonDBTemplate.find("/.[user='user3']", AuditRecord.class).size();
+          }
+        }));
+      }
+      for (Future<Integer> result : results) {
+        assertEquals(Integer.valueOf(10), result.get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testFindAllAndRemove() {
+    List<AuditRecord> removed = jsonDBTemplate.findAllAndRemove("/.[user='user1']", AuditRecord.class);
+
+    assertEquals(10, removed.size());
+    assertEquals(40, jsonDBTemplate.findAll(AuditRecord.class).size());
+    assertEquals("user2", jsonDBTemplate.findById("047", AuditRecord.class).getUser());
+  }
+
+  @Test
+  public void testSecondaryIndex() {
+    jsonDBTemplate.createIndex(IndexDefinition.hash("user"), AuditRecord.class);
+    jsonDBTemplate.insert(newRecord("050", "user3", "logout"));
+    jsonDBTemplate.save(newRecord("010", "user3", "a considerably longer action than before"), AuditRecord.class);
+    jsonDBTemplate.remove(newRecord("003", null, null), AuditRecord.class);
+
+    assertEquals(AccessPath.INDEX, jsonDBTemplate.explain("/.[user='user3']", AuditRecord.class, null, null).getAccessPath());
+    List<AuditRecord> records = jsonDBTemplate.find("/.[user='user3']", AuditRecord.class);
+    assertEquals(11, records.size());
+    assertEquals("008", records.get(0).getId());
+    assertEquals("010", records.get(1).getId());
+    assertEquals("050", records.get(10).getId());
+    assertEquals(9, jsonDBTemplate.find("/.[user='user0']", AuditRecord.class).size());
+  }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.jsondb.JsonDBConfig;
+import io.jsondb.JsonDBTemplate;
+import io.jsondb.Util;
+import io.jsondb.crypto.DefaultAESCBCCipher;
+import io.jsondb.crypto.ICipher;
+import io.jsondb.query.Criteria;
+import io.jsondb.query.Update;
+import io.jsondb.tests.model.Instance;
+
+/**
+ * Tests for queries whose work is split across the threads of a fork join pool
+ */
+public class ParallelQueryTests {
+  private String dbFilesLocation = "src/test/resources/dbfiles/parallelQueryTests";
+  private File dbFilesFolder = new File(dbFilesLocation);
+
+  private ForkJoinPool pool;
+  private Set<Thread> decryptingThreads = ConcurrentHashMap.newKeySet();
+  private JsonDBTemplate jsonDBTemplate = null;
+
+  /**
+   * Records the threads that decrypt
+   */
+  private class RecordingCipher implements ICipher {
+    private final ICipher cipher;
+
+    RecordingCipher(ICipher cipher) {
+      this.cipher = cipher;
+    }
+
+    @Override
+    public String encrypt(String plainText) {
+      return cipher.encrypt(plainText);
+    }
+
+    @Override
+    public String decrypt(String cipherText) {
+      decryptingThreads.add(Thread.currentThread());
+      return cipher.decrypt(cipherText);
+    }
+  }
+
+  @Before
+  public void setUp() throws GeneralSecurityException {
+    dbFilesFolder.mkdir();
+    pool = new ForkJoinPool(4);
+    JsonDBConfig dbConfig = new JsonDBConfig(dbFilesLocation, "io.jsondb.tests.model",
+        new RecordingCipher(new DefaultAESCBCCipher("1r8+24pibarAWgS85/Heeg==")), false, null);
+    dbConfig.setParallelQueryThreshold(16);
+    dbConfig.setQueryPool(pool);
+    jsonDBTemplate = new JsonDBTemplate(dbConfig);
+    jsonDBTemplate.createCollection(Instance.class);
+    List<Instance> instances = new ArrayList<Instance>();
+    for (int i = 0; i < 200; i++) {
+      Instance instance = new Instance();
+      instance.setId(String.format("%03d", i));
+      instance.setHostname("host" + (i % 10));
+      instance.setPrivateKey("key" + i);
+      instances.add(instance);
+    }
+    jsonDBTemplate.insert(instances, Instance.class);
+    decryptingThreads.clear();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    pool.shutdownNow();
+    Util.delete(dbFilesFolder);
+  }
+
+  private boolean decryptedOnPool() {
+    for (Thread thread : decryptingThreads) {
+      if (thread instanceof ForkJoinWorkerThread && ((ForkJoinWorkerThread) thread).getPool() == pool) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Test
+  public void testFindKeepsCollectionOrder() {
+    List<Instance> instances = jsonDBTemplate.find("/.[hostname='host3']", Instance.class);
+    assertEquals(20, instances.size());
+    for (int i = 0; i < instances.size(); i++) {
+      assertEquals(String.format("%03d", 10 * i + 3), instances.get(i).getId());
+      assertEquals("key" + (10 * i + 3), instances.get(i).getPrivateKey());
+    }
+    assertTrue(decryptedOnPool());
+  }
+
+  @Test
+  public void testFindSortedAndSliced() {
+    Comparator<Instance> byIdDescending = new Comparator<Instance>() {
+      @Override
+      public int compare(Instance a, Instance b) {
+        return b.getId().compareTo(a.getId());
+      }
+    };
+    List<Instance> instances = jsonDBTemplate.find(".", Instance.class, byIdDescending, null);
+    assertEquals(200, instances.size());
+    assertEquals("199", instances.get(0).getId());
+    assertEquals("key0", instances.get(199).getPrivateKey());
+
+    instances = jsonDBTemplate.find(".", Instance.class, byIdDescending, "0:3");
+    assertEquals(3, instances.size());
+    assertEquals("197", instances.get(2).getId());
+    assertEquals("key197", instances.get(2).getPrivateKey());
+  }
+
+  @Test
+  public void testParallelSortIsStable() {
+    Comparator<Instance> byHostname = new Comparator<Instance>() {
+      @Override
+      public int compare(Instance a, Instance b) {
+        return a.getHostname().compareTo(b.getHostname());
+      }
+    };
+    List<Instance> instances = jsonDBTemplate.find(".", Instance.class, byHostname, null);
+    assertEquals(200, instances.size());
+    for (int i = 0; i < instances.size(); i++) {
+      //Sorted by hostname, and in collection order among the same hostname
+      assertEquals(String.format("%03d", 10 * (i % 20) + i / 20), instances.get(i).getId());
+    }
+
+    instances = jsonDBTemplate.find(".", Instance.class, byHostname, "18:22");
+    assertEquals(4, instances.size());
+    assertEquals("180", instances.get(0).getId());
+    assertEquals("190", instances.get(1).getId());
+    assertEquals("001", instances.get(2).getId());
+    assertEquals("011", instances.get(3).getId());
+  }
+
+  @Test
+  public void testFindAllAndCriteria() {
+    List<Instance> instances = jsonDBTemplate.findAll(Instance.class);
+    assertEquals(200, instances.size());
+    assertEquals("key150", instances.get(150).getPrivateKey());
+
+    instances = jsonDBTemplate.find(Criteria.regex("hostname", "[78]$"), Instance.class);
+    assertEquals(40, instances.size());
+    assertEquals("007", instances.get(0).getId());
+    assertEquals("008", instances.get(1).getId());
+    assertEquals("198", instances.get(39).getId());
+  }
+
+  @Test
+  public void testFindAllAndModify() {
+    List<Instance> modified = jsonDBTemplate.findAllAndModify("/.[hostname='host1']",
+        Update.update("publicKey", "pk1"), Instance.class);
+    assertEquals(20, modified.size());
+    for (Instance instance : modified) {
+      assertEquals("pk1", instance.getPublicKey());
+      assertEquals("key" + Integer.parseInt(instance.getId()), instance.getPrivateKey());
+    }
+    assertEquals(20, jsonDBTemplate.find("/.[publicKey='pk1']", Instance.class).size());
+  }
+
+  @Test
+  public void testSmallResultsStayOnCallingThread() {
+    List<Instance> instances = jsonDBTemplate.find("/.[id='042']", Instance.class);
+    assertEquals("key42", instances.get(0).getPrivateKey());
+    assertFalse(decryptedOnPool());
+  }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import io.jsondb.InvalidJsonDbApiUsageException;
+import io.jsondb.JsonDBConfig;
+import io.jsondb.JsonDBTemplate;
+import io.jsondb.Util;
+import io.jsondb.index.IndexQuery;
+import io.jsondb.query.PreparedQuery;
+import io.jsondb.query.Sort;
+import io.jsondb.tests.model.Order;
+import io.jsondb.tests.model.Ticket;
+import io.jsondb.tests.model.Ticket.Region;
+import io.jsondb.tests.model.Ticket.Status;
+
+/**
+ * Tests for prepared queries with bound variables
+ */
+public class PreparedQueryTests {
+  private String dbFilesLocation = "src/test/resources/dbfiles/preparedQueryTests";
+  private File dbFilesFolder = new File(dbFilesLocation);
+
+  private JsonDBTemplate jsonDBTemplate = null;
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  @Before
+  public void setUp() throws Exception {
+    dbFilesFolder.mkdir();
+    jsonDBTemplate = new JsonDBTemplate(dbFilesLocation, "io.jsondb.tests.model");
+    jsonDBTemplate.createCollection(Ticket.class);
+    jsonDBTemplate.insert(Arrays.asList(
+        new Ticket("t1", Status.OPEN, Region.EU, true, "ann"),
+        new Ticket("t2", Status.CLOSED, Region.US, false, "bob"),
+        new Ticket("t3", Status.OPEN, Region.US, false, "bob"),
+        new Ticket("t4", Status.OPEN, Region.APAC, true, "bob")),
+        Ticket.class);
+    jsonDBTemplate.createCollection(Order.class);
+    jsonDBTemplate.insert(Arrays.asList(
+        new Order("o1", "c1", 1000L, 20.0),
+        new Order("o2", "c2", 2000L, 75.5),
+        new Order("o3", "c1", 3000L, 120.0),
+        new Order("o4", "c1", 4000L, 60.0)),
+        Order.class);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    Util.delete(dbFilesFolder);
+  }
+
+  private static List<String> ticketIds(List<Ticket> tickets) {
+    List<String> ids = new ArrayList<String>();
+    for (Ticket ticket : tickets) {
+      ids.add(ticket.getId());
+    }
+    return ids;
+  }
+
+  private static List<String> orderIds(List<Order> orders) {
+    List<String> ids = new ArrayList<String>();
+    for (Order order : orders) {
+      ids.add(order.getId());
+    }
+    return ids;
+  }
+
+  @Test
+  public void testBoundValues() {
+    PreparedQuery byOwner = PreparedQuery.prepare("/.[status=$status and owner=$owner]");
+    assertEquals(Arrays.asList("t3", "t4"),
+        ticketIds(jsonDBTemplate.find(byOwner.bind("status", "OPEN").bind("owner", "bob"), Ticket.class)));
+    assertEquals(Arrays.asList("t1"),
+        ticketIds(jsonDBTemplate.find(byOwner.bind("status", Status.OPEN).bind("owner", "ann"), Ticket.class)));
+    assertEquals(Arrays.asList("t2"),
+        ticketIds(jsonDBTemplate.find(byOwner.bind("status", "CLOSED").bind("owner", "bob"), "tickets")));
+    assertTrue(byOwner.getVariables().isEmpty());
+  }
+
+  @Test
+  public void testBoundNumbersAndIds() {
+    PreparedQuery above = PreparedQuery.prepare("/.[customerId=$customer and total > $min]");
+    assertEquals(Arrays.asList("o3", "o4"), orderIds(jsonDBTemplate.find(above.bind("customer", "c1").bind("min", 50), Order.class)));
+    assertEquals(Arrays.asList("o3"), orderIds(jsonDBTemplate.find(above.bind("customer", "c1").bind("min", 100.0), Order.class)));
+
+    List<Order> sorted = jsonDBTemplate.find(above.bind("customer", "c1").bind("min", 0), Order.class,
+        Sort.descending("total"), "0:2");
+    assertEquals(Arrays.asList("o3", "o4"), orderIds(sorted));
+
+    PreparedQuery byId = PreparedQuery.prepare("/.[id=$id]");
+    Order order = jsonDBTemplate.findOne(byId.bind("id", "o2"), Order.class);
+    assertEquals(75.5, order.getTotal(), 0.0);
+    assertNull(jsonDBTemplate.findOne(byId.bind("id", "o9"), Order.class));
+  }
+
+  @Test
+  public void testStringQueriesWithoutCache() {
+    JsonDBConfig dbConfig = new JsonDBConfig(dbFilesLocation, "io.jsondb.tests.model", null, false, null);
+    dbConfig.setPreparedQueryCacheSize(0);
+    JsonDBTemplate uncached = new JsonDBTemplate(dbConfig);
+    assertEquals(Arrays.asList("t2", "t3", "t4"), ticketIds(uncached.find("/.[owner='bob']", Ticket.class)));
+    assertEquals(Arrays.asList("t2", "t3", "t4"), ticketIds(uncached.find("/.[owner='bob']", Ticket.class)));
+  }
+
+  @Test
+  public void testPlannedWithBoundValues() {
+    Map<String, Object> variables = new HashMap<String, Object>();
+    variables.put("s", Status.OPEN);
+    variables.put("t", 50);
+    assertEquals("(status='OPEN' and total>50.0)", IndexQuery.parse("/.[status=$s and total > $t]", variables).toString());
+    assertNull(IndexQuery.parse("/.[status=$s and owner=$unbound]", variables));
+  }
+
+  @Test
+  public void testBindWithoutName() {
+    expectedException.expect(InvalidJsonDbApiUsageException.class);
+    expectedException.expectMessage("Name of a query variable cannot be null or empty");
+    PreparedQuery.prepare("/.[owner=$owner]").bind(" ", "bob");
+  }
+
+  @Test
+  public void testPrepareNull() {
+    expectedException.expect(InvalidJsonDbApiUsageException.class);
+    expectedException.expectMessage("Query to prepare cannot be null");
+    PreparedQuery.prepare(null);
+  }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import io.jsondb.InvalidJsonDbApiUsageException;
+import io.jsondb.JsonDBTemplate;
+import io.jsondb.Util;
+import io.jsondb.query.Projection;
+import io.jsondb.tests.model.Instance;
+import io.jsondb.tests.model.Server;
+import io.jsondb.tests.model.Server.Disk;
+import io.jsondb.tests.util.CountingCipher;
+
+/**
+ * Tests for the finds that copy only the projected fields of the documents
+ */
+public class ProjectionTests {
+  private String dbFilesLocation = "src/test/resources/dbfiles/projectionTests";
+  private File dbFilesFolder = new File(dbFilesLocation);
+
+  private CountingCipher cipher = null;
+  private JsonDBTemplate jsonDBTemplate = null;
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  @Before
+  public void setUp() throws GeneralSecurityException {
+    dbFilesFolder.mkdir();
+    cipher = new CountingCipher();
+    jsonDBTemplate = new JsonDBTemplate(dbFilesLocation, "io.jsondb.tests.model", cipher);
+    jsonDBTemplate.createCollection(Instance.class);
+    List<Instance> instances = new ArrayList<Instance>();
+    for (int i = 0; i < 6; i++) {
+      Instance instance = new Instance();
+      instance.setId(String.format("%02d", i));
+      instance.setHostname("host" + (i % 2));
+      instance.setPrivateKey("key" + i);
+      instance.setPublicKey("public" + i);
+      instances.add(instance);
+    }
+    jsonDBTemplate.insert(instances, Instance.class);
+    jsonDBTemplate.createCollection(Server.class);
+    jsonDBTemplate.insert(new Server("s1", Arrays.asList("web", "prod"), Arrays.asList(new Disk("sda", 256))));
+    cipher.resetDecryptions();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    Util.delete(dbFilesFolder);
+  }
+
+  @Test
+  public void testProjectedEntitiesWithoutSecret() {
+    List<Instance> instances = jsonDBTemplate.findProjected("/.[hostname='host1']", Instance.class,
+        Projection.include("id", "hostname"));
+    assertEquals(3, instances.size());
+    Instance instance = instances.get(0);
+    assertEquals("01", instance.getId());
+    assertEquals("host1", instance.getHostname());
+    assertNull(instance.getPrivateKey());
+    assertNull(instance.getPublicKey());
+    assertEquals(0, cipher.getDecryptions());
+  }
+
+  @Test
+  public void testProjectedSecretIsDecrypted() {
+    Instance instance = jsonDBTemplate.findById("03", Instance.class, Projection.include("privateKey"));
+    assertNull(instance.getId());
+    assertEquals("key3", instance.getPrivateKey());
+    assertEquals(1, cipher.getDecryptions());
+    assertNull(jsonDBTemplate.findById("99", "instances", Projection.include("privateKey")));
+  }
+
+  @Test
+  public void testProjectedRows() {
+    List<Map<String, Object>> rows = jsonDBTemplate.findRows("/.[hostname='host0']", Instance.class,
+        Projection.include("id", "publicKey"));
+    List<Map<String, Object>> expected = new ArrayList<Map<String, Object>>();
+    for (int i = 0; i < 6; i += 2) {
+      Map<String, Object> row = new LinkedHashMap<String, Object>();
+      row.put("id", String.format("%02d", i));
+      row.put("publicKey", "public" + i);
+      expected.add(row);
+    }
+    assertEquals(expected, rows);
+    assertEquals(0, cipher.getDecryptions());
+  }
+
+  @Test
+  public void testProjectedValuesAreCopied() {
+    List<Server> servers = jsonDBTemplate.findProjected("/.[id='s1']", "servers", Projection.include("disks"));
+    Server server = servers.get(0);
+    assertNull(server.getTags());
+    server.getDisks().get(0).setName("changed");
+    server.getDisks().add(new Disk("sdb", 512));
+    Server stored = jsonDBTemplate.findById("s1", Server.class);
+    assertEquals(1, stored.getDisks().size());
+    assertEquals("sda", stored.getDisks().get(0).getName());
+  }
+
+  @Test
+  public void testProjectionOfUnknownField() {
+    expectedException.expect(InvalidJsonDbApiUsageException.class);
+    expectedException.expectMessage("Field 'cpu' of collection 'instances' cannot be projected, it has no getter method");
+    jsonDBTemplate.findRows(".", Instance.class, Projection.include("id", "cpu"));
+  }
+
+  @Test
+  public void testEmptyProjection() {
+    expectedException.expect(InvalidJsonDbApiUsageException.class);
+    expectedException.expectMessage("Projection must include at least one field");
+    Projection.include();
+  }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.jsondb.JsonDBTemplate;
+import io.jsondb.Util;
+import io.jsondb.index.IndexQuery;
+import io.jsondb.query.Update;
+import io.jsondb.tests.model.Place;
+import io.jsondb.tests.model.Ticket;
+import io.jsondb.tests.model.Ticket.Region;
+import io.jsondb.tests.model.Ticket.Status;
+
+/**
+ * Tests for the planning of queries into lookups by id and index lookups with residual filters
+ */
+public class QueryPlannerTests {
+  private String dbFilesLocation = "src/test/resources/dbfiles/queryPlannerTests";
+  private File dbFilesFolder = new File(dbFilesLocation);
+
+  private JsonDBTemplate jsonDBTemplate = null;
+
+  @Before
+  public void setUp() throws Exception {
+    dbFilesFolder.mkdir();
+    jsonDBTemplate = new JsonDBTemplate(dbFilesLocation, "io.jsondb.tests.model");
+    jsonDBTemplate.createCollection(Place.class);
+    jsonDBTemplate.insert(Arrays.asList(
+        new Place("p1", "Auckland", -36.85, 174.76),
+        new Place("p2", "Wellington", -41.29, 174.78),
+        new Place("p3", "Suva", -18.14, 178.44)),
+        Place.class);
+    jsonDBTemplate.createCollection(Ticket.class);
+    jsonDBTemplate.insert(Arrays.asList(
+        new Ticket("t1", Status.OPEN, Region.EU, true, "ann"),
+        new Ticket("t2", Status.CLOSED, Region.US, false, "bob"),
+        new Ticket("t3", Status.OPEN, Region.US, false, "anna"),
+        new Ticket("t4", Status.CLOSED, Region.APAC, true, "annie")),
+        Ticket.class);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    Util.delete(dbFilesFolder);
+  }
+
+  private List<String> placeIds(List<Place> places) {
+    List<String> ids = new ArrayList<String>();
+    for (Place place : places) {
+      ids.add(place.getId());
+    }
+    return ids;
+  }
+
+  private List<String> ticketIds(String jxQuery) {
+    List<String> ids = new ArrayList<String>();
+    for (Ticket ticket : jsonDBTemplate.find(jxQuery, Ticket.class)) {
+      ids.add(ticket.getId());
+    }
+    return ids;
+  }
+
+  @Test
+  public void testIdEquality() {
+    assertEquals(Arrays.asList("p2"), placeIds(jsonDBTemplate.find("/.[id='p2']", Place.class)));
+    assertEquals(Arrays.asList("p2"), placeIds(jsonDBTemplate.find("/.[@id=\"p2\"]", Place.class)));
+    assertEquals(0, jsonDBTemplate.find("/.[id='p9']", Place.class).size());
+    assertEquals("Suva", jsonDBTemplate.findOne("/.[id='p3']", Place.class).getName());
+    assertNull(jsonDBTemplate.findOne("/.[id='p9']", Place.class));
+  }
+
+  @Test
+  public void testIdEqualityWithResidualFilter() {
+    assertEquals(Arrays.asList("p2"), placeIds(jsonDBTemplate.find("/.[id='p2' and name='Wellington']", Place.class)));
+    assertEquals(0, jsonDBTemplate.find("/.[id='p2' and name='Suva']", Place.class).size());
+    assertEquals(Arrays.asList("p1"), placeIds(jsonDBTemplate.find("/.[contains(name, 'land') and id='p1']", Place.class)));
+  }
+
+  @Test
+  public void testIndexedConjunctWithResidualFilter() {
+    assertEquals(Arrays.asList("t1", "t3"), ticketIds("/.[status='OPEN' and contains(owner, 'ann')]"));
+    assertEquals(Arrays.asList("t3"), ticketIds("/.[status='OPEN' and owner='anna']"));
+    assertEquals(Arrays.asList("t4"), ticketIds("/.[urgent=true() and region='APAC' and starts-with(owner, 'a')]"));
+  }
+
+  @Test
+  public void testWritesByIdQuery() {
+    Place modified = jsonDBTemplate.findAndModify("/.[id='p3']", Update.update("name", "Nadi"), Place.class);
+    assertEquals("Nadi", modified.getName());
+    assertEquals("Nadi", jsonDBTemplate.findById("p3", Place.class).getName());
+
+    List<Place> removed = jsonDBTemplate.findAllAndRemove("/.[id='p1' and name='Auckland']", Place.class);
+    assertEquals(Arrays.asList("p1"), placeIds(removed));
+    assertEquals(Arrays.asList("p2", "p3"), placeIds(jsonDBTemplate.findAll(Place.class)));
+    assertNull(jsonDBTemplate.findAllAndRemove("/.[id='p1']", Place.class));
+  }
+
+  @Test
+  public void testParseConjuncts() {
+    IndexQuery query = IndexQuery.parseConjuncts("/.[id='1' and contains(name, 'x') and (a='1' or b=2)]");
+    assertEquals(2, query.getConjuncts().size());
+    assertTrue(query.isPartial());
+    assertEquals("(id='1' and (a='1' or b=2.0))", query.toString());
+
+    query = IndexQuery.parseConjuncts("/.[name='a and b' and contains(note, ' and ')]");
+    assertEquals("name='a and b'", query.toString());
+
+    assertFalse(IndexQuery.parseConjuncts("/.[id='1' and name='x']").isPartial());
+    assertNull(IndexQuery.parseConjuncts("/.[id='1' or contains(name, 'x')]"));
+    assertNull(IndexQuery.parseConjuncts("/.[contains(name, 'x')]"));
+    assertNull(IndexQuery.parseConjuncts("/.[id='1'][name='x']"));
+  }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import io.jsondb.CollectionResultCache;
+import io.jsondb.JsonDBConfig;
+import io.jsondb.JsonDBTemplate;
+import io.jsondb.QueryCacheStats;
+import io.jsondb.Util;
+import io.jsondb.crypto.DefaultAESCBCCipher;
+import io.jsondb.query.Sort;
+import io.jsondb.query.Update;
+import io.jsondb.tests.model.Credential;
+import io.jsondb.tests.model.Instance;
+import io.jsondb.tests.model.Site;
+
+/**
+ * Tests for the result cache of collections
+ */
+public class ResultCacheTests {
+  private String dbFilesLocation = "src/test/resources/dbfiles/resultCacheTests";
+  private File dbFilesFolder = new File(dbFilesLocation);
+
+  private JsonDBTemplate jsonDBTemplate = null;
+
+  @Before
+  public void setUp() throws GeneralSecurityException {
+    dbFilesFolder.mkdir();
+    JsonDBConfig dbConfig = new JsonDBConfig(dbFilesLocation, "io.jsondb.tests.model",
+        new DefaultAESCBCCipher("1r8+24pibarAWgS85/Heeg=="), false, null);
+    dbConfig.setResultCache("instances", CollectionResultCache.of(2, 0, TimeUnit.SECONDS));
+    dbConfig.setResultCache("credentials", CollectionResultCache.of(2, 0, TimeUnit.SECONDS));
+    jsonDBTemplate = new JsonDBTemplate(dbConfig);
+    jsonDBTemplate.createCollection(Instance.class);
+    List<Instance> instances = new ArrayList<Instance>();
+    for (int i = 0; i < 6; i++) {
+      instances.add(instance(String.format("%02d", i), "host" + (i % 2)));
+    }
+    jsonDBTemplate.insert(instances, Instance.class);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    Util.delete(dbFilesFolder);
+  }
+
+  private static Instance instance(String id, String hostname) {
+    Instance instance = new Instance();
+    instance.setId(id);
+    instance.setHostname(hostname);
+    instance.setPrivateKey("key" + id);
+    return instance;
+  }
+
+  private static List<String> idsOf(List<Instance> instances) {
+    List<String> ids = new ArrayList<String>();
+    for (Instance instance : instances) {
+      ids.add(instance.getId());
+    }
+    return ids;
+  }
+
+  @Test
+  public void testHitReturnsFreshDecryptedCopies() {
+    List<Instance> first = jsonDBTemplate.find("/.[hostname='host1']", Instance.class);
+    first.get(0).setHostname("changed");
+    List<Instance> second = jsonDBTemplate.find("/.[hostname='host1']", Instance.class);
+
+    assertEquals(3, second.size());
+    assertEquals("host1", second.get(0).getHostname());
+    assertEquals("key01", second.get(0).getPrivateKey());
+    QueryCacheStats stats = jsonDBTemplate.getQueryCacheStats(Instance.class);
+    assertEquals(1, stats.getHitCount());
+    assertEquals(1, stats.getMissCount());
+    assertEquals(1, stats.getCachedResults());
+  }
+
+  @Test
+  public void testRenamedSecretField() {
+    Credential credential = new Credential();
+    credential.setId("01");
+    credential.setUser("ann");
+    credential.setPassword("s3cret");
+    jsonDBTemplate.createCollection(Credential.class);
+    jsonDBTemplate.insert(credential);
+
+    assertEquals("s3cret", jsonDBTemplate.find("/.[user='ann']", Credential.class).get(0).getPassword());
+    assertEquals("s3cret", jsonDBTemplate.find("/.[user='ann']", Credential.class).get(0).getPassword());
+    assertEquals(1, jsonDBTemplate.getQueryCacheStats(Credential.class).getHitCount());
+  }
+
+  @Test
+  public void testWritesInvalidate() {
+    assertEquals(3, jsonDBTemplate.find("/.[hostname='host1']", Instance.class).size());
+    jsonDBTemplate.insert(instance("06", "host1"));
+    assertEquals(4, jsonDBTemplate.find("/.[hostname='host1']", Instance.class).size());
+
+    jsonDBTemplate.findAndModify("/.[id='01']", Update.update("hostname", "host0"), Instance.class);
+    assertEquals(3, jsonDBTemplate.find("/.[hostname='host1']", Instance.class).size());
+
+    jsonDBTemplate.remove(instance("03", "host1"), Instance.class);
+    assertEquals(2, jsonDBTemplate.find("/.[hostname='host1']", Instance.class).size());
+
+    jsonDBTemplate.reloadCollection("instances");
+    assertEquals(2, jsonDBTemplate.find("/.[hostname='host1']", Instance.class).size());
+
+    QueryCacheStats stats = jsonDBTemplate.getQueryCacheStats("instances");
+    assertEquals(0, stats.getHitCount());
+    assertEquals(5, stats.getMissCount());
+    assertEquals(4, stats.getInvalidationCount());
+  }
+
+  @Test
+  public void testKeyedByComparatorAndSlice() {
+    Sort byIdDescending = Sort.descending("id");
+    assertEquals(3, jsonDBTemplate.find("/.[hostname='host0']", Instance.class, byIdDescending).size());
+    assertEquals(Arrays.asList("04", "02"), idsOf(jsonDBTemplate.find("/.[hostname='host0']", Instance.class, byIdDescending, "0:2")));
+    assertEquals(Arrays.asList("04", "02"), idsOf(jsonDBTemplate.find("/.[hostname='host0']", Instance.class, byIdDescending, "0:2")));
+    assertEquals(Arrays.asList("04", "02"), idsOf(jsonDBTemplate.find("/.[hostname='host0']", Instance.class, Sort.descending("id"), "0:2")));
+
+    QueryCacheStats stats = jsonDBTemplate.getQueryCacheStats(Instance.class);
+    assertEquals(1, stats.getHitCount());
+    assertEquals(3, stats.getMissCount());
+    assertEquals(2, stats.getCachedResults());
+    assertEquals(1, stats.getEvictionCount());
+  }
+
+  @Test
+  public void testExtendingASortLeavesItAlone() {
+    Sort byHostname = Sort.ascending("hostname");
+    List<String> byHostnameIds = Arrays.asList("00", "02", "04", "01", "03", "05");
+    assertEquals(byHostnameIds, idsOf(jsonDBTemplate.find(".", Instance.class, byHostname)));
+
+    Sort byHostnameThenId = byHostname.thenDescending("id");
+    assertEquals(Arrays.asList("04", "02", "00", "05", "03", "01"), idsOf(jsonDBTemplate.find(".", Instance.class, byHostnameThenId)));
+    assertEquals(Arrays.asList("hostname"), byHostname.getFieldNames());
+    assertEquals(byHostnameIds, idsOf(jsonDBTemplate.find(".", Instance.class, byHostname)));
+
+    QueryCacheStats stats = jsonDBTemplate.getQueryCacheStats(Instance.class);
+    assertEquals(1, stats.getHitCount());
+    assertEquals(2, stats.getMissCount());
+  }
+
+  @Test
+  public void testCollectionWithoutCache() {
+    jsonDBTemplate.createCollection(Site.class);
+    assertEquals(0, jsonDBTemplate.find(".", Site.class).size());
+    assertNull(jsonDBTemplate.getQueryCacheStats(Site.class));
+  }
+}
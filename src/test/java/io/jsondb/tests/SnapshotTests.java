@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import com.google.common.io.Files;
+
+import io.jsondb.InvalidJsonDbApiUsageException;
+import io.jsondb.JsonDBConfig;
+import io.jsondb.JsonDBTemplate;
+import io.jsondb.Util;
+import io.jsondb.tests.model.Instance;
+import io.jsondb.tests.util.TestUtils;
+
+/**
+ * Tests for binary snapshot checkpoints of collections.
+ */
+public class SnapshotTests {
+  private String dbFilesLocation = "src/test/resources/dbfiles/snapshotTests";
+  private File dbFilesFolder = new File(dbFilesLocation);
+  private File instancesJson = new File(dbFilesFolder, "instances.json");
+  private File instancesSnapshot = new File(dbFilesFolder, "snapshot/instances.snapshot");
+
+  private String newInstanceJson = "{\"id\":\"07\",\"hostname\":\"ec2-54-191-07\",\"privateKey\":\"Zf9vl5K6WV6BA3eL7JbnrfPMjfJxc9Rkoo0zlROQlgTslmcp9iFzos+MP93GZqop\",\"publicKey\":\"d3aa045f71bf4d1dffd2c5f485a4bc1d\"}";
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  @Before
+  public void setUp() throws Exception {
+    dbFilesFolder.mkdir();
+    Files.copy(new File("src/test/resources/dbfiles/instances.json"), instancesJson);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    Util.delete(dbFilesFolder);
+  }
+
+  private JsonDBTemplate createSnapshotTemplate() {
+    JsonDBConfig dbConfig = new JsonDBConfig(dbFilesLocation, "io.jsondb.tests.model", null, false, null);
+    dbConfig.setSnapshotsEnabled(true);
+    return new JsonDBTemplate(dbConfig);
+  }
+
+  @Test
+  public void testCheckpointAndLoadFromSnapshot() {
+    JsonDBTemplate jsonDBTemplate = createSnapshotTemplate();
+    jsonDBTemplate.checkpoint();
+    assertTrue(instancesSnapshot.exists());
+
+    JsonDBTemplate restartedTemplate = createSnapshotTemplate();
+    assertEquals(6, restartedTemplate.findAll(Instance.class).size());
+    assertEquals("ec2-54-191-01", restartedTemplate.findById("01", Instance.class).getHostname());
+    assertFalse(restartedTemplate.isCollectionReadonly(Instance.class));
+  }
+
+  @Test
+  public void testCheckpointAfterWrites() {
+    JsonDBTemplate jsonDBTemplate = createSnapshotTemplate();
+    jsonDBTemplate.checkpoint();
+
+    Instance instance = new Instance();
+    instance.setId("08");
+    instance.setHostname("ec2-54-191-08");
+    jsonDBTemplate.insert(instance);
+    jsonDBTemplate.checkpoint();
+
+    JsonDBTemplate restartedTemplate = createSnapshotTemplate();
+    assertEquals(7, restartedTemplate.findAll(Instance.class).size());
+    assertEquals("ec2-54-191-08", restartedTemplate.findById("08", Instance.class).getHostname());
+  }
+
+  @Test
+  public void testStaleSnapshotIsIgnored() {
+    JsonDBTemplate jsonDBTemplate = createSnapshotTemplate();
+    jsonDBTemplate.checkpoint();
+
+    TestUtils.appendDirectToFile(instancesJson, newInstanceJson);
+
+    JsonDBTemplate restartedTemplate = createSnapshotTemplate();
+    assertEquals(7, restartedTemplate.findAll(Instance.class).size());
+  }
+
+  @Test
+  public void testCheckpointSkipsCollectionChangedOnDisk() {
+    JsonDBTemplate jsonDBTemplate = createSnapshotTemplate();
+
+    //The documents in memory no longer represent the file, so they must not be snapshotted
+    TestUtils.appendDirectToFile(instancesJson, newInstanceJson);
+    jsonDBTemplate.checkpoint();
+
+    assertFalse(instancesSnapshot.exists());
+  }
+
+  @Test
+  public void testDropCollectionRemovesSnapshot() {
+    JsonDBTemplate jsonDBTemplate = createSnapshotTemplate();
+    jsonDBTemplate.checkpoint();
+    assertTrue(instancesSnapshot.exists());
+
+    jsonDBTemplate.dropCollection(Instance.class);
+    assertFalse(instancesSnapshot.exists());
+  }
+
+  @Test
+  public void testCheckpointWhenSnapshotsDisabled() {
+    JsonDBTemplate jsonDBTemplate = new JsonDBTemplate(dbFilesLocation, "io.jsondb.tests.model");
+
+    expectedException.expect(InvalidJsonDbApiUsageException.class);
+    expectedException.expectMessage("Snapshots are not enabled, enable them using JsonDBConfig.setSnapshotsEnabled()");
+    jsonDBTemplate.checkpoint();
+  }
+}
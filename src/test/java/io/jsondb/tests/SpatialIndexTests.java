@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.tests;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import io.jsondb.InvalidJsonDbApiUsageException;
+import io.jsondb.JsonDBTemplate;
+import io.jsondb.Util;
+import io.jsondb.index.IndexDefinition;
+import io.jsondb.index.SpatialIndex;
+import io.jsondb.query.GeoQuery;
+import io.jsondb.tests.model.Place;
+
+/**
+ * Tests for the spatial indexes of collections
+ */
+public class SpatialIndexTests {
+  private String dbFilesLocation = "src/test/resources/dbfiles/spatialIndexTests";
+  private File dbFilesFolder = new File(dbFilesLocation);
+
+  private JsonDBTemplate jsonDBTemplate = null;
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  @Before
+  public void setUp() throws Exception {
+    dbFilesFolder.mkdir();
+    jsonDBTemplate = new JsonDBTemplate(dbFilesLocation, "io.jsondb.tests.model");
+    jsonDBTemplate.createCollection(Place.class);
+    jsonDBTemplate.insert(Arrays.asList(
+        new Place("p1", "Auckland", -36.85, 174.76),
+        new Place("p2", "Wellington", -41.29, 174.78),
+        new Place("p3", "Suva", -18.14, 178.44),
+        new Place("p4", "Apia", -13.83, -171.76),
+        new Place("p5", "London", 51.51, -0.13),
+        new Place("p6", "Paris", 48.86, 2.35),
+        new Place("p7", "Nowhere", null, null)),
+        Place.class);
+    jsonDBTemplate.createIndex(IndexDefinition.spatial("latitude", "longitude"), Place.class);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    Util.delete(dbFilesFolder);
+  }
+
+  private List<String> search(GeoQuery query) {
+    List<String> ids = new ArrayList<String>();
+    for (Place place : jsonDBTemplate.search(query, Place.class)) {
+      ids.add(place.getId());
+    }
+    return ids;
+  }
+
+  @Test
+  public void testWithinBox() {
+    assertEquals(Arrays.asList("p1", "p2"), search(GeoQuery.within(-48, 165, -34, 179)));
+    assertEquals(Arrays.asList("p5", "p6"), search(GeoQuery.within(45, -5, 55, 5)));
+    assertEquals(Arrays.asList("p5"), search(GeoQuery.within(45, -5, 55, 5).limit(1)));
+    assertEquals(6, search(GeoQuery.within(-90, -180, 90, 180)).size());
+  }
+
+  @Test
+  public void testWithinBoxAcrossAntimeridian() {
+    assertEquals(Arrays.asList("p3", "p4"), search(GeoQuery.within(-20, 170, -10, -170)));
+    assertEquals(Arrays.asList("p1", "p2", "p3", "p4"), search(GeoQuery.within(-50, 170, 0, -170)));
+  }
+
+  @Test
+  public void testNearWithinDistance() {
+    assertEquals(Arrays.asList("p5", "p6"), search(GeoQuery.near(51.5, -0.1, 400000)));
+    assertEquals(Arrays.asList("p6", "p5"), search(GeoQuery.near(48.8, 2.3, 400000)));
+    assertEquals(Arrays.asList("p5"), search(GeoQuery.near(51.5, -0.1, 300000)));
+    //Suva and Apia are about 1150 km apart, on both sides of the 180th meridian
+    assertEquals(Arrays.asList("p3", "p4"), search(GeoQuery.near(-18, 179.9, 1200000)));
+  }
+
+  @Test
+  public void testNearest() {
+    assertEquals(Arrays.asList("p1", "p2", "p3"), search(GeoQuery.nearest(-37, 175, 3)));
+    assertEquals(Arrays.asList("p6", "p5"), search(GeoQuery.nearest(48.8, 2.3, 2)));
+    assertEquals(6, search(GeoQuery.nearest(0, 0, 10)).size());
+  }
+
+  @Test
+  public void testNearestMatchesBruteForce() {
+    jsonDBTemplate.createIndex(IndexDefinition.spatial("latitude", "longitude").named("coarse").cellSize(10),
+        Place.class);
+    Random random = new Random(42);
+    final List<Place> places = new ArrayList<Place>();
+    for (int i = 0; i < 300; i++) {
+      places.add(new Place("r" + i, null, random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180));
+    }
+    jsonDBTemplate.insert(places, Place.class);
+    places.addAll(jsonDBTemplate.search(GeoQuery.within(-90, -180, 90, 180).in("coarse").limit(6), Place.class));
+
+    for (int i = 0; i < 20; i++) {
+      final double lat = random.nextDouble() * 180 - 90;
+      final double lon = random.nextDouble() * 360 - 180;
+      List<Place> expected = new ArrayList<Place>(places);
+      Collections.sort(expected, new Comparator<Place>() {
+        @Override
+        public int compare(Place place1, Place place2) {
+          return Double.compare(SpatialIndex.distance(lat, lon, place1.getLatitude(), place1.getLongitude()),
+              SpatialIndex.distance(lat, lon, place2.getLatitude(), place2.getLongitude()));
+        }
+      });
+      List<String> expectedIds = new ArrayList<String>();
+      for (Place place : expected.subList(0, 5)) {
+        expectedIds.add(place.getId());
+      }
+      assertEquals(expectedIds, search(GeoQuery.nearest(lat, lon, 5).in("coarse")));
+      assertEquals(expectedIds, search(GeoQuery.nearest(lat, lon, 5).in("latitude_longitude")));
+    }
+  }
+
+  @Test
+  public void testIndexFollowsWrites() {
+    jsonDBTemplate.insert(new Place("p8", "Christchurch", -43.53, 172.64));
+    assertEquals(Arrays.asList("p1", "p2", "p8"), search(GeoQuery.within(-48, 165, -34, 179)));
+
+    Place paris = jsonDBTemplate.findById("p6", Place.class);
+    paris.setLatitude(-45.87);
+    paris.setLongitude(170.50);
+    jsonDBTemplate.save(paris, Place.class);
+    assertEquals(Arrays.asList("p1", "p2", "p6", "p8"), search(GeoQuery.within(-48, 165, -34, 179)));
+    assertEquals(Arrays.asList("p5"), search(GeoQuery.within(45, -5, 55, 5)));
+
+    Place nowhere = jsonDBTemplate.findById("p7", Place.class);
+    nowhere.setLatitude(51.45);
+    nowhere.setLongitude(-2.59);
+    jsonDBTemplate.save(nowhere, Place.class);
+    jsonDBTemplate.remove(jsonDBTemplate.findById("p5", Place.class), Place.class);
+    assertEquals(Arrays.asList("p7"), search(GeoQuery.near(51.5, -0.1, 400000)));
+  }
+
+  @Test
+  public void testSearchWithoutSpatialIndex() {
+    jsonDBTemplate.dropIndex("latitude_longitude", Place.class);
+    expectedException.expect(InvalidJsonDbApiUsageException.class);
+    expectedException.expectMessage("Collection 'places' has no spatial index");
+    jsonDBTemplate.search(GeoQuery.nearest(0, 0, 1), Place.class);
+  }
+
+  @Test
+  public void testSpatialIndexOnTextField() {
+    expectedException.expect(InvalidJsonDbApiUsageException.class);
+    expectedException.expectMessage("Field 'name' of collection 'places' is not numeric, it cannot hold a latitude or longitude");
+    jsonDBTemplate.createIndex(IndexDefinition.spatial("name", "longitude"), Place.class);
+  }
+
+  @Test
+  public void testInvalidGeoQuery() {
+    expectedException.expect(InvalidJsonDbApiUsageException.class);
+    expectedException.expectMessage("Latitude must be between -90 and 90 degrees, was 91.0");
+    GeoQuery.near(91, 0, 1000);
+  }
+}
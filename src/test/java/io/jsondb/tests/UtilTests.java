@@ -22,6 +22,8 @@ package io.jsondb.tests;
 
 import java.io.File;
 import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 
 import org.junit.After;
@@ -411,4 +413,28 @@ public class UtilTests {
     assertFalse(Util.isSliceable("::"));
     assertTrue(Util.isSliceable("1:2"));
   }
+
+  @Test
+  public void test_getSliceLimit() {
+    assertEquals(5, Util.getSliceLimit("0:5"));
+    assertEquals(4, Util.getSliceLimit("2:4:2"));
+    assertEquals(-1, Util.getSliceLimit("2:"));
+    assertEquals(-1, Util.getSliceLimit("-3:-1"));
+    assertEquals(-1, Util.getSliceLimit("5:0:-1"));
+  }
+
+  @Test
+  public void test_leastOf() {
+    Comparator<String> byLength = new Comparator<String>() {
+      @Override
+      public int compare(String a, String b) {
+        return Integer.compare(a.length(), b.length());
+      }
+    };
+    List<String> words = Arrays.asList("ccc", "a", "bb", "b", "dddd", "c", "aa");
+    assertEquals(Arrays.asList("a", "b", "c", "bb"), Util.leastOf(words.iterator(), 4, byLength));
+    assertEquals(Arrays.asList("a"), Util.leastOf(words.iterator(), 1, byLength));
+    assertEquals(7, Util.leastOf(words.iterator(), 10, byLength).size());
+    assertEquals(0, Util.leastOf(words.iterator(), 0, byLength).size());
+  }
 }
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.tests.model;
+
+import java.util.List;
+
+import io.jsondb.annotation.Document;
+import io.jsondb.annotation.Id;
+import io.jsondb.annotation.Indexed;
+import io.jsondb.index.IndexType;
+
+/**
+ * A test Pojo representing a article of a knowledge base.
+ * Used to test full text indexes
+ * @version 1.0 19-Oct-2026
+ */
+@Document(collection = "articles", schemaVersion= "1.0")
+public class Article {
+  @Id
+  private String id;
+  private String title;
+  @Indexed(type = IndexType.FULL_TEXT)
+  private String body;
+  private List<String> tags;
+  private boolean published;
+
+  public Article() {
+  }
+  public Article(String id, String title, String body, List<String> tags, boolean published) {
+    this.id = id;
+    this.title = title;
+    this.body = body;
+    this.tags = tags;
+    this.published = published;
+  }
+  public String getId() {
+    return id;
+  }
+  public void setId(String id) {
+    this.id = id;
+  }
+  public String getTitle() {
+    return title;
+  }
+  public void setTitle(String title) {
+    this.title = title;
+  }
+  public String getBody() {
+    return body;
+  }
+  public void setBody(String body) {
+    this.body = body;
+  }
+  public List<String> getTags() {
+    return tags;
+  }
+  public void setTags(List<String> tags) {
+    this.tags = tags;
+  }
+  public boolean isPublished() {
+    return published;
+  }
+  public void setPublished(boolean published) {
+    this.published = published;
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.tests.model;
+
+import io.jsondb.annotation.Document;
+import io.jsondb.annotation.Id;
+import io.jsondb.annotation.Indexed;
+import io.jsondb.index.IndexType;
+
+/**
+ * A test Pojo representing a order placed by a customer.
+ * Used to test sorted indexes
+ * @version 1.0 19-Oct-2026
+ */
+@Document(collection = "orders", schemaVersion= "1.0")
+public class Order {
+  @Id
+  private String id;
+  private String customerId;
+  private long createdAt;
+  @Indexed(type = IndexType.SORTED)
+  private double total;
+
+  public Order() {
+  }
+  public Order(String id, String customerId, long createdAt, double total) {
+    this.id = id;
+    this.customerId = customerId;
+    this.createdAt = createdAt;
+    this.total = total;
+  }
+  public String getId() {
+    return id;
+  }
+  public void setId(String id) {
+    this.id = id;
+  }
+  public String getCustomerId() {
+    return customerId;
+  }
+  public void setCustomerId(String customerId) {
+    this.customerId = customerId;
+  }
+  public long getCreatedAt() {
+    return createdAt;
+  }
+  public void setCreatedAt(long createdAt) {
+    this.createdAt = createdAt;
+  }
+  public double getTotal() {
+    return total;
+  }
+  public void setTotal(double total) {
+    this.total = total;
+  }
+}
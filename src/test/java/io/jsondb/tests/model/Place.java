@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.tests.model;
+
+import io.jsondb.annotation.Document;
+import io.jsondb.annotation.Id;
+
+/**
+ * A test Pojo representing a place on the globe.
+ * Used to test spatial indexes
+ * @version 1.0 19-Oct-2026
+ */
+@Document(collection = "places", schemaVersion= "1.0")
+public class Place {
+  @Id
+  private String id;
+  private String name;
+  private Double latitude;
+  private Double longitude;
+
+  public Place() {
+  }
+  public Place(String id, String name, Double latitude, Double longitude) {
+    this.id = id;
+    this.name = name;
+    this.latitude = latitude;
+    this.longitude = longitude;
+  }
+
+  public String getId() {
+    return id;
+  }
+  public void setId(String id) {
+    this.id = id;
+  }
+  public String getName() {
+    return name;
+  }
+  public void setName(String name) {
+    this.name = name;
+  }
+  public Double getLatitude() {
+    return latitude;
+  }
+  public void setLatitude(Double latitude) {
+    this.latitude = latitude;
+  }
+  public Double getLongitude() {
+    return longitude;
+  }
+  public void setLongitude(Double longitude) {
+    this.longitude = longitude;
+  }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.tests.model;
+
+import java.util.List;
+
+import io.jsondb.annotation.Document;
+import io.jsondb.annotation.Id;
+import io.jsondb.annotation.Indexed;
+import io.jsondb.index.IndexType;
+
+/**
+ * A test Pojo representing a server with tags and a list of disks.
+ * Used to test multikey indexes
+ * @version 1.0 19-Oct-2026
+ */
+@Document(collection = "servers", schemaVersion= "1.0")
+public class Server {
+  public static class Disk {
+    private String name;
+    private int sizeGb;
+
+    public Disk() {
+    }
+    public Disk(String name, int sizeGb) {
+      this.name = name;
+      this.sizeGb = sizeGb;
+    }
+    public String getName() {
+      return name;
+    }
+    public void setName(String name) {
+      this.name = name;
+    }
+    public int getSizeGb() {
+      return sizeGb;
+    }
+    public void setSizeGb(int sizeGb) {
+      this.sizeGb = sizeGb;
+    }
+  }
+
+  @Id
+  private String id;
+  @Indexed(type = IndexType.MULTIKEY)
+  private List<String> tags;
+  private List<Disk> disks;
+
+  public Server() {
+  }
+  public Server(String id, List<String> tags, List<Disk> disks) {
+    this.id = id;
+    this.tags = tags;
+    this.disks = disks;
+  }
+  public String getId() {
+    return id;
+  }
+  public void setId(String id) {
+    this.id = id;
+  }
+  public List<String> getTags() {
+    return tags;
+  }
+  public void setTags(List<String> tags) {
+    this.tags = tags;
+  }
+  public List<Disk> getDisks() {
+    return disks;
+  }
+  public void setDisks(List<Disk> disks) {
+    this.disks = disks;
+  }
+}
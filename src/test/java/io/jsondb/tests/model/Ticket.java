@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2016 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.tests.model;
+
+import io.jsondb.annotation.Document;
+import io.jsondb.annotation.Id;
+import io.jsondb.annotation.Indexed;
+import io.jsondb.index.IndexType;
+
+/**
+ * A test Pojo representing a support ticket.
+ * Used to test bitmap indexes
+ * @version 1.0 19-Oct-2026
+ */
+@Document(collection = "tickets", schemaVersion= "1.0")
+public class Ticket {
+  public enum Status {
+    OPEN, IN_PROGRESS, CLOSED
+  }
+  public enum Region {
+    EU, US, APAC
+  }
+
+  @Id
+  private String id;
+  @Indexed(type = IndexType.BITMAP)
+  private Status status;
+  @Indexed(type = IndexType.BITMAP)
+  private Region region;
+  @Indexed(type = IndexType.BITMAP)
+  private boolean urgent;
+  private String owner;
+
+  public Ticket() {
+  }
+  public Ticket(String id, Status status, Region region, boolean urgent, String owner) {
+    this.id = id;
+    this.status = status;
+    this.region = region;
+    this.urgent = urgent;
+    this.owner = owner;
+  }
+  public String getId() {
+    return id;
+  }
+  public void setId(String id) {
+    this.id = id;
+  }
+  public Status getStatus() {
+    return status;
+  }
+  public void setStatus(Status status) {
+    this.status = status;
+  }
+  public Region getRegion() {
+    return region;
+  }
+  public void setRegion(Region region) {
+    this.region = region;
+  }
+  public boolean isUrgent() {
+    return urgent;
+  }
+  public void setUrgent(boolean urgent) {
+    this.urgent = urgent;
+  }
+  public String getOwner() {
+    return owner;
+  }
+  public void setOwner(String owner) {
+    this.owner = owner;
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2016 - 2018 Farooq Khan
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to
+ * deal in the Software without restriction, including without limitation the
+ * rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+ * sell copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL
+ * THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.jsondb.tests.util;
+
+import java.security.GeneralSecurityException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.jsondb.crypto.DefaultAESCBCCipher;
+import io.jsondb.crypto.ICipher;
+
+/**
+ * The cipher of the tests, counting how many values it decrypts
+ */
+public class CountingCipher implements ICipher {
+  private final ICipher cipher;
+  private final AtomicInteger decryptions = new AtomicInteger();
+
+  public CountingCipher() throws GeneralSecurityException {
+    this.cipher = new DefaultAESCBCCipher("1r8+24pibarAWgS85/Heeg==");
+  }
+
+  @Override
+  public String encrypt(String plainText) {
+    return cipher.encrypt(plainText);
+  }
+
+  @Override
+  public String decrypt(String cipherText) {
+    decryptions.incrementAndGet();
+    return cipher.decrypt(cipherText);
+  }
+
+  /**
+   * @return the number of values decrypted since the last reset
+   */
+  public int getDecryptions() {
+    return decryptions.get();
+  }
+
+  public void resetDecryptions() {
+    decryptions.set(0);
+  }
+}